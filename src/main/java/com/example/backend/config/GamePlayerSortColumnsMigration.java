@@ -0,0 +1,44 @@
+package com.example.backend.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Đưa các cột sắp xếp tìm kiếm player (rating, total_minutes_hired) về NOT NULL DEFAULT 0 trên CSDL có sẵn
+ * (ddl-auto=update không sửa cột đã tồn tại). Chỉ chạy với cột còn cần.
+ */
+@Component
+@Order(0)
+public class GamePlayerSortColumnsMigration implements CommandLineRunner {
+    private static final Logger logger = LoggerFactory.getLogger(GamePlayerSortColumnsMigration.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public GamePlayerSortColumnsMigration(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void run(String... args) {
+        makeNotNull("rating", "DOUBLE");
+        makeNotNull("total_minutes_hired", "BIGINT");
+    }
+
+    private void makeNotNull(String column, String type) {
+        Integer nullable = jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM information_schema.columns " +
+            "WHERE table_schema = DATABASE() AND table_name = 'game_players' AND column_name = ? " +
+            "AND (is_nullable = 'YES' OR column_default IS NULL)",
+            Integer.class, column);
+        if (nullable == null || nullable == 0) {
+            return;
+        }
+        int filled = jdbcTemplate.update("UPDATE game_players SET " + column + " = 0 WHERE " + column + " IS NULL");
+        jdbcTemplate.execute("ALTER TABLE game_players MODIFY " + column + " " + type + " NOT NULL DEFAULT 0");
+        logger.info("Đã gán 0 cho {} dòng game_players.{} null và đổi cột thành NOT NULL DEFAULT 0", filled, column);
+    }
+}
@@ -13,6 +13,7 @@ import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import com.example.backend.security.JwtAuthenticationFilter;
 import com.example.backend.security.JwtTokenUtil;
+import com.example.backend.security.RateLimitFilter;
 import org.springframework.security.core.userdetails.UserDetailsService;
 
 @Configuration
@@ -20,7 +21,8 @@ import org.springframework.security.core.userdetails.UserDetailsService;
 public class SecurityConfig {
 
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http, JwtAuthenticationFilter jwtAuthenticationFilter) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, JwtAuthenticationFilter jwtAuthenticationFilter,
+                                                   RateLimitFilter rateLimitFilter) throws Exception {
         http
             .csrf(csrf -> csrf.disable())
             .cors(cors -> cors.configure(http))
@@ -29,9 +31,11 @@ public class SecurityConfig {
                 .requestMatchers("/api/game-players/available").permitAll()
                 .requestMatchers(org.springframework.http.HttpMethod.GET, "/api/game-players").permitAll()
                 .requestMatchers("/api/games").permitAll()
+                .requestMatchers(org.springframework.http.HttpMethod.GET, "/api/games/catalog").permitAll()
                 .requestMatchers("/swagger-ui/**", "/v3/api-docs/**").permitAll()
                 .requestMatchers(org.springframework.http.HttpMethod.GET, "/api/players/*/followers/count").permitAll()
                 .requestMatchers(org.springframework.http.HttpMethod.GET, "/api/users/**").permitAll()
+                .requestMatchers(org.springframework.http.HttpMethod.GET, "/api/search/typeahead").permitAll()
                 .requestMatchers(org.springframework.http.HttpMethod.GET, "/api/game-players/*").permitAll()
                 .requestMatchers(org.springframework.http.HttpMethod.GET, "/api/game-players/**").permitAll()
                 .requestMatchers("/api/payments/vnpay-return").permitAll()
@@ -48,7 +52,9 @@ public class SecurityConfig {
             .sessionManagement(session -> session
                 .sessionCreationPolicy(SessionCreationPolicy.STATELESS)
             )
-            .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
+            .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
+            // Chạy sau JWT filter để có thể giới hạn theo user
+            .addFilterAfter(rateLimitFilter, JwtAuthenticationFilter.class);
         
         return http.build();
     }
@@ -0,0 +1,48 @@
+package com.example.backend.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Chuyển avatar_data / profile_image_data cũ từ bảng users sang bảng user_media,
+ * sau đó xoá hai cột LOB khỏi users. Chỉ chạy khi các cột còn tồn tại.
+ */
+@Component
+@Order(0)
+public class UserMediaMigration implements CommandLineRunner {
+    private static final Logger logger = LoggerFactory.getLogger(UserMediaMigration.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UserMediaMigration(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void run(String... args) {
+        migrateColumn("avatar_data", "AVATAR");
+        migrateColumn("profile_image_data", "PROFILE_IMAGE");
+    }
+
+    private void migrateColumn(String column, String mediaType) {
+        Integer exists = jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM information_schema.columns " +
+            "WHERE table_schema = DATABASE() AND table_name = 'users' AND column_name = ?",
+            Integer.class, column);
+        if (exists == null || exists == 0) {
+            return;
+        }
+        int moved = jdbcTemplate.update(
+            "INSERT INTO user_media (user_id, media_type, data, content_type, size, updated_at) " +
+            "SELECT u.id, ?, u." + column + ", 'image/jpeg', LENGTH(u." + column + "), NOW() FROM users u " +
+            "WHERE u." + column + " IS NOT NULL " +
+            "AND NOT EXISTS (SELECT 1 FROM user_media m WHERE m.user_id = u.id AND m.media_type = ?)",
+            mediaType, mediaType);
+        jdbcTemplate.execute("ALTER TABLE users DROP COLUMN " + column);
+        logger.info("Đã chuyển {} ảnh {} sang bảng user_media và xoá cột users.{}", moved, mediaType, column);
+    }
+}
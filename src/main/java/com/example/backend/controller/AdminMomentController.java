@@ -0,0 +1,31 @@
+package com.example.backend.controller;
+
+import com.example.backend.service.MomentSeenService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/admin/moments")
+@CrossOrigin(origins = "*")
+@PreAuthorize("hasRole('ADMIN')")
+@Tag(name = "Admin Moments", description = "Admin moment maintenance APIs")
+public class AdminMomentController {
+    private final MomentSeenService momentSeenService;
+
+    public AdminMomentController(MomentSeenService momentSeenService) {
+        this.momentSeenService = momentSeenService;
+    }
+
+    @Operation(summary = "Fold one batch of legacy moment views into seen watermarks; call again with nextAfterId until it is null")
+    @PostMapping("/seen-migration")
+    public ResponseEntity<MomentSeenService.ViewMigrationReport> migrateMomentViews(
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(defaultValue = "1000") int limit,
+            @RequestParam(defaultValue = "false") boolean deleteFolded) {
+        int batchSize = Math.max(1, Math.min(limit, 10000));
+        return ResponseEntity.ok(momentSeenService.migrateMomentViews(afterId, batchSize, deleteFolded));
+    }
+}
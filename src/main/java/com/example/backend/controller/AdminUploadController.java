@@ -0,0 +1,47 @@
+package com.example.backend.controller;
+
+import com.example.backend.service.UploadGarbageCollector;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/uploads")
+@CrossOrigin(origins = "*")
+@PreAuthorize("hasRole('ADMIN')")
+@Tag(name = "Admin Uploads", description = "Admin upload maintenance APIs")
+public class AdminUploadController {
+    private final UploadGarbageCollector uploadGarbageCollector;
+
+    public AdminUploadController(UploadGarbageCollector uploadGarbageCollector) {
+        this.uploadGarbageCollector = uploadGarbageCollector;
+    }
+
+    @Operation(summary = "Get the last orphaned-upload collection report and cumulative totals")
+    @GetMapping("/gc")
+    public ResponseEntity<Map<String, Object>> getGcStatus() {
+        Map<String, Object> result = new HashMap<>();
+        result.put("running", uploadGarbageCollector.isRunning());
+        result.put("lastReport", uploadGarbageCollector.getLastReport());
+        result.put("totalRuns", uploadGarbageCollector.getTotalRuns());
+        result.put("totalDeleted", uploadGarbageCollector.getTotalDeleted());
+        result.put("totalBytesReclaimed", uploadGarbageCollector.getTotalBytesReclaimed());
+        return ResponseEntity.ok(result);
+    }
+
+    @Operation(summary = "Run the orphaned-upload collector (dry run by default)")
+    @PostMapping("/gc")
+    public ResponseEntity<?> runGc(@RequestParam(defaultValue = "true") boolean dryRun) {
+        UploadGarbageCollector.GcReport report = uploadGarbageCollector.run(dryRun);
+        if (report == null) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", "Upload GC is already running"));
+        }
+        return ResponseEntity.ok(report);
+    }
+}
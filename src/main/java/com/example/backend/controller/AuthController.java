@@ -1,5 +1,6 @@
 package com.example.backend.controller;
 
+import com.example.backend.entity.FileReference;
 import com.example.backend.entity.User;
 import com.example.backend.security.JwtTokenUtil;
 import com.example.backend.service.UserService;
@@ -17,11 +18,18 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import java.time.LocalDate;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.ByteArrayOutputStream;
-import java.net.URL;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.CacheControl;
+import org.springframework.web.context.request.ServletWebRequest;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.annotation.Isolation;
 import org.slf4j.Logger;
@@ -33,6 +41,9 @@ import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
 import com.example.backend.service.FileStorageService;
+import com.example.backend.service.UserMediaService;
+import com.example.backend.service.RemoteImageImportService;
+import com.example.backend.entity.UserMedia;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -45,19 +56,28 @@ public class AuthController {
     private final NotificationService notificationService;
     private final PasswordResetService passwordResetService;
     private final FileStorageService fileStorageService;
+    private final UserMediaService userMediaService;
+    private final RemoteImageImportService remoteImageImportService;
+
+    @Value("${remote-import.wait-ms:3000}")
+    private long importWaitMs;
 
     public AuthController(AuthenticationManager authenticationManager,
                          JwtTokenUtil jwtTokenUtil,
                          UserService userService,
                          NotificationService notificationService,
                          PasswordResetService passwordResetService,
-                         FileStorageService fileStorageService) {
+                         FileStorageService fileStorageService,
+                         UserMediaService userMediaService,
+                         RemoteImageImportService remoteImageImportService) {
         this.authenticationManager = authenticationManager;
         this.jwtTokenUtil = jwtTokenUtil;
         this.userService = userService;
         this.notificationService = notificationService;
         this.passwordResetService = passwordResetService;
         this.fileStorageService = fileStorageService;
+        this.userMediaService = userMediaService;
+        this.remoteImageImportService = remoteImageImportService;
     }
 
     @PostMapping("/register")
@@ -200,6 +220,10 @@ public class AuthController {
     @PostMapping("/logout")
     public ResponseEntity<?> logout(Authentication authentication) {
         if (authentication == null) return ResponseEntity.ok().build();
+        String token = jwtTokenUtil.getTokenFromRequest();
+        if (token != null) {
+            jwtTokenUtil.invalidateToken(token);
+        }
         User user = userService.findByUsername(authentication.getName());
         userService.setUserOffline(user.getId());
         return ResponseEntity.ok().build();
@@ -252,6 +276,7 @@ public class AuthController {
             Authentication authentication) throws IOException {
         User currentUser = userService.findByUsername(authentication.getName());
         String url = fileStorageService.storeFile(file, "cover-images");
+        fileStorageService.replaceReference(currentUser.getCoverImageUrl(), url, FileReference.COVER_IMAGE, currentUser.getId());
         currentUser.setCoverImageUrl(url);
         userService.save(currentUser);
         return ResponseEntity.ok(Map.of("coverImageUrl", url));
@@ -312,65 +337,105 @@ public class AuthController {
     @PostMapping("/update/avatar-db")
     public ResponseEntity<?> updateAvatarDb(@RequestParam("file") MultipartFile file, Authentication authentication) throws IOException {
         User currentUser = userService.findByUsername(authentication.getName());
-        currentUser.setAvatarData(file.getBytes());
-        userService.save(currentUser);
+        userMediaService.store(currentUser.getId(), UserMedia.AVATAR, file.getBytes(), file.getContentType());
         return ResponseEntity.ok().build();
     }
 
     @GetMapping(value = "/avatar/{userId}", produces = MediaType.IMAGE_JPEG_VALUE)
-    public ResponseEntity<byte[]> getAvatar(@PathVariable Long userId) {
-        User user = userService.findById(userId);
-        byte[] image = user.getAvatarData();
-        return ResponseEntity.ok().contentType(MediaType.IMAGE_JPEG).body(image);
+    public ResponseEntity<byte[]> getAvatar(@PathVariable Long userId, HttpServletRequest request) {
+        return serveUserMedia(userId, UserMedia.AVATAR, request);
     }
 
     @PostMapping("/update/profile-image-db")
     public ResponseEntity<?> updateProfileImageDb(@RequestParam("file") MultipartFile file, Authentication authentication) throws IOException {
         User currentUser = userService.findByUsername(authentication.getName());
-        currentUser.setProfileImageData(file.getBytes());
-        userService.save(currentUser);
+        userMediaService.store(currentUser.getId(), UserMedia.PROFILE_IMAGE, file.getBytes(), file.getContentType());
         return ResponseEntity.ok().build();
     }
 
     @GetMapping(value = "/profile-image/{userId}", produces = MediaType.IMAGE_JPEG_VALUE)
-    public ResponseEntity<byte[]> getProfileImage(@PathVariable Long userId) {
-        User user = userService.findById(userId);
-        byte[] image = user.getProfileImageData();
-        return ResponseEntity.ok().contentType(MediaType.IMAGE_JPEG).body(image);
+    public ResponseEntity<byte[]> getProfileImage(@PathVariable Long userId, HttpServletRequest request) {
+        return serveUserMedia(userId, UserMedia.PROFILE_IMAGE, request);
+    }
+
+    // Kiểm tra If-None-Match bằng ETag trước, chỉ tải ảnh khi client chưa có bản mới nhất
+    private ResponseEntity<byte[]> serveUserMedia(Long userId, String mediaType, HttpServletRequest request) {
+        String etag = userMediaService.findEtag(userId, mediaType).orElse(null);
+        if (etag == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (new ServletWebRequest(request).checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(CacheControl.noCache()).build();
+        }
+        return userMediaService.find(userId, mediaType)
+                .map(media -> ResponseEntity.ok()
+                        .contentType(media.getContentType() != null
+                                ? MediaType.parseMediaType(media.getContentType())
+                                : MediaType.IMAGE_JPEG)
+                        .eTag(media.getEtag())
+                        .cacheControl(CacheControl.noCache())
+                        .body(media.getData()))
+                .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
     @PostMapping("/update/avatar-from-url")
-    public ResponseEntity<?> updateAvatarFromUrl(@RequestBody ImageUrlRequest request, Authentication authentication) throws IOException {
+    public ResponseEntity<?> updateAvatarFromUrl(@RequestBody ImageUrlRequest request, Authentication authentication) {
+        return importImageFromUrl(request, authentication, UserMedia.AVATAR);
+    }
+
+    @PostMapping("/update/profile-image-from-url")
+    public ResponseEntity<?> updateProfileImageFromUrl(@RequestBody ImageUrlRequest request, Authentication authentication) {
+        return importImageFromUrl(request, authentication, UserMedia.PROFILE_IMAGE);
+    }
+
+    @GetMapping("/update/image-import/{jobId}")
+    public ResponseEntity<?> getImageImportStatus(@PathVariable String jobId, Authentication authentication) {
         User currentUser = userService.findByUsername(authentication.getName());
-        URL url = new URL(request.getUrl());
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        try (InputStream is = url.openStream()) {
-            byte[] buffer = new byte[8192];
-            int n;
-            while ((n = is.read(buffer)) > 0) {
-                baos.write(buffer, 0, n);
-            }
+        RemoteImageImportService.ImportJob job = remoteImageImportService.getJob(jobId);
+        if (job == null || !job.getUserId().equals(currentUser.getId())) {
+            return ResponseEntity.notFound().build();
         }
-        currentUser.setAvatarData(baos.toByteArray());
-        userService.save(currentUser);
-        return ResponseEntity.ok().build();
+        return importJobResponse(job);
     }
 
-    @PostMapping("/update/profile-image-from-url")
-    public ResponseEntity<?> updateProfileImageFromUrl(@RequestBody ImageUrlRequest request, Authentication authentication) throws IOException {
+    // Tải ảnh trên executor riêng; chờ tối đa remote-import.wait-ms rồi trả jobId để client hỏi lại
+    private ResponseEntity<?> importImageFromUrl(ImageUrlRequest request, Authentication authentication, String mediaType) {
         User currentUser = userService.findByUsername(authentication.getName());
-        URL url = new URL(request.getUrl());
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        try (InputStream is = url.openStream()) {
-            byte[] buffer = new byte[8192];
-            int n;
-            while ((n = is.read(buffer)) > 0) {
-                baos.write(buffer, 0, n);
-            }
+        RemoteImageImportService.ImportJob job;
+        try {
+            job = remoteImageImportService.submit(currentUser.getId(), mediaType, request.getUrl());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "5")
+                    .body(Map.of("error", "Too many image imports in progress"));
+        }
+        try {
+            job.getResult().get(importWaitMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            // Trạng thái job được trả về bên dưới
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return importJobResponse(job);
+    }
+
+    private ResponseEntity<?> importJobResponse(RemoteImageImportService.ImportJob job) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("jobId", job.getId());
+        body.put("status", job.getStatus().name());
+        switch (job.getStatus()) {
+            case DONE:
+                body.put("contentType", job.getResult().join());
+                return ResponseEntity.ok(body);
+            case FAILED:
+                body.put("error", job.getError());
+                return ResponseEntity.badRequest().body(body);
+            default:
+                body.put("statusUrl", "/api/auth/update/image-import/" + job.getId());
+                return ResponseEntity.status(HttpStatus.ACCEPTED).body(body);
         }
-        currentUser.setProfileImageData(baos.toByteArray());
-        userService.save(currentUser);
-        return ResponseEntity.ok().build();
     }
 
     @PostMapping("/update/avatar-from-gallery")
@@ -2,10 +2,12 @@ package com.example.backend.controller;
 
 import com.example.backend.entity.GameCategory;
 import com.example.backend.repository.GameCategoryRepository;
+import com.example.backend.service.GameCatalogCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -17,10 +19,12 @@ public class GameCategoryController {
     @Autowired
     private GameCategoryRepository gameCategoryRepository;
 
+    @Autowired
+    private GameCatalogCache gameCatalogCache;
+
     @GetMapping
-    public ResponseEntity<List<GameCategory>> getAllCategories() {
-        List<GameCategory> categories = gameCategoryRepository.findByActiveTrue();
-        return ResponseEntity.ok(categories);
+    public ResponseEntity<List<GameCategory>> getAllCategories(WebRequest request) {
+        return GameCatalogCache.respond(gameCatalogCache.get().categories(), request);
     }
 
     @PostMapping
@@ -29,7 +33,9 @@ public class GameCategoryController {
         if (gameCategoryRepository.findByName(category.getName()) != null) {
             return ResponseEntity.badRequest().build();
         }
-        return ResponseEntity.ok(gameCategoryRepository.save(category));
+        GameCategory saved = gameCategoryRepository.save(category);
+        gameCatalogCache.invalidate();
+        return ResponseEntity.ok(saved);
     }
 
     @PutMapping("/{id}")
@@ -40,7 +46,9 @@ public class GameCategoryController {
                 existingCategory.setName(category.getName());
                 existingCategory.setDescription(category.getDescription());
                 existingCategory.setActive(category.getActive());
-                return ResponseEntity.ok(gameCategoryRepository.save(existingCategory));
+                GameCategory saved = gameCategoryRepository.save(existingCategory);
+                gameCatalogCache.invalidate();
+                return ResponseEntity.ok(saved);
             })
             .orElseGet(() -> ResponseEntity.notFound().build());
     }
@@ -52,6 +60,7 @@ public class GameCategoryController {
             .map(category -> {
                 category.setActive(false);
                 gameCategoryRepository.save(category);
+                gameCatalogCache.invalidate();
                 return ResponseEntity.ok().build();
             })
             .orElseGet(() -> ResponseEntity.notFound().build());
@@ -5,10 +5,12 @@ import com.example.backend.repository.GameRepository;
 import com.example.backend.repository.GamePlayerRepository;
 import com.example.backend.repository.UserRepository;
 import com.example.backend.dto.GameResponseDTO;
+import com.example.backend.service.GameCatalogCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -35,30 +37,31 @@ public class GameController {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private GameCatalogCache gameCatalogCache;
+
     @PostMapping
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<?> createGame(@RequestBody Game game) {
         if (gameRepository.findByName(game.getName()).isPresent()) {
             return ResponseEntity.badRequest().body("Game name already exists");
         }
-        return ResponseEntity.ok(gameRepository.save(game));
+        Game saved = gameRepository.save(game);
+        gameCatalogCache.invalidate();
+        return ResponseEntity.ok(saved);
     }
 
     @GetMapping
-    public ResponseEntity<?> getAllGames() {
-        List<Game> games = gameRepository.findAll();
-        List<GameResponseDTO> result = games.stream().map(game -> new GameResponseDTO(
-                game.getId(),
-                game.getName(),
-                game.getImageUrl(),
-                game.getCategory(),
-                game.getPlatform(),
-                game.getStatus(),
-                gamePlayerRepository.countByGameId(game.getId()),
-                game.getAvailableRoles(),
-                game.getAvailableRanks()
-        )).collect(Collectors.toList());
-        return ResponseEntity.ok(result);
+    public ResponseEntity<List<GameResponseDTO>> getAllGames(WebRequest request) {
+        return GameCatalogCache.respond(gameCatalogCache.get().games(), request);
+    }
+
+    /**
+     * Toàn bộ danh mục (game, thể loại, nền tảng, trạng thái) trong một lần gọi, dùng khi client khởi động
+     */
+    @GetMapping("/catalog")
+    public ResponseEntity<Map<String, Object>> getCatalog(WebRequest request) {
+        return GameCatalogCache.respond(gameCatalogCache.get().all(), request);
     }
 
     @GetMapping("/dashboard")
@@ -253,20 +256,8 @@ public class GameController {
     }
 
     @GetMapping("/detail")
-    public ResponseEntity<?> getAllGamesDetail() {
-        List<Game> games = gameRepository.findAll();
-        List<GameResponseDTO> result = games.stream().map(game -> new GameResponseDTO(
-                game.getId(),
-                game.getName(),
-                game.getImageUrl(),
-                game.getCategory(),
-                game.getPlatform(),
-                game.getStatus(),
-                gamePlayerRepository.countByGameId(game.getId()),
-                game.getAvailableRoles(),
-                game.getAvailableRanks()
-        )).collect(Collectors.toList());
-        return ResponseEntity.ok(result);
+    public ResponseEntity<List<GameResponseDTO>> getAllGamesDetail(WebRequest request) {
+        return GameCatalogCache.respond(gameCatalogCache.get().games(), request);
     }
 
     @GetMapping("/real-data")
@@ -276,6 +267,9 @@ public class GameController {
             List<Game> games = gameRepository.findAll();
             long totalGamePlayers = gamePlayerRepository.count();
             long totalUsers = userRepository.count();
+            // Số player theo game lấy từ danh mục đã đếm gộp sẵn
+            Map<Long, Long> playerCounts = gameCatalogCache.get().games().body().stream()
+                .collect(Collectors.toMap(GameResponseDTO::getId, GameResponseDTO::getPlayerCount));
             
             // Thống kê game theo category
             Map<String, Long> categoryStats = games.stream()
@@ -307,7 +301,7 @@ public class GameController {
                 "category", game.getCategory(),
                 "status", game.getStatus(),
                 "platform", game.getPlatform(),
-                "playerCount", gamePlayerRepository.countByGameId(game.getId())
+                "playerCount", playerCounts.getOrDefault(game.getId(), 0L)
             )).collect(Collectors.toList()));
             
             return ResponseEntity.ok(response);
@@ -332,7 +326,9 @@ public class GameController {
                 game.setHasRoles(updatedGame.getHasRoles());
                 game.setAvailableRoles(updatedGame.getAvailableRoles());
                 game.setAvailableRanks(updatedGame.getAvailableRanks());
-                return ResponseEntity.ok(gameRepository.save(game));
+                Game saved = gameRepository.save(game);
+                gameCatalogCache.invalidate();
+                return ResponseEntity.ok(saved);
             })
             .orElseGet(() -> ResponseEntity.notFound().build());
     }
@@ -348,6 +344,7 @@ public class GameController {
             return ResponseEntity.badRequest().body("Không thể xóa game vì còn " + playerCount + " player đang đăng ký game này.");
         }
         gameRepository.deleteById(id);
+        gameCatalogCache.invalidate();
         return ResponseEntity.ok("Game deleted successfully");
     }
 } 
\ No newline at end of file
@@ -2,10 +2,12 @@ package com.example.backend.controller;
 
 import com.example.backend.entity.GamePlatform;
 import com.example.backend.repository.GamePlatformRepository;
+import com.example.backend.service.GameCatalogCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -17,10 +19,12 @@ public class GamePlatformController {
     @Autowired
     private GamePlatformRepository gamePlatformRepository;
 
+    @Autowired
+    private GameCatalogCache gameCatalogCache;
+
     @GetMapping
-    public ResponseEntity<List<GamePlatform>> getAllPlatforms() {
-        List<GamePlatform> platforms = gamePlatformRepository.findByActiveTrue();
-        return ResponseEntity.ok(platforms);
+    public ResponseEntity<List<GamePlatform>> getAllPlatforms(WebRequest request) {
+        return GameCatalogCache.respond(gameCatalogCache.get().platforms(), request);
     }
 
     @PostMapping
@@ -29,7 +33,9 @@ public class GamePlatformController {
         if (gamePlatformRepository.findByName(platform.getName()) != null) {
             return ResponseEntity.badRequest().build();
         }
-        return ResponseEntity.ok(gamePlatformRepository.save(platform));
+        GamePlatform saved = gamePlatformRepository.save(platform);
+        gameCatalogCache.invalidate();
+        return ResponseEntity.ok(saved);
     }
 
     @PutMapping("/{id}")
@@ -40,7 +46,9 @@ public class GamePlatformController {
                 existingPlatform.setName(platform.getName());
                 existingPlatform.setDescription(platform.getDescription());
                 existingPlatform.setActive(platform.getActive());
-                return ResponseEntity.ok(gamePlatformRepository.save(existingPlatform));
+                GamePlatform saved = gamePlatformRepository.save(existingPlatform);
+                gameCatalogCache.invalidate();
+                return ResponseEntity.ok(saved);
             })
             .orElseGet(() -> ResponseEntity.notFound().build());
     }
@@ -52,6 +60,7 @@ public class GamePlatformController {
             .map(platform -> {
                 platform.setActive(false);
                 gamePlatformRepository.save(platform);
+                gameCatalogCache.invalidate();
                 return ResponseEntity.ok().build();
             })
             .orElseGet(() -> ResponseEntity.notFound().build());
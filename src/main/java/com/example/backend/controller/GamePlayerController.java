@@ -43,6 +43,15 @@ import com.example.backend.repository.PlayerReviewRepository;
 import com.example.backend.dto.ReviewRequest;
 import com.example.backend.dto.GamePlayerSummaryDTO;
 import com.example.backend.service.OrderService;
+import com.example.backend.service.BanStateCache;
+import com.example.backend.service.GamePlayerSearchService;
+import com.example.backend.service.GamePlayerFacetIndex;
+import com.example.backend.service.PlayerRatingService;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Set;
+import com.example.backend.dto.CursorPage;
+import com.example.backend.dto.PlayerCardDTO;
 import java.util.ArrayList;
 
 @RestController
@@ -60,9 +69,13 @@ public class GamePlayerController {
     private final OrderRepository orderRepository;
     private final PlayerReviewRepository playerReviewRepository;
     private final OrderService orderService;
+    private final BanStateCache banStateCache;
+    private final GamePlayerSearchService gamePlayerSearchService;
+    private final GamePlayerFacetIndex gamePlayerFacetIndex;
+    private final PlayerRatingService playerRatingService;
     private static final Logger log = LoggerFactory.getLogger(GamePlayerController.class);
 
-    public GamePlayerController(GamePlayerService gamePlayerService, GameRepository gameRepository, UserService userService, PaymentRepository paymentRepository, NotificationService notificationService, RevenueRepository revenueRepository, ReviewRepository reviewRepository, OrderRepository orderRepository, PlayerReviewRepository playerReviewRepository, OrderService orderService) {
+    public GamePlayerController(GamePlayerService gamePlayerService, GameRepository gameRepository, UserService userService, PaymentRepository paymentRepository, NotificationService notificationService, RevenueRepository revenueRepository, ReviewRepository reviewRepository, OrderRepository orderRepository, PlayerReviewRepository playerReviewRepository, OrderService orderService, BanStateCache banStateCache, GamePlayerSearchService gamePlayerSearchService, GamePlayerFacetIndex gamePlayerFacetIndex, PlayerRatingService playerRatingService) {
         this.gamePlayerService = gamePlayerService;
         this.gameRepository = gameRepository;
         this.userService = userService;
@@ -73,6 +86,10 @@ public class GamePlayerController {
         this.orderRepository = orderRepository;
         this.playerReviewRepository = playerReviewRepository;
         this.orderService = orderService;
+        this.banStateCache = banStateCache;
+        this.gamePlayerSearchService = gamePlayerSearchService;
+        this.gamePlayerFacetIndex = gamePlayerFacetIndex;
+        this.playerRatingService = playerRatingService;
     }
 
     @Data
@@ -249,6 +266,67 @@ public class GamePlayerController {
         return ResponseEntity.ok(new ApiResponse<>(true, "Game players retrieved successfully", gamePlayers));
     }
 
+    @GetMapping("/search")
+    @Operation(summary = "Search game players by any combination of filters, with sorting and cursor pagination")
+    public ResponseEntity<ApiResponse<CursorPage<PlayerCardDTO>>> searchGamePlayers(
+            @RequestParam(required = false) Long gameId,
+            @RequestParam(required = false) String rank,
+            @RequestParam(required = false) String role,
+            @RequestParam(required = false) String server,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(required = false) Double minRating,
+            @RequestParam(required = false) Boolean online,
+            @RequestParam(required = false) String sort,
+            @RequestParam(defaultValue = "desc") String direction,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + GamePlayerSearchService.DEFAULT_LIMIT) int limit) {
+        try {
+            GamePlayerSearchService.Criteria criteria = new GamePlayerSearchService.Criteria(
+                    gameId, rank, role, server, status, minPrice, maxPrice, minRating, online);
+            CursorPage<PlayerCardDTO> page = gamePlayerSearchService.search(criteria,
+                    GamePlayerSearchService.SortField.fromParam(sort), "asc".equalsIgnoreCase(direction), cursor, limit);
+            return ResponseEntity.ok(new ApiResponse<>(true, "Game players retrieved successfully", page));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(new ApiResponse<>(false, e.getMessage(), null));
+        }
+    }
+
+    @GetMapping("/facets")
+    @Operation(summary = "Filter game players and count them per game, rank, role, server, status and price bucket")
+    public ResponseEntity<ApiResponse<Map<String, Object>>> getGamePlayerFacets(
+            @RequestParam(required = false) List<String> gameId,
+            @RequestParam(required = false) List<String> rank,
+            @RequestParam(required = false) List<String> role,
+            @RequestParam(required = false) List<String> server,
+            @RequestParam(required = false) List<String> status,
+            @RequestParam(required = false) List<String> priceBucket,
+            @RequestParam(defaultValue = "" + GamePlayerSearchService.DEFAULT_LIMIT) int limit) {
+        Map<GamePlayerFacetIndex.Facet, Set<String>> filters = new EnumMap<>(GamePlayerFacetIndex.Facet.class);
+        addFacetFilter(filters, GamePlayerFacetIndex.Facet.GAME, gameId);
+        addFacetFilter(filters, GamePlayerFacetIndex.Facet.RANK, rank);
+        addFacetFilter(filters, GamePlayerFacetIndex.Facet.ROLE, role);
+        addFacetFilter(filters, GamePlayerFacetIndex.Facet.SERVER, server);
+        addFacetFilter(filters, GamePlayerFacetIndex.Facet.STATUS, status);
+        addFacetFilter(filters, GamePlayerFacetIndex.Facet.PRICE, priceBucket);
+
+        GamePlayerFacetIndex.FacetResult facets = gamePlayerFacetIndex.query(filters,
+                Math.max(0, Math.min(limit, GamePlayerSearchService.MAX_LIMIT)));
+        Map<String, Object> result = new HashMap<>();
+        result.put("total", facets.total());
+        result.put("counts", facets.counts());
+        result.put("players", gamePlayerSearchService.findCards(facets.ids()));
+        return ResponseEntity.ok(new ApiResponse<>(true, "Game player facets retrieved successfully", result));
+    }
+
+    private static void addFacetFilter(Map<GamePlayerFacetIndex.Facet, Set<String>> filters,
+                                       GamePlayerFacetIndex.Facet facet, List<String> values) {
+        if (values != null && !values.isEmpty()) {
+            filters.put(facet, new HashSet<>(values));
+        }
+    }
+
     @GetMapping("/available")
     @Operation(summary = "Get available game players")
     public ResponseEntity<ApiResponse<List<GamePlayer>>> getAvailableGamePlayers() {
@@ -279,8 +357,19 @@ public class GamePlayerController {
                     .body(new ApiResponse<>(false, "Thời gian bắt đầu thuê phải cách thời điểm hiện tại ít nhất 15 phút", null));
             }
 
+            // Kiểm tra ban từ bộ nhớ trước mọi truy vấn: transaction SERIALIZABLE đã mở nhưng chưa lấy khóa đọc nào,
+            // user bị khóa bị từ chối mà không chạm DB
+            if (banStateCache.isBanned(request.getUserId())) {
+                return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(new ApiResponse<>(false, "Tài khoản của bạn đang bị khóa", null));
+            }
+
             // Check if player is available
             GamePlayer gamePlayer = gamePlayerService.findById(id);
+            if (banStateCache.isBanned(gamePlayer.getUser().getId())) {
+                return ResponseEntity.badRequest()
+                    .body(new ApiResponse<>(false, "Player này đang bị khóa", null));
+            }
 
             // Check if player is already hired in the requested time period
             List<Payment> activeHires = paymentRepository.findByPlayerIdAndStatusAndEndTimeAfter(
@@ -463,11 +552,9 @@ public class GamePlayerController {
 
     @PutMapping("/{id}/rating")
     @PreAuthorize("hasRole('USER')")
-    @Operation(summary = "Update game player rating")
-    public ResponseEntity<ApiResponse<GamePlayer>> updateRating(
-            @PathVariable Long id,
-            @RequestParam @Min(0) @Max(5) Double rating) {
-        GamePlayer gamePlayer = gamePlayerService.updateRating(id, rating);
+    @Operation(summary = "Recalculate game player rating from its reviews")
+    public ResponseEntity<ApiResponse<GamePlayer>> updateRating(@PathVariable Long id) {
+        GamePlayer gamePlayer = gamePlayerService.recalculateRating(id);
         return ResponseEntity.ok(new ApiResponse<>(true, "Game player rating updated successfully", gamePlayer));
     }
 
@@ -955,7 +1042,7 @@ public class GamePlayerController {
             review.setRating(request.getRating());
             review.setComment(request.getComment());
             review.setCreatedAt(java.time.LocalDateTime.now());
-            playerReviewRepository.save(review);
+            playerRatingService.createPlayerReview(review);
 
             // Gửi notification cho player
             notificationService.createNotification(
@@ -1101,8 +1188,7 @@ public class GamePlayerController {
             int totalOrders = orderRepository.findAll().stream().filter(o -> o.getPlayer() != null && o.getPlayer().getId().equals(gp.getId())).toList().size();
             dto.setTotalOrders(totalOrders);
             // Số đánh giá
-            int totalReviews = playerReviewRepository.findByGamePlayerUserId(gp.getUser().getId()).size();
-            dto.setTotalReviews(totalReviews);
+            dto.setTotalReviews((int) playerRatingService.getUserSummary(gp.getUser().getId()).totalReviews());
             // Thu nhập: tổng price các order hoàn thành
             long totalRevenue = orderRepository.findAll().stream()
                 .filter(o -> o.getPlayer() != null && o.getPlayer().getId().equals(gp.getId()) && "COMPLETED".equalsIgnoreCase(o.getStatus()))
@@ -2,10 +2,12 @@ package com.example.backend.controller;
 
 import com.example.backend.entity.GameStatus;
 import com.example.backend.repository.GameStatusRepository;
+import com.example.backend.service.GameCatalogCache;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 
@@ -17,10 +19,12 @@ public class GameStatusController {
     @Autowired
     private GameStatusRepository gameStatusRepository;
 
+    @Autowired
+    private GameCatalogCache gameCatalogCache;
+
     @GetMapping
-    public ResponseEntity<List<GameStatus>> getAllStatuses() {
-        List<GameStatus> statuses = gameStatusRepository.findByActiveTrue();
-        return ResponseEntity.ok(statuses);
+    public ResponseEntity<List<GameStatus>> getAllStatuses(WebRequest request) {
+        return GameCatalogCache.respond(gameCatalogCache.get().statuses(), request);
     }
 
     @PostMapping
@@ -29,7 +33,9 @@ public class GameStatusController {
         if (gameStatusRepository.findByName(status.getName()) != null) {
             return ResponseEntity.badRequest().build();
         }
-        return ResponseEntity.ok(gameStatusRepository.save(status));
+        GameStatus saved = gameStatusRepository.save(status);
+        gameCatalogCache.invalidate();
+        return ResponseEntity.ok(saved);
     }
 
     @PutMapping("/{id}")
@@ -40,7 +46,9 @@ public class GameStatusController {
                 existingStatus.setName(status.getName());
                 existingStatus.setDescription(status.getDescription());
                 existingStatus.setActive(status.getActive());
-                return ResponseEntity.ok(gameStatusRepository.save(existingStatus));
+                GameStatus saved = gameStatusRepository.save(existingStatus);
+                gameCatalogCache.invalidate();
+                return ResponseEntity.ok(saved);
             })
             .orElseGet(() -> ResponseEntity.notFound().build());
     }
@@ -52,6 +60,7 @@ public class GameStatusController {
             .map(status -> {
                 status.setActive(false);
                 gameStatusRepository.save(status);
+                gameCatalogCache.invalidate();
                 return ResponseEntity.ok().build();
             })
             .orElseGet(() -> ResponseEntity.notFound().build());
@@ -1,32 +1,25 @@
 package com.example.backend.controller;
 
+import com.example.backend.dto.CursorPage;
 import com.example.backend.dto.MomentDTO;
 import com.example.backend.dto.CreateMomentRequest;
 import com.example.backend.service.MomentService;
 import com.example.backend.service.UserService;
 import com.example.backend.service.FileStorageService;
+import com.example.backend.service.StaticMediaService;
 import com.example.backend.entity.User;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.http.MediaType;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
-import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import jakarta.servlet.http.HttpServletRequest;
 import java.io.IOException;
-import java.net.MalformedURLException;
-import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Map;
@@ -46,8 +39,8 @@ public class MomentController {
     @Autowired
     private FileStorageService fileStorageService;
 
-    @Value("${file.upload-dir}")
-    private String uploadDir;
+    @Autowired
+    private StaticMediaService staticMediaService;
 
     @PostMapping(value = "/{gamePlayerId}", consumes = MediaType.APPLICATION_JSON_VALUE)
     @PreAuthorize("isAuthenticated()")
@@ -175,52 +168,48 @@ public class MomentController {
     }
 
     @GetMapping("/player/{gamePlayerId}")
-    @Operation(summary = "Get moments by game player ID")
-    public ResponseEntity<Page<MomentDTO>> getMomentsByGamePlayerId(
+    @Operation(summary = "Get moments by game player ID (cursor pagination)")
+    public ResponseEntity<CursorPage<MomentDTO>> getMomentsByGamePlayerId(
             @PathVariable Long gamePlayerId,
-            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "10") int size) {
         
-        Pageable pageable = PageRequest.of(page, size);
-        Page<MomentDTO> moments = momentService.getMomentsByGamePlayerId(gamePlayerId, pageable);
+        CursorPage<MomentDTO> moments = momentService.getMomentsByGamePlayerId(gamePlayerId, cursor, size);
         return ResponseEntity.ok(moments);
     }
 
     @GetMapping("/my-moments")
     @PreAuthorize("isAuthenticated()")
-    @Operation(summary = "Get current user's moments")
-    public ResponseEntity<Page<MomentDTO>> getMyMoments(
+    @Operation(summary = "Get current user's moments (cursor pagination)")
+    public ResponseEntity<CursorPage<MomentDTO>> getMyMoments(
             Authentication authentication,
-            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "10") int size) {
         
         User user = userService.findByUsername(authentication.getName());
-        Pageable pageable = PageRequest.of(page, size);
-        Page<MomentDTO> moments = momentService.getMyMoments(user.getId(), pageable);
+        CursorPage<MomentDTO> moments = momentService.getMyMoments(user.getId(), cursor, size);
         return ResponseEntity.ok(moments);
     }
 
     @GetMapping("/feed")
     @PreAuthorize("isAuthenticated()")
-    @Operation(summary = "Get moment feed (moments from followed players)")
-    public ResponseEntity<Page<MomentDTO>> getMomentFeed(
+    @Operation(summary = "Get moment feed (moments from followed players, cursor pagination)")
+    public ResponseEntity<CursorPage<MomentDTO>> getMomentFeed(
             Authentication authentication,
-            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "10") int size) {
         
         User user = userService.findByUsername(authentication.getName());
-        Pageable pageable = PageRequest.of(page, size);
-        Page<MomentDTO> moments = momentService.getMomentFeed(user.getId(), pageable);
+        CursorPage<MomentDTO> moments = momentService.getMomentFeed(user.getId(), cursor, size);
         return ResponseEntity.ok(moments);
     }
 
     @GetMapping("/all")
-    @Operation(summary = "Get all moments (public, paginated)")
-    public ResponseEntity<Page<MomentDTO>> getAllMoments(
-            @RequestParam(defaultValue = "0") int page,
+    @Operation(summary = "Get all moments (public, cursor pagination)")
+    public ResponseEntity<CursorPage<MomentDTO>> getAllMoments(
+            @RequestParam(required = false) String cursor,
             @RequestParam(defaultValue = "10") int size) {
-        Pageable pageable = PageRequest.of(page, size);
-        Page<MomentDTO> moments = momentService.getAllMoments(pageable);
+        CursorPage<MomentDTO> moments = momentService.getAllMoments(cursor, size);
         return ResponseEntity.ok(moments);
     }
 
@@ -305,33 +294,14 @@ public class MomentController {
 
     @GetMapping("/moment-images/{filename:.+}")
     @Operation(summary = "Get moment image by filename")
-    public ResponseEntity<Resource> getMomentImage(@PathVariable String filename) {
+    public ResponseEntity<?> getMomentImage(@PathVariable String filename,
+                                            @RequestParam(required = false) String size,
+                                            HttpServletRequest request) {
         try {
-            Path filePath = Paths.get(uploadDir).resolve("moment-images").resolve(filename);
-            Resource resource = new UrlResource(filePath.toUri());
-            
-            if (resource.exists() && resource.isReadable()) {
-                // Determine content type based on file extension
-                String contentType = "image/jpeg"; // default
-                if (filename.toLowerCase().endsWith(".png")) {
-                    contentType = "image/png";
-                } else if (filename.toLowerCase().endsWith(".gif")) {
-                    contentType = "image/gif";
-                } else if (filename.toLowerCase().endsWith(".webp")) {
-                    contentType = "image/webp";
-                } else if (filename.toLowerCase().endsWith(".bmp")) {
-                    contentType = "image/bmp";
-                }
-                
-                return ResponseEntity.ok()
-                    .contentType(MediaType.parseMediaType(contentType))
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + resource.getFilename() + "\"")
-                    .body(resource);
-            } else {
-                return ResponseEntity.notFound().build();
-            }
-        } catch (MalformedURLException e) {
+            return staticMediaService.serve("moment-images/" + filename, size, request);
+        } catch (IOException e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
+
 } 
\ No newline at end of file
@@ -9,6 +9,7 @@ import com.example.backend.exception.ResourceNotFoundException;
 import com.example.backend.repository.OrderRepository;
 import com.example.backend.repository.PlayerReviewRepository;
 import com.example.backend.service.NotificationService;
+import com.example.backend.service.PlayerRatingService;
 import com.example.backend.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -36,15 +37,18 @@ public class OrderReviewController {
     private final OrderRepository orderRepository;
     private final UserService userService;
     private final NotificationService notificationService;
+    private final PlayerRatingService playerRatingService;
 
     public OrderReviewController(PlayerReviewRepository playerReviewRepository, 
                                OrderRepository orderRepository, 
                                UserService userService, 
-                               NotificationService notificationService) {
+                               NotificationService notificationService,
+                               PlayerRatingService playerRatingService) {
         this.playerReviewRepository = playerReviewRepository;
         this.orderRepository = orderRepository;
         this.userService = userService;
         this.notificationService = notificationService;
+        this.playerRatingService = playerRatingService;
     }
 
     @PostMapping("/{orderId}")
@@ -86,7 +90,7 @@ public class OrderReviewController {
             review.setComment(request.getComment());
             review.setCreatedAt(LocalDateTime.now());
             
-            PlayerReview savedReview = playerReviewRepository.save(review);
+            PlayerReview savedReview = playerRatingService.createPlayerReview(review);
 
             // Gửi thông báo cho player
             if (order.getPlayer() != null && order.getPlayer().getUser() != null) {
@@ -159,10 +163,7 @@ public class OrderReviewController {
             }
 
             // Cập nhật đánh giá
-            review.setRating(request.getRating());
-            review.setComment(request.getComment());
-            
-            PlayerReview updatedReview = playerReviewRepository.save(review);
+            PlayerReview updatedReview = playerRatingService.updatePlayerReview(review, request.getRating(), request.getComment());
 
             Map<String, Object> response = new HashMap<>();
             response.put("review", updatedReview);
@@ -196,7 +197,7 @@ public class OrderReviewController {
                     .body(new ApiResponse<>(false, "Bạn không có quyền xóa đánh giá này", null));
             }
 
-            playerReviewRepository.delete(review);
+            playerRatingService.deletePlayerReview(review);
 
             return ResponseEntity.ok(new ApiResponse<>(true, "Xóa đánh giá thành công!", null));
         } catch (Exception e) {
@@ -212,7 +213,7 @@ public class OrderReviewController {
         try {
             // Sử dụng gamePlayerId thay vì userId để lấy đánh giá mà player nhận được
             List<PlayerReview> reviews = playerReviewRepository.findByGamePlayerId(playerId);
-            Double averageRating = playerReviewRepository.getAverageRatingByGamePlayerId(playerId);
+            PlayerRatingService.RatingSummary rating = playerRatingService.getGamePlayerSummary(playerId);
 
             List<Map<String, Object>> reviewList = reviews.stream().map(review -> {
                 Map<String, Object> reviewData = new HashMap<>();
@@ -228,7 +229,7 @@ public class OrderReviewController {
 
             Map<String, Object> response = new HashMap<>();
             response.put("reviews", reviewList);
-            response.put("averageRating", averageRating != null ? averageRating : 0.0);
+            response.put("averageRating", rating.averageRating());
             response.put("totalReviews", reviews.size());
 
             return ResponseEntity.ok(new ApiResponse<>(true, "Lấy đánh giá player thành công", response));
@@ -276,7 +277,7 @@ public class OrderReviewController {
             @Parameter(description = "User ID") @PathVariable Long userId) {
         try {
             List<PlayerReview> reviews = playerReviewRepository.findByGamePlayerUserId(userId);
-            Double averageRating = playerReviewRepository.getAverageRatingByPlayerId(userId);
+            PlayerRatingService.RatingSummary rating = playerRatingService.getUserSummary(userId);
 
             List<Map<String, Object>> reviewList = reviews.stream().map(review -> {
                 Map<String, Object> reviewData = new HashMap<>();
@@ -293,7 +294,7 @@ public class OrderReviewController {
 
             Map<String, Object> response = new HashMap<>();
             response.put("reviews", reviewList);
-            response.put("averageRating", averageRating != null ? averageRating : 0.0);
+            response.put("averageRating", rating.averageRating());
             response.put("totalReviews", reviews.size());
 
             return ResponseEntity.ok(new ApiResponse<>(true, "Lấy đánh giá của user thành công", response));
@@ -340,24 +341,13 @@ public class OrderReviewController {
     public ResponseEntity<ApiResponse<?>> getPlayerReviewStats(
             @Parameter(description = "Player ID (GamePlayer ID)") @PathVariable Long playerId) {
         try {
-            List<PlayerReview> reviews = playerReviewRepository.findByGamePlayerId(playerId);
-            Double averageRating = playerReviewRepository.getAverageRatingByGamePlayerId(playerId);
-
-            // Tính phân bố rating
-            Map<Integer, Long> ratingDistribution = reviews.stream()
-                .collect(Collectors.groupingBy(PlayerReview::getRating, Collectors.counting()));
+            // Phân bố rating theo sao đã được tính sẵn trên player
+            PlayerRatingService.RatingSummary rating = playerRatingService.getGamePlayerSummary(playerId);
 
             Map<String, Object> stats = new HashMap<>();
-            stats.put("totalReviews", reviews.size());
-            stats.put("averageRating", averageRating != null ? averageRating : 0.0);
-            stats.put("ratingDistribution", ratingDistribution);
-
-            // Tính rating theo sao
-            for (int i = 1; i <= 5; i++) {
-                if (!ratingDistribution.containsKey(i)) {
-                    ratingDistribution.put(i, 0L);
-                }
-            }
+            stats.put("totalReviews", rating.totalReviews());
+            stats.put("averageRating", rating.averageRating());
+            stats.put("ratingDistribution", rating.distribution());
 
             return ResponseEntity.ok(new ApiResponse<>(true, "Lấy thống kê đánh giá thành công", stats));
         } catch (Exception e) {
@@ -371,12 +361,11 @@ public class OrderReviewController {
     public ResponseEntity<ApiResponse<?>> getPlayerRatingSummary(
             @Parameter(description = "Player ID (GamePlayer ID)") @PathVariable Long playerId) {
         try {
-            List<PlayerReview> reviews = playerReviewRepository.findByGamePlayerId(playerId);
-            Double averageRating = playerReviewRepository.getAverageRatingByGamePlayerId(playerId);
+            PlayerRatingService.RatingSummary rating = playerRatingService.getGamePlayerSummary(playerId);
 
             Map<String, Object> summary = new HashMap<>();
-            summary.put("averageRating", averageRating != null ? averageRating : 0.0);
-            summary.put("totalReviews", reviews.size());
+            summary.put("averageRating", rating.averageRating());
+            summary.put("totalReviews", rating.totalReviews());
             summary.put("playerId", playerId);
 
             return ResponseEntity.ok(new ApiResponse<>(true, "Lấy tổng quan rating thành công", summary));
@@ -391,12 +380,11 @@ public class OrderReviewController {
     public ResponseEntity<ApiResponse<?>> getUserRatingSummary(
             @Parameter(description = "User ID") @PathVariable Long userId) {
         try {
-            List<PlayerReview> reviews = playerReviewRepository.findByGamePlayerUserId(userId);
-            Double averageRating = playerReviewRepository.getAverageRatingByPlayerId(userId);
+            PlayerRatingService.RatingSummary rating = playerRatingService.getUserSummary(userId);
 
             Map<String, Object> summary = new HashMap<>();
-            summary.put("averageRating", averageRating != null ? averageRating : 0.0);
-            summary.put("totalReviews", reviews.size());
+            summary.put("averageRating", rating.averageRating());
+            summary.put("totalReviews", rating.totalReviews());
             summary.put("userId", userId);
 
             return ResponseEntity.ok(new ApiResponse<>(true, "Lấy tổng quan rating thành công", summary));
@@ -5,11 +5,16 @@ import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
@@ -23,6 +28,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import com.example.backend.dto.ReviewRequest;
 import com.example.backend.dto.TopupUserDTO;
@@ -39,6 +45,7 @@ import com.example.backend.repository.PlayerReviewRepository;
 import com.example.backend.repository.GamePlayerRepository;
 import com.example.backend.service.NotificationService;
 import com.example.backend.service.PaymentService;
+import com.example.backend.service.PlayerRatingService;
 import com.example.backend.service.QRCodeService;
 import com.example.backend.service.UserService;
 import com.example.backend.service.VnPayService;
@@ -69,9 +76,11 @@ public class PaymentController {
     private final VnPayService vnPayService;
     private final OrderRepository orderRepository;
     private final GamePlayerRepository gamePlayerRepository;
+    private final PlayerRatingService playerRatingService;
     private final AdminNotificationService adminNotificationService;
     private static final Logger logger = LoggerFactory.getLogger(PaymentController.class);
     private static final Logger log = LoggerFactory.getLogger(PaymentController.class);
+    private static final Pattern TRANSACTION_ID = Pattern.compile("^TXN_\\d{1,19}$");
 
     public PaymentController(PaymentService paymentService, UserService userService,
             PaymentRepository paymentRepository, QRCodeService qrCodeService,
@@ -80,7 +89,8 @@ public class PaymentController {
             VnPayService vnPayService,
             OrderRepository orderRepository,
             GamePlayerRepository gamePlayerRepository,
-            AdminNotificationService adminNotificationService) {
+            AdminNotificationService adminNotificationService,
+            PlayerRatingService playerRatingService) {
         this.paymentService = paymentService;
         this.userService = userService;
         this.paymentRepository = paymentRepository;
@@ -91,6 +101,7 @@ public class PaymentController {
         this.orderRepository = orderRepository;
         this.gamePlayerRepository = gamePlayerRepository;
         this.adminNotificationService = adminNotificationService;
+        this.playerRatingService = playerRatingService;
     }
 
     @Operation(summary = "Create a new payment")
@@ -285,7 +296,7 @@ public class PaymentController {
         review.setUser(reviewer);
         review.setRating(request.getRating());
         review.setComment(request.getComment());
-        playerReviewRepository.save(review);
+        playerRatingService.createPlayerReview(review);
 
         return ResponseEntity.ok("Đánh giá thành công");
     }
@@ -293,11 +304,11 @@ public class PaymentController {
     @GetMapping("/hire/player/{playerId}/reviews")
     public ResponseEntity<?> getPlayerReviews(@PathVariable Long playerId) {
         List<PlayerReview> reviews = playerReviewRepository.findByGamePlayerUserId(playerId);
-        Double averageRating = playerReviewRepository.getAverageRatingByPlayerId(playerId);
+        PlayerRatingService.RatingSummary rating = playerRatingService.getUserSummary(playerId);
         int reviewCount = reviews.size();
         return ResponseEntity.ok(Map.of(
                 "reviews", reviews,
-                "averageRating", averageRating != null ? averageRating : 0.0,
+                "averageRating", rating.averageRating(),
                 "reviewCount", reviewCount));
     }
 
@@ -442,6 +453,8 @@ public class PaymentController {
                             user.getId().toString(),
                             transactionId);
                     response.setQrCode(qrCode);
+                    response.setQrCodeUrl("/api/payments/qr-code?method=" + method + "&amount=" + request.getCoin()
+                            + "&transactionId=" + transactionId);
                     response.setMessage("Quét mã QR bằng ứng dụng " + method + " để thanh toán");
                     break;
                 case "BANK_TRANSFER":
@@ -463,6 +476,48 @@ public class PaymentController {
         }
     }
 
+    @Operation(summary = "Stream a deposit QR code as PNG")
+    @GetMapping("/qr-code")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<?> getDepositQRCode(
+            @RequestParam String method,
+            @RequestParam Long amount,
+            @RequestParam String transactionId,
+            @RequestParam(defaultValue = "" + QRCodeService.DEFAULT_SIZE) int size,
+            Authentication authentication,
+            HttpServletRequest httpRequest) {
+        if (amount <= 0 || !TRANSACTION_ID.matcher(transactionId).matches()
+                || size < QRCodeService.MIN_SIZE || size > QRCodeService.MAX_SIZE) {
+            return ResponseEntity.badRequest().body("Invalid QR code parameters");
+        }
+        User user = userService.findByUsername(authentication.getName());
+        String content;
+        try {
+            content = qrCodeService.paymentContent(method, amount.toString(), user.getId().toString(), transactionId);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+
+        // Mã QR chỉ phụ thuộc vào nội dung và kích thước: kiểm tra ETag trước khi render
+        String etag = QRCodeService.etagFor(content, size, size);
+        CacheControl cacheControl = CacheControl.maxAge(1, TimeUnit.HOURS).cachePrivate();
+        if (new ServletWebRequest(httpRequest).checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build();
+        }
+        try {
+            QRCodeService.QRImage image = qrCodeService.renderPng(content, size, size);
+            return ResponseEntity.ok()
+                    .contentType(MediaType.IMAGE_PNG)
+                    .contentLength(image.png().length)
+                    .eTag(image.etag())
+                    .cacheControl(cacheControl)
+                    .body(image.png());
+        } catch (Exception e) {
+            logger.error("Lỗi khi tạo mã QR", e);
+            return ResponseEntity.internalServerError().body("Lỗi khi tạo mã QR: " + e.getMessage());
+        }
+    }
+
     @GetMapping("/topup-history")
     @PreAuthorize("isAuthenticated()")
     public ResponseEntity<List<TopupHistoryDTO>> getTopupHistory(Authentication authentication) {
@@ -964,6 +1019,7 @@ class DepositRequest {
 @Data
 class DepositResponse {
     private String qrCode; // Base64 encoded QR code image
+    private String qrCodeUrl; // Same image as PNG, cacheable by ETag
     private String message;
     private String bankAccount;
     private String bankName;
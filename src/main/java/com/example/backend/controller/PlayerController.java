@@ -7,6 +7,8 @@ import com.example.backend.service.PlayerStatsService;
 import com.example.backend.service.UserService;
 import com.example.backend.service.GamePlayerService;
 import com.example.backend.service.NotificationService;
+import com.example.backend.service.PopularPlayerLeaderboard;
+import com.example.backend.service.CoFollowRecommender;
 import com.example.backend.exception.ResourceNotFoundException;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -27,8 +29,11 @@ import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.NoSuchElementException;
 
@@ -47,8 +52,11 @@ public class PlayerController {
     private final GameRepository gameRepository;
     private final NotificationService notificationService;
     private final OrderRepository orderRepository;
+    private final PopularPlayerLeaderboard popularPlayerLeaderboard;
+    private final CoFollowRecommender coFollowRecommender;
 
     private static final int MAX_FOLLOWING = 1000; // Giới hạn số người theo dõi
+    private static final int SUGGESTION_LIMIT = 10;
 
     public PlayerController(UserService userService,
                           PlayerStatsService playerStatsService,
@@ -60,7 +68,9 @@ public class PlayerController {
                           PaymentRepository paymentRepository,
                           GameRepository gameRepository,
                           NotificationService notificationService,
-                          OrderRepository orderRepository) {
+                          OrderRepository orderRepository,
+                          PopularPlayerLeaderboard popularPlayerLeaderboard,
+                          CoFollowRecommender coFollowRecommender) {
         this.userService = userService;
         this.playerStatsService = playerStatsService;
         this.playerFollowRepository = playerFollowRepository;
@@ -72,6 +82,8 @@ public class PlayerController {
         this.gameRepository = gameRepository;
         this.notificationService = notificationService;
         this.orderRepository = orderRepository;
+        this.popularPlayerLeaderboard = popularPlayerLeaderboard;
+        this.coFollowRecommender = coFollowRecommender;
     }
 
     @GetMapping("/{playerId}/stats")
@@ -200,14 +212,15 @@ public class PlayerController {
             @RequestParam(defaultValue = "10") int limit,
             @RequestParam(defaultValue = "0") int offset) {
         
-        List<Object[]> popularPlayers = playerFollowRepository.findPopularPlayers(limit, offset);
-        
+        List<PopularPlayerLeaderboard.Entry> popularPlayers = popularPlayerLeaderboard.top(
+            Math.max(0, Math.min(limit, 100)), Math.max(0, offset));
+
         return ResponseEntity.ok(popularPlayers.stream()
             .map(p -> Map.of(
-                "playerId", p[0],
-                "username", p[1],
-                "followerCount", p[2],
-                "averageRating", p[3]
+                "playerId", p.gamePlayerId(),
+                "username", p.username() != null ? p.username() : "",
+                "followerCount", p.followerCount(),
+                "averageRating", p.averageRating()
             ))
             .collect(Collectors.toList()));
     }
@@ -217,10 +230,54 @@ public class PlayerController {
     @Operation(summary = "Get player suggestions")
     public ResponseEntity<?> getPlayerSuggestions(Authentication authentication) {
         User user = userService.findByUsername(authentication.getName());
-        
-        List<Object[]> suggestions = playerFollowRepository.findSuggestedPlayers(user.getId());
-        
-        return ResponseEntity.ok(suggestions.stream()
+
+        // Đồ thị co-follow đang được dựng lúc khởi động: tạm dùng truy vấn cũ
+        if (!coFollowRecommender.isReady()) {
+            return ResponseEntity.ok(findSuggestionsFromDatabase(user.getId()));
+        }
+
+        Set<Long> blockedUserIds = new HashSet<>(userBlockRepository.findBlockRelatedUserIds(user.getId()));
+        List<Map<String, Object>> result = new ArrayList<>();
+        Set<Long> included = new HashSet<>();
+        for (CoFollowRecommender.Suggestion s : coFollowRecommender.recommend(user.getId(), SUGGESTION_LIMIT,
+                blockedUserIds, id -> popularPlayerLeaderboard.find(id) != null)) {
+            PopularPlayerLeaderboard.Entry stats = popularPlayerLeaderboard.find(s.gamePlayerId());
+            if (stats != null) {
+                result.add(suggestionView(stats, s.commonFollowers()));
+                included.add(s.gamePlayerId());
+            }
+        }
+        // Chưa đủ gợi ý (user mới, ít theo dõi): bổ sung player phổ biến như truy vấn cũ
+        if (result.size() < SUGGESTION_LIMIT) {
+            for (PopularPlayerLeaderboard.Entry stats : popularPlayerLeaderboard.top(SUGGESTION_LIMIT * 5, 0)) {
+                if (result.size() >= SUGGESTION_LIMIT) {
+                    break;
+                }
+                Long owner = coFollowRecommender.ownerOf(stats.gamePlayerId());
+                if (included.contains(stats.gamePlayerId()) || owner == null || owner.equals(user.getId())
+                        || blockedUserIds.contains(owner) || coFollowRecommender.isFollowing(user.getId(), stats.gamePlayerId())) {
+                    continue;
+                }
+                result.add(suggestionView(stats, 0L));
+            }
+        }
+        return ResponseEntity.ok(result);
+    }
+
+    private static Map<String, Object> suggestionView(PopularPlayerLeaderboard.Entry stats, long commonFollowers) {
+        return Map.of(
+            "playerId", stats.gamePlayerId(),
+            "username", stats.username() != null ? stats.username() : "",
+            "followerCount", stats.followerCount(),
+            "averageRating", stats.averageRating(),
+            "commonFollowers", commonFollowers
+        );
+    }
+
+    private List<Map<String, Object>> findSuggestionsFromDatabase(Long userId) {
+        List<Object[]> suggestions = playerFollowRepository.findSuggestedPlayers(userId);
+
+        return suggestions.stream()
             .map(s -> Map.of(
                 "playerId", s[0],
                 "username", s[1],
@@ -228,7 +285,7 @@ public class PlayerController {
                 "averageRating", s[3],
                 "commonFollowers", s[4]
             ))
-            .collect(Collectors.toList()));
+            .collect(Collectors.toList());
     }
 
     @GetMapping("/{gamePlayerId}/followers")
@@ -2,6 +2,7 @@ package com.example.backend.controller;
 
 import com.example.backend.entity.PlayerImage;
 import com.example.backend.service.PlayerImageService;
+import com.example.backend.service.FileStorageService;
 import com.example.backend.dto.ApiResponse;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -9,13 +10,11 @@ import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import java.util.List;
 import java.util.stream.Collectors;
 import java.util.HashMap;
 import java.util.Map;
-import java.io.File;
 import java.io.IOException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -26,13 +25,12 @@ import org.slf4j.LoggerFactory;
 @Tag(name = "Player Image", description = "Player image gallery management APIs")
 public class PlayerImageController {
     private final PlayerImageService playerImageService;
+    private final FileStorageService fileStorageService;
     private static final Logger log = LoggerFactory.getLogger(PlayerImageController.class);
 
-    @Value("${player.image.upload-dir:uploads/player-images}")
-    private String uploadDir;
-
-    public PlayerImageController(PlayerImageService playerImageService) {
+    public PlayerImageController(PlayerImageService playerImageService, FileStorageService fileStorageService) {
         this.playerImageService = playerImageService;
+        this.fileStorageService = fileStorageService;
     }
 
     @Operation(summary = "Lấy tất cả ảnh của player")
@@ -96,21 +94,12 @@ public class PlayerImageController {
                     .body(new ApiResponse<>(false, "File không được để trống", null));
             }
             // Bỏ kiểm tra định dạng file, cho phép upload mọi loại file
-            // Lấy đường dẫn tuyệt đối tới thư mục gốc project
-            String rootPath = new File("").getAbsolutePath();
-            File dir = new File(rootPath, uploadDir);
-            if (!dir.exists()) {
-                boolean created = dir.mkdirs();
-                log.info("[UPLOAD] Created upload dir: {} => {}", dir.getAbsolutePath(), created);
-            }
-            String fileName = System.currentTimeMillis() + "_" + file.getOriginalFilename();
-            File dest = new File(dir, fileName);
-            dest.getParentFile().mkdirs();
-            log.info("[UPLOAD] Saving file to: {}", dest.getAbsolutePath());
-            file.transferTo(dest);
+            // Lưu theo hash nội dung: ảnh trùng dùng chung một file trên đĩa
+            String storedPath = fileStorageService.storeFile(file, "player-images");
+            log.info("[UPLOAD] Stored file at: {}", storedPath);
             String fileUrl = ServletUriComponentsBuilder.fromCurrentContextPath()
-                    .path("/" + uploadDir + "/")
-                    .path(fileName)
+                    .path("/uploads/")
+                    .path(storedPath)
                     .toUriString();
             log.info("[UPLOAD] File URL: {}", fileUrl);
             PlayerImage savedImage = playerImageService.addImageToPlayer(playerId, fileUrl);
@@ -1,5 +1,6 @@
 package com.example.backend.controller;
 
+import com.example.backend.entity.FileReference;
 import com.example.backend.entity.Report;
 import com.example.backend.service.ReportService;
 import com.example.backend.exception.ResourceNotFoundException;
@@ -11,6 +12,8 @@ import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.Data;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
@@ -20,25 +23,39 @@ import java.util.List;
 import com.example.backend.service.UserService;
 import com.example.backend.service.FileStorageService;
 import com.example.backend.service.AdminNotificationService;
+import com.example.backend.service.VideoValidationService;
 import com.example.backend.entity.User;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 import org.springframework.web.multipart.MultipartFile;
 import java.io.IOException;
+import java.io.InputStream;
 
 @RestController
 @RequestMapping("/api/reports")
 @CrossOrigin(origins = "http://localhost:3000")
 @Tag(name = "Report", description = "Report management APIs")
 public class ReportController {
+    private static final Logger logger = LoggerFactory.getLogger(ReportController.class);
+
     private final ReportService reportService;
     private final UserService userService;
     private final FileStorageService fileStorageService;
     private final AdminNotificationService adminNotificationService;
+    private final VideoValidationService videoValidationService;
+
+    @Value("${report.video.max-bytes:52428800}")
+    private long maxVideoBytes;
 
-    public ReportController(ReportService reportService, UserService userService, FileStorageService fileStorageService, AdminNotificationService adminNotificationService) {
+    public ReportController(ReportService reportService, UserService userService, FileStorageService fileStorageService,
+                            AdminNotificationService adminNotificationService, VideoValidationService videoValidationService) {
         this.reportService = reportService;
         this.userService = userService;
         this.fileStorageService = fileStorageService;
         this.adminNotificationService = adminNotificationService;
+        this.videoValidationService = videoValidationService;
     }
 
     @Operation(summary = "Create a new report")
@@ -96,42 +113,25 @@ public class ReportController {
                 // Validate video file
                 String contentType = videoFile.getContentType();
                 String originalFilename = videoFile.getOriginalFilename();
-                
-                // Check if it's a video file
-                boolean isValidVideo = false;
-                if (contentType != null && contentType.startsWith("video/")) {
-                    isValidVideo = true;
-                } else if (originalFilename != null) {
-                    String extension = originalFilename.toLowerCase();
-                    if (extension.endsWith(".mp4") || extension.endsWith(".avi") || 
-                        extension.endsWith(".mov") || extension.endsWith(".wmv") || 
-                        extension.endsWith(".flv") || extension.endsWith(".webm") ||
-                        extension.endsWith(".mkv") || extension.endsWith(".3gp")) {
-                        isValidVideo = true;
-                    }
-                }
-                
+                String extension = originalFilename != null && originalFilename.lastIndexOf('.') >= 0
+                        ? originalFilename.substring(originalFilename.lastIndexOf('.')) : "";
+                boolean isValidVideo = (contentType != null && contentType.startsWith("video/"))
+                        || VideoValidationService.isVideoExtension(extension);
                 if (!isValidVideo) {
                     return ResponseEntity.badRequest().body(null);
                 }
-                
+
                 // Validate file size (max 50MB for video)
-                long fileSize = videoFile.getSize();
-                if (fileSize > 50 * 1024 * 1024) {
-                    return ResponseEntity.badRequest().body(null);
+                if (videoFile.getSize() > maxVideoBytes) {
+                    return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
                 }
-                
-                // Store video file
+
+                // Kiểm tra giới hạn 1 report/ngày trước khi ghi file
+                reportService.checkCanReport(reporter.getId(), reportedPlayerId);
                 videoUrl = fileStorageService.storeFile(videoFile, "report-videos");
             }
-            
-            Report report = reportService.createReport(
-                    reportedPlayerId,
-                    reporter.getId(),
-                    reason,
-                    description,
-                    videoUrl
-            );
+
+            Report report = createReportWithStoredVideo(reporter, reportedPlayerId, reason, description, videoUrl);
             
             // Gửi thông báo cho admin về tố cáo mới
             try {
@@ -139,8 +139,7 @@ public class ReportController {
                 adminNotificationService.notifyAdminsAboutReport(reporter, reportedUser, reason);
                 System.out.println("[ReportController] adminNotificationService.notifyAdminsAboutReport completed successfully");
             } catch (Exception e) {
-                System.err.println("[ReportController] Error calling adminNotificationService.notifyAdminsAboutReport: " + e.getMessage());
-                e.printStackTrace();
+                logger.error("Không gửi được thông báo report mới của user {} cho admin", reporter.getId(), e);
             }
             
             return ResponseEntity.ok(report);
@@ -154,6 +153,85 @@ public class ReportController {
         }
     }
 
+    /**
+     * Upload video bằng chứng dạng raw body (Content-Type: video/*), không qua multipart.
+     * Giới hạn dung lượng được kiểm tra ngay từ Content-Length và trong lúc đọc stream,
+     * file được ghi thẳng vào thư mục report-videos, còn việc kiểm tra định dạng chạy ở nền.
+     */
+    @Operation(summary = "Create a new report, streaming the video as the request body")
+    @PostMapping(value = "/with-video/stream")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<Report> createReportWithVideoStream(
+            @RequestParam("reportedPlayerId") Long reportedPlayerId,
+            @RequestParam("reason") String reason,
+            @RequestParam("description") String description,
+            @RequestParam(value = "filename", required = false) String filename,
+            HttpServletRequest request,
+            Authentication authentication) {
+        long contentLength = request.getContentLengthLong();
+        if (contentLength > maxVideoBytes) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        }
+        if (contentLength == 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        String contentType = request.getContentType();
+        String extension = filename != null && filename.lastIndexOf('.') >= 0
+                ? filename.substring(filename.lastIndexOf('.')) : "";
+        boolean isVideoType = contentType != null && contentType.startsWith("video/");
+        if (!isVideoType && !VideoValidationService.isVideoExtension(extension)) {
+            return ResponseEntity.status(HttpStatus.UNSUPPORTED_MEDIA_TYPE).build();
+        }
+        if (!VideoValidationService.isVideoExtension(extension)) {
+            extension = isVideoType ? "." + contentType.substring("video/".length()).split("[;+]")[0] : "";
+            if (!VideoValidationService.isVideoExtension(extension)) {
+                extension = ".mp4";
+            }
+        }
+        try {
+            User reporter = userService.findByUsername(authentication.getName());
+            User reportedUser = userService.findById(reportedPlayerId);
+            reportService.checkCanReport(reporter.getId(), reportedPlayerId);
+
+            String videoUrl;
+            try (InputStream in = request.getInputStream()) {
+                videoUrl = fileStorageService.storeStream(in, "report-videos", extension, contentType, maxVideoBytes);
+            }
+            Report report = createReportWithStoredVideo(reporter, reportedPlayerId, reason, description, videoUrl);
+
+            try {
+                adminNotificationService.notifyAdminsAboutReport(reporter, reportedUser, reason);
+            } catch (Exception e) {
+                logger.error("Không gửi được thông báo report mới của user {} cho admin", reporter.getId(), e);
+            }
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(report);
+        } catch (MaxUploadSizeExceededException e) {
+            return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build();
+        } catch (ReportException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    // Tạo report ở trạng thái video PROCESSING rồi giao việc kiểm tra định dạng cho thread nền
+    private Report createReportWithStoredVideo(User reporter, Long reportedPlayerId, String reason,
+                                               String description, String videoUrl) {
+        Report report = reportService.createReport(
+                reportedPlayerId,
+                reporter.getId(),
+                reason,
+                description,
+                videoUrl,
+                Report.VIDEO_PROCESSING
+        );
+        if (videoUrl != null) {
+            fileStorageService.addReference(videoUrl, FileReference.REPORT_VIDEO, report.getId());
+            videoValidationService.scheduleValidation(report.getId(), videoUrl);
+        }
+        return report;
+    }
+
     @Operation(summary = "Update report status")
     @PutMapping("/{id}/status")
     @PreAuthorize("hasRole('ADMIN')")
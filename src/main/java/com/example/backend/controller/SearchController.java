@@ -0,0 +1,46 @@
+package com.example.backend.controller;
+
+import com.example.backend.dto.ApiResponse;
+import com.example.backend.service.TypeaheadIndex;
+import io.swagger.v3.oas.annotations.Operation;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+@RestController
+@RequestMapping("/api/search")
+@CrossOrigin(origins = "http://localhost:3000")
+public class SearchController {
+    private static final int MAX_TYPEAHEAD_LIMIT = 20;
+
+    private final TypeaheadIndex typeaheadIndex;
+
+    public SearchController(TypeaheadIndex typeaheadIndex) {
+        this.typeaheadIndex = typeaheadIndex;
+    }
+
+    @GetMapping("/typeahead")
+    @Operation(summary = "Suggest players, games and users whose name starts with the given prefix")
+    public ResponseEntity<ApiResponse<List<TypeaheadIndex.Item>>> typeahead(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(required = false) List<String> types) {
+        Set<TypeaheadIndex.Type> wanted = EnumSet.noneOf(TypeaheadIndex.Type.class);
+        if (types != null) {
+            for (String type : types) {
+                try {
+                    wanted.add(TypeaheadIndex.Type.valueOf(type.trim().toUpperCase()));
+                } catch (IllegalArgumentException e) {
+                    return ResponseEntity.badRequest()
+                        .body(new ApiResponse<>(false, "Unsupported type: " + type, null));
+                }
+            }
+        }
+        List<TypeaheadIndex.Item> items = typeaheadIndex.query(q,
+                Math.max(1, Math.min(limit, MAX_TYPEAHEAD_LIMIT)), wanted);
+        return ResponseEntity.ok(new ApiResponse<>(true, "Suggestions retrieved successfully", items));
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.backend.controller;
+
+import com.example.backend.service.StaticMediaService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.util.UriUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Phục vụ các URL "/uploads/<subDir>/<file>" đã lưu trong DB (ví dụ ảnh player)
+ * qua backend lưu trữ, thay cho resource handler đọc thẳng thư mục uploads/.
+ */
+@RestController
+public class UploadController {
+    private static final String PREFIX = "/uploads/";
+
+    private final StaticMediaService staticMediaService;
+
+    public UploadController(StaticMediaService staticMediaService) {
+        this.staticMediaService = staticMediaService;
+    }
+
+    @GetMapping("/uploads/**")
+    public ResponseEntity<?> serveUpload(@RequestParam(required = false) String size,
+                                         HttpServletRequest request) {
+        String uri = request.getRequestURI().substring(request.getContextPath().length());
+        String filePath = UriUtils.decode(uri.substring(PREFIX.length()), StandardCharsets.UTF_8);
+        try {
+            return staticMediaService.serve(filePath, size, request);
+        } catch (IOException | IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+}
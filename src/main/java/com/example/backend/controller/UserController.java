@@ -1,9 +1,11 @@
 package com.example.backend.controller;
 
 import com.example.backend.entity.User;
+import com.example.backend.service.PlayerRatingService;
+import com.example.backend.service.PresenceTracker;
+import com.example.backend.service.StaticMediaService;
 import com.example.backend.service.UserService;
 import com.example.backend.repository.OrderRepository;
-import com.example.backend.repository.PlayerReviewRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -12,8 +14,8 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import java.util.Map;
 import java.util.Set;
 import org.springframework.http.MediaType;
-import java.nio.file.Files;
-import java.nio.file.Paths;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.CacheControl;
 import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -25,13 +27,18 @@ import java.util.HashMap;
 public class UserController {
     private final UserService userService;
     private final OrderRepository orderRepository;
-    private final PlayerReviewRepository playerReviewRepository;
+    private final PlayerRatingService playerRatingService;
+    private final PresenceTracker presenceTracker;
+    private final StaticMediaService staticMediaService;
 
     @Autowired
-    public UserController(UserService userService, OrderRepository orderRepository, PlayerReviewRepository playerReviewRepository) {
+    public UserController(UserService userService, OrderRepository orderRepository, PlayerRatingService playerRatingService,
+                          PresenceTracker presenceTracker, StaticMediaService staticMediaService) {
         this.userService = userService;
         this.orderRepository = orderRepository;
-        this.playerReviewRepository = playerReviewRepository;
+        this.playerRatingService = playerRatingService;
+        this.presenceTracker = presenceTracker;
+        this.staticMediaService = staticMediaService;
     }
 
     @GetMapping("/distribution")
@@ -162,8 +169,10 @@ public class UserController {
                 UserDetailDTO dto = UserDetailDTO.fromUser(user);
                 // Tính toán thống kê
                 dto.setTotalOrders(calculateTotalOrders(user.getId()));
-                dto.setTotalReviews(calculateTotalReviews(user.getId()));
-                dto.setAverageRating(calculateAverageRating(user.getId()));
+                // Đánh giá user nhận được (khi làm player), đã tổng hợp sẵn trên các player của user
+                PlayerRatingService.RatingSummary rating = playerRatingService.getUserSummary(user.getId());
+                dto.setTotalReviews((int) rating.totalReviews());
+                dto.setAverageRating(rating.totalReviews() > 0 ? rating.averageRating() : null);
                 return dto;
             })
             .collect(java.util.stream.Collectors.toList());
@@ -177,16 +186,6 @@ public class UserController {
             .toList().size();
     }
 
-    private int calculateTotalReviews(Long userId) {
-        // Đếm số đánh giá mà user đã nhận (khi làm player)
-        return playerReviewRepository.findByGamePlayerUserId(userId).size();
-    }
-
-    private Double calculateAverageRating(Long userId) {
-        // Tính rating trung bình mà user nhận được
-        return playerReviewRepository.getAverageRatingByPlayerId(userId);
-    }
-
     @PostMapping
     public ResponseEntity<?> createUser(@RequestBody User user) {
         if (userService.existsByUsername(user.getUsername())) {
@@ -273,15 +272,23 @@ public class UserController {
 
     @GetMapping("/{userId}/online-status")
     public ResponseEntity<?> getUserOnlineStatus(@PathVariable Long userId) {
+        // Đọc từ bộ nhớ, chỉ truy vấn DB khi user chưa hoạt động kể từ lúc khởi động
+        Map<String, Object> result = new HashMap<>();
+        result.put("userId", userId);
+        if (presenceTracker.isTracked(userId)) {
+            result.put("isOnline", presenceTracker.isOnline(userId));
+            result.put("lastActiveAt", presenceTracker.getLastActiveAt(userId));
+            return ResponseEntity.ok(result);
+        }
         User user = userService.findById(userId);
         if (user == null) {
             return ResponseEntity.notFound().build();
         }
-        return ResponseEntity.ok(Map.of(
-            "userId", user.getId(),
-            "isOnline", user.getIsOnline(),
-            "lastActiveAt", user.getLastActiveAt()
-        ));
+        // Cờ isOnline đã lưu: logout đặt false dù lastActiveAt vừa được ghi
+        result.put("isOnline", Boolean.TRUE.equals(user.getIsOnline())
+                && presenceTracker.isOnline(user.getLastActiveAt()));
+        result.put("lastActiveAt", user.getLastActiveAt());
+        return ResponseEntity.ok(result);
     }
 
     @GetMapping("/{userId}/cover-image")
@@ -294,27 +301,20 @@ public class UserController {
     }
 
     @GetMapping(value = "/{userId}/cover-image-bytes", produces = MediaType.IMAGE_JPEG_VALUE)
-    public ResponseEntity<byte[]> getUserCoverImageBytes(@PathVariable Long userId) throws IOException {
+    public ResponseEntity<?> getUserCoverImageBytes(@PathVariable Long userId, HttpServletRequest request) throws IOException {
         User user = userService.findById(userId);
         if (user == null || user.getCoverImageUrl() == null) {
             return ResponseEntity.notFound().build();
         }
         String filePath = user.getCoverImageUrl();
-        // Đảm bảo đường dẫn vật lý đúng thư mục uploads/cover-images
-        if (!filePath.startsWith("uploads/")) {
-            if (filePath.startsWith("cover-images/")) {
-                filePath = "uploads/" + filePath;
-            } else {
-                filePath = "uploads/cover-images/" + filePath;
-            }
-        }
-        String absPath = System.getProperty("user.dir") + java.io.File.separator + filePath.replace("/", java.io.File.separator);
-        java.io.File file = new java.io.File(absPath);
-        if (!file.exists()) {
-            return ResponseEntity.notFound().build();
+        // Chuẩn hoá về đường dẫn tương đối trong thư mục uploads
+        if (filePath.startsWith("uploads/")) {
+            filePath = filePath.substring("uploads/".length());
+        } else if (!filePath.startsWith("cover-images/")) {
+            filePath = "cover-images/" + filePath;
         }
-        byte[] imageBytes = Files.readAllBytes(Paths.get(file.getAbsolutePath()));
-        return ResponseEntity.ok().contentType(MediaType.IMAGE_JPEG).body(imageBytes);
+        // URL theo userId có thể trỏ sang ảnh khác nên phải kiểm tra lại bằng ETag
+        return staticMediaService.serve(filePath, request, CacheControl.noCache());
     }
 
     @GetMapping("/recent")
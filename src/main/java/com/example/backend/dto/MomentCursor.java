@@ -0,0 +1,37 @@
+package com.example.backend.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Cursor phân trang keyset của danh sách moment: (createdAt, id) của moment cuối trang trước,
+ * trang sau lấy các moment đứng sau cặp này theo thứ tự (createdAt, id) giảm dần
+ */
+public record MomentCursor(LocalDateTime createdAt, Long id) {
+
+    // Trang đầu: mọi moment đều đứng sau cursor này (giới hạn trên của DATETIME MySQL)
+    public static final MomentCursor FIRST = new MomentCursor(LocalDateTime.of(9999, 12, 31, 23, 59, 59), Long.MAX_VALUE);
+
+    public String encode() {
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Giải mã cursor client gửi lên; null hoặc rỗng là trang đầu
+     */
+    public static MomentCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return FIRST;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            return new MomentCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.valueOf(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
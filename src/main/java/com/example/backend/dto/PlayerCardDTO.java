@@ -0,0 +1,31 @@
+package com.example.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Thông tin gọn của một player cho màn hình duyệt/tìm kiếm (không kéo cả entity graph)
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PlayerCardDTO {
+    private Long id;
+    private Long userId;
+    private String username;
+    private String fullName;
+    private String avatarUrl;
+    private Long gameId;
+    private String gameName;
+    private String rank;
+    private String role;
+    private String server;
+    private BigDecimal pricePerHour;
+    private Double rating;
+    private Long totalMinutesHired;
+    private String status;
+    private Boolean online;
+}
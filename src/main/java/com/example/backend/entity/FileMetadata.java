@@ -0,0 +1,42 @@
+package com.example.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * Thông tin của file đã upload (hash nội dung dùng làm ETag).
+ */
+@Data
+@Entity
+@Table(name = "file_metadata")
+public class FileMetadata {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Đường dẫn tương đối trong thư mục upload, ví dụ "avatars/<uuid>.jpg"
+    @Column(nullable = false, unique = true, length = 512)
+    private String path;
+
+    @Column(nullable = false, length = 64)
+    private String sha256;
+
+    @Column(nullable = false)
+    private Long size;
+
+    @Column(name = "content_type")
+    private String contentType;
+
+    // Thời gian sửa file trên đĩa (epoch millis) lúc tính hash
+    @Column(name = "last_modified", nullable = false)
+    private Long lastModified;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        this.createdAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * Liên kết giữa một file đã lưu và nơi đang dùng nó (ảnh moment, ảnh player,
+ * avatar, ảnh bìa...). File chỉ bị xóa khỏi đĩa khi không còn liên kết nào.
+ */
+@Data
+@Entity
+@Table(name = "file_references", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_file_ref_owner", columnNames = {"path", "owner_type", "owner_id"})
+}, indexes = {
+    @Index(name = "idx_file_ref_owner", columnList = "owner_type, owner_id")
+})
+public class FileReference {
+    public static final String MOMENT_IMAGE = "MOMENT_IMAGE";
+    public static final String PLAYER_IMAGE = "PLAYER_IMAGE";
+    public static final String AVATAR = "AVATAR";
+    public static final String PROFILE_IMAGE = "PROFILE_IMAGE";
+    public static final String COVER_IMAGE = "COVER_IMAGE";
+    public static final String REPORT_VIDEO = "REPORT_VIDEO";
+    // Tham chiếu tạm của một lượt upload chưa được gán vào entity, hết hạn sau file.pending-reference-ttl
+    public static final String PENDING_UPLOAD = "PENDING_UPLOAD";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Đường dẫn tương đối trong thư mục upload, trùng với FileMetadata.path
+    @Column(nullable = false, length = 512)
+    private String path;
+
+    @Column(name = "owner_type", nullable = false, length = 32)
+    private String ownerType;
+
+    @Column(name = "owner_id", nullable = false)
+    private Long ownerId;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        this.createdAt = LocalDateTime.now();
+    }
+}
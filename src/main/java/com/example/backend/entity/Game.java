@@ -2,11 +2,13 @@ package com.example.backend.entity;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import com.example.backend.service.TypeaheadListener;
 import java.util.Set;
 import java.util.List;
 
 @Data
 @Entity
+@EntityListeners(TypeaheadListener.class)
 @Table(name = "games")
 public class Game {
     @Id
@@ -3,12 +3,25 @@ package com.example.backend.entity;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.Data;
+import org.hibernate.annotations.ColumnDefault;
+import com.example.backend.service.GamePlayerIndexListener;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Data
 @Entity
-@Table(name = "game_players")
+@EntityListeners(GamePlayerIndexListener.class)
+@Table(name = "game_players", indexes = {
+    // Phục vụ tìm kiếm player: cột lọc bằng (game) trước, cột sắp xếp ngay sau, nên ORDER BY <cột>, id đọc
+    // thẳng theo index (InnoDB nối khóa chính vào cuối index). Lọc mặc định status <> 'BANNED' là điều kiện
+    // khoảng, đặt status trước cột sắp xếp sẽ buộc filesort, nên status được lọc trên từng dòng đọc ra.
+    @Index(name = "idx_game_players_game_price", columnList = "game_id, price_per_hour"),
+    @Index(name = "idx_game_players_game_rating", columnList = "game_id, rating"),
+    @Index(name = "idx_game_players_game_minutes", columnList = "game_id, total_minutes_hired"),
+    @Index(name = "idx_game_players_price", columnList = "price_per_hour"),
+    @Index(name = "idx_game_players_rating", columnList = "rating"),
+    @Index(name = "idx_game_players_minutes", columnList = "total_minutes_hired")
+})
 public class GamePlayer {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -45,9 +58,35 @@ public class GamePlayer {
     @Size(max = 500, message = "Description must be less than 500 characters")
     private String description; // Mô tả về người chơi
 
+    // Rating trung bình = ratingSum / ratingCount (0 khi chưa có đánh giá), chỉ được ghi bởi PlayerRatingService
     @Min(value = 0, message = "Rating must be greater than or equal to 0")
     @Max(value = 5, message = "Rating must be less than or equal to 5")
-    private Double rating;
+    @Column(nullable = false, updatable = false)
+    @ColumnDefault("0")
+    private Double rating = 0.0;
+
+    // Tổng hợp đánh giá player nhận được, cộng dồn bằng câu UPDATE trong cùng transaction với đánh giá
+    @Column(name = "rating_sum", updatable = false)
+    private Double ratingSum = 0.0;
+
+    @Column(name = "rating_count", updatable = false)
+    private Long ratingCount = 0L;
+
+    // Phân bố số đánh giá theo sao (1-5)
+    @Column(name = "one_star_count", updatable = false)
+    private Long oneStarCount = 0L;
+
+    @Column(name = "two_star_count", updatable = false)
+    private Long twoStarCount = 0L;
+
+    @Column(name = "three_star_count", updatable = false)
+    private Long threeStarCount = 0L;
+
+    @Column(name = "four_star_count", updatable = false)
+    private Long fourStarCount = 0L;
+
+    @Column(name = "five_star_count", updatable = false)
+    private Long fiveStarCount = 0L;
 
     @Min(value = 0, message = "Total games must be greater than or equal to 0")
     private Integer totalGames = 0; // Số game đã chơi
@@ -70,7 +109,8 @@ public class GamePlayer {
     @Min(value = 1, message = "Hours hired must be at least 1")
     private Integer hoursHired; // Số giờ thuê
 
-    @Column(name = "total_minutes_hired")
+    @Column(name = "total_minutes_hired", nullable = false)
+    @ColumnDefault("0")
     private Long totalMinutesHired = 0L;
 
     @Column(name = "last_reward_milestone")
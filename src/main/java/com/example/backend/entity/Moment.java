@@ -3,10 +3,15 @@ package com.example.backend.entity;
 import jakarta.persistence.*;
 import lombok.Data;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 
 @Entity
-@Table(name = "moments")
+@Table(name = "moments", indexes = {
+    // Phân trang keyset theo (created_at, id) giảm dần: toàn bộ moment, theo player và feed
+    @Index(name = "idx_moments_status_created", columnList = "status, created_at, id"),
+    @Index(name = "idx_moments_player_status_created", columnList = "game_player_id, status, created_at, id")
+})
 @Data
 public class Moment {
     @Id
@@ -34,8 +39,9 @@ public class Moment {
 
     @PrePersist
     protected void onCreate() {
-        createdAt = LocalDateTime.now();
-        updatedAt = LocalDateTime.now();
+        // Cắt về micro giây như cột DATETIME(6), để cursor (createdAt, id) tính từ bản trong bộ nhớ khớp với DB
+        createdAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+        updatedAt = createdAt;
     }
 
     @PreUpdate
@@ -2,9 +2,11 @@ package com.example.backend.entity;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import com.example.backend.service.PopularityListener;
 import java.time.LocalDateTime;
 
 @Entity
+@EntityListeners(PopularityListener.class)
 @Table(name = "player_follows")
 @Data
 public class PlayerFollow {
@@ -23,6 +25,15 @@ public class PlayerFollow {
     @Column(nullable = false)
     private LocalDateTime createdAt;
 
+    // Mọi moment ACTIVE của player có id <= giá trị này follower đã xem (null: chưa xem moment nào)
+    @Column(name = "last_seen_moment_id")
+    private Long lastSeenMomentId;
+
+    // Bit i: follower đã xem moment thứ i (theo id tăng dần) trong các moment của chính player này có id lớn hơn
+    // lastSeenMomentId (xem không theo thứ tự), null nếu không có
+    @Column(name = "seen_bitmap", length = 4096)
+    private byte[] seenBitmap;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -0,0 +1,31 @@
+package com.example.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * Ảnh chụp định kỳ số người theo dõi và tổng/số lượng đánh giá của một player,
+ * dùng để nạp lại bảng xếp hạng phổ biến khi khởi động mà không cần GROUP BY toàn bảng.
+ */
+@Data
+@Entity
+@Table(name = "player_popularity_snapshots")
+public class PlayerPopularitySnapshot {
+    // Trùng với GamePlayer.id
+    @Id
+    @Column(name = "game_player_id")
+    private Long gamePlayerId;
+
+    @Column(name = "follower_count", nullable = false)
+    private long followerCount;
+
+    @Column(name = "rating_sum", nullable = false)
+    private double ratingSum;
+
+    @Column(name = "rating_count", nullable = false)
+    private long ratingCount;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
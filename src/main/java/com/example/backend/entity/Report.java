@@ -8,6 +8,10 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "reports")
 public class Report {
+    public static final String VIDEO_PROCESSING = "PROCESSING";
+    public static final String VIDEO_READY = "READY";
+    public static final String VIDEO_REJECTED = "REJECTED";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -29,6 +33,9 @@ public class Report {
     @Column(length = 1000)
     private String videoUrl; // URL video bằng chứng (có thể null)
 
+    @Column(name = "video_status", length = 20)
+    private String videoStatus; // PROCESSING, READY, REJECTED (null nếu không có video upload)
+
     @Column(nullable = false)
     private String status; // PENDING, INVESTIGATING, RESOLVED, REJECTED
 
@@ -1,8 +1,8 @@
 package com.example.backend.entity;
 
-import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.Data;
+import com.example.backend.service.TypeaheadListener;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.HashSet;
@@ -10,6 +10,7 @@ import java.util.Set;
 
 @Data
 @Entity
+@EntityListeners(TypeaheadListener.class)
 @Table(name = "users")
 public class User {
     @Id
@@ -66,15 +67,6 @@ public class User {
     @Column(name = "device_token")
     private String deviceToken;
 
-    @Lob
-    @Column(name = "avatar_data", columnDefinition = "LONGBLOB")
-    @JsonIgnore
-    private byte[] avatarData;
-
-    @Lob
-    @Column(name = "profile_image_data", columnDefinition = "LONGBLOB")
-    private byte[] profileImageData;
-
     private boolean enabled = true;
     private boolean accountNonExpired = true;
     private boolean credentialsNonExpired = true;
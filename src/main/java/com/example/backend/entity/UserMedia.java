@@ -0,0 +1,53 @@
+package com.example.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDateTime;
+
+/**
+ * Ảnh đại diện / ảnh hồ sơ lưu trong DB, tách khỏi bảng users để
+ * các truy vấn User không phải tải LOB.
+ */
+@Data
+@Entity
+@Table(name = "user_media", uniqueConstraints = {
+    @UniqueConstraint(name = "uk_user_media_user_type", columnNames = {"user_id", "media_type"})
+})
+public class UserMedia {
+    public static final String AVATAR = "AVATAR";
+    public static final String PROFILE_IMAGE = "PROFILE_IMAGE";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "media_type", nullable = false, length = 32)
+    private String mediaType; // AVATAR, PROFILE_IMAGE
+
+    @Lob
+    @Column(name = "data", columnDefinition = "LONGBLOB", nullable = false)
+    private byte[] data;
+
+    @Column(name = "content_type")
+    private String contentType;
+
+    @Column(name = "size")
+    private Long size;
+
+    // SHA-256 của data, dùng làm ETag
+    @Column(name = "etag", length = 64)
+    private String etag;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        this.updatedAt = LocalDateTime.now();
+        this.size = data != null ? (long) data.length : 0L;
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.backend.repository;
+
+import com.example.backend.entity.FileMetadata;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface FileMetadataRepository extends JpaRepository<FileMetadata, Long> {
+    Optional<FileMetadata> findByPath(String path);
+
+    void deleteByPath(String path);
+}
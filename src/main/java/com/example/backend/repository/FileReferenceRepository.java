@@ -0,0 +1,38 @@
+package com.example.backend.repository;
+
+import com.example.backend.entity.FileReference;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface FileReferenceRepository extends JpaRepository<FileReference, Long> {
+    boolean existsByPathAndOwnerTypeAndOwnerId(String path, String ownerType, Long ownerId);
+
+    boolean existsByPathAndOwnerTypeAndCreatedAtGreaterThanEqual(String path, String ownerType, LocalDateTime createdAt);
+
+    Optional<FileReference> findFirstByPathAndOwnerTypeOrderByCreatedAtAsc(String path, String ownerType);
+
+    // Số nơi còn dùng file (reference count), không tính tham chiếu upload tạm đã hết hạn
+    @Query("SELECT COUNT(r) FROM FileReference r WHERE r.path = :path " +
+           "AND (r.ownerType <> :pendingType OR r.createdAt >= :pendingCutoff)")
+    long countLiveReferences(@Param("path") String path, @Param("pendingType") String pendingType,
+                             @Param("pendingCutoff") LocalDateTime pendingCutoff);
+
+    @Modifying
+    @Query("DELETE FROM FileReference r WHERE r.path = :path AND r.ownerType = :ownerType AND r.ownerId = :ownerId")
+    int deleteReference(@Param("path") String path, @Param("ownerType") String ownerType, @Param("ownerId") Long ownerId);
+
+    @Modifying
+    @Query("DELETE FROM FileReference r WHERE r.path = :path")
+    int deleteByPath(@Param("path") String path);
+
+    @Modifying
+    @Query("DELETE FROM FileReference r WHERE r.ownerType = :pendingType AND r.createdAt < :cutoff")
+    int deleteExpiredPending(@Param("pendingType") String pendingType, @Param("cutoff") LocalDateTime cutoff);
+}
@@ -2,6 +2,7 @@ package com.example.backend.repository;
 
 import com.example.backend.entity.GamePlayer;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -18,6 +19,66 @@ public interface GamePlayerRepository extends JpaRepository<GamePlayer, Long> {
     List<GamePlayer> findByServer(String server);
     List<GamePlayer> findByHiredById(Long userId);
     long countByGameId(Long gameId);
+
+    // Số player của từng game: gameId, count
+    @Query("SELECT gp.game.id, COUNT(gp) FROM GamePlayer gp GROUP BY gp.game.id")
+    List<Object[]> countGroupedByGame();
+
+    // Các cột cần cho chỉ mục facet: id, userId, gameId, rank, role, server, status, pricePerHour
+    @Query("SELECT gp.id, gp.user.id, gp.game.id, gp.rank, gp.role, gp.server, gp.status, gp.pricePerHour FROM GamePlayer gp")
+    List<Object[]> findFacetRows();
+
+    // id và userId chủ sở hữu của mọi player
+    @Query("SELECT gp.id, gp.user.id FROM GamePlayer gp")
+    List<Object[]> findOwnerRows();
+
+    // id, username, userId, tên game, status của mọi player, dùng cho tìm kiếm gợi ý
+    @Query("SELECT gp.id, gp.username, gp.user.id, gp.game.name, gp.status FROM GamePlayer gp")
+    List<Object[]> findTypeaheadRows();
+
+    // id, username, status, tổng và số lượng đánh giá của mọi player, dùng cho bảng xếp hạng phổ biến
+    @Query("SELECT gp.id, gp.username, gp.status, gp.ratingSum, gp.ratingCount FROM GamePlayer gp")
+    List<Object[]> findLeaderboardRows();
+
+    // Tổng hợp đánh giá của một player: ratingSum, ratingCount, số đánh giá 1..5 sao
+    @Query("SELECT gp.ratingSum, gp.ratingCount, gp.oneStarCount, gp.twoStarCount, gp.threeStarCount, " +
+           "gp.fourStarCount, gp.fiveStarCount FROM GamePlayer gp WHERE gp.id = :id")
+    List<Object[]> findRatingAggregate(@Param("id") Long id);
+
+    // Tổng hợp đánh giá mọi player của một user, cùng thứ tự cột với findRatingAggregate
+    @Query("SELECT SUM(gp.ratingSum), SUM(gp.ratingCount), SUM(gp.oneStarCount), SUM(gp.twoStarCount), " +
+           "SUM(gp.threeStarCount), SUM(gp.fourStarCount), SUM(gp.fiveStarCount) FROM GamePlayer gp WHERE gp.user.id = :userId")
+    List<Object[]> findRatingAggregateByUserId(@Param("userId") Long userId);
+
+    // Player chưa có tổng hợp đánh giá (dòng có trước khi thêm các cột tổng hợp)
+    @Query("SELECT gp.id FROM GamePlayer gp WHERE gp.ratingCount IS NULL")
+    List<Long> findIdsWithoutRatingAggregate();
+
+    // Cộng dồn thay đổi đánh giá. rating được gán trước nên đọc giá trị cũ của sum/count ở mọi CSDL
+    @Modifying
+    @Query("UPDATE GamePlayer gp SET " +
+           "gp.rating = CASE WHEN COALESCE(gp.ratingCount, 0) + :countDelta > 0 " +
+           "THEN (COALESCE(gp.ratingSum, 0.0) + :sumDelta) / (COALESCE(gp.ratingCount, 0) + :countDelta) ELSE 0.0 END, " +
+           "gp.ratingSum = COALESCE(gp.ratingSum, 0.0) + :sumDelta, " +
+           "gp.ratingCount = COALESCE(gp.ratingCount, 0) + :countDelta, " +
+           "gp.oneStarCount = COALESCE(gp.oneStarCount, 0) + :oneDelta, " +
+           "gp.twoStarCount = COALESCE(gp.twoStarCount, 0) + :twoDelta, " +
+           "gp.threeStarCount = COALESCE(gp.threeStarCount, 0) + :threeDelta, " +
+           "gp.fourStarCount = COALESCE(gp.fourStarCount, 0) + :fourDelta, " +
+           "gp.fiveStarCount = COALESCE(gp.fiveStarCount, 0) + :fiveDelta " +
+           "WHERE gp.id = :id")
+    int addRatingDelta(@Param("id") Long id, @Param("sumDelta") double sumDelta, @Param("countDelta") long countDelta,
+                       @Param("oneDelta") long oneDelta, @Param("twoDelta") long twoDelta, @Param("threeDelta") long threeDelta,
+                       @Param("fourDelta") long fourDelta, @Param("fiveDelta") long fiveDelta);
+
+    // Ghi đè tổng hợp đánh giá; xóa persistence context để lần đọc sau thấy giá trị mới
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE GamePlayer gp SET gp.rating = :rating, gp.ratingSum = :sum, gp.ratingCount = :count, " +
+           "gp.oneStarCount = :one, gp.twoStarCount = :two, gp.threeStarCount = :three, " +
+           "gp.fourStarCount = :four, gp.fiveStarCount = :five WHERE gp.id = :id")
+    int setRatingAggregate(@Param("id") Long id, @Param("rating") double rating, @Param("sum") double sum,
+                           @Param("count") long count, @Param("one") long one, @Param("two") long two,
+                           @Param("three") long three, @Param("four") long four, @Param("five") long five);
     
     // Đếm số game player theo status và thời gian tạo
     @Query("SELECT COUNT(gp) FROM GamePlayer gp WHERE gp.status IN :statuses AND gp.createdAt BETWEEN :startDate AND :endDate")
@@ -2,6 +2,7 @@ package com.example.backend.repository;
 
 import com.example.backend.entity.Game;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import java.util.List;
 import java.util.Optional;
@@ -13,4 +14,20 @@ public interface GameRepository extends JpaRepository<Game, Long> {
     List<Game> findByPlatform(String platform);
     List<Game> findByStatus(String status);
     List<Game> findByCategoryAndPlatform(String category, String platform);
+
+    // id, name, category của mọi game, dùng cho tìm kiếm gợi ý
+    @Query("SELECT g.id, g.name, g.category FROM Game g")
+    List<Object[]> findTypeaheadRows();
+
+    // Các cột của danh mục game: id, name, imageUrl, category, platform, status
+    @Query("SELECT g.id, g.name, g.imageUrl, g.category, g.platform, g.status FROM Game g ORDER BY g.id")
+    List<Object[]> findCatalogRows();
+
+    // Role có sẵn của mọi game: gameId, role (nạp một lần thay vì lazy load theo từng game)
+    @Query("SELECT g.id, r FROM Game g JOIN g.availableRoles r")
+    List<Object[]> findAllAvailableRoles();
+
+    // Rank có sẵn của mọi game: gameId, rank
+    @Query("SELECT g.id, r FROM Game g JOIN g.availableRanks r")
+    List<Object[]> findAllAvailableRanks();
 } 
\ No newline at end of file
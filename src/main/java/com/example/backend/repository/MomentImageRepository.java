@@ -2,7 +2,9 @@ package com.example.backend.repository;
 
 import com.example.backend.entity.MomentImage;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -10,7 +12,15 @@ public interface MomentImageRepository extends JpaRepository<MomentImage, Long>
     
     // Lấy tất cả ảnh của một moment
     List<MomentImage> findByMomentIdOrderByDisplayOrderAsc(Long momentId);
+
+    // (momentId, imageUrl) của nhiều moment, theo thứ tự hiển thị
+    @Query("SELECT mi.moment.id, mi.imageUrl FROM MomentImage mi WHERE mi.moment.id IN ?1 ORDER BY mi.displayOrder ASC")
+    List<Object[]> findImageUrlsByMomentIds(Collection<Long> momentIds);
     
     // Xóa tất cả ảnh của một moment
     void deleteByMomentId(Long momentId);
+
+    // URL ảnh của các moment chưa bị xóa (dọn file upload không còn được tham chiếu)
+    @Query("SELECT mi.imageUrl FROM MomentImage mi WHERE mi.moment.status <> 'DELETED'")
+    List<String> findLiveImageUrls();
 } 
\ No newline at end of file
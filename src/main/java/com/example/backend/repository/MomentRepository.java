@@ -1,25 +1,35 @@
 package com.example.backend.repository;
 
 import com.example.backend.entity.Moment;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface MomentRepository extends JpaRepository<Moment, Long> {
     
-    // Lấy tất cả moment của một game player
-    Page<Moment> findByGamePlayerIdAndStatusOrderByCreatedAtDesc(Long gamePlayerId, String status, Pageable pageable);
+    // Các truy vấn *Before phân trang keyset theo (createdAt, id) giảm dần: lấy các moment đứng sau
+    // moment cuối của trang trước, chỉ trả (id, createdAt) để dựng cursor (MomentDTOAssembler nạp phần còn lại)
+
+    // Moment của một game player
+    @Query("SELECT m.id, m.createdAt FROM Moment m WHERE m.gamePlayer.id = ?1 AND m.status = ?2 " +
+           "AND (m.createdAt < ?3 OR (m.createdAt = ?3 AND m.id < ?4)) ORDER BY m.createdAt DESC, m.id DESC")
+    List<Object[]> findRefsByGamePlayerIdAndStatusBefore(Long gamePlayerId, String status,
+                                                         LocalDateTime createdAt, Long id, Pageable pageable);
     
     // Lấy moment theo game player ID
     List<Moment> findByGamePlayerIdAndStatus(Long gamePlayerId, String status);
     
-    // Lấy moment theo user ID (thông qua game player)
-    @Query("SELECT m FROM Moment m WHERE m.gamePlayer.user.id = ?1 AND m.status = ?2 ORDER BY m.createdAt DESC")
-    Page<Moment> findByUserIdAndStatus(Long userId, String status, Pageable pageable);
+    // Moment theo user ID (thông qua game player)
+    @Query("SELECT m.id, m.createdAt FROM Moment m WHERE m.gamePlayer.user.id = ?1 AND m.status = ?2 " +
+           "AND (m.createdAt < ?3 OR (m.createdAt = ?3 AND m.id < ?4)) ORDER BY m.createdAt DESC, m.id DESC")
+    List<Object[]> findRefsByUserIdAndStatusBefore(Long userId, String status,
+                                                   LocalDateTime createdAt, Long id, Pageable pageable);
     
     // Đếm số moment của một game player
     Long countByGamePlayerIdAndStatus(Long gamePlayerId, String status);
@@ -31,9 +41,31 @@ public interface MomentRepository extends JpaRepository<Moment, Long> {
     @Query("SELECT m FROM Moment m WHERE m.id = ?1 AND m.gamePlayer.user.id = ?2")
     Moment findByIdAndUserId(Long id, Long userId);
     
-    // Lấy moment theo danh sách game player IDs (cho feed)
-    @Query("SELECT m FROM Moment m WHERE m.gamePlayer.id IN ?1 AND m.status = ?2 ORDER BY m.createdAt DESC")
-    Page<Moment> findByGamePlayerIdInAndStatusOrderByCreatedAtDesc(List<Long> gamePlayerIds, String status, Pageable pageable);
+    // Moment theo danh sách game player IDs (cho feed)
+    @Query("SELECT m.id, m.createdAt FROM Moment m WHERE m.gamePlayer.id IN ?1 AND m.status = ?2 " +
+           "AND (m.createdAt < ?3 OR (m.createdAt = ?3 AND m.id < ?4)) ORDER BY m.createdAt DESC, m.id DESC")
+    List<Object[]> findRefsByGamePlayerIdInAndStatusBefore(List<Long> gamePlayerIds, String status,
+                                                           LocalDateTime createdAt, Long id, Pageable pageable);
+
+    @Query("SELECT m.id, m.createdAt FROM Moment m WHERE m.status = ?1 " +
+           "AND (m.createdAt < ?2 OR (m.createdAt = ?2 AND m.id < ?3)) ORDER BY m.createdAt DESC, m.id DESC")
+    List<Object[]> findRefsByStatusBefore(String status, LocalDateTime createdAt, Long id, Pageable pageable);
+
+    // Các cột của MomentDTO cho nhiều moment trong một truy vấn (kèm player, game và user sở hữu player)
+    @Query("SELECT m.id, gp.id, gp.username, g.name, m.content, m.createdAt, m.updatedAt, m.status, u.id " +
+           "FROM Moment m JOIN m.gamePlayer gp JOIN gp.game g LEFT JOIN gp.user u WHERE m.id IN ?1")
+    List<Object[]> findDtoRowsByIdIn(Collection<Long> ids);
+
+    @Query("SELECT m.gamePlayer.id FROM Moment m WHERE m.id = ?1")
+    Optional<Long> findGamePlayerIdById(Long id);
+
+    // (id, status) mọi moment của một game player lớn hơn afterId, tăng dần: dãy moment riêng của player
+    @Query("SELECT m.id, m.status FROM Moment m WHERE m.gamePlayer.id = ?1 AND m.id > ?2 ORDER BY m.id ASC")
+    List<Object[]> findIdsAndStatusAfter(Long gamePlayerId, Long afterId);
 
-    Page<Moment> findByStatusOrderByCreatedAtDesc(String status, org.springframework.data.domain.Pageable pageable);
+    // (id, createdAt) của các moment đứng sau (createdAt, id) của các game player, cho timeline feed
+    @Query("SELECT m.id, m.createdAt FROM Moment m WHERE m.gamePlayer.id IN ?1 AND m.status = ?2 " +
+           "AND (m.createdAt < ?3 OR (m.createdAt = ?3 AND m.id < ?4)) ORDER BY m.createdAt DESC, m.id DESC")
+    List<Object[]> findTimelineRefsBefore(Collection<Long> gamePlayerIds, String status,
+                                          LocalDateTime createdAt, Long id, Pageable pageable);
 } 
\ No newline at end of file
@@ -1,9 +1,14 @@
 package com.example.backend.repository;
 
 import com.example.backend.entity.PlayerFollow;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface PlayerFollowRepository extends JpaRepository<PlayerFollow, Long> {
     boolean existsByFollowerIdAndGamePlayerId(Long followerId, Long gamePlayerId);
@@ -20,14 +25,60 @@ public interface PlayerFollowRepository extends JpaRepository<PlayerFollow, Long
     @Query("SELECT COUNT(f) FROM PlayerFollow f WHERE f.follower.id = ?1")
     Long countFollowingByFollowerId(Long followerId);
 
+    @Query("SELECT f.gamePlayer.id, COUNT(f) FROM PlayerFollow f WHERE f.gamePlayer.id IN ?1 GROUP BY f.gamePlayer.id")
+    List<Object[]> countFollowersByGamePlayerIds(Collection<Long> gamePlayerIds);
+
+    @Query("SELECT f.gamePlayer.id FROM PlayerFollow f WHERE f.follower.id = ?1")
+    List<Long> findFollowedGamePlayerIds(Long followerId);
+
+    @Query("SELECT f.follower.id FROM PlayerFollow f WHERE f.gamePlayer.id = ?1")
+    List<Long> findFollowerIds(Long gamePlayerId);
+
+    // Khóa dòng follow khi cập nhật watermark đã xem, tránh hai lượt xem cùng lúc ghi đè bitmap của nhau
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT f FROM PlayerFollow f WHERE f.follower.id = ?1 AND f.gamePlayer.id = ?2")
+    Optional<PlayerFollow> findForSeenUpdate(Long followerId, Long gamePlayerId);
+
+    // Số moment ACTIVE mới hơn watermark đã xem, trên mọi player user đang follow
+    @Query("SELECT COUNT(m) FROM PlayerFollow f, Moment m WHERE m.gamePlayer.id = f.gamePlayer.id " +
+           "AND f.follower.id = ?1 AND m.status = 'ACTIVE' AND m.id > COALESCE(f.lastSeenMomentId, 0L)")
+    long countMomentsAboveWatermark(Long followerId);
+
+    // (momentId, gamePlayerId, status, bitmap, createdAt) của mọi moment mới hơn watermark, theo player rồi id
+    // tăng dần để tính thứ tự của moment trong dãy của player (vị trí bit trong bitmap)
+    @Query("SELECT m.id, m.gamePlayer.id, m.status, f.seenBitmap, m.createdAt FROM PlayerFollow f, Moment m " +
+           "WHERE m.gamePlayer.id = f.gamePlayer.id AND f.follower.id = ?1 " +
+           "AND m.id > COALESCE(f.lastSeenMomentId, 0L) ORDER BY m.gamePlayer.id, m.id")
+    List<Object[]> findMomentsAboveWatermark(Long followerId);
+
+    // Như trên nhưng chỉ với các follow có bitmap (moment xem không theo thứ tự)
+    @Query("SELECT m.id, m.gamePlayer.id, m.status, f.seenBitmap, m.createdAt FROM PlayerFollow f, Moment m " +
+           "WHERE m.gamePlayer.id = f.gamePlayer.id AND f.follower.id = ?1 " +
+           "AND m.id > COALESCE(f.lastSeenMomentId, 0L) AND f.seenBitmap IS NOT NULL ORDER BY m.gamePlayer.id, m.id")
+    List<Object[]> findMomentsAboveWatermarkWithBitmap(Long followerId);
+
+    // Đánh dấu đã xem mọi moment của mọi player user đang follow: một câu UPDATE, mỗi follow một dòng
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE PlayerFollow f SET f.lastSeenMomentId = " +
+           "(SELECT MAX(m.id) FROM Moment m WHERE m.gamePlayer.id = f.gamePlayer.id), f.seenBitmap = NULL " +
+           "WHERE f.follower.id = ?1")
+    int markAllMomentsSeen(Long followerId);
+
+    // Toàn bộ cặp (followerId, gamePlayerId), dùng để dựng đồ thị gợi ý
+    @Query("SELECT f.follower.id, f.gamePlayer.id FROM PlayerFollow f")
+    List<Object[]> findAllFollowPairs();
+
+    // Số người theo dõi của từng player, dùng để dựng lại bảng xếp hạng phổ biến
+    @Query("SELECT f.gamePlayer.id, COUNT(f) FROM PlayerFollow f GROUP BY f.gamePlayer.id")
+    List<Object[]> countFollowersGroupedByGamePlayer();
+
     @Query(value = "SELECT gp.id as gamePlayerId, gp.username, " +
            "COUNT(f.id) as followerCount, " +
-           "COALESCE(AVG(r.rating), 0) as averageRating " +
+           "COALESCE(gp.rating, 0) as averageRating " +
            "FROM game_players gp " +
            "LEFT JOIN player_follows f ON gp.id = f.game_player_id " +
-           "LEFT JOIN reviews r ON gp.id = r.game_player_id " +
            "WHERE gp.status = 'AVAILABLE' " +
-           "GROUP BY gp.id, gp.username " +
+           "GROUP BY gp.id, gp.username, gp.rating " +
            "ORDER BY followerCount DESC, averageRating DESC " +
            "LIMIT ?1 OFFSET ?2", nativeQuery = true)
     List<Object[]> findPopularPlayers(int limit, int offset);
@@ -45,17 +96,16 @@ public interface PlayerFollowRepository extends JpaRepository<PlayerFollow, Long
            ") " +
            "SELECT gp.id as gamePlayerId, gp.username, " +
            "COUNT(f.id) as followerCount, " +
-           "COALESCE(AVG(r.rating), 0) as averageRating, " +
+           "COALESCE(gp.rating, 0) as averageRating, " +
            "COUNT(uf.game_player_id) as commonFollowers " +
            "FROM game_players gp " +
            "LEFT JOIN player_follows f ON gp.id = f.game_player_id " +
-           "LEFT JOIN reviews r ON gp.id = r.game_player_id " +
            "LEFT JOIN user_followers uf ON gp.id = uf.game_player_id " +
            "WHERE gp.user_id != ?1 " +
            "AND gp.id NOT IN (SELECT game_player_id FROM player_follows WHERE follower_id = ?1) " +
            "AND gp.user_id NOT IN (SELECT id FROM blocked_users) " +
            "AND gp.status = 'AVAILABLE' " +
-           "GROUP BY gp.id, gp.username " +
+           "GROUP BY gp.id, gp.username, gp.rating " +
            "ORDER BY commonFollowers DESC, followerCount DESC, averageRating DESC " +
            "LIMIT 10", nativeQuery = true)
     List<Object[]> findSuggestedPlayers(Long userId);
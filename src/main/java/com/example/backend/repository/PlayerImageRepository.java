@@ -3,6 +3,7 @@ package com.example.backend.repository;
 import com.example.backend.entity.PlayerImage;
 import com.example.backend.entity.GamePlayer;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import java.util.List;
 
@@ -10,4 +11,8 @@ import java.util.List;
 public interface PlayerImageRepository extends JpaRepository<PlayerImage, Long> {
     List<PlayerImage> findByGamePlayer(GamePlayer gamePlayer);
     List<PlayerImage> findByGamePlayerId(Long gamePlayerId);
+
+    // Chỉ lấy URL, dùng khi dọn file upload không còn được tham chiếu
+    @Query("SELECT p.imageUrl FROM PlayerImage p")
+    List<String> findAllImageUrls();
 } 
\ No newline at end of file
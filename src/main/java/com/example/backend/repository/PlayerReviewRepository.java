@@ -3,12 +3,10 @@ package com.example.backend.repository;
 import com.example.backend.entity.PlayerReview;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import java.util.List;
 
 public interface PlayerReviewRepository extends JpaRepository<PlayerReview, Long> {
-    @Query("SELECT AVG(r.rating) FROM PlayerReview r WHERE r.gamePlayer.user.id = ?1")
-    Double getAverageRatingByPlayerId(Long playerId);
-    
     boolean existsByOrderId(Long orderId);
     
     PlayerReview findByOrderId(Long orderId);
@@ -21,7 +19,9 @@ public interface PlayerReviewRepository extends JpaRepository<PlayerReview, Long
     
     // Đánh giá theo gamePlayer ID (không phải user ID)
     List<PlayerReview> findByGamePlayerId(Long gamePlayerId);
-    
-    @Query("SELECT AVG(r.rating) FROM PlayerReview r WHERE r.gamePlayer.id = ?1")
-    Double getAverageRatingByGamePlayerId(Long gamePlayerId);
+
+    // Số đánh giá theo (player, số sao): gamePlayerId, rating, count
+    @Query("SELECT r.gamePlayer.id, r.rating, COUNT(r) FROM PlayerReview r " +
+           "WHERE r.gamePlayer.id IN :gamePlayerIds GROUP BY r.gamePlayer.id, r.rating")
+    List<Object[]> countRatingsByGamePlayerIds(@Param("gamePlayerIds") List<Long> gamePlayerIds);
 } 
\ No newline at end of file
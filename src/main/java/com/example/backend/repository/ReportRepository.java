@@ -17,6 +17,9 @@ public interface ReportRepository extends JpaRepository<Report, Long> {
     List<Report> findByReportedPlayerIdAndStatus(Long reportedPlayerId, String status);
     List<Report> findByReporterIdAndReportedPlayerId(Long reporterId, Long reportedPlayerId);
     long countByStatus(String status);
+
+    @Query("SELECT r.videoUrl FROM Report r WHERE r.videoUrl IS NOT NULL")
+    List<String> findAllVideoUrls();
     
     // Tìm báo cáo của một user về một player trong ngày cụ thể
     @Query("SELECT r FROM Report r WHERE r.reporter.id = :reporterId AND r.reportedPlayer.id = :reportedPlayerId AND DATE(r.createdAt) = DATE(:date)")
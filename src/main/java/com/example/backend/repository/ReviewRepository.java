@@ -2,6 +2,8 @@ package com.example.backend.repository;
 
 import com.example.backend.entity.Review;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.util.List;
 
@@ -11,6 +13,10 @@ public interface ReviewRepository extends JpaRepository<Review, Long> {
     List<Review> findByUserId(Long userId);
     List<Review> findByStatus(String status);
     List<Review> findByGamePlayerIdAndStatus(Long gamePlayerId, String status);
-    Double findAverageRatingByGamePlayerId(Long gamePlayerId);
     List<Review> findByGamePlayerIdAndUserId(Long gamePlayerId, Long userId);
+
+    // Số đánh giá chưa xóa theo (player, mức rating): gamePlayerId, rating, count
+    @Query("SELECT r.gamePlayer.id, r.rating, COUNT(r) FROM Review r WHERE r.status <> 'DELETED' " +
+           "AND r.gamePlayer.id IN :gamePlayerIds GROUP BY r.gamePlayer.id, r.rating")
+    List<Object[]> countRatingsByGamePlayerIds(@Param("gamePlayerIds") List<Long> gamePlayerIds);
 } 
\ No newline at end of file
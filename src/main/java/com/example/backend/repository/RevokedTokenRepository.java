@@ -0,0 +1,33 @@
+package com.example.backend.repository;
+
+import com.example.backend.entity.RevokedToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, Long> {
+
+    boolean existsByJti(String jti);
+
+    /**
+     * Các token bị thu hồi chưa hết hạn (nạp lại khi khởi động)
+     */
+    @Query("SELECT rt FROM RevokedToken rt WHERE rt.expiresAt > :now")
+    List<RevokedToken> findUnexpired(@Param("now") LocalDateTime now);
+
+    /**
+     * Các token bị thu hồi từ thời điểm cho trước (đồng bộ giữa các node)
+     */
+    @Query("SELECT rt FROM RevokedToken rt WHERE rt.revokedAt >= :since AND rt.expiresAt > :now")
+    List<RevokedToken> findRevokedSince(@Param("since") LocalDateTime since, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM RevokedToken rt WHERE rt.expiresAt <= :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -17,4 +17,9 @@ public interface UserBlockRepository extends JpaRepository<UserBlock, Long> {
     @Query("SELECT CASE WHEN COUNT(b) > 0 THEN true ELSE false END FROM UserBlock b " +
            "WHERE (b.blocker.id = ?1 AND b.blocked.id = ?2) OR (b.blocker.id = ?2 AND b.blocked.id = ?1)")
     boolean isBlocked(Long userId1, Long userId2);
+
+    // Những user đã chặn hoặc bị chặn bởi userId
+    @Query("SELECT b.blocked.id FROM UserBlock b WHERE b.blocker.id = ?1 " +
+           "UNION SELECT b.blocker.id FROM UserBlock b WHERE b.blocked.id = ?1")
+    List<Long> findBlockRelatedUserIds(Long userId);
 } 
\ No newline at end of file
@@ -0,0 +1,24 @@
+package com.example.backend.repository;
+
+import com.example.backend.entity.UserMedia;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface UserMediaRepository extends JpaRepository<UserMedia, Long> {
+    Optional<UserMedia> findByUserIdAndMediaType(Long userId, String mediaType);
+
+    /**
+     * Chỉ lấy ETag, không tải LOB (dùng cho request có điều kiện)
+     */
+    @Query("SELECT m.etag FROM UserMedia m WHERE m.userId = :userId AND m.mediaType = :mediaType")
+    Optional<String> findEtag(@Param("userId") Long userId, @Param("mediaType") String mediaType);
+
+    void deleteByUserIdAndMediaType(Long userId, String mediaType);
+
+    void deleteByUserId(Long userId);
+}
@@ -2,6 +2,7 @@ package com.example.backend.repository;
 
 import com.example.backend.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -39,4 +40,28 @@ public interface UserRepository extends JpaRepository<User, Long> {
     // Tìm tất cả admin (cách khác với ROLE_ADMIN)
     @Query("SELECT DISTINCT u FROM User u JOIN u.roles r WHERE r = 'ROLE_ADMIN'")
     List<User> findAllAdminsWithRole();
-} 
\ No newline at end of file
+
+    // Ghi lastActiveAt theo lô cho các user có heartbeat; không lùi lastActiveAt (lô cũ được ghi lại sau lỗi)
+    @Modifying
+    @Query("UPDATE User u SET u.isOnline = true, u.lastActiveAt = :activeAt WHERE u.id IN :ids " +
+           "AND (u.lastActiveAt IS NULL OR u.lastActiveAt < :activeAt)")
+    int markActive(@Param("ids") List<Long> ids, @Param("activeAt") LocalDateTime activeAt);
+
+    // Đánh dấu offline các user không hoạt động từ trước thời điểm cho trước
+    @Modifying
+    @Query("UPDATE User u SET u.isOnline = false WHERE u.isOnline = true AND (u.lastActiveAt IS NULL OR u.lastActiveAt < :cutoff)")
+    int markInactiveBefore(@Param("cutoff") LocalDateTime cutoff);
+
+    @Modifying
+    @Query("UPDATE User u SET u.isOnline = false, u.lastActiveAt = :now WHERE u.id = :id")
+    int markOffline(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    // [avatarUrl, profileImageUrl, coverImageUrl] của các user có ít nhất một ảnh
+    @Query("SELECT u.avatarUrl, u.profileImageUrl, u.coverImageUrl FROM User u " +
+           "WHERE u.avatarUrl IS NOT NULL OR u.profileImageUrl IS NOT NULL OR u.coverImageUrl IS NOT NULL")
+    List<Object[]> findMediaUrls();
+
+    // id, fullName, username của user có họ tên, dùng cho tìm kiếm gợi ý
+    @Query("SELECT u.id, u.fullName, u.username FROM User u WHERE u.fullName IS NOT NULL")
+    List<Object[]> findTypeaheadRows();
+}
@@ -4,6 +4,9 @@ import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import com.example.backend.service.BanStateCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -16,13 +19,18 @@ import java.io.IOException;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
+    // "log": GenericFilterBean đã có field logger (commons-logging)
+    private static final Logger log = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
 
     private final JwtTokenUtil jwtTokenUtil;
     private final UserDetailsService userDetailsService;
+    private final BanStateCache banStateCache;
 
-    public JwtAuthenticationFilter(JwtTokenUtil jwtTokenUtil, UserDetailsService userDetailsService) {
+    public JwtAuthenticationFilter(JwtTokenUtil jwtTokenUtil, UserDetailsService userDetailsService,
+                                   BanStateCache banStateCache) {
         this.jwtTokenUtil = jwtTokenUtil;
         this.userDetailsService = userDetailsService;
+        this.banStateCache = banStateCache;
     }
 
     @Override
@@ -49,6 +57,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         final String username = jwtTokenUtil.extractUsername(jwt);
         System.out.println("[JwtAuthenticationFilter] Extracted username: " + username);
 
+        if (banStateCache.isBanned(username)) {
+            log.debug("User {} is banned, skipping authentication", username);
+            filterChain.doFilter(request, response);
+            return;
+        }
+
         if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
             System.out.println("[JwtAuthenticationFilter] Loading user details for username: " + username);
             UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
@@ -1,6 +1,7 @@
 package com.example.backend.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
@@ -14,9 +15,8 @@ import jakarta.servlet.http.HttpServletRequest;
 import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
-import java.util.Set;
+import java.util.UUID;
 import java.util.function.Function;
 
 @Component
@@ -31,7 +31,11 @@ public class JwtTokenUtil {
     @Value("${jwt.refresh.expiration}")
     private Long refreshExpiration;
 
-    private final Set<String> invalidatedTokens = new HashSet<>();
+    private final TokenRevocationStore tokenRevocationStore;
+
+    public JwtTokenUtil(TokenRevocationStore tokenRevocationStore) {
+        this.tokenRevocationStore = tokenRevocationStore;
+    }
 
     private Key getSigningKey() {
         byte[] keyBytes = secret.getBytes();
@@ -47,6 +51,7 @@ public class JwtTokenUtil {
         return Jwts.builder()
                 .setClaims(claims)
                 .setSubject(subject)
+                .setId(UUID.randomUUID().toString())
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
                 .signWith(getSigningKey(), SignatureAlgorithm.HS256)
@@ -64,19 +69,32 @@ public class JwtTokenUtil {
     }
 
     public void invalidateToken(String token) {
-        invalidatedTokens.add(token);
+        try {
+            Claims claims = extractAllClaims(token);
+            tokenRevocationStore.revoke(getRevocationKey(claims, token), claims.getExpiration().toInstant());
+        } catch (JwtException e) {
+            // Token đã hết hạn hoặc không hợp lệ thì không cần thu hồi
+        }
     }
 
     public boolean isTokenInvalidated(String token) {
-        return invalidatedTokens.contains(token);
+        return tokenRevocationStore.isRevoked(getRevocationKey(extractAllClaims(token), token));
     }
 
     public Boolean validateToken(String token, UserDetails userDetails) {
-        if (isTokenInvalidated(token)) {
+        final Claims claims = extractAllClaims(token);
+        if (tokenRevocationStore.isRevoked(getRevocationKey(claims, token))) {
             return false;
         }
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        return (claims.getSubject().equals(userDetails.getUsername()) && !claims.getExpiration().before(new Date()));
+    }
+
+    // Token cũ không có jti thì dùng phần chữ ký làm khoá
+    private String getRevocationKey(Claims claims, String token) {
+        if (claims.getId() != null) {
+            return claims.getId();
+        }
+        return token.substring(token.lastIndexOf('.') + 1);
     }
 
     public String extractUsername(String token) {
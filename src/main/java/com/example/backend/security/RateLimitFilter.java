@@ -0,0 +1,131 @@
+package com.example.backend.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Giới hạn tần suất cho các endpoint tốn kém (BCrypt khi đăng nhập, transaction
+ * SERIALIZABLE khi thuê / thanh toán) theo IP và theo user, trả về 429 kèm Retry-After.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+    private static final AntPathMatcher PATH_MATCHER = new AntPathMatcher();
+
+    private final RateLimiter rateLimiter;
+
+    @Value("${rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${rate-limit.auth.capacity:10}")
+    private int authCapacity;
+
+    @Value("${rate-limit.auth.refill-per-minute:10}")
+    private int authRefillPerMinute;
+
+    @Value("${rate-limit.hire.capacity:5}")
+    private int hireCapacity;
+
+    @Value("${rate-limit.hire.refill-per-minute:10}")
+    private int hireRefillPerMinute;
+
+    @Value("${rate-limit.payment.capacity:5}")
+    private int paymentCapacity;
+
+    @Value("${rate-limit.payment.refill-per-minute:10}")
+    private int paymentRefillPerMinute;
+
+    public RateLimitFilter(RateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    private enum RouteGroup {
+        AUTH(List.of("/api/auth/login", "/api/auth/register", "/api/auth/forgot-password", "/api/auth/refresh-token")),
+        HIRE(List.of("/api/game-players/*/hire", "/api/players/*/hire")),
+        PAYMENT(List.of("/api/payments/donate", "/api/payments/withdraw", "/api/payments/vnpay/create",
+                "/api/payments/topup", "/api/payments/deposit"));
+
+        private final List<String> patterns;
+
+        RouteGroup(List<String> patterns) {
+            this.patterns = patterns;
+        }
+
+        static RouteGroup match(String path) {
+            for (RouteGroup group : values()) {
+                for (String pattern : group.patterns) {
+                    if (PATH_MATCHER.match(pattern, path)) {
+                        return group;
+                    }
+                }
+            }
+            return null;
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !"POST".equalsIgnoreCase(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        RouteGroup group = RouteGroup.match(request.getRequestURI().substring(request.getContextPath().length()));
+        if (group == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        int capacity = capacityOf(group);
+        int refillPerMinute = refillOf(group);
+        long waitNanos = rateLimiter.tryConsume(group + ":ip:" + request.getRemoteAddr(), capacity, refillPerMinute);
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (waitNanos == 0 && authentication != null && authentication.isAuthenticated()
+                && !(authentication instanceof AnonymousAuthenticationToken)) {
+            waitNanos = rateLimiter.tryConsume(group + ":user:" + authentication.getName(), capacity, refillPerMinute);
+        }
+
+        if (waitNanos > 0) {
+            long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            response.setHeader("Retry-After", String.valueOf(retryAfter));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setCharacterEncoding("UTF-8");
+            response.getWriter().write("{\"error\":\"Quá nhiều yêu cầu, vui lòng thử lại sau " + retryAfter + " giây\"}");
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private int capacityOf(RouteGroup group) {
+        return switch (group) {
+            case AUTH -> authCapacity;
+            case HIRE -> hireCapacity;
+            case PAYMENT -> paymentCapacity;
+        };
+    }
+
+    private int refillOf(RouteGroup group) {
+        return switch (group) {
+            case AUTH -> authRefillPerMinute;
+            case HIRE -> hireRefillPerMinute;
+            case PAYMENT -> paymentRefillPerMinute;
+        };
+    }
+}
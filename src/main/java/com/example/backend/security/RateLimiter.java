@@ -0,0 +1,77 @@
+package com.example.backend.security;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Kho token bucket trong bộ nhớ, không dùng lock.
+ *
+ * Mỗi bucket được nạp lại lười biếng tại thời điểm tiêu thụ, trạng thái được
+ * cập nhật bằng CAS nên nhiều request song song không phải chờ nhau.
+ */
+@Component
+public class RateLimiter {
+    private static final long IDLE_EVICT_NANOS = TimeUnit.MINUTES.toNanos(10);
+
+    private final Map<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    /**
+     * Tiêu thụ một token của bucket theo key.
+     * @return 0 nếu được phép, ngược lại là số nano giây cần chờ đến khi có token
+     */
+    public long tryConsume(String key, int capacity, int refillPerMinute) {
+        TokenBucket bucket = buckets.computeIfAbsent(key, k -> new TokenBucket(capacity, refillPerMinute));
+        return bucket.tryConsume(System.nanoTime());
+    }
+
+    /**
+     * Xoá các bucket không được dùng trong một thời gian (khi đó chúng đã đầy trở lại)
+     */
+    @Scheduled(fixedRate = 300000)
+    public void evictIdleBuckets() {
+        long now = System.nanoTime();
+        buckets.values().removeIf(bucket -> now - bucket.lastAccess() > IDLE_EVICT_NANOS);
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+    static final class TokenBucket {
+        private final double capacity;
+        private final double tokensPerNano;
+        private final AtomicReference<State> state;
+
+        TokenBucket(int capacity, int refillPerMinute) {
+            this.capacity = capacity;
+            this.tokensPerNano = refillPerMinute / (double) TimeUnit.MINUTES.toNanos(1);
+            this.state = new AtomicReference<>(new State(capacity, System.nanoTime()));
+        }
+
+        long tryConsume(long now) {
+            while (true) {
+                State current = state.get();
+                double tokens = Math.min(capacity, current.tokens + (now - current.refilledAt) * tokensPerNano);
+                if (tokens < 1) {
+                    // Không đủ token, chỉ báo thời gian chờ, không thay đổi trạng thái
+                    return (long) Math.ceil((1 - tokens) / tokensPerNano);
+                }
+                if (state.compareAndSet(current, new State(tokens - 1, now))) {
+                    return 0;
+                }
+            }
+        }
+
+        long lastAccess() {
+            return state.get().refilledAt;
+        }
+    }
+
+    private record State(double tokens, long refilledAt) {
+    }
+}
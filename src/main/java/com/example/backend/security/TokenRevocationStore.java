@@ -0,0 +1,196 @@
+package com.example.backend.security;
+
+import com.example.backend.entity.RevokedToken;
+import com.example.backend.repository.RevokedTokenRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lưu danh sách token (theo claim jti) đã bị thu hồi.
+ *
+ * Kiểm tra trên request path chỉ đọc bộ nhớ: Bloom filter loại nhanh các token chưa
+ * bị thu hồi, sau đó tra ConcurrentHashMap. Mỗi bản ghi tự hết hạn cùng lúc với token.
+ * Bảng revoked_tokens giúp các node khác thấy được logout thông qua đồng bộ định kỳ.
+ */
+@Component
+public class TokenRevocationStore {
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationStore.class);
+
+    private final RevokedTokenRepository revokedTokenRepository;
+
+    @Value("${jwt.revocation.expected-entries:100000}")
+    private int expectedEntries;
+
+    @Value("${jwt.revocation.sync-interval:10000}")
+    private long syncInterval;
+
+    // jti -> thời điểm hết hạn (epoch millis)
+    private final Map<String, Long> revoked = new ConcurrentHashMap<>();
+    private final Object writeLock = new Object();
+    private volatile BloomFilter bloomFilter;
+    private volatile LocalDateTime lastSyncAt;
+
+    public TokenRevocationStore(RevokedTokenRepository revokedTokenRepository) {
+        this.revokedTokenRepository = revokedTokenRepository;
+    }
+
+    @PostConstruct
+    public void loadFromDatabase() {
+        LocalDateTime now = LocalDateTime.now();
+        bloomFilter = new BloomFilter(expectedEntries);
+        for (RevokedToken token : revokedTokenRepository.findUnexpired(now)) {
+            putLocal(token.getJti(), toEpochMillis(token.getExpiresAt()));
+        }
+        lastSyncAt = now;
+        logger.info("Đã nạp {} token bị thu hồi", revoked.size());
+    }
+
+    public void revoke(String jti, Instant expiresAt) {
+        long expiresAtMillis = expiresAt.toEpochMilli();
+        if (expiresAtMillis <= System.currentTimeMillis() || revoked.containsKey(jti)) {
+            return;
+        }
+        putLocal(jti, expiresAtMillis);
+
+        RevokedToken entity = new RevokedToken();
+        entity.setJti(jti);
+        entity.setExpiresAt(LocalDateTime.ofInstant(expiresAt, ZoneId.systemDefault()));
+        try {
+            revokedTokenRepository.save(entity);
+        } catch (DataIntegrityViolationException e) {
+            // Node khác đã ghi jti này
+        }
+    }
+
+    public boolean isRevoked(String jti) {
+        if (!bloomFilter.mightContain(jti)) {
+            return false;
+        }
+        Long expiresAt = revoked.get(jti);
+        return expiresAt != null && expiresAt > System.currentTimeMillis();
+    }
+
+    /**
+     * Kéo các token bị thu hồi bởi node khác kể từ lần đồng bộ trước.
+     */
+    @Scheduled(fixedDelayString = "${jwt.revocation.sync-interval:10000}")
+    public void syncFromDatabase() {
+        LocalDateTime now = LocalDateTime.now();
+        // Lùi lại một khoảng để không bỏ sót bản ghi commit muộn
+        LocalDateTime since = lastSyncAt.minusNanos(syncInterval * 1_000_000L);
+        List<RevokedToken> tokens = revokedTokenRepository.findRevokedSince(since, now);
+        for (RevokedToken token : tokens) {
+            if (!revoked.containsKey(token.getJti())) {
+                putLocal(token.getJti(), toEpochMillis(token.getExpiresAt()));
+            }
+        }
+        lastSyncAt = now;
+    }
+
+    /**
+     * Xoá các bản ghi đã hết hạn và dựng lại Bloom filter (Bloom filter không hỗ trợ xoá).
+     */
+    @Scheduled(fixedDelayString = "${jwt.revocation.cleanup-interval:600000}")
+    @Transactional
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        synchronized (writeLock) {
+            revoked.values().removeIf(expiresAt -> expiresAt <= now);
+            BloomFilter rebuilt = new BloomFilter(Math.max(expectedEntries, revoked.size() * 2));
+            revoked.keySet().forEach(rebuilt::put);
+            bloomFilter = rebuilt;
+        }
+        int deleted = revokedTokenRepository.deleteExpired(LocalDateTime.now());
+        if (deleted > 0) {
+            logger.info("Đã xoá {} token thu hồi hết hạn", deleted);
+        }
+    }
+
+    public int size() {
+        return revoked.size();
+    }
+
+    private void putLocal(String jti, long expiresAtMillis) {
+        synchronized (writeLock) {
+            revoked.put(jti, expiresAtMillis);
+            bloomFilter.put(jti);
+        }
+    }
+
+    private static long toEpochMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Bloom filter lock-free trên AtomicLongArray, tỉ lệ dương tính giả khoảng 1%.
+     */
+    static final class BloomFilter {
+        private static final int HASH_COUNT = 7;
+
+        private final AtomicLongArray bits;
+        private final long bitCount;
+
+        BloomFilter(int expectedEntries) {
+            // m = -n * ln(p) / (ln 2)^2 với p = 0.01
+            long m = (long) Math.ceil(-Math.max(expectedEntries, 1) * Math.log(0.01) / (Math.log(2) * Math.log(2)));
+            int words = (int) Math.min(Integer.MAX_VALUE - 8, (m + 63) / 64);
+            this.bits = new AtomicLongArray(words);
+            this.bitCount = (long) words * 64;
+        }
+
+        void put(String key) {
+            long hash = hash64(key);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= HASH_COUNT; i++) {
+                long index = Integer.toUnsignedLong(h1 + i * h2) % bitCount;
+                int word = (int) (index >>> 6);
+                long mask = 1L << index;
+                long current;
+                do {
+                    current = bits.get(word);
+                    if ((current & mask) != 0) {
+                        break;
+                    }
+                } while (!bits.compareAndSet(word, current, current | mask));
+            }
+        }
+
+        boolean mightContain(String key) {
+            long hash = hash64(key);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= HASH_COUNT; i++) {
+                long index = Integer.toUnsignedLong(h1 + i * h2) % bitCount;
+                if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // FNV-1a 64 bit
+        private static long hash64(String key) {
+            long hash = 0xcbf29ce484222325L;
+            for (int i = 0; i < key.length(); i++) {
+                hash ^= key.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+            return hash;
+        }
+    }
+}
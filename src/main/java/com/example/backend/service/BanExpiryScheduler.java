@@ -0,0 +1,52 @@
+package com.example.backend.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Luồng nền lấy các ban tạm thời đến hạn từ BanStateCache và gỡ ban.
+ */
+@Component
+public class BanExpiryScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(BanExpiryScheduler.class);
+
+    private final BanStateCache banStateCache;
+    private final UserBanService userBanService;
+    private Thread worker;
+
+    public BanExpiryScheduler(BanStateCache banStateCache, UserBanService userBanService) {
+        this.banStateCache = banStateCache;
+        this.userBanService = userBanService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        worker = new Thread(this::run, "ban-expiry");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                Long banId = banStateCache.takeExpired();
+                userBanService.expireBan(banId);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                logger.error("Lỗi khi gỡ ban tạm thời: {}", e.getMessage(), e);
+            }
+        }
+    }
+}
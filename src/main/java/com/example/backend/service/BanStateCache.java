@@ -0,0 +1,140 @@
+package com.example.backend.service;
+
+import com.example.backend.entity.UserBan;
+import com.example.backend.repository.UserBanRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Trạng thái ban đang có hiệu lực, giữ trong bộ nhớ.
+ *
+ * Trả lời "user có bị ban không" mà không cần truy vấn DB, và xếp lịch gỡ các
+ * ban tạm thời bằng DelayQueue theo banExpiresAt. Dữ liệu được nạp lại từ DB khi khởi động.
+ */
+@Component
+public class BanStateCache {
+    private static final Logger logger = LoggerFactory.getLogger(BanStateCache.class);
+
+    private final UserBanRepository userBanRepository;
+
+    // userId -> ban đang active
+    private final Map<Long, ActiveBan> bansByUserId = new ConcurrentHashMap<>();
+    // username -> userId, dùng cho JWT filter (chỉ có username)
+    private final Map<String, Long> bannedUsernames = new ConcurrentHashMap<>();
+    private final DelayQueue<ScheduledLift> pendingLifts = new DelayQueue<>();
+    // Được gọi sau khi trạng thái ban của một user thay đổi trong bộ nhớ
+    private final List<BanListener> listeners = new CopyOnWriteArrayList<>();
+
+    public interface BanListener {
+        void onBanStateChanged(Long userId, boolean banned);
+    }
+
+    public BanStateCache(UserBanRepository userBanRepository) {
+        this.userBanRepository = userBanRepository;
+    }
+
+    @PostConstruct
+    public void loadFromDatabase() {
+        for (UserBan ban : userBanRepository.findAllActiveBans()) {
+            putBan(ban);
+        }
+        logger.info("Đã nạp {} ban đang active, {} ban tạm thời chờ gỡ", bansByUserId.size(), pendingLifts.size());
+    }
+
+    public void onBanned(UserBan ban) {
+        AfterCommit.run(() -> putBan(ban));
+    }
+
+    public void onLifted(Long userId) {
+        AfterCommit.run(() -> removeBan(userId));
+    }
+
+    private void putBan(UserBan ban) {
+        Long userId = ban.getUser().getId();
+        String username = ban.getUser().getUsername();
+        bansByUserId.put(userId, new ActiveBan(ban.getId(), username));
+        bannedUsernames.put(username, userId);
+        notifyListeners(userId, true);
+        if ("TEMPORARY".equals(ban.getBanType()) && ban.getBanExpiresAt() != null) {
+            pendingLifts.put(new ScheduledLift(ban.getId(), userId, toEpochMillis(ban.getBanExpiresAt())));
+        }
+    }
+
+    private void removeBan(Long userId) {
+        ActiveBan removed = bansByUserId.remove(userId);
+        if (removed != null) {
+            bannedUsernames.remove(removed.username(), userId);
+            notifyListeners(userId, false);
+        }
+        pendingLifts.removeIf(lift -> lift.userId().equals(userId));
+    }
+
+    public void addListener(BanListener listener) {
+        listeners.add(listener);
+    }
+
+    private void notifyListeners(Long userId, boolean banned) {
+        for (BanListener listener : listeners) {
+            try {
+                listener.onBanStateChanged(userId, banned);
+            } catch (RuntimeException e) {
+                logger.warn("Lỗi khi báo thay đổi ban của user {}: {}", userId, e.getMessage());
+            }
+        }
+    }
+
+    public boolean isBanned(Long userId) {
+        return userId != null && bansByUserId.containsKey(userId);
+    }
+
+    public boolean isBanned(String username) {
+        return username != null && bannedUsernames.containsKey(username);
+    }
+
+    public Long getActiveBanId(Long userId) {
+        ActiveBan ban = bansByUserId.get(userId);
+        return ban != null ? ban.banId() : null;
+    }
+
+    /**
+     * Chờ đến khi có ban tạm thời hết hạn, trả về id của ban đó
+     */
+    public Long takeExpired() throws InterruptedException {
+        return pendingLifts.take().banId();
+    }
+
+    public int size() {
+        return bansByUserId.size();
+    }
+
+    private static long toEpochMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private record ActiveBan(Long banId, String username) {
+    }
+
+    private record ScheduledLift(Long banId, Long userId, long liftAtMillis) implements Delayed {
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(liftAtMillis - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(getDelay(TimeUnit.MILLISECONDS), other.getDelay(TimeUnit.MILLISECONDS));
+        }
+    }
+}
@@ -0,0 +1,370 @@
+package com.example.backend.service;
+
+import com.example.backend.repository.GamePlayerRepository;
+import com.example.backend.repository.PlayerFollowRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.function.Predicate;
+
+/**
+ * Gợi ý player theo đồ thị cùng theo dõi (co-follow): hai player càng có nhiều người cùng theo dõi
+ * thì càng giống nhau (cosine: chung / sqrt(followers(p) * followers(q))). Gợi ý cho một user là tổng độ
+ * giống của từng player với các player user đó đang theo dõi.
+ *
+ * Ma trận co-follow thưa được dựng lại toàn bộ lúc khởi động và mỗi đêm; giữa các lần đó nó được cập nhật
+ * theo từng follow/unfollow. Top-N gợi ý của mỗi user được tính sẵn: user vừa follow/unfollow được tính lại
+ * ngay; việc tìm các user khác có điểm phụ thuộc vào player đó (có thể rất nhiều) và tính lại gợi ý của họ
+ * được để cho lần làm mới định kỳ, không chạy trên luồng vừa commit.
+ */
+@Component
+public class CoFollowRecommender {
+    private static final Logger logger = LoggerFactory.getLogger(CoFollowRecommender.class);
+
+    public record Suggestion(long gamePlayerId, double score, long commonFollowers) {
+    }
+
+    private final PlayerFollowRepository playerFollowRepository;
+    private final GamePlayerRepository gamePlayerRepository;
+
+    @Value("${recommendation.top-n:30}")
+    private int topN;
+
+    // Một follow/unfollow, giữ lại để phát lại lên đồ thị đang dựng
+    private record FollowEvent(long userId, long gamePlayerId, Consumer<Graph> change) {
+    }
+
+    // Chỉ đọc/ghi khi giữ khóa this
+    private Graph graph = new Graph();
+    // Sự kiện đến trong lúc đang dựng lại: phát lại lên đồ thị mới (các thao tác đều idempotent)
+    private List<FollowEvent> pendingDuringRebuild;
+
+    private final Map<Long, List<Suggestion>> suggestions = new ConcurrentHashMap<>();
+    // Player vừa được follow/unfollow và user vừa follow/unfollow, chờ lần làm mới định kỳ tìm user bị ảnh hưởng
+    private final Set<Long> changedPlayers = ConcurrentHashMap.newKeySet();
+    private final Set<Long> changedFollowers = ConcurrentHashMap.newKeySet();
+    private final Set<Long> staleUsers = ConcurrentHashMap.newKeySet();
+    private volatile boolean ready;
+
+    public CoFollowRecommender(PlayerFollowRepository playerFollowRepository, GamePlayerRepository gamePlayerRepository) {
+        this.playerFollowRepository = playerFollowRepository;
+        this.gamePlayerRepository = gamePlayerRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Thread worker = new Thread(this::rebuild, "co-follow-rebuild");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Dựng lại toàn bộ ma trận và gợi ý từ DB
+     */
+    @Scheduled(cron = "${recommendation.rebuild-cron:0 15 4 * * *}")
+    public void rebuild() {
+        long startedAt = System.currentTimeMillis();
+        synchronized (this) {
+            if (pendingDuringRebuild != null) {
+                return;
+            }
+            pendingDuringRebuild = new ArrayList<>();
+        }
+        try {
+            Graph fresh = new Graph();
+            for (Object[] row : gamePlayerRepository.findOwnerRows()) {
+                fresh.owners.put((Long) row[0], (Long) row[1]);
+            }
+            for (Object[] row : playerFollowRepository.findAllFollowPairs()) {
+                fresh.addFollow((Long) row[0], (Long) row[1]);
+            }
+            // Đồ thị mới chỉ thread này thấy cho tới lúc thay: tính gợi ý không cần giữ khóa
+            Map<Long, List<Suggestion>> computed = new HashMap<>();
+            fresh.followsByUser.forEach((userId, following) -> computed.put(userId, fresh.suggest(userId, topN)));
+            synchronized (this) {
+                // Chỉ phát lại các sự kiện đến trong lúc dựng và tính lại gợi ý của những user liên quan
+                for (FollowEvent event : pendingDuringRebuild) {
+                    event.change().accept(fresh);
+                }
+                graph = fresh;
+                suggestions.keySet().retainAll(computed.keySet());
+                suggestions.putAll(computed);
+                for (FollowEvent event : pendingDuringRebuild) {
+                    refreshAfter(event);
+                }
+                pendingDuringRebuild = null;
+            }
+            ready = true;
+            logger.info("Đã dựng đồ thị co-follow: {} user, {} player, {} ms", computed.size(),
+                    fresh.followersByPlayer.size(), System.currentTimeMillis() - startedAt);
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                pendingDuringRebuild = null;
+            }
+            logger.error("Lỗi khi dựng đồ thị co-follow", e);
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Gợi ý đã tính sẵn cho user, bỏ các player user đang theo dõi, player của user bị chặn/đã chặn
+     * và player không thỏa available (ví dụ không còn AVAILABLE)
+     */
+    public List<Suggestion> recommend(Long userId, int limit, Set<Long> blockedUserIds, Predicate<Long> available) {
+        List<Suggestion> cached = suggestions.get(userId);
+        if (cached == null || cached.isEmpty()) {
+            return List.of();
+        }
+        List<Suggestion> result = new ArrayList<>(limit);
+        synchronized (this) {
+            LongHashSet following = graph.followsByUser.get(userId);
+            for (Suggestion suggestion : cached) {
+                if (result.size() >= limit) {
+                    break;
+                }
+                long gamePlayerId = suggestion.gamePlayerId();
+                Long owner = graph.owners.get(gamePlayerId);
+                if ((following != null && following.contains(gamePlayerId)) || userId.equals(owner)
+                        || (owner != null && blockedUserIds.contains(owner))) {
+                    continue;
+                }
+                result.add(suggestion);
+            }
+        }
+        result.removeIf(suggestion -> !available.test(suggestion.gamePlayerId()));
+        return result;
+    }
+
+    /**
+     * Chủ sở hữu (userId) của player theo đồ thị trong bộ nhớ, null nếu chưa biết
+     */
+    public synchronized Long ownerOf(Long gamePlayerId) {
+        return graph.owners.get(gamePlayerId);
+    }
+
+    public synchronized boolean isFollowing(Long userId, Long gamePlayerId) {
+        LongHashSet following = graph.followsByUser.get(userId);
+        return following != null && following.contains(gamePlayerId);
+    }
+
+    public void onFollowAdded(Long userId, Long gamePlayerId, Long ownerUserId) {
+        AfterCommit.run(() -> apply(userId, gamePlayerId, graph -> {
+            if (ownerUserId != null) {
+                graph.owners.put(gamePlayerId, ownerUserId);
+            }
+            graph.addFollow(userId, gamePlayerId);
+        }));
+    }
+
+    public void onFollowRemoved(Long userId, Long gamePlayerId) {
+        AfterCommit.run(() -> apply(userId, gamePlayerId, graph -> graph.removeFollow(userId, gamePlayerId)));
+    }
+
+    private void apply(Long userId, Long gamePlayerId, Consumer<Graph> change) {
+        FollowEvent event = new FollowEvent(userId, gamePlayerId, change);
+        synchronized (this) {
+            change.accept(graph);
+            if (pendingDuringRebuild != null) {
+                pendingDuringRebuild.add(event);
+            }
+            refreshAfter(event);
+        }
+    }
+
+    // Gọi khi giữ khóa: chỉ tính lại gợi ý của user vừa đổi, user khác bị ảnh hưởng được tìm ở refreshStaleUsers
+    private void refreshAfter(FollowEvent event) {
+        suggestions.put(event.userId(), graph.suggest(event.userId(), topN));
+        changedPlayers.add(event.gamePlayerId());
+        changedFollowers.add(event.userId());
+    }
+
+    @Scheduled(fixedDelayString = "${recommendation.refresh-interval-ms:60000}")
+    public void refreshStaleUsers() {
+        if (!ready) {
+            return;
+        }
+        // Mỗi player/user giữ khóa riêng một lần để follow/unfollow không phải chờ cả lô
+        List<Long> players = new ArrayList<>(changedPlayers);
+        changedPlayers.removeAll(players);
+        for (Long gamePlayerId : players) {
+            synchronized (this) {
+                graph.forEachAffectedUser(gamePlayerId, staleUsers::add);
+            }
+        }
+        List<Long> followers = new ArrayList<>(changedFollowers);
+        changedFollowers.removeAll(followers);
+        for (Long userId : followers) {
+            synchronized (this) {
+                graph.forEachCoFollower(userId, staleUsers::add);
+            }
+        }
+        if (staleUsers.isEmpty()) {
+            return;
+        }
+        List<Long> batch = new ArrayList<>(staleUsers);
+        staleUsers.removeAll(batch);
+        for (Long userId : batch) {
+            synchronized (this) {
+                suggestions.put(userId, graph.suggest(userId, topN));
+            }
+        }
+    }
+
+    /**
+     * Đồ thị follow và ma trận co-follow; không thread-safe, được bảo vệ bởi khóa của CoFollowRecommender.
+     * Mọi map/tập đều khóa theo long nguyên thủy: số cạnh follow lớn nên không boxing từng id.
+     */
+    static class Graph {
+        final LongObjectHashMap<LongHashSet> followsByUser = new LongObjectHashMap<>();
+        final LongObjectHashMap<LongHashSet> followersByPlayer = new LongObjectHashMap<>();
+        // player -> (player khác -> số người theo dõi cả hai); cặp về 0 bị xóa, dòng rỗng bị bỏ
+        final LongObjectHashMap<LongDoubleHashMap> coFollows = new LongObjectHashMap<>();
+        final LongObjectHashMap<Long> owners = new LongObjectHashMap<>();
+
+        void addFollow(long userId, long gamePlayerId) {
+            LongHashSet following = followsByUser.computeIfAbsent(userId, key -> new LongHashSet());
+            if (!following.add(gamePlayerId)) {
+                return;
+            }
+            updateCoFollows(gamePlayerId, following, 1);
+            followersByPlayer.computeIfAbsent(gamePlayerId, key -> new LongHashSet()).add(userId);
+        }
+
+        void removeFollow(long userId, long gamePlayerId) {
+            LongHashSet following = followsByUser.get(userId);
+            if (following == null || !following.remove(gamePlayerId)) {
+                return;
+            }
+            updateCoFollows(gamePlayerId, following, -1);
+            if (following.isEmpty()) {
+                followsByUser.remove(userId);
+            }
+            LongHashSet followers = followersByPlayer.get(gamePlayerId);
+            if (followers != null) {
+                followers.remove(userId);
+                if (followers.isEmpty()) {
+                    followersByPlayer.remove(gamePlayerId);
+                }
+            }
+        }
+
+        private void updateCoFollows(long gamePlayerId, LongHashSet others, int delta) {
+            LongDoubleHashMap row = coFollows.computeIfAbsent(gamePlayerId, key -> new LongDoubleHashMap());
+            others.forEach(other -> {
+                if (other != gamePlayerId) {
+                    row.addTo(other, delta);
+                    LongDoubleHashMap otherRow = coFollows.computeIfAbsent(other, key -> new LongDoubleHashMap());
+                    otherRow.addTo(gamePlayerId, delta);
+                    if (otherRow.isEmpty()) {
+                        coFollows.remove(other);
+                    }
+                }
+            });
+            if (row.isEmpty()) {
+                coFollows.remove(gamePlayerId);
+            }
+        }
+
+        List<Suggestion> suggest(long userId, int limit) {
+            LongHashSet following = followsByUser.get(userId);
+            if (following == null || following.isEmpty()) {
+                return List.of();
+            }
+            LongDoubleHashMap scores = new LongDoubleHashMap();
+            LongDoubleHashMap common = new LongDoubleHashMap();
+            following.forEach(followed -> {
+                LongDoubleHashMap row = coFollows.get(followed);
+                if (row == null) {
+                    return;
+                }
+                int followedCount = followerCount(followed);
+                row.forEach((candidate, together) -> {
+                    Long owner = owners.get(candidate);
+                    if (following.contains(candidate) || (owner != null && owner == userId)) {
+                        return;
+                    }
+                    int candidateCount = followerCount(candidate);
+                    scores.addTo(candidate, together / Math.sqrt((double) followedCount * candidateCount));
+                    common.addTo(candidate, together);
+                });
+            });
+            // Giữ limit gợi ý điểm cao nhất bằng min-heap
+            PriorityQueue<Suggestion> best = new PriorityQueue<>(Comparator.comparingDouble(Suggestion::score));
+            scores.forEach((candidate, score) -> {
+                if (score <= 0) {
+                    return;
+                }
+                if (best.size() < limit) {
+                    best.add(new Suggestion(candidate, score, (long) common.get(candidate)));
+                } else if (score > best.peek().score()) {
+                    best.poll();
+                    best.add(new Suggestion(candidate, score, (long) common.get(candidate)));
+                }
+            });
+            List<Suggestion> result = new ArrayList<>(best);
+            result.sort(Comparator.comparingDouble(Suggestion::score).reversed());
+            return List.copyOf(result);
+        }
+
+        /**
+         * Các user có điểm gợi ý phụ thuộc vào player sau khi player đó được follow/unfollow: số follower của player
+         * và số người cùng theo dõi nó với các player khác đã đổi, nên gợi ý của follower của player và của
+         * follower mọi player đang được theo dõi cùng nó (player là ứng viên của họ) đều cũ. Cặp vừa về 0 đã bị
+         * xóa khỏi dòng: follower của các player đó được tìm qua forEachCoFollower của user vừa unfollow.
+         */
+        void forEachAffectedUser(long gamePlayerId, LongConsumer action) {
+            LongHashSet followers = followersByPlayer.get(gamePlayerId);
+            if (followers != null) {
+                followers.forEach(action);
+            }
+            LongDoubleHashMap row = coFollows.get(gamePlayerId);
+            if (row != null) {
+                row.forEach((other, together) -> {
+                    LongHashSet otherFollowers = followersByPlayer.get(other);
+                    if (otherFollowers != null) {
+                        otherFollowers.forEach(action);
+                    }
+                });
+            }
+        }
+
+        /**
+         * Follower của mọi player user đang theo dõi: gồm các player có cặp co-follow với player user vừa
+         * unfollow vừa về 0 (và bị xóa khỏi dòng co-follow)
+         */
+        void forEachCoFollower(long userId, LongConsumer action) {
+            LongHashSet following = followsByUser.get(userId);
+            if (following != null) {
+                following.forEach(followed -> {
+                    LongHashSet followers = followersByPlayer.get(followed);
+                    if (followers != null) {
+                        followers.forEach(action);
+                    }
+                });
+            }
+        }
+
+        private int followerCount(long gamePlayerId) {
+            LongHashSet followers = followersByPlayer.get(gamePlayerId);
+            return followers != null ? Math.max(1, followers.size()) : 1;
+        }
+    }
+}
@@ -1,16 +1,45 @@
 package com.example.backend.service;
 
+import com.example.backend.entity.FileMetadata;
+import com.example.backend.entity.FileReference;
+import com.example.backend.repository.FileMetadataRepository;
+import com.example.backend.repository.FileReferenceRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import com.example.backend.storage.BlobStorage;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 import org.springframework.web.multipart.MultipartFile;
+import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.net.MalformedURLException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
 
 @Service
 public class FileStorageService {
@@ -18,50 +47,349 @@ public class FileStorageService {
     @Value("${file.upload-dir}")
     private String uploadDir;
 
-    public String storeFile(MultipartFile file, String subDir) throws IOException {
-        // Create directory if it doesn't exist
-        Path uploadPath = Paths.get(uploadDir + "/" + subDir);
-        if (!Files.exists(uploadPath)) {
-            Files.createDirectories(uploadPath);
+    @Value("${file.pending-reference-ttl:PT1H}")
+    private Duration pendingReferenceTtl;
+
+    private static final Logger log = LoggerFactory.getLogger(FileStorageService.class);
+    private static final String UPLOADS_SEGMENT = "/uploads/";
+    private static final String STAGING_DIR = ".staging";
+    private static final int PATH_LOCK_STRIPES = 64;
+    private static final Set<String> UPLOAD_DIRECTORIES = Set.of(
+        "avatars", "profile-images", "cover-images", "moment-images", "player-images", "report-videos");
+    // URL phục vụ file qua controller -> thư mục lưu trữ tương ứng
+    private static final Map<String, String> SERVED_PREFIXES = Map.of(
+        "api/moments/moment-images/", "moment-images/",
+        "api/files/images/", "player-images/",
+        "api/files/videos/", "report-videos/");
+
+    private final BlobStorage storage;
+    private final FileMetadataRepository fileMetadataRepository;
+    private final FileReferenceRepository fileReferenceRepository;
+    private final ImageDerivativeService imageDerivativeService;
+    // Tham chiếu tạm được commit ngay, kể cả khi upload chạy trong transaction của caller
+    private final TransactionTemplate pendingReferenceTransaction;
+    // Khóa theo đường dẫn: kiểm tra trùng nội dung khi upload và xóa file không còn tham chiếu không chen nhau
+    private final Object[] pathLocks = new Object[PATH_LOCK_STRIPES];
+
+    public FileStorageService(BlobStorage storage,
+                              FileMetadataRepository fileMetadataRepository,
+                              FileReferenceRepository fileReferenceRepository,
+                              ImageDerivativeService imageDerivativeService,
+                              PlatformTransactionManager transactionManager) {
+        this.storage = storage;
+        this.fileMetadataRepository = fileMetadataRepository;
+        this.fileReferenceRepository = fileReferenceRepository;
+        this.imageDerivativeService = imageDerivativeService;
+        this.pendingReferenceTransaction = new TransactionTemplate(transactionManager);
+        this.pendingReferenceTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        for (int i = 0; i < pathLocks.length; i++) {
+            pathLocks[i] = new Object();
         }
+    }
 
-        // Generate unique filename
+    /**
+     * Store an upload under its content hash ("subDir/<sha256>.<ext>"). The hash is computed
+     * while streaming to a temp file; if the same content is already stored the temp file is
+     * dropped and the existing path is returned, so duplicate uploads cost no extra disk.
+     * The returned path carries a pending reference, committed right away, that keeps it from being
+     * deleted until file.pending-reference-ttl passes; callers should link it to its owner with
+     * {@link #addReference}, which replaces the pending reference.
+     * @return relative path of the stored file
+     */
+    public String storeFile(MultipartFile file, String subDir) throws IOException {
         String originalFilename = file.getOriginalFilename();
-        String extension = originalFilename.substring(originalFilename.lastIndexOf("."));
-        String filename = UUID.randomUUID().toString() + extension;
+        String extension = originalFilename != null && originalFilename.lastIndexOf('.') >= 0
+                ? originalFilename.substring(originalFilename.lastIndexOf('.'))
+                : "";
+        try (InputStream in = file.getInputStream()) {
+            return storeStream(in, subDir, extension, file.getContentType(), -1);
+        }
+    }
+
+    /**
+     * Store a raw stream (e.g. a non-multipart request body) the same way as {@link #storeFile},
+     * aborting as soon as more than maxBytes have been read.
+     * @param extension file extension including the dot, may be empty
+     * @param maxBytes size limit, or a negative value for no limit
+     * @throws MaxUploadSizeExceededException if the stream is larger than maxBytes
+     */
+    public String storeStream(InputStream input, String subDir, String extension, String contentType, long maxBytes)
+            throws IOException {
+        // File tạm nằm trong thư mục upload để backend cục bộ chỉ cần đổi tên
+        Path stagingDir = Paths.get(uploadDir, STAGING_DIR);
+        Files.createDirectories(stagingDir);
+        extension = extension == null ? "" : extension.toLowerCase();
+
+        // Ghi ra file tạm, tính SHA-256 trong lúc ghi
+        Path tempFile = stagingDir.resolve(".upload-" + UUID.randomUUID() + ".tmp");
+        MessageDigest digest = newSha256();
+        try (InputStream in = new DigestInputStream(input, digest);
+             OutputStream out = Files.newOutputStream(tempFile, StandardOpenOption.CREATE_NEW)) {
+            byte[] buffer = new byte[64 * 1024];
+            long total = 0;
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                total += read;
+                if (maxBytes >= 0 && total > maxBytes) {
+                    throw new MaxUploadSizeExceededException(maxBytes);
+                }
+                out.write(buffer, 0, read);
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempFile);
+            throw e;
+        }
+        String sha256 = HexFormat.of().formatHex(digest.digest());
+        String relativePath = subDir + "/" + sha256 + extension;
+
+        synchronized (lockFor(relativePath)) {
+            // Ghi tham chiếu tạm trước khi kiểm tra trùng: owner cuối nhả file sau thời điểm này sẽ không xóa nó
+            savePendingReference(relativePath);
+            if (storage.exists(relativePath)) {
+                // Nội dung đã có sẵn: không ghi thêm bản sao
+                Files.deleteIfExists(tempFile);
+                if (fileMetadataRepository.findByPath(relativePath).isEmpty()) {
+                    saveMetadata(relativePath, sha256, contentType);
+                }
+                return relativePath;
+            }
+            try {
+                storage.put(relativePath, tempFile, contentType);
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+            saveMetadata(relativePath, sha256, contentType);
+        }
+        // Sinh ảnh thu nhỏ ở nền (bỏ qua nếu không phải ảnh)
+        imageDerivativeService.scheduleDerivatives(relativePath);
+
+        return relativePath;
+    }
+
+    /**
+     * Link a stored file to the entity using it, consuming one pending upload reference of
+     * the file. Paths outside the upload directories (external URLs, arbitrary client
+     * strings) are not tracked and are ignored.
+     * @param filePath relative path or URL returned for a stored file
+     * @throws IllegalArgumentException if the path points into an upload directory but the file is missing
+     */
+    @Transactional
+    public void addReference(String filePath, String ownerType, Long ownerId) {
+        String path = toStoragePath(filePath);
+        if (path == null || ownerId == null) {
+            return;
+        }
+        if (!fileExists(path)) {
+            throw new IllegalArgumentException("Uploaded file not found: " + filePath);
+        }
+        if (!fileReferenceRepository.existsByPathAndOwnerTypeAndOwnerId(path, ownerType, ownerId)) {
+            FileReference reference = new FileReference();
+            reference.setPath(path);
+            reference.setOwnerType(ownerType);
+            reference.setOwnerId(ownerId);
+            fileReferenceRepository.save(reference);
+            // Upload đã có owner: bỏ tham chiếu tạm của nó, cùng commit với tham chiếu thật
+            fileReferenceRepository.findFirstByPathAndOwnerTypeOrderByCreatedAtAsc(path, FileReference.PENDING_UPLOAD)
+                    .ifPresent(fileReferenceRepository::delete);
+        }
+    }
 
-        // Save file
-        Path filePath = uploadPath.resolve(filename);
-        Files.copy(file.getInputStream(), filePath);
+    /**
+     * Remove the link between a stored file and its owner. When no links (and no live pending
+     * upload) remain the file, its derivatives and metadata are deleted once the surrounding
+     * transaction commits.
+     */
+    @Transactional
+    public void releaseReference(String filePath, String ownerType, Long ownerId) {
+        String path = toStoragePath(filePath);
+        if (path == null) {
+            return;
+        }
+        fileReferenceRepository.deleteReference(path, ownerType, ownerId);
+        if (!fileExists(path) || countLiveReferences(path) > 0) {
+            return;
+        }
+        AfterCommit.run(() -> deleteIfUnreferenced(path));
+    }
 
-        // Return relative path
-        return subDir + "/" + filename;
+    /**
+     * Point an owner at a new file, releasing the previous one. Re-selecting the same
+     * content resolves to the same path and is a no-op.
+     */
+    @Transactional
+    public void replaceReference(String oldPath, String newPath, String ownerType, Long ownerId) {
+        String oldStoragePath = toStoragePath(oldPath);
+        String newStoragePath = toStoragePath(newPath);
+        if (newStoragePath != null) {
+            addReference(newStoragePath, ownerType, ownerId);
+        }
+        if (oldStoragePath != null && !oldStoragePath.equals(newStoragePath)) {
+            releaseReference(oldStoragePath, ownerType, ownerId);
+        }
     }
 
+    private void deleteIfUnreferenced(String path) {
+        synchronized (lockFor(path)) {
+            // Kiểm tra lại sau commit, dưới cùng khóa với upload: có thể đã có upload trùng nội dung vừa ghi tham chiếu
+            if (countLiveReferences(path) > 0) {
+                return;
+            }
+            try {
+                deleteFile(path);
+            } catch (IOException e) {
+                log.warn("Không xóa được file {}: {}", path, e.getMessage());
+            }
+        }
+    }
+
+    private long countLiveReferences(String path) {
+        return fileReferenceRepository.countLiveReferences(path, FileReference.PENDING_UPLOAD, pendingCutoff());
+    }
+
+    private void savePendingReference(String path) {
+        FileReference reference = new FileReference();
+        reference.setPath(path);
+        reference.setOwnerType(FileReference.PENDING_UPLOAD);
+        // Mỗi lượt upload một owner riêng để các upload trùng nội dung không đụng ràng buộc unique
+        reference.setOwnerId(ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE));
+        pendingReferenceTransaction.executeWithoutResult(status -> fileReferenceRepository.save(reference));
+    }
+
+    private LocalDateTime pendingCutoff() {
+        return LocalDateTime.now().minus(pendingReferenceTtl);
+    }
+
+    private Object lockFor(String path) {
+        return pathLocks[Math.floorMod(path.hashCode(), pathLocks.length)];
+    }
+
+    /**
+     * Convert a stored URL ("http://host/uploads/player-images/x.jpg"), a URL served by a
+     * controller ("/api/moments/moment-images/x.jpg") or a relative path into the path
+     * relative to the upload directory
+     * @return the storage path, or null if the value does not point into an upload directory
+     */
+    public static String toStoragePath(String filePath) {
+        if (filePath == null || filePath.isBlank()) {
+            return null;
+        }
+        int idx = filePath.indexOf(UPLOADS_SEGMENT);
+        if (idx < 0 && filePath.contains("://")) {
+            return null;
+        }
+        String path = idx >= 0 ? filePath.substring(idx + UPLOADS_SEGMENT.length()) : filePath;
+        path = path.startsWith("/") ? path.substring(1) : path;
+        path = path.startsWith("uploads/") ? path.substring("uploads/".length()) : path;
+        for (Map.Entry<String, String> prefix : SERVED_PREFIXES.entrySet()) {
+            if (path.startsWith(prefix.getKey())) {
+                path = prefix.getValue() + path.substring(prefix.getKey().length());
+                break;
+            }
+        }
+        int slash = path.indexOf('/');
+        return slash > 0 && UPLOAD_DIRECTORIES.contains(path.substring(0, slash)) ? path : null;
+    }
+
+    @Transactional
     public void deleteFile(String filePath) throws IOException {
-        Path path = Paths.get(uploadDir + "/" + filePath);
-        Files.deleteIfExists(path);
+        storage.delete(filePath);
+        for (ImageDerivativeService.ImageSize size : ImageDerivativeService.ImageSize.values()) {
+            storage.delete(ImageDerivativeService.derivativePath(filePath, size));
+        }
+        fileMetadataRepository.deleteByPath(filePath);
+    }
+
+    /**
+     * Delete a file that nothing references any more, together with its derivatives,
+     * metadata and stale reference rows
+     */
+    @Transactional
+    public void purgeFile(String filePath) throws IOException {
+        deleteFile(filePath);
+        fileReferenceRepository.deleteByPath(filePath);
     }
 
     /**
-     * Load a file as a Resource
+     * Purge a file found unreferenced by the garbage collector, unless an upload of the same
+     * content is still pending (it was just handed out and not yet linked to its owner)
+     * @return true if the file was deleted
+     */
+    @Transactional
+    public boolean purgeIfNotPending(String filePath) throws IOException {
+        synchronized (lockFor(filePath)) {
+            if (fileReferenceRepository.existsByPathAndOwnerTypeAndCreatedAtGreaterThanEqual(
+                    filePath, FileReference.PENDING_UPLOAD, pendingCutoff())) {
+                return false;
+            }
+            purgeFile(filePath);
+            return true;
+        }
+    }
+
+    /**
+     * Drop pending upload references older than file.pending-reference-ttl
+     * @return number of rows removed
+     */
+    @Transactional
+    public int expirePendingReferences() {
+        return fileReferenceRepository.deleteExpiredPending(FileReference.PENDING_UPLOAD, pendingCutoff());
+    }
+
+    /**
+     * Walk every stored file under a top-level upload folder
+     * @param subDir folder such as "moment-images"
+     */
+    public void listFiles(String subDir, Consumer<BlobStorage.BlobEntry> consumer) throws IOException {
+        storage.list(subDir, consumer);
+    }
+
+    /**
+     * Compute the SHA-256 of a stored file and record it as the file's metadata
+     * @param filePath The relative path to the file
+     * @return saved metadata
+     */
+    public FileMetadata computeMetadata(String filePath) throws IOException {
+        MessageDigest digest = newSha256();
+        try (InputStream in = new DigestInputStream(storage.openRange(filePath, 0, -1), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return saveMetadata(filePath, HexFormat.of().formatHex(digest.digest()), null);
+    }
+
+    private FileMetadata saveMetadata(String relativePath, String sha256, String contentType) throws IOException {
+        BlobStorage.BlobInfo info = storage.stat(relativePath);
+        if (info == null) {
+            throw new FileNotFoundException("File not found: " + relativePath);
+        }
+        FileMetadata metadata = fileMetadataRepository.findByPath(relativePath).orElseGet(FileMetadata::new);
+        metadata.setPath(relativePath);
+        metadata.setSha256(sha256);
+        metadata.setSize(info.size());
+        metadata.setLastModified(info.lastModified());
+        if (contentType != null) {
+            metadata.setContentType(contentType);
+        }
+        return fileMetadataRepository.save(metadata);
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Load a file as a Resource (only for files on local disk)
      * @param filePath The relative path to the file (e.g., "report-videos/filename.mp4")
      * @return Resource object
      * @throws IOException if file cannot be loaded
      */
     public Resource loadFileAsResource(String filePath) throws IOException {
-        try {
-            Path path = Paths.get(uploadDir + "/" + filePath);
-            Resource resource = new UrlResource(path.toUri());
-            
-            if (resource.exists()) {
-                return resource;
-            } else {
-                throw new IOException("File not found: " + filePath);
-            }
-        } catch (MalformedURLException ex) {
-            throw new IOException("File not found: " + filePath, ex);
-        }
+        Path path = storage.localPath(filePath)
+                .orElseThrow(() -> new FileNotFoundException("File not found: " + filePath));
+        return new FileSystemResource(path);
     }
 
     /**
@@ -71,8 +399,7 @@ public class FileStorageService {
      */
     public boolean fileExists(String filePath) {
         try {
-            Path path = Paths.get(uploadDir + "/" + filePath);
-            return Files.exists(path);
+            return storage.exists(filePath);
         } catch (Exception e) {
             return false;
         }
@@ -84,14 +411,63 @@ public class FileStorageService {
      * @return file size in bytes, or -1 if file doesn't exist
      */
     public long getFileSize(String filePath) {
+        BlobStorage.BlobInfo info = stat(filePath);
+        return info != null ? info.size() : -1;
+    }
+
+    /**
+     * Size and modification time of a stored file
+     * @return null if the file doesn't exist or the key is invalid
+     */
+    public BlobStorage.BlobInfo stat(String filePath) {
         try {
-            Path path = Paths.get(uploadDir + "/" + filePath);
-            if (Files.exists(path)) {
-                return Files.size(path);
+            return storage.stat(filePath);
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Local file backing a stored file, empty when the backend is remote
+     */
+    public Optional<Path> localPath(String filePath) {
+        return storage.localPath(filePath);
+    }
+
+    /**
+     * Open a byte range of a stored file
+     * @param length number of bytes, or -1 to read to the end
+     */
+    public InputStream openStream(String filePath, long offset, long length) throws IOException {
+        return storage.openRange(filePath, offset, length);
+    }
+
+    /**
+     * Copy a byte range of a file to the output stream. Local files go through
+     * FileChannel.transferTo so the kernel moves the bytes without a heap buffer where possible
+     * @param filePath The relative path to the file
+     * @param position First byte to send
+     * @param count Number of bytes to send
+     * @param outputStream Destination stream
+     */
+    public void transferRange(String filePath, long position, long count, OutputStream outputStream) throws IOException {
+        Optional<Path> local = storage.localPath(filePath);
+        if (local.isEmpty()) {
+            try (InputStream in = storage.openRange(filePath, position, count)) {
+                in.transferTo(outputStream);
+            }
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(local.get(), StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(outputStream);
+            long end = position + count;
+            while (position < end) {
+                long sent = channel.transferTo(position, end - position, target);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
             }
-            return -1;
-        } catch (IOException e) {
-            return -1;
         }
     }
-} 
\ No newline at end of file
+}
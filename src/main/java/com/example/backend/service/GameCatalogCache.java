@@ -0,0 +1,170 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.GameResponseDTO;
+import com.example.backend.entity.GameCategory;
+import com.example.backend.entity.GamePlatform;
+import com.example.backend.entity.GameStatus;
+import com.example.backend.repository.GameCategoryRepository;
+import com.example.backend.repository.GamePlatformRepository;
+import com.example.backend.repository.GamePlayerRepository;
+import com.example.backend.repository.GameRepository;
+import com.example.backend.repository.GameStatusRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.WebRequest;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Danh mục game (game kèm số player, role, rank; thể loại, nền tảng, trạng thái) giữ sẵn trong bộ nhớ.
+ * Mọi client đều tải danh mục khi mở ứng dụng còn admin hiếm khi sửa, nên danh mục được dựng một lần
+ * bằng vài truy vấn (số player đếm gộp theo game) và dùng lại cho tới khi bị xóa: admin sửa game/thể loại/
+ * nền tảng/trạng thái, có player đăng ký hoặc bị xóa, hoặc quá max-age (bắt các thay đổi hiếm như đổi game của player).
+ *
+ * Mỗi phần có ETag tính từ nội dung JSON, client gửi If-None-Match sẽ nhận 304 không kèm body.
+ */
+@Component
+public class GameCatalogCache {
+
+    /**
+     * Một phần của danh mục và ETag của nó
+     */
+    public record Section<T>(T body, String etag) {
+    }
+
+    /**
+     * Ảnh chụp toàn bộ danh mục
+     */
+    public record Catalog(Section<List<GameResponseDTO>> games, Section<List<GameCategory>> categories,
+                          Section<List<GamePlatform>> platforms, Section<List<GameStatus>> statuses,
+                          Section<Map<String, Object>> all, long builtAt) {
+    }
+
+    private final GameRepository gameRepository;
+    private final GamePlayerRepository gamePlayerRepository;
+    private final GameCategoryRepository gameCategoryRepository;
+    private final GamePlatformRepository gamePlatformRepository;
+    private final GameStatusRepository gameStatusRepository;
+    private final ObjectMapper objectMapper;
+    private final long maxAgeMillis;
+
+    private volatile Catalog catalog;
+    // Tăng mỗi lần xóa cache: bản dựng bắt đầu trước lần xóa không được lưu lại
+    private final AtomicLong version = new AtomicLong();
+
+    public GameCatalogCache(GameRepository gameRepository, GamePlayerRepository gamePlayerRepository,
+                            GameCategoryRepository gameCategoryRepository,
+                            GamePlatformRepository gamePlatformRepository,
+                            GameStatusRepository gameStatusRepository, ObjectMapper objectMapper,
+                            @Value("${game-catalog.max-age:PT10M}") Duration maxAge) {
+        this.gameRepository = gameRepository;
+        this.gamePlayerRepository = gamePlayerRepository;
+        this.gameCategoryRepository = gameCategoryRepository;
+        this.gamePlatformRepository = gamePlatformRepository;
+        this.gameStatusRepository = gameStatusRepository;
+        this.objectMapper = objectMapper;
+        this.maxAgeMillis = maxAge.toMillis();
+    }
+
+    public Catalog get() {
+        Catalog current = catalog;
+        if (current != null && System.currentTimeMillis() - current.builtAt() < maxAgeMillis) {
+            return current;
+        }
+        synchronized (this) {
+            current = catalog;
+            if (current != null && System.currentTimeMillis() - current.builtAt() < maxAgeMillis) {
+                return current;
+            }
+            long startVersion = version.get();
+            Catalog built = build();
+            if (version.get() == startVersion) {
+                catalog = built;
+            }
+            return built;
+        }
+    }
+
+    /**
+     * Xóa danh mục đã cache; nếu đang trong transaction thì xóa khi transaction commit
+     */
+    public void invalidate() {
+        AfterCommit.run(() -> {
+            version.incrementAndGet();
+            catalog = null;
+        });
+    }
+
+    /**
+     * Trả 304 nếu client đã có đúng phiên bản (If-None-Match), ngược lại trả body kèm ETag
+     */
+    public static <T> ResponseEntity<T> respond(Section<T> section, WebRequest request) {
+        // no-cache: client luôn hỏi lại server, nhưng chỉ tải lại khi danh mục đã đổi
+        CacheControl cacheControl = CacheControl.noCache();
+        if (request.checkNotModified(section.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(section.etag()).cacheControl(cacheControl).build();
+        }
+        return ResponseEntity.ok().eTag(section.etag()).cacheControl(cacheControl).body(section.body());
+    }
+
+    private Catalog build() {
+        Map<Long, Long> playerCounts = new HashMap<>();
+        for (Object[] row : gamePlayerRepository.countGroupedByGame()) {
+            playerCounts.put((Long) row[0], ((Number) row[1]).longValue());
+        }
+        Map<Long, List<String>> roles = groupByGame(gameRepository.findAllAvailableRoles());
+        Map<Long, List<String>> ranks = groupByGame(gameRepository.findAllAvailableRanks());
+
+        List<GameResponseDTO> games = new ArrayList<>();
+        for (Object[] row : gameRepository.findCatalogRows()) {
+            Long id = (Long) row[0];
+            games.add(new GameResponseDTO(id, (String) row[1], (String) row[2], (String) row[3], (String) row[4],
+                    (String) row[5], playerCounts.getOrDefault(id, 0L),
+                    roles.getOrDefault(id, List.of()), ranks.getOrDefault(id, List.of())));
+        }
+        List<GameCategory> categories = gameCategoryRepository.findByActiveTrue();
+        List<GamePlatform> platforms = gamePlatformRepository.findByActiveTrue();
+        List<GameStatus> statuses = gameStatusRepository.findByActiveTrue();
+
+        Map<String, Object> all = new LinkedHashMap<>();
+        all.put("games", games);
+        all.put("categories", categories);
+        all.put("platforms", platforms);
+        all.put("statuses", statuses);
+        return new Catalog(section(List.copyOf(games)), section(List.copyOf(categories)),
+                section(List.copyOf(platforms)), section(List.copyOf(statuses)),
+                section(all), System.currentTimeMillis());
+    }
+
+    private static Map<Long, List<String>> groupByGame(List<Object[]> rows) {
+        Map<Long, List<String>> grouped = new HashMap<>();
+        for (Object[] row : rows) {
+            grouped.computeIfAbsent((Long) row[0], key -> new ArrayList<>()).add((String) row[1]);
+        }
+        return grouped;
+    }
+
+    private <T> Section<T> section(T body) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(body);
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(json);
+            return new Section<>(body, "\"" + HexFormat.of().formatHex(hash, 0, 16) + "\"");
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Không tính được ETag cho danh mục game", e);
+        }
+    }
+}
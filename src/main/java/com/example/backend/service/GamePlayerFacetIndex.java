@@ -0,0 +1,338 @@
+package com.example.backend.service;
+
+import com.example.backend.entity.GamePlayer;
+import com.example.backend.repository.GamePlayerRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Chỉ mục đảo trong bộ nhớ cho màn hình khám phá player: mỗi player có một số thứ tự (ordinal) dày đặc,
+ * mỗi giá trị facet (game, rank, role, server, trạng thái, khoảng giá) giữ một BitSet các ordinal.
+ *
+ * Lọc là phép AND/OR trên BitSet, đếm theo facet là cardinality của giao, nên không cần kéo
+ * toàn bộ GamePlayer từ DB. Chỉ mục được nạp từ DB khi khởi động và cập nhật sau khi transaction
+ * ghi GamePlayer commit (qua GamePlayerIndexListener) hoặc khi trạng thái ban của user thay đổi.
+ */
+@Component
+public class GamePlayerFacetIndex {
+    private static final Logger logger = LoggerFactory.getLogger(GamePlayerFacetIndex.class);
+    private static final String BANNED = "BANNED";
+
+    public enum Facet { GAME, RANK, ROLE, SERVER, STATUS, PRICE }
+
+    /**
+     * Kết quả truy vấn: tổng số player khớp, id của tối đa limit player đầu tiên và số lượng theo từng giá trị facet
+     */
+    public record FacetResult(int total, List<Long> ids, Map<Facet, Map<String, Integer>> counts) {
+    }
+
+    private record Entry(Long id, Long userId, Map<Facet, String> values) {
+    }
+
+    private final GamePlayerRepository gamePlayerRepository;
+    private final BanStateCache banStateCache;
+    private final List<BigDecimal> priceBuckets;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    private final List<Entry> entries = new ArrayList<>();
+    private final BitSet live = new BitSet();
+    // Player của user đang bị ban: luôn bị loại khỏi kết quả
+    private final BitSet hidden = new BitSet();
+    private final Map<Long, BitSet> byUser = new HashMap<>();
+    private final Map<Facet, Map<String, BitSet>> postings = new EnumMap<>(Facet.class);
+
+    public GamePlayerFacetIndex(GamePlayerRepository gamePlayerRepository, BanStateCache banStateCache,
+                                @Value("${facet-index.price-buckets:0,20,50,100,200,500}") List<BigDecimal> priceBuckets) {
+        this.gamePlayerRepository = gamePlayerRepository;
+        this.banStateCache = banStateCache;
+        this.priceBuckets = priceBuckets.stream().sorted().toList();
+        for (Facet facet : Facet.values()) {
+            postings.put(facet, new HashMap<>());
+        }
+    }
+
+    @PostConstruct
+    public void loadFromDatabase() {
+        banStateCache.addListener(this::onBanStateChanged);
+        rebuild();
+    }
+
+    /**
+     * Dựng lại toàn bộ chỉ mục từ DB
+     */
+    public void rebuild() {
+        List<Object[]> rows = gamePlayerRepository.findFacetRows();
+        lock.writeLock().lock();
+        try {
+            ordinals.clear();
+            entries.clear();
+            live.clear();
+            hidden.clear();
+            byUser.clear();
+            postings.values().forEach(Map::clear);
+            for (Object[] row : rows) {
+                put(toEntry((Long) row[0], (Long) row[1], (Long) row[2], (String) row[3], (String) row[4],
+                        (String) row[5], (String) row[6], (BigDecimal) row[7]));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Đã nạp {} player vào chỉ mục facet", rows.size());
+    }
+
+    /**
+     * Ghi nhận player vừa được tạo/cập nhật; áp dụng vào chỉ mục khi transaction commit
+     */
+    public void onSaved(GamePlayer gamePlayer) {
+        Entry entry = toEntry(gamePlayer.getId(),
+                gamePlayer.getUser() != null ? gamePlayer.getUser().getId() : null,
+                gamePlayer.getGame() != null ? gamePlayer.getGame().getId() : null,
+                gamePlayer.getRank(), gamePlayer.getRole(), gamePlayer.getServer(),
+                gamePlayer.getStatus(), gamePlayer.getPricePerHour());
+        AfterCommit.run(() -> {
+            lock.writeLock().lock();
+            try {
+                put(entry);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    public void onRemoved(Long gamePlayerId) {
+        AfterCommit.run(() -> {
+            lock.writeLock().lock();
+            try {
+                remove(gamePlayerId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    private void onBanStateChanged(Long userId, boolean banned) {
+        lock.writeLock().lock();
+        try {
+            BitSet players = byUser.get(userId);
+            if (players == null) {
+                return;
+            }
+            if (banned) {
+                hidden.or(players);
+            } else {
+                hidden.andNot(players);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Lọc và đếm theo facet. Trong một facet các giá trị là OR, giữa các facet là AND.
+     * Số đếm của mỗi facet tính trên bộ lọc của các facet còn lại, để client biết chọn thêm giá trị nào sẽ ra bao nhiêu.
+     * Không lọc theo STATUS thì player BANNED bị loại.
+     * @param filters facet -> các giá trị được chọn (PRICE dùng nhãn khoảng giá, ví dụ "20-50", "500+")
+     */
+    public FacetResult query(Map<Facet, Set<String>> filters, int limit) {
+        lock.readLock().lock();
+        try {
+            BitSet base = (BitSet) live.clone();
+            base.andNot(hidden);
+            if (!filters.containsKey(Facet.STATUS)) {
+                BitSet banned = postings.get(Facet.STATUS).get(BANNED);
+                if (banned != null) {
+                    base.andNot(banned);
+                }
+            }
+
+            Map<Facet, BitSet> selections = new EnumMap<>(Facet.class);
+            filters.forEach((facet, values) -> {
+                BitSet union = new BitSet();
+                for (String value : values) {
+                    BitSet bits = postings.get(facet).get(value);
+                    if (bits != null) {
+                        union.or(bits);
+                    }
+                }
+                selections.put(facet, union);
+            });
+
+            BitSet result = (BitSet) base.clone();
+            selections.values().forEach(result::and);
+
+            Map<Facet, Map<String, Integer>> counts = new EnumMap<>(Facet.class);
+            for (Facet facet : Facet.values()) {
+                BitSet scope = (BitSet) base.clone();
+                selections.forEach((other, bits) -> {
+                    if (other != facet) {
+                        scope.and(bits);
+                    }
+                });
+                Map<String, Integer> facetCounts = new LinkedHashMap<>();
+                for (Map.Entry<String, BitSet> posting : postings.get(facet).entrySet()) {
+                    BitSet bits = (BitSet) posting.getValue().clone();
+                    bits.and(scope);
+                    int count = bits.cardinality();
+                    if (count > 0) {
+                        facetCounts.put(posting.getKey(), count);
+                    }
+                }
+                counts.put(facet, facetCounts);
+            }
+
+            List<Long> ids = new ArrayList<>();
+            for (int i = result.nextSetBit(0); i >= 0 && ids.size() < limit; i = result.nextSetBit(i + 1)) {
+                ids.add(entries.get(i).id());
+            }
+            return new FacetResult(result.cardinality(), ids, counts);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Số player (chưa bị ban) của một game
+     */
+    public int countByGame(Long gameId) {
+        lock.readLock().lock();
+        try {
+            BitSet bits = postings.get(Facet.GAME).get(gameId.toString());
+            if (bits == null) {
+                return 0;
+            }
+            BitSet visible = (BitSet) bits.clone();
+            visible.andNot(hidden);
+            BitSet banned = postings.get(Facet.STATUS).get(BANNED);
+            if (banned != null) {
+                visible.andNot(banned);
+            }
+            return visible.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return ordinals.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Gọi khi đang giữ write lock
+    private void put(Entry entry) {
+        Integer ordinal = ordinals.get(entry.id());
+        if (ordinal != null) {
+            clearPostings(ordinal);
+        } else {
+            // Tái sử dụng ordinal của player đã xóa để BitSet không thưa dần
+            ordinal = live.nextClearBit(0);
+            ordinals.put(entry.id(), ordinal);
+        }
+        if (ordinal < entries.size()) {
+            entries.set(ordinal, entry);
+        } else {
+            entries.add(entry);
+        }
+        live.set(ordinal);
+        for (Map.Entry<Facet, String> value : entry.values().entrySet()) {
+            postings.get(value.getKey()).computeIfAbsent(value.getValue(), key -> new BitSet()).set(ordinal);
+        }
+        if (entry.userId() != null) {
+            byUser.computeIfAbsent(entry.userId(), key -> new BitSet()).set(ordinal);
+            if (banStateCache.isBanned(entry.userId())) {
+                hidden.set(ordinal);
+            }
+        }
+    }
+
+    // Gọi khi đang giữ write lock
+    private void remove(Long id) {
+        Integer ordinal = ordinals.remove(id);
+        if (ordinal == null) {
+            return;
+        }
+        clearPostings(ordinal);
+        entries.set(ordinal, null);
+        live.clear(ordinal);
+    }
+
+    private void clearPostings(int ordinal) {
+        Entry old = entries.get(ordinal);
+        for (Map.Entry<Facet, String> value : old.values().entrySet()) {
+            Map<String, BitSet> facetPostings = postings.get(value.getKey());
+            BitSet bits = facetPostings.get(value.getValue());
+            if (bits != null) {
+                bits.clear(ordinal);
+                if (bits.isEmpty()) {
+                    facetPostings.remove(value.getValue());
+                }
+            }
+        }
+        if (old.userId() != null) {
+            BitSet players = byUser.get(old.userId());
+            if (players != null) {
+                players.clear(ordinal);
+                if (players.isEmpty()) {
+                    byUser.remove(old.userId());
+                }
+            }
+        }
+        hidden.clear(ordinal);
+    }
+
+    private Entry toEntry(Long id, Long userId, Long gameId, String rank, String role, String server,
+                          String status, BigDecimal price) {
+        Map<Facet, String> values = new EnumMap<>(Facet.class);
+        if (gameId != null) {
+            values.put(Facet.GAME, gameId.toString());
+        }
+        putIfPresent(values, Facet.RANK, rank);
+        putIfPresent(values, Facet.ROLE, role);
+        putIfPresent(values, Facet.SERVER, server);
+        putIfPresent(values, Facet.STATUS, status);
+        if (price != null) {
+            values.put(Facet.PRICE, priceBucket(price));
+        }
+        return new Entry(id, userId, values);
+    }
+
+    private static void putIfPresent(Map<Facet, String> values, Facet facet, String value) {
+        if (value != null && !value.isBlank()) {
+            values.put(facet, value);
+        }
+    }
+
+    /**
+     * Nhãn khoảng giá chứa price, ví dụ "20-50" hoặc "500+"
+     */
+    public String priceBucket(BigDecimal price) {
+        for (int i = priceBuckets.size() - 1; i >= 0; i--) {
+            BigDecimal lower = priceBuckets.get(i);
+            if (price.compareTo(lower) >= 0) {
+                return i == priceBuckets.size() - 1
+                        ? lower.toPlainString() + "+"
+                        : lower.toPlainString() + "-" + priceBuckets.get(i + 1).toPlainString();
+            }
+        }
+        return "0-" + priceBuckets.get(0).toPlainString();
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.backend.service;
+
+import com.example.backend.entity.GamePlayer;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA entity listener của GamePlayer: mọi lần tạo, sửa (thuê, trả, ban, đổi giá...) hay xóa player
+ * đều được báo cho GamePlayerFacetIndex, PopularPlayerLeaderboard và TypeaheadIndex, dù đi qua service hay repository.
+ * Tạo/xóa player còn làm số player trong GameCatalogCache đổi nên xóa danh mục đã cache.
+ */
+@Component
+public class GamePlayerIndexListener {
+    // Lấy lười: listener được Hibernate tạo trong lúc dựng EntityManagerFactory
+    private final ObjectProvider<GamePlayerFacetIndex> facetIndex;
+    private final ObjectProvider<PopularPlayerLeaderboard> leaderboard;
+    private final ObjectProvider<TypeaheadIndex> typeaheadIndex;
+    private final ObjectProvider<GameCatalogCache> gameCatalogCache;
+
+    public GamePlayerIndexListener(ObjectProvider<GamePlayerFacetIndex> facetIndex,
+                                   ObjectProvider<PopularPlayerLeaderboard> leaderboard,
+                                   ObjectProvider<TypeaheadIndex> typeaheadIndex,
+                                   ObjectProvider<GameCatalogCache> gameCatalogCache) {
+        this.facetIndex = facetIndex;
+        this.leaderboard = leaderboard;
+        this.typeaheadIndex = typeaheadIndex;
+        this.gameCatalogCache = gameCatalogCache;
+    }
+
+    @PostPersist
+    public void onPersisted(GamePlayer gamePlayer) {
+        onSaved(gamePlayer);
+        gameCatalogCache.ifAvailable(GameCatalogCache::invalidate);
+    }
+
+    @PostUpdate
+    public void onSaved(GamePlayer gamePlayer) {
+        facetIndex.ifAvailable(index -> index.onSaved(gamePlayer));
+        leaderboard.ifAvailable(board -> board.onPlayerSaved(gamePlayer));
+        typeaheadIndex.ifAvailable(index -> index.onPlayerSaved(gamePlayer));
+    }
+
+    @PostRemove
+    public void onRemoved(GamePlayer gamePlayer) {
+        facetIndex.ifAvailable(index -> index.onRemoved(gamePlayer.getId()));
+        leaderboard.ifAvailable(board -> board.onPlayerRemoved(gamePlayer.getId()));
+        typeaheadIndex.ifAvailable(index -> index.onPlayerRemoved(gamePlayer.getId()));
+        gameCatalogCache.ifAvailable(GameCatalogCache::invalidate);
+    }
+}
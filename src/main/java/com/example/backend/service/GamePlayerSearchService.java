@@ -0,0 +1,197 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.CursorPage;
+import com.example.backend.dto.PlayerCardDTO;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tìm player theo nhiều tiêu chí cùng lúc (game, rank, role, server, trạng thái, khoảng giá,
+ * rating tối thiểu, online), sắp xếp theo giá, rating hoặc độ phổ biến, phân trang theo keyset.
+ *
+ * Keyset: cursor giữ (giá trị khóa sắp xếp, id) của dòng cuối trang trước; trang sau lấy các dòng
+ * đứng sau cặp đó, nên chi phí mỗi trang không tăng theo độ sâu như LIMIT/OFFSET.
+ */
+@Service
+@Transactional(readOnly = true)
+public class GamePlayerSearchService {
+    public static final int DEFAULT_LIMIT = 20;
+    public static final int MAX_LIMIT = 100;
+
+    private static final String SELECT_CARD =
+        "SELECT new com.example.backend.dto.PlayerCardDTO(gp.id, u.id, gp.username, u.fullName, u.avatarUrl, " +
+        "g.id, g.name, gp.rank, gp.role, gp.server, gp.pricePerHour, gp.rating, gp.totalMinutesHired, " +
+        "gp.status, u.isOnline) FROM GamePlayer gp JOIN gp.user u JOIN gp.game g";
+
+    public enum SortField {
+        PRICE("gp.pricePerHour"),
+        // Cột sắp xếp không null (mặc định 0): sắp theo cột trần để dùng được index
+        RATING("gp.rating"),
+        POPULARITY("gp.totalMinutesHired");
+
+        private final String expression;
+
+        SortField(String expression) {
+            this.expression = expression;
+        }
+
+        public static SortField fromParam(String value) {
+            if (value == null || value.isBlank()) {
+                return POPULARITY;
+            }
+            try {
+                return valueOf(value.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unsupported sort: " + value);
+            }
+        }
+    }
+
+    /**
+     * Tiêu chí tìm kiếm, trường null thì bỏ qua. status null: mọi trạng thái trừ BANNED
+     */
+    public record Criteria(Long gameId, String rank, String role, String server, String status,
+                           BigDecimal minPrice, BigDecimal maxPrice, Double minRating, Boolean online) {
+    }
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public CursorPage<PlayerCardDTO> search(Criteria criteria, SortField sort, boolean ascending,
+                                            String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_LIMIT));
+        StringBuilder jpql = new StringBuilder(SELECT_CARD).append(" WHERE 1 = 1");
+        Map<String, Object> params = new HashMap<>();
+
+        if (criteria.gameId() != null) {
+            jpql.append(" AND g.id = :gameId");
+            params.put("gameId", criteria.gameId());
+        }
+        if (hasText(criteria.rank())) {
+            jpql.append(" AND gp.rank = :rank");
+            params.put("rank", criteria.rank().trim());
+        }
+        if (hasText(criteria.role())) {
+            jpql.append(" AND gp.role = :role");
+            params.put("role", criteria.role().trim());
+        }
+        if (hasText(criteria.server())) {
+            jpql.append(" AND gp.server = :server");
+            params.put("server", criteria.server().trim());
+        }
+        if (hasText(criteria.status())) {
+            jpql.append(" AND gp.status = :status");
+            params.put("status", criteria.status().trim().toUpperCase());
+        } else {
+            jpql.append(" AND gp.status <> 'BANNED'");
+        }
+        if (criteria.minPrice() != null) {
+            jpql.append(" AND gp.pricePerHour >= :minPrice");
+            params.put("minPrice", criteria.minPrice());
+        }
+        if (criteria.maxPrice() != null) {
+            jpql.append(" AND gp.pricePerHour <= :maxPrice");
+            params.put("maxPrice", criteria.maxPrice());
+        }
+        if (criteria.minRating() != null) {
+            jpql.append(" AND gp.rating >= :minRating");
+            params.put("minRating", criteria.minRating());
+        }
+        if (criteria.online() != null) {
+            jpql.append(criteria.online() ? " AND u.isOnline = true" : " AND (u.isOnline = false OR u.isOnline IS NULL)");
+        }
+
+        String key = sort.expression;
+        String comparator = ascending ? ">" : "<";
+        if (cursor != null && !cursor.isBlank()) {
+            Cursor decoded = decodeCursor(cursor, sort);
+            jpql.append(" AND (").append(key).append(' ').append(comparator).append(" :cursorValue OR (")
+                .append(key).append(" = :cursorValue AND gp.id ").append(comparator).append(" :cursorId))");
+            params.put("cursorValue", decoded.value());
+            params.put("cursorId", decoded.id());
+        }
+        String direction = ascending ? " ASC" : " DESC";
+        jpql.append(" ORDER BY ").append(key).append(direction).append(", gp.id").append(direction);
+
+        TypedQuery<PlayerCardDTO> query = entityManager.createQuery(jpql.toString(), PlayerCardDTO.class);
+        params.forEach(query::setParameter);
+        // Lấy dư một dòng để biết còn trang sau hay không
+        query.setMaxResults(pageSize + 1);
+        List<PlayerCardDTO> rows = new ArrayList<>(query.getResultList());
+
+        boolean hasMore = rows.size() > pageSize;
+        if (hasMore) {
+            rows.remove(pageSize);
+        }
+        String nextCursor = hasMore ? encodeCursor(rows.get(rows.size() - 1), sort) : null;
+        return new CursorPage<>(rows, nextCursor, hasMore);
+    }
+
+    /**
+     * Lấy thông tin gọn của các player theo id trong một truy vấn, giữ nguyên thứ tự của ids
+     */
+    public List<PlayerCardDTO> findCards(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        List<PlayerCardDTO> cards = entityManager
+            .createQuery(SELECT_CARD + " WHERE gp.id IN :ids", PlayerCardDTO.class)
+            .setParameter("ids", ids)
+            .getResultList();
+        Map<Long, PlayerCardDTO> byId = new HashMap<>();
+        cards.forEach(card -> byId.put(card.getId(), card));
+        List<PlayerCardDTO> ordered = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            PlayerCardDTO card = byId.get(id);
+            if (card != null) {
+                ordered.add(card);
+            }
+        }
+        return ordered;
+    }
+
+    private record Cursor(Object value, Long id) {
+    }
+
+    private static String encodeCursor(PlayerCardDTO last, SortField sort) {
+        String value = switch (sort) {
+            case PRICE -> last.getPricePerHour().toPlainString();
+            case RATING -> String.valueOf(last.getRating());
+            case POPULARITY -> String.valueOf(last.getTotalMinutesHired());
+        };
+        String raw = value + "|" + last.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static Cursor decodeCursor(String cursor, SortField sort) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf('|');
+            String value = raw.substring(0, separator);
+            Long id = Long.valueOf(raw.substring(separator + 1));
+            Object parsed = switch (sort) {
+                case PRICE -> new BigDecimal(value);
+                case RATING -> Double.valueOf(value);
+                case POPULARITY -> Long.valueOf(value);
+            };
+            return new Cursor(parsed, id);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isBlank();
+    }
+}
@@ -24,15 +24,21 @@ public class GamePlayerService {
     private final GameRepository gameRepository;
     private final UserRepository userRepository;
     private final PaymentRepository paymentRepository;
+    private final BanStateCache banStateCache;
+    private final PlayerRatingService playerRatingService;
 
     public GamePlayerService(GamePlayerRepository gamePlayerRepository,
                            GameRepository gameRepository,
                            UserRepository userRepository,
-                           PaymentRepository paymentRepository) {
+                           PaymentRepository paymentRepository,
+                           BanStateCache banStateCache,
+                           PlayerRatingService playerRatingService) {
         this.gamePlayerRepository = gamePlayerRepository;
         this.gameRepository = gameRepository;
         this.userRepository = userRepository;
         this.paymentRepository = paymentRepository;
+        this.banStateCache = banStateCache;
+        this.playerRatingService = playerRatingService;
     }
 
     public GamePlayer createGamePlayer(Long userId, Long gameId, String username,
@@ -148,12 +154,16 @@ public class GamePlayerService {
         return gamePlayer;
     }
 
-    public GamePlayer updateRating(Long id, Double rating) {
-        GamePlayer gamePlayer = gamePlayerRepository.findById(id)
+    /**
+     * Rating được tổng hợp từ các đánh giá, không gán trực tiếp: tính lại từ bảng đánh giá
+     */
+    public GamePlayer recalculateRating(Long id) {
+        if (!gamePlayerRepository.existsById(id)) {
+            throw new ResourceNotFoundException("Game player not found");
+        }
+        playerRatingService.recalculate(List.of(id));
+        return gamePlayerRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Game player not found"));
-
-        gamePlayer.setRating(rating);
-        return gamePlayerRepository.save(gamePlayer);
     }
 
     public GamePlayer updateStats(Long id, Integer totalGames, Integer winRate) {
@@ -199,8 +209,11 @@ public class GamePlayerService {
     }
 
     public GamePlayer hirePlayer(Long id, User user) {
+        if (banStateCache.isBanned(user.getId())) {
+            throw new RuntimeException("User is banned");
+        }
         GamePlayer gamePlayer = findById(id);
-        if (!"AVAILABLE".equals(gamePlayer.getStatus())) {
+        if (!"AVAILABLE".equals(gamePlayer.getStatus()) || banStateCache.isBanned(gamePlayer.getUser().getId())) {
             throw new RuntimeException("Game player is not available for hire");
         }
 
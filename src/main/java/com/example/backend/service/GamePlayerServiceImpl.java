@@ -148,25 +148,4 @@ public class GamePlayerServiceImpl {
         return gamePlayerRepository.save(gamePlayer);
     }
 
-    @Transactional
-    public GamePlayer updateRating(Long id, Double rating) {
-        if (id == null) {
-            throw new IllegalArgumentException("ID cannot be null");
-        }
-        if (rating == null) {
-            throw new IllegalArgumentException("Rating cannot be null");
-        }
-        if (rating < 0 || rating > 5) {
-            throw new IllegalArgumentException("Rating must be between 0 and 5");
-        }
-
-        GamePlayer gamePlayer = findById(id);
-        if (gamePlayer.getRating() == null) {
-            gamePlayer.setRating(rating);
-        } else {
-            gamePlayer.setRating((gamePlayer.getRating() + rating) / 2);
-        }
-
-        return gamePlayerRepository.save(gamePlayer);
-    }
 }
@@ -0,0 +1,286 @@
+package com.example.backend.service;
+
+import com.example.backend.storage.BlobStorage;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sinh các bản thu nhỏ (thumb, medium, full) cho ảnh upload trên một executor giới hạn.
+ *
+ * Bản phái sinh được lưu cạnh file gốc với hậu tố kích thước, ví dụ
+ * "moment-images/abc.png" -> "moment-images/abc_thumb.jpg".
+ */
+@Service
+public class ImageDerivativeService {
+    private static final Logger logger = LoggerFactory.getLogger(ImageDerivativeService.class);
+    private static final int MAX_FAILURES_REMEMBERED = 10000;
+
+    public enum ImageSize {
+        THUMB(160, 0.75f),
+        MEDIUM(640, 0.8f),
+        FULL(1600, 0.85f);
+
+        private final int maxDimension;
+        private final float quality;
+
+        ImageSize(int maxDimension, float quality) {
+            this.maxDimension = maxDimension;
+            this.quality = quality;
+        }
+
+        public String suffix() {
+            return "_" + name().toLowerCase(Locale.ROOT);
+        }
+
+        public static ImageSize fromParam(String value) {
+            if (value == null || value.isBlank()) {
+                return null;
+            }
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+        }
+    }
+
+    private final BlobStorage storage;
+    private final ThreadPoolExecutor executor;
+    private final long maxPixels;
+    // Ảnh đang chờ sinh: không xếp hàng trùng
+    private final Set<String> queued = ConcurrentHashMap.newKeySet();
+    // Ảnh không giải mã được hoặc vượt giới hạn điểm ảnh: không bao giờ có bản phái sinh (LRU có giới hạn)
+    private final Map<String, Boolean> failed = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > MAX_FAILURES_REMEMBERED;
+        }
+    });
+
+    public ImageDerivativeService(BlobStorage storage,
+                                  @Value("${image.derivatives.threads:2}") int threads,
+                                  @Value("${image.derivatives.queue-capacity:200}") int queueCapacity,
+                                  @Value("${image.derivatives.max-pixels:40000000}") long maxPixels) {
+        this.storage = storage;
+        this.maxPixels = maxPixels;
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            runnable -> {
+                Thread thread = new Thread(runnable, "image-derivative-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                thread.setPriority(Thread.NORM_PRIORITY - 1);
+                return thread;
+            });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Đường dẫn tương đối của bản phái sinh (luôn là JPEG)
+     */
+    public static String derivativePath(String relativePath, ImageSize size) {
+        int slash = relativePath.lastIndexOf('/');
+        int dot = relativePath.lastIndexOf('.');
+        String base = dot > slash ? relativePath.substring(0, dot) : relativePath;
+        return base + size.suffix() + ".jpg";
+    }
+
+    public static boolean isDerivative(String filename) {
+        for (ImageSize size : ImageSize.values()) {
+            if (filename.endsWith(size.suffix() + ".jpg")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Xếp hàng sinh bản phái sinh; nếu hàng đợi đầy thì bỏ qua, ảnh gốc vẫn được phục vụ
+     */
+    public void scheduleDerivatives(String original) {
+        String filename = original.substring(original.lastIndexOf('/') + 1);
+        if (isDerivative(filename) || !isImageFile(filename) || hasFailed(original) || !queued.add(original)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    generateDerivatives(original);
+                } finally {
+                    queued.remove(original);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            queued.remove(original);
+            logger.warn("Hàng đợi sinh ảnh thu nhỏ đã đầy, bỏ qua {}", original);
+        }
+    }
+
+    /**
+     * Ảnh gốc đã được thử và không thể sinh bản phái sinh (định dạng không đọc được, file hỏng
+     * hoặc vượt image.derivatives.max-pixels)
+     */
+    public boolean hasFailed(String original) {
+        return failed.containsKey(original);
+    }
+
+    private void generateDerivatives(String original) {
+        try {
+            BufferedImage source;
+            try (InputStream in = storage.openRange(original, 0, -1)) {
+                source = decode(original, in);
+            }
+            if (source == null) {
+                failed.put(original, Boolean.TRUE);
+                return;
+            }
+            for (ImageSize size : ImageSize.values()) {
+                String target = derivativePath(original, size);
+                if (!storage.exists(target)) {
+                    Path temp = writeJpeg(resize(source, size.maxDimension), size.quality);
+                    try {
+                        storage.put(target, temp, "image/jpeg");
+                    } finally {
+                        Files.deleteIfExists(temp);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            logger.error("Lỗi khi sinh ảnh thu nhỏ cho {}: {}", original, e.getMessage());
+        }
+    }
+
+    /**
+     * Đọc kích thước từ header trước khi giải mã: ảnh vượt giới hạn điểm ảnh bị từ chối mà không cấp phát bộ nhớ
+     * @return ảnh đã giải mã, hoặc null nếu định dạng không đọc được, file hỏng hoặc ảnh quá lớn
+     */
+    private BufferedImage decode(String original, InputStream in) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(in)) {
+            Iterator<ImageReader> readers = input != null ? ImageIO.getImageReaders(input) : null;
+            if (readers == null || !readers.hasNext()) {
+                // Định dạng ImageIO không đọc được (ví dụ webp)
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > maxPixels) {
+                    logger.warn("Bỏ qua ảnh thu nhỏ cho {}: {} điểm ảnh vượt giới hạn {}", original, pixels, maxPixels);
+                    return null;
+                }
+                return reader.read(0);
+            } catch (IOException | RuntimeException e) {
+                logger.warn("Không giải mã được ảnh {}: {}", original, e.getMessage());
+                return null;
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private static BufferedImage resize(BufferedImage source, int maxDimension) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        double scale = Math.min(1.0, maxDimension / (double) Math.max(width, height));
+        int targetWidth = Math.max(1, (int) Math.round(width * scale));
+        int targetHeight = Math.max(1, (int) Math.round(height * scale));
+
+        // Thu nhỏ dần từng nửa để giữ chất lượng với nội suy bilinear
+        BufferedImage current = toRgb(source);
+        while (current.getWidth() / 2 >= targetWidth && current.getHeight() / 2 >= targetHeight) {
+            current = draw(current, current.getWidth() / 2, current.getHeight() / 2);
+        }
+        if (current.getWidth() != targetWidth || current.getHeight() != targetHeight) {
+            current = draw(current, targetWidth, targetHeight);
+        }
+        return current;
+    }
+
+    // JPEG không có kênh alpha: vẽ lên nền trắng
+    private static BufferedImage toRgb(BufferedImage source) {
+        if (source.getType() == BufferedImage.TYPE_INT_RGB) {
+            return source;
+        }
+        BufferedImage rgb = new BufferedImage(source.getWidth(), source.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = rgb.createGraphics();
+        g.setColor(Color.WHITE);
+        g.fillRect(0, 0, rgb.getWidth(), rgb.getHeight());
+        g.drawImage(source, 0, 0, null);
+        g.dispose();
+        return rgb;
+    }
+
+    private static BufferedImage draw(BufferedImage source, int width, int height) {
+        BufferedImage scaled = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = scaled.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        g.drawImage(source, 0, 0, width, height, null);
+        g.dispose();
+        return scaled;
+    }
+
+    // Ghi ra file tạm; backend lưu trữ chỉ công bố file khi đã ghi xong
+    private static Path writeJpeg(BufferedImage image, float quality) throws IOException {
+        Path temp = Files.createTempFile("derivative-", ".jpg");
+        try {
+            ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+            try (ImageOutputStream out = ImageIO.createImageOutputStream(temp.toFile())) {
+                writer.setOutput(out);
+                ImageWriteParam param = writer.getDefaultWriteParam();
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(quality);
+                param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+                writer.write(null, new IIOImage(image, null, null), param);
+            } finally {
+                writer.dispose();
+            }
+            return temp;
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+    }
+
+    private static boolean isImageFile(String filename) {
+        String name = filename.toLowerCase(Locale.ROOT);
+        return name.endsWith(".jpg") || name.endsWith(".jpeg") || name.endsWith(".png")
+            || name.endsWith(".gif") || name.endsWith(".bmp");
+    }
+}
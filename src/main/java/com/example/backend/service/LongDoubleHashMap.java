@@ -0,0 +1,128 @@
+package com.example.backend.service;
+
+import java.util.Arrays;
+
+/**
+ * Map long -> double dùng mảng nguyên thủy (open addressing, dò tuyến tính), không boxing.
+ * Dùng cho ma trận thưa cỡ lớn như số người cùng theo dõi giữa các player.
+ * Khóa có giá trị về 0 bị xóa (get trả 0 cho khóa không có), nên cặp đã hết không chiếm chỗ mãi.
+ */
+class LongDoubleHashMap {
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    interface Visitor {
+        void visit(long key, double value);
+    }
+
+    private long[] keys;
+    private double[] values;
+    private int size;
+
+    LongDoubleHashMap() {
+        this(8);
+    }
+
+    LongDoubleHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2) - 1) << 1;
+        keys = new long[capacity];
+        values = new double[capacity];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    double get(long key) {
+        int mask = keys.length - 1;
+        for (int i = mix(key) & mask; ; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return values[i];
+            }
+            if (keys[i] == EMPTY) {
+                return 0.0;
+            }
+        }
+    }
+
+    /**
+     * Cộng delta vào giá trị của key và trả về giá trị mới; giá trị mới bằng 0 thì key bị xóa
+     */
+    double addTo(long key, double delta) {
+        if (key == EMPTY) {
+            throw new IllegalArgumentException("Key not supported: " + key);
+        }
+        int mask = keys.length - 1;
+        int i = mix(key) & mask;
+        while (keys[i] != EMPTY && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        if (keys[i] == EMPTY) {
+            if (delta == 0) {
+                return 0.0;
+            }
+            keys[i] = key;
+            size++;
+            values[i] = delta;
+            if (size * 4 >= keys.length * 3) {
+                resize();
+            }
+            return delta;
+        }
+        values[i] += delta;
+        if (values[i] == 0) {
+            removeAt(i);
+            return 0.0;
+        }
+        return values[i];
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Dời về chỗ trống các phần tử phía sau có vị trí gốc không nằm trong (gap, j], như LongHashSet.remove
+    private void removeAt(int i) {
+        int mask = keys.length - 1;
+        int gap = i;
+        for (int j = (i + 1) & mask; keys[j] != EMPTY; j = (j + 1) & mask) {
+            int home = mix(keys[j]) & mask;
+            boolean stays = j > gap ? home > gap && home <= j : home > gap || home <= j;
+            if (!stays) {
+                keys[gap] = keys[j];
+                values[gap] = values[j];
+                gap = j;
+            }
+        }
+        keys[gap] = EMPTY;
+        values[gap] = 0.0;
+        size--;
+    }
+
+    void forEach(Visitor visitor) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                visitor.visit(keys[i], values[i]);
+            }
+        }
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        double[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new double[oldValues.length * 2];
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                addTo(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
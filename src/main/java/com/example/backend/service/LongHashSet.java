@@ -0,0 +1,112 @@
+package com.example.backend.service;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Tập long dùng mảng nguyên thủy (open addressing, dò tuyến tính), không boxing.
+ * Xóa bằng cách dời các phần tử phía sau về chỗ trống nên không để lại ô "đã xóa".
+ */
+class LongHashSet {
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private long[] keys;
+    private int size;
+
+    LongHashSet() {
+        this(4);
+    }
+
+    LongHashSet(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2) - 1) << 1;
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    boolean contains(long key) {
+        if (key == EMPTY) {
+            return false;
+        }
+        int mask = keys.length - 1;
+        for (int i = LongDoubleHashMap.mix(key) & mask; ; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return true;
+            }
+            if (keys[i] == EMPTY) {
+                return false;
+            }
+        }
+    }
+
+    boolean add(long key) {
+        if (key == EMPTY) {
+            throw new IllegalArgumentException("Key not supported: " + key);
+        }
+        int mask = keys.length - 1;
+        int i = LongDoubleHashMap.mix(key) & mask;
+        while (keys[i] != EMPTY) {
+            if (keys[i] == key) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        size++;
+        if (size * 4 >= keys.length * 3) {
+            resize();
+        }
+        return true;
+    }
+
+    boolean remove(long key) {
+        int mask = keys.length - 1;
+        int i = LongDoubleHashMap.mix(key) & mask;
+        while (keys[i] != key) {
+            if (keys[i] == EMPTY) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        // Dời về chỗ trống các phần tử phía sau có vị trí gốc không nằm trong (gap, j]
+        int gap = i;
+        for (int j = (i + 1) & mask; keys[j] != EMPTY; j = (j + 1) & mask) {
+            int home = LongDoubleHashMap.mix(keys[j]) & mask;
+            boolean stays = j > gap ? home > gap && home <= j : home > gap || home <= j;
+            if (!stays) {
+                keys[gap] = keys[j];
+                gap = j;
+            }
+        }
+        keys[gap] = EMPTY;
+        size--;
+        return true;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void forEach(LongConsumer consumer) {
+        for (long key : keys) {
+            if (key != EMPTY) {
+                consumer.accept(key);
+            }
+        }
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        keys = new long[oldKeys.length * 2];
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+        for (long key : oldKeys) {
+            if (key != EMPTY) {
+                add(key);
+            }
+        }
+    }
+}
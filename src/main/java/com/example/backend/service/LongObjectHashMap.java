@@ -0,0 +1,138 @@
+package com.example.backend.service;
+
+import java.util.Arrays;
+import java.util.function.LongFunction;
+
+/**
+ * Map long -> đối tượng với khóa là mảng long nguyên thủy (open addressing, dò tuyến tính), không boxing khóa.
+ * Xóa bằng cách dời các phần tử phía sau về chỗ trống như {@link LongHashSet}.
+ */
+class LongObjectHashMap<V> {
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    interface Visitor<V> {
+        void visit(long key, V value);
+    }
+
+    private long[] keys;
+    private Object[] values;
+    private int size;
+
+    LongObjectHashMap() {
+        this(8);
+    }
+
+    LongObjectHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2) - 1) << 1;
+        keys = new long[capacity];
+        values = new Object[capacity];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    @SuppressWarnings("unchecked")
+    V get(long key) {
+        int i = indexOf(key);
+        return i >= 0 ? (V) values[i] : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    V put(long key, V value) {
+        if (key == EMPTY) {
+            throw new IllegalArgumentException("Key not supported: " + key);
+        }
+        int mask = keys.length - 1;
+        int i = LongDoubleHashMap.mix(key) & mask;
+        while (keys[i] != EMPTY && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        if (keys[i] == key) {
+            V previous = (V) values[i];
+            values[i] = value;
+            return previous;
+        }
+        keys[i] = key;
+        values[i] = value;
+        size++;
+        if (size * 4 >= keys.length * 3) {
+            resize();
+        }
+        return null;
+    }
+
+    V computeIfAbsent(long key, LongFunction<V> factory) {
+        V value = get(key);
+        if (value == null) {
+            value = factory.apply(key);
+            put(key, value);
+        }
+        return value;
+    }
+
+    @SuppressWarnings("unchecked")
+    V remove(long key) {
+        int i = indexOf(key);
+        if (i < 0) {
+            return null;
+        }
+        V removed = (V) values[i];
+        int mask = keys.length - 1;
+        // Dời về chỗ trống các phần tử phía sau có vị trí gốc không nằm trong (gap, j]
+        int gap = i;
+        for (int j = (i + 1) & mask; keys[j] != EMPTY; j = (j + 1) & mask) {
+            int home = LongDoubleHashMap.mix(keys[j]) & mask;
+            boolean stays = j > gap ? home > gap && home <= j : home > gap || home <= j;
+            if (!stays) {
+                keys[gap] = keys[j];
+                values[gap] = values[j];
+                gap = j;
+            }
+        }
+        keys[gap] = EMPTY;
+        values[gap] = null;
+        size--;
+        return removed;
+    }
+
+    int size() {
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    void forEach(Visitor<V> visitor) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                visitor.visit(keys[i], (V) values[i]);
+            }
+        }
+    }
+
+    private int indexOf(long key) {
+        if (key == EMPTY) {
+            return -1;
+        }
+        int mask = keys.length - 1;
+        for (int i = LongDoubleHashMap.mix(key) & mask; ; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return i;
+            }
+            if (keys[i] == EMPTY) {
+                return -1;
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void resize() {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new Object[oldValues.length * 2];
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                put(oldKeys[i], (V) oldValues[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.MomentDTO;
+import com.example.backend.repository.MomentImageRepository;
+import com.example.backend.repository.MomentRepository;
+import com.example.backend.repository.PlayerFollowRepository;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Dựng MomentDTO cho cả một trang moment với số truy vấn cố định: một truy vấn lấy nội dung moment kèm
+ * player, game và user sở hữu, một truy vấn lấy ảnh của mọi moment, một truy vấn đếm follower gộp theo player.
+ *
+ * Đọc cột trực tiếp thay vì nạp entity Moment, vì GamePlayer kéo theo các quan hệ EAGER (game, user và role
+ * của user, người thuê, người ban) thành một loạt truy vấn phụ cho mỗi player.
+ */
+@Component
+public class MomentDTOAssembler {
+
+    private final MomentRepository momentRepository;
+    private final MomentImageRepository momentImageRepository;
+    private final PlayerFollowRepository playerFollowRepository;
+
+    public MomentDTOAssembler(MomentRepository momentRepository, MomentImageRepository momentImageRepository,
+                              PlayerFollowRepository playerFollowRepository) {
+        this.momentRepository = momentRepository;
+        this.momentImageRepository = momentImageRepository;
+        this.playerFollowRepository = playerFollowRepository;
+    }
+
+    /**
+     * DTO của các moment theo đúng thứ tự momentIds; id không tồn tại bị bỏ qua
+     */
+    public List<MomentDTO> assemble(List<Long> momentIds) {
+        if (momentIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, MomentDTO> byId = new HashMap<>();
+        Set<Long> gamePlayerIds = new HashSet<>();
+        for (Object[] row : momentRepository.findDtoRowsByIdIn(momentIds)) {
+            MomentDTO dto = new MomentDTO();
+            dto.setId((Long) row[0]);
+            dto.setGamePlayerId((Long) row[1]);
+            dto.setGamePlayerUsername((String) row[2]);
+            dto.setGameName((String) row[3]);
+            dto.setContent((String) row[4]);
+            dto.setCreatedAt((LocalDateTime) row[5]);
+            dto.setUpdatedAt((LocalDateTime) row[6]);
+            dto.setStatus((String) row[7]);
+            dto.setPlayerUserId((Long) row[8]);
+            dto.setImageUrls(new ArrayList<>());
+            byId.put(dto.getId(), dto);
+            gamePlayerIds.add(dto.getGamePlayerId());
+        }
+        if (byId.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        for (Object[] row : momentImageRepository.findImageUrlsByMomentIds(byId.keySet())) {
+            byId.get((Long) row[0]).getImageUrls().add((String) row[1]);
+        }
+
+        Map<Long, Long> followerCounts = new HashMap<>();
+        for (Object[] row : playerFollowRepository.countFollowersByGamePlayerIds(gamePlayerIds)) {
+            followerCounts.put((Long) row[0], ((Number) row[1]).longValue());
+        }
+
+        List<MomentDTO> result = new ArrayList<>(byId.size());
+        for (Long momentId : momentIds) {
+            MomentDTO dto = byId.get(momentId);
+            if (dto != null) {
+                dto.setFollowerCount(followerCounts.getOrDefault(dto.getGamePlayerId(), 0L));
+                result.add(dto);
+            }
+        }
+        return result;
+    }
+
+    public MomentDTO assemble(Long momentId) {
+        List<MomentDTO> result = assemble(List.of(momentId));
+        return result.isEmpty() ? null : result.get(0);
+    }
+}
@@ -0,0 +1,215 @@
+package com.example.backend.service;
+
+import com.example.backend.entity.PlayerFollow;
+import com.example.backend.repository.MomentRepository;
+import com.example.backend.repository.MomentViewRepository;
+import com.example.backend.repository.PlayerFollowRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Trạng thái "đã xem" moment theo watermark trên từng dòng follow thay vì một dòng MomentView cho mỗi lượt xem.
+ *
+ * Với mỗi (follower, player): mọi moment của player có id <= lastSeenMomentId coi là đã xem; các moment
+ * mới hơn xem không theo thứ tự được ghi trong bitmap, bit i ứng với moment thứ i (tính từ 0) trong dãy moment
+ * của riêng player đó sau watermark, theo id tăng dần. Moment chỉ bị xóa mềm nên dãy này không bị xô lệch.
+ * Mỗi lượt xem đẩy watermark qua đoạn moment đã xem (hoặc đã xóa) liên tiếp nên bitmap thường rỗng; watermark
+ * không bao giờ vượt qua moment chưa xem. Đánh dấu tất cả là một câu UPDATE trên các dòng follow, đếm chưa xem
+ * là một COUNT theo watermark (chỉ đọc bitmap của các follow còn bitmap).
+ */
+@Service
+@Transactional
+public class MomentSeenService {
+    private static final Logger logger = LoggerFactory.getLogger(MomentSeenService.class);
+    private static final String ACTIVE = "ACTIVE";
+    private static final String DELETED = "DELETED";
+    // Số bit tối đa của bitmap, khớp độ dài cột seen_bitmap (4096 byte)
+    private static final int MAX_SPAN = 4096 * 8;
+
+    private final PlayerFollowRepository playerFollowRepository;
+    private final MomentRepository momentRepository;
+    private final MomentViewRepository momentViewRepository;
+
+    /**
+     * Kết quả một lô chuyển moment_views; nextAfterId null khi đã hết dòng
+     */
+    public record ViewMigrationReport(int scanned, int folded, int kept, int deleted, Long nextAfterId) {
+    }
+
+    public MomentSeenService(PlayerFollowRepository playerFollowRepository, MomentRepository momentRepository,
+                             MomentViewRepository momentViewRepository) {
+        this.playerFollowRepository = playerFollowRepository;
+        this.momentRepository = momentRepository;
+        this.momentViewRepository = momentViewRepository;
+    }
+
+    /**
+     * Ghi nhận user đã xem một moment của player; bỏ qua nếu user không follow player đó, moment không ACTIVE,
+     * hoặc moment cách watermark quá MAX_SPAN moment của player (vẫn tính là chưa xem)
+     */
+    public void markSeen(Long userId, Long gamePlayerId, Long momentId) {
+        PlayerFollow follow = playerFollowRepository.findForSeenUpdate(userId, gamePlayerId).orElse(null);
+        if (follow == null) {
+            return;
+        }
+        long watermark = follow.getLastSeenMomentId() != null ? follow.getLastSeenMomentId() : 0L;
+        if (momentId <= watermark) {
+            return;
+        }
+        List<Object[]> sequence = momentRepository.findIdsAndStatusAfter(gamePlayerId, watermark);
+        int ordinal = 0;
+        while (ordinal < sequence.size() && !sequence.get(ordinal)[0].equals(momentId)) {
+            ordinal++;
+        }
+        if (ordinal == sequence.size() || !ACTIVE.equals(sequence.get(ordinal)[1]) || ordinal >= MAX_SPAN) {
+            return;
+        }
+
+        BitSet bitmap = follow.getSeenBitmap() != null ? BitSet.valueOf(follow.getSeenBitmap()) : new BitSet();
+        bitmap.set(ordinal);
+        saveSeenState(follow, sequence, bitmap);
+    }
+
+    // Đẩy watermark qua đoạn moment đã xem hoặc đã xóa liên tiếp từ watermark cũ rồi lưu phần bitmap còn lại
+    private void saveSeenState(PlayerFollow follow, List<Object[]> sequence, BitSet bitmap) {
+        long watermark = follow.getLastSeenMomentId() != null ? follow.getLastSeenMomentId() : 0L;
+        int advanced = 0;
+        while (advanced < sequence.size()
+                && (bitmap.get(advanced) || DELETED.equals(sequence.get(advanced)[1]))) {
+            advanced++;
+        }
+        if (advanced > 0) {
+            watermark = (Long) sequence.get(advanced - 1)[0];
+            bitmap = bitmap.get(advanced, Math.max(advanced, bitmap.length()));
+        }
+        follow.setLastSeenMomentId(watermark > 0 ? watermark : null);
+        follow.setSeenBitmap(bitmap.isEmpty() ? null : bitmap.toByteArray());
+        playerFollowRepository.save(follow);
+    }
+
+    /**
+     * Đánh dấu đã xem mọi moment của mọi player user đang follow
+     * @return số dòng follow được cập nhật
+     */
+    public int markAllSeen(Long userId) {
+        return playerFollowRepository.markAllMomentsSeen(userId);
+    }
+
+    @Transactional(readOnly = true)
+    public long countUnseen(Long userId) {
+        long count = playerFollowRepository.countMomentsAboveWatermark(userId);
+        List<Object[]> rows = playerFollowRepository.findMomentsAboveWatermarkWithBitmap(userId);
+        boolean[] seen = seenFlags(rows);
+        for (int i = 0; i < rows.size(); i++) {
+            if (seen[i] && ACTIVE.equals(rows.get(i)[2])) {
+                count--;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Id các moment chưa xem của user, mới nhất trước
+     */
+    @Transactional(readOnly = true)
+    public List<Long> findUnseenMomentIds(Long userId) {
+        List<Object[]> rows = playerFollowRepository.findMomentsAboveWatermark(userId);
+        boolean[] seen = seenFlags(rows);
+        List<Object[]> unseen = new ArrayList<>();
+        for (int i = 0; i < rows.size(); i++) {
+            if (!seen[i] && ACTIVE.equals(rows.get(i)[2])) {
+                unseen.add(rows.get(i));
+            }
+        }
+        unseen.sort(Comparator.comparing((Object[] row) -> (LocalDateTime) row[4])
+                .thenComparing(row -> (Long) row[0]).reversed());
+        return unseen.stream().map(row -> (Long) row[0]).toList();
+    }
+
+    /**
+     * Chuyển một lô dòng moment_views (id > afterViewId) sang watermark/bitmap đã xem. Mỗi lượt xem cũ được ghi
+     * đúng vào bit của moment đó nên moment chưa từng xem vẫn là chưa xem; chạy lại trên cùng lô không đổi gì.
+     * Lượt xem của player user không còn follow (hoặc moment nằm quá MAX_SPAN sau watermark) không chuyển được
+     * và luôn được giữ lại. Chỉ khi deleteFolded các dòng đã chuyển mới bị xóa, để giữ moment_views cho tới khi
+     * kiểm tra xong đường mới.
+     */
+    public ViewMigrationReport migrateMomentViews(Long afterViewId, int limit, boolean deleteFolded) {
+        List<Object[]> views = momentViewRepository.findBatchAfter(afterViewId != null ? afterViewId : 0L,
+                PageRequest.of(0, limit));
+        // (userId, gamePlayerId) -> các dòng (viewId, userId, gamePlayerId, momentId)
+        Map<List<Long>, List<Object[]>> byFollow = new LinkedHashMap<>();
+        for (Object[] view : views) {
+            byFollow.computeIfAbsent(List.of((Long) view[1], (Long) view[2]), key -> new ArrayList<>()).add(view);
+        }
+
+        List<Long> folded = new ArrayList<>();
+        for (Map.Entry<List<Long>, List<Object[]>> entry : byFollow.entrySet()) {
+            Long userId = entry.getKey().get(0);
+            Long gamePlayerId = entry.getKey().get(1);
+            PlayerFollow follow = playerFollowRepository.findForSeenUpdate(userId, gamePlayerId).orElse(null);
+            if (follow == null) {
+                continue;
+            }
+            long watermark = follow.getLastSeenMomentId() != null ? follow.getLastSeenMomentId() : 0L;
+            List<Object[]> sequence = momentRepository.findIdsAndStatusAfter(gamePlayerId, watermark);
+            Map<Long, Integer> ordinals = new HashMap<>();
+            for (int i = 0; i < sequence.size() && i < MAX_SPAN; i++) {
+                ordinals.put((Long) sequence.get(i)[0], i);
+            }
+            BitSet bitmap = follow.getSeenBitmap() != null ? BitSet.valueOf(follow.getSeenBitmap()) : new BitSet();
+            for (Object[] view : entry.getValue()) {
+                Long momentId = (Long) view[3];
+                Integer ordinal = ordinals.get(momentId);
+                if (ordinal != null) {
+                    bitmap.set(ordinal);
+                } else if (momentId > watermark) {
+                    continue;
+                }
+                folded.add((Long) view[0]);
+            }
+            saveSeenState(follow, sequence, bitmap);
+        }
+
+        if (deleteFolded && !folded.isEmpty()) {
+            momentViewRepository.deleteAllByIdInBatch(folded);
+        }
+        Long nextAfterId = views.size() < limit ? null : (Long) views.get(views.size() - 1)[0];
+        logger.info("Chuyển moment_views sau id {}: {} dòng, {} dòng đã chuyển{}", afterViewId, views.size(),
+                folded.size(), deleteFolded ? " và xóa" : "");
+        return new ViewMigrationReport(views.size(), folded.size(), views.size() - folded.size(),
+                deleteFolded ? folded.size() : 0, nextAfterId);
+    }
+
+    /**
+     * Trạng thái đã xem của từng dòng (momentId, gamePlayerId, status, bitmap, ...) nằm trên watermark,
+     * các dòng sắp theo player rồi id tăng dần: thứ tự của dòng trong nhóm player là vị trí bit
+     */
+    static boolean[] seenFlags(List<Object[]> rows) {
+        boolean[] seen = new boolean[rows.size()];
+        Object currentPlayer = null;
+        BitSet bitmap = new BitSet();
+        int ordinal = 0;
+        for (int i = 0; i < rows.size(); i++) {
+            Object[] row = rows.get(i);
+            if (!row[1].equals(currentPlayer)) {
+                currentPlayer = row[1];
+                bitmap = row[3] != null ? BitSet.valueOf((byte[]) row[3]) : new BitSet();
+                ordinal = 0;
+            }
+            seen[i] = bitmap.get(ordinal++);
+        }
+        return seen;
+    }
+}
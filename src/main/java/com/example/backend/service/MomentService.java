@@ -1,10 +1,9 @@
 package com.example.backend.service;
 
+import com.example.backend.dto.CursorPage;
 import com.example.backend.dto.MomentDTO;
 import com.example.backend.dto.CreateMomentRequest;
 import com.example.backend.entity.Moment;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import java.util.List;
 
 public interface MomentService {
@@ -15,17 +14,20 @@ public interface MomentService {
     // Lấy moment theo ID
     MomentDTO getMomentById(Long momentId);
     
+    // Các danh sách moment phân trang theo cursor (createdAt, id): cursor null là trang đầu,
+    // trang sau truyền nextCursor của trang trước
+
     // Lấy tất cả moment của một game player
-    Page<MomentDTO> getMomentsByGamePlayerId(Long gamePlayerId, Pageable pageable);
+    CursorPage<MomentDTO> getMomentsByGamePlayerId(Long gamePlayerId, String cursor, int limit);
     
     // Lấy tất cả moment của user đang đăng nhập
-    Page<MomentDTO> getMyMoments(Long userId, Pageable pageable);
+    CursorPage<MomentDTO> getMyMoments(Long userId, String cursor, int limit);
     
     // Lấy feed moment (moment của những player mà user đang follow)
-    Page<MomentDTO> getMomentFeed(Long userId, Pageable pageable);
+    CursorPage<MomentDTO> getMomentFeed(Long userId, String cursor, int limit);
     
     // Lấy tất cả moment
-    Page<MomentDTO> getAllMoments(org.springframework.data.domain.Pageable pageable);
+    CursorPage<MomentDTO> getAllMoments(String cursor, int limit);
     
     // Cập nhật moment
     MomentDTO updateMoment(Long momentId, Long userId, CreateMomentRequest request);
@@ -1,22 +1,28 @@
 package com.example.backend.service;
 
+import com.example.backend.dto.CursorPage;
+import com.example.backend.dto.MomentCursor;
 import com.example.backend.dto.MomentDTO;
 import com.example.backend.dto.CreateMomentRequest;
 import com.example.backend.entity.*;
 import com.example.backend.repository.*;
 import com.example.backend.exception.ResourceNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
 
 @Service
 @Transactional
 public class MomentServiceImpl implements MomentService {
+    private static final Logger logger = LoggerFactory.getLogger(MomentServiceImpl.class);
+    private static final int MAX_LIMIT = 50;
 
     @Autowired
     private MomentRepository momentRepository;
@@ -34,10 +40,16 @@ public class MomentServiceImpl implements MomentService {
     private NotificationService notificationService;
 
     @Autowired
-    private MomentViewRepository momentViewRepository;
+    private FileStorageService fileStorageService;
 
     @Autowired
-    private UserService userService;
+    private MomentTimelineStore momentTimelineStore;
+
+    @Autowired
+    private MomentDTOAssembler momentDTOAssembler;
+
+    @Autowired
+    private MomentSeenService momentSeenService;
 
     @Override
     public MomentDTO createMoment(Long gamePlayerId, CreateMomentRequest request) {
@@ -80,62 +92,79 @@ public class MomentServiceImpl implements MomentService {
                 momentImage.setImageUrl(imageUrl.trim());
                 momentImage.setDisplayOrder(i + 1);
                 momentImageRepository.save(momentImage);
+                fileStorageService.addReference(momentImage.getImageUrl(), FileReference.MOMENT_IMAGE, savedMoment.getId());
             }
         }
 
         // Gửi notification cho tất cả followers
         sendMomentNotificationToFollowers(gamePlayer, savedMoment);
+        momentTimelineStore.onMomentPublished(gamePlayerId, savedMoment.getId(), savedMoment.getCreatedAt());
 
-        return convertToDTO(savedMoment, gamePlayer);
+        return momentDTOAssembler.assemble(savedMoment.getId());
     }
 
     @Override
     public MomentDTO getMomentById(Long momentId) {
-        Moment moment = momentRepository.findById(momentId)
-                .orElseThrow(() -> new ResourceNotFoundException("Moment not found"));
-        
-        return convertToDTO(moment, moment.getGamePlayer());
+        MomentDTO moment = momentDTOAssembler.assemble(momentId);
+        if (moment == null) {
+            throw new ResourceNotFoundException("Moment not found");
+        }
+        return moment;
     }
 
     @Override
-    public Page<MomentDTO> getMomentsByGamePlayerId(Long gamePlayerId, Pageable pageable) {
-        Page<Moment> moments = momentRepository.findByGamePlayerIdAndStatusOrderByCreatedAtDesc(
-                gamePlayerId, "ACTIVE", pageable);
-        
-        return moments.map(moment -> convertToDTO(moment, moment.getGamePlayer()));
+    public CursorPage<MomentDTO> getMomentsByGamePlayerId(Long gamePlayerId, String cursor, int limit) {
+        MomentCursor after = MomentCursor.decode(cursor);
+        int size = clampLimit(limit);
+        List<Object[]> refs = momentRepository.findRefsByGamePlayerIdAndStatusBefore(
+                gamePlayerId, "ACTIVE", after.createdAt(), after.id(), PageRequest.of(0, size + 1));
+        return toCursorPage(refs, size);
     }
 
     @Override
-    public Page<MomentDTO> getMyMoments(Long userId, Pageable pageable) {
-        Page<Moment> moments = momentRepository.findByUserIdAndStatus(userId, "ACTIVE", pageable);
-        
-        return moments.map(moment -> convertToDTO(moment, moment.getGamePlayer()));
+    public CursorPage<MomentDTO> getMyMoments(Long userId, String cursor, int limit) {
+        MomentCursor after = MomentCursor.decode(cursor);
+        int size = clampLimit(limit);
+        List<Object[]> refs = momentRepository.findRefsByUserIdAndStatusBefore(
+                userId, "ACTIVE", after.createdAt(), after.id(), PageRequest.of(0, size + 1));
+        return toCursorPage(refs, size);
     }
 
     @Override
-    public Page<MomentDTO> getMomentFeed(Long userId, Pageable pageable) {
-        // Lấy danh sách game player mà user đang follow
-        List<PlayerFollow> follows = playerFollowRepository.findByFollowerId(userId);
-        List<Long> followedPlayerIds = follows.stream()
-                .map(follow -> follow.getGamePlayer().getId())
-                .collect(Collectors.toList());
+    public CursorPage<MomentDTO> getMomentFeed(Long userId, String cursor, int limit) {
+        MomentCursor after = MomentCursor.decode(cursor);
+        int size = clampLimit(limit);
+        // Đọc id moment từ timeline tính sẵn, rồi nạp các moment đó một lần
+        MomentTimelineStore.FeedSlice slice = momentTimelineStore.page(userId, after, size);
+        if (slice != null) {
+            // Cursor lấy từ moment cuối của đoạn timeline, kể cả khi moment đó (hay cả đoạn) vừa bị ẩn và bị lọc ra
+            String nextCursor = slice.next() != null ? slice.next().encode() : null;
+            List<MomentDTO> items = momentDTOAssembler.assemble(slice.momentIds()).stream()
+                    .filter(moment -> "ACTIVE".equals(moment.getStatus()))
+                    .collect(Collectors.toList());
+            return new CursorPage<>(items, nextCursor, nextCursor != null);
+        }
 
+        // Đoạn feed cũ hơn phần timeline còn giữ: truy vấn trực tiếp theo danh sách player được follow
+        List<Long> followedPlayerIds = playerFollowRepository.findFollowedGamePlayerIds(userId);
         if (followedPlayerIds.isEmpty()) {
-            // Nếu không follow ai, trả về page rỗng
-            return Page.empty(pageable);
+            // Nếu không follow ai, trả về trang rỗng
+            return new CursorPage<>(List.of(), null, false);
         }
 
         // Lấy moment của những player được follow
-        Page<Moment> moments = momentRepository.findByGamePlayerIdInAndStatusOrderByCreatedAtDesc(
-                followedPlayerIds, "ACTIVE", pageable);
-        
-        return moments.map(moment -> convertToDTO(moment, moment.getGamePlayer()));
+        List<Object[]> refs = momentRepository.findRefsByGamePlayerIdInAndStatusBefore(
+                followedPlayerIds, "ACTIVE", after.createdAt(), after.id(), PageRequest.of(0, size + 1));
+        return toCursorPage(refs, size);
     }
 
     @Override
-    public Page<MomentDTO> getAllMoments(Pageable pageable) {
-        Page<Moment> moments = momentRepository.findByStatusOrderByCreatedAtDesc("ACTIVE", pageable);
-        return moments.map(moment -> convertToDTO(moment, moment.getGamePlayer()));
+    public CursorPage<MomentDTO> getAllMoments(String cursor, int limit) {
+        MomentCursor after = MomentCursor.decode(cursor);
+        int size = clampLimit(limit);
+        List<Object[]> refs = momentRepository.findRefsByStatusBefore(
+                "ACTIVE", after.createdAt(), after.id(), PageRequest.of(0, size + 1));
+        return toCursorPage(refs, size);
     }
 
     @Override
@@ -149,18 +178,27 @@ public class MomentServiceImpl implements MomentService {
         Moment updatedMoment = momentRepository.save(moment);
 
         // Cập nhật ảnh
+        List<String> oldImageUrls = momentImageRepository.findByMomentIdOrderByDisplayOrderAsc(momentId).stream()
+                .map(MomentImage::getImageUrl)
+                .collect(Collectors.toList());
         momentImageRepository.deleteByMomentId(momentId);
-        if (request.getImageUrls() != null && !request.getImageUrls().isEmpty()) {
-            for (int i = 0; i < request.getImageUrls().size(); i++) {
-                MomentImage momentImage = new MomentImage();
-                momentImage.setMoment(updatedMoment);
-                momentImage.setImageUrl(request.getImageUrls().get(i));
-                momentImage.setDisplayOrder(i + 1);
-                momentImageRepository.save(momentImage);
+        List<String> newImageUrls = request.getImageUrls() != null ? request.getImageUrls() : List.of();
+        for (int i = 0; i < newImageUrls.size(); i++) {
+            MomentImage momentImage = new MomentImage();
+            momentImage.setMoment(updatedMoment);
+            momentImage.setImageUrl(newImageUrls.get(i));
+            momentImage.setDisplayOrder(i + 1);
+            momentImageRepository.save(momentImage);
+            fileStorageService.addReference(momentImage.getImageUrl(), FileReference.MOMENT_IMAGE, momentId);
+        }
+        // Ảnh bị bỏ khỏi moment: trả lại reference, file chỉ bị xóa khi không còn ai dùng
+        for (String oldUrl : oldImageUrls) {
+            if (!newImageUrls.contains(oldUrl)) {
+                fileStorageService.releaseReference(oldUrl, FileReference.MOMENT_IMAGE, momentId);
             }
         }
 
-        return convertToDTO(updatedMoment, updatedMoment.getGamePlayer());
+        return momentDTOAssembler.assemble(momentId);
     }
 
     @Override
@@ -172,6 +210,7 @@ public class MomentServiceImpl implements MomentService {
 
         moment.setStatus("DELETED");
         momentRepository.save(moment);
+        momentTimelineStore.onMomentWithdrawn(moment.getGamePlayer().getId(), momentId);
     }
 
     @Override
@@ -184,6 +223,11 @@ public class MomentServiceImpl implements MomentService {
         String newStatus = "ACTIVE".equals(moment.getStatus()) ? "HIDDEN" : "ACTIVE";
         moment.setStatus(newStatus);
         momentRepository.save(moment);
+        if ("ACTIVE".equals(newStatus)) {
+            momentTimelineStore.onMomentPublished(moment.getGamePlayer().getId(), momentId, moment.getCreatedAt());
+        } else {
+            momentTimelineStore.onMomentWithdrawn(moment.getGamePlayer().getId(), momentId);
+        }
     }
 
     private void sendMomentNotificationToFollowers(GamePlayer gamePlayer, Moment moment) {
@@ -236,36 +280,22 @@ public class MomentServiceImpl implements MomentService {
         }
     }
 
-    private MomentDTO convertToDTO(Moment moment, GamePlayer gamePlayer) {
-        MomentDTO dto = new MomentDTO();
-        dto.setId(moment.getId());
-        dto.setGamePlayerId(gamePlayer.getId());
-        dto.setGamePlayerUsername(gamePlayer.getUsername());
-        dto.setGameName(gamePlayer.getGame().getName());
-        dto.setContent(moment.getContent());
-        dto.setCreatedAt(moment.getCreatedAt());
-        dto.setUpdatedAt(moment.getUpdatedAt());
-        dto.setStatus(moment.getStatus());
-        
-        // Lấy ảnh
-        List<MomentImage> images = momentImageRepository.findByMomentIdOrderByDisplayOrderAsc(moment.getId());
-        List<String> imageUrls = images.stream()
-                .map(MomentImage::getImageUrl)
-                .collect(Collectors.toList());
-        dto.setImageUrls(imageUrls);
-        
-        // Lấy số followers
-        Long followerCount = playerFollowRepository.countFollowersByGamePlayerId(gamePlayer.getId());
-        dto.setFollowerCount(followerCount);
-        
-        // Set playerUserId
-        if (gamePlayer.getUser() != null) {
-            dto.setPlayerUserId(gamePlayer.getUser().getId());
-        } else {
-            dto.setPlayerUserId(null);
+    // Tối đa limit + 1 dòng (id, createdAt) (dòng thừa chỉ để biết còn trang sau) -> trang DTO kèm cursor, dựng theo lô.
+    // Cursor lấy từ dòng id cuối của trang chứ không từ DTO: moment bị xóa giữa hai truy vấn không làm hỏng cursor
+    private CursorPage<MomentDTO> toCursorPage(List<Object[]> refs, int limit) {
+        boolean hasMore = refs.size() > limit;
+        List<Object[]> page = hasMore ? refs.subList(0, limit) : refs;
+        List<MomentDTO> items = momentDTOAssembler.assemble(page.stream().map(ref -> (Long) ref[0]).toList());
+        String nextCursor = null;
+        if (hasMore) {
+            Object[] last = page.get(page.size() - 1);
+            nextCursor = new MomentCursor((LocalDateTime) last[1], (Long) last[0]).encode();
         }
-        
-        return dto;
+        return new CursorPage<>(items, nextCursor, hasMore);
+    }
+
+    private static int clampLimit(int limit) {
+        return Math.max(1, Math.min(limit, MAX_LIMIT));
     }
 
     @Override
@@ -289,50 +319,26 @@ public class MomentServiceImpl implements MomentService {
     @Override
     @Transactional
     public void markMomentAsViewed(Long momentId, Long userId) {
-        Moment moment = momentRepository.findById(momentId)
+        Long gamePlayerId = momentRepository.findGamePlayerIdById(momentId)
                 .orElseThrow(() -> new ResourceNotFoundException("Moment not found"));
-        
-        User user = userService.findById(userId);
-        
-        // Kiểm tra xem đã view chưa
-        if (!momentViewRepository.existsByMomentAndUser(moment, user)) {
-            MomentView momentView = new MomentView();
-            momentView.setMoment(moment);
-            momentView.setUser(user);
-            momentViewRepository.save(momentView);
-            
-            System.out.println("[MomentServiceImpl] Đã đánh dấu moment " + momentId + " đã xem cho user " + userId);
-        }
+
+        momentSeenService.markSeen(userId, gamePlayerId, momentId);
     }
 
     @Override
     @Transactional
     public void markAllMomentsAsViewed(Long userId) {
-        User user = userService.findById(userId);
-        
-        // Lấy danh sách moment chưa xem
-        List<Moment> unviewedMoments = momentViewRepository.findUnviewedMomentsByUserId(userId);
-        
-        for (Moment moment : unviewedMoments) {
-            MomentView momentView = new MomentView();
-            momentView.setMoment(moment);
-            momentView.setUser(user);
-            momentViewRepository.save(momentView);
-        }
-        
-        System.out.println("[MomentServiceImpl] Đã đánh dấu " + unviewedMoments.size() + " moment đã xem cho user " + userId);
+        int updated = momentSeenService.markAllSeen(userId);
+        logger.debug("Đã đánh dấu đã xem moment của {} player cho user {}", updated, userId);
     }
 
     @Override
     public Long getUnviewedMomentCount(Long userId) {
-        return momentViewRepository.countUnviewedMomentsByUserId(userId);
+        return momentSeenService.countUnseen(userId);
     }
 
     @Override
     public List<MomentDTO> getUnviewedMoments(Long userId) {
-        List<Moment> unviewedMoments = momentViewRepository.findUnviewedMomentsByUserId(userId);
-        return unviewedMoments.stream()
-                .map(moment -> convertToDTO(moment, moment.getGamePlayer()))
-                .collect(Collectors.toList());
+        return momentDTOAssembler.assemble(momentSeenService.findUnseenMomentIds(userId));
     }
 } 
\ No newline at end of file
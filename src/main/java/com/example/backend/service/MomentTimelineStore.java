@@ -0,0 +1,235 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.MomentCursor;
+import com.example.backend.repository.MomentRepository;
+import com.example.backend.repository.PlayerFollowRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Timeline feed moment tính sẵn cho từng user: danh sách có giới hạn (capacity) id moment mới nhất của các
+ * player user đang theo dõi, sắp theo (createdAt, id) giảm dần.
+ *
+ * Timeline được nạp từ DB ở lần đọc feed đầu tiên, sau đó moment mới được đẩy vào timeline của từng follower
+ * khi transaction tạo moment commit (fan-out khi ghi). Player có từ celebrity-threshold người theo dõi trở lên
+ * không fan-out; moment của họ được kéo từ DB lúc đọc rồi trộn vào. Trang feed (theo cursor (createdAt, id))
+ * vượt quá phần timeline còn giữ trả về null để truy vấn thẳng DB.
+ * Follow/unfollow xóa timeline của user, lần đọc sau nạp lại.
+ */
+@Component
+public class MomentTimelineStore {
+    private static final String ACTIVE = "ACTIVE";
+    private static final Comparator<Ref> NEWEST_FIRST =
+            Comparator.comparing(Ref::createdAt).thenComparingLong(Ref::id).reversed();
+
+    /**
+     * Một đoạn feed: id moment theo thứ tự hiển thị và cursor của moment cuối đoạn, null nếu không còn moment
+     * phía sau. Cursor không phụ thuộc các moment có nạp được hay không, kể cả khi cả đoạn vừa bị ẩn.
+     */
+    public record FeedSlice(List<Long> momentIds, MomentCursor next) {
+        public boolean hasMore() {
+            return next != null;
+        }
+    }
+
+    private record Ref(long id, LocalDateTime createdAt) {
+    }
+
+    private final MomentRepository momentRepository;
+    private final PlayerFollowRepository playerFollowRepository;
+    private final PopularPlayerLeaderboard leaderboard;
+    private final int capacity;
+    private final long celebrityThreshold;
+
+    // LRU có giới hạn: chỉ giữ timeline của max-users user đọc feed gần nhất
+    private final Map<Long, Timeline> timelines;
+
+    public MomentTimelineStore(MomentRepository momentRepository, PlayerFollowRepository playerFollowRepository,
+                               PopularPlayerLeaderboard leaderboard,
+                               @Value("${moment-timeline.capacity:500}") int capacity,
+                               @Value("${moment-timeline.max-users:10000}") int maxUsers,
+                               @Value("${moment-timeline.celebrity-threshold:2000}") long celebrityThreshold) {
+        this.momentRepository = momentRepository;
+        this.playerFollowRepository = playerFollowRepository;
+        this.leaderboard = leaderboard;
+        this.capacity = capacity;
+        this.celebrityThreshold = celebrityThreshold;
+        this.timelines = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Timeline> eldest) {
+                return size() > maxUsers;
+            }
+        };
+    }
+
+    /**
+     * limit id moment của feed đứng sau cursor, hoặc null nếu đoạn này vượt quá phần timeline còn giữ
+     */
+    public FeedSlice page(Long userId, MomentCursor cursor, int limit) {
+        int needed = limit + 1;
+        if (needed > capacity) {
+            return null;
+        }
+        Ref after = new Ref(cursor.id(), cursor.createdAt());
+        Timeline timeline;
+        synchronized (timelines) {
+            timeline = timelines.computeIfAbsent(userId, key -> new Timeline());
+        }
+        List<Ref> merged;
+        List<Long> followed;
+        Ref oldestKept;
+        synchronized (timeline) {
+            timeline.ensureLoaded(userId);
+            merged = new ArrayList<>();
+            for (int i = 0; i < timeline.size; i++) {
+                if (NEWEST_FIRST.compare(timeline.refs[i], after) > 0) {
+                    merged.add(timeline.refs[i]);
+                }
+            }
+            followed = timeline.followedPlayerIds;
+            oldestKept = timeline.truncated && timeline.size > 0 ? timeline.refs[timeline.size - 1] : null;
+        }
+
+        List<Long> celebrities = followed.stream().filter(this::isCelebrity).toList();
+        if (!celebrities.isEmpty()) {
+            merged.addAll(toRefs(momentRepository.findTimelineRefsBefore(celebrities, ACTIVE,
+                    cursor.createdAt(), cursor.id(), PageRequest.of(0, needed))));
+        }
+        merged = new ArrayList<>(merged.stream().sorted(NEWEST_FIRST).distinct().toList());
+        if (oldestKept != null) {
+            // Timeline đã bị cắt: moment cũ hơn phần còn giữ có thể bị thiếu, không dùng tới
+            merged.removeIf(ref -> NEWEST_FIRST.compare(ref, oldestKept) > 0);
+            if (merged.size() < needed) {
+                return null;
+            }
+        }
+        List<Ref> slice = merged.subList(0, Math.min(limit, merged.size()));
+        Ref last = merged.size() > limit ? slice.get(slice.size() - 1) : null;
+        return new FeedSlice(slice.stream().map(Ref::id).toList(),
+                last != null ? new MomentCursor(last.createdAt(), last.id()) : null);
+    }
+
+    /**
+     * Moment vừa đăng (hoặc hiện lại): đẩy vào timeline đang giữ của các follower khi transaction commit
+     */
+    public void onMomentPublished(Long gamePlayerId, Long momentId, LocalDateTime createdAt) {
+        if (isCelebrity(gamePlayerId)) {
+            return;
+        }
+        List<Long> followerIds = playerFollowRepository.findFollowerIds(gamePlayerId);
+        Ref ref = new Ref(momentId, createdAt);
+        AfterCommit.run(() -> followerIds.forEach(followerId -> {
+            Timeline timeline = peek(followerId);
+            if (timeline != null) {
+                timeline.insert(ref);
+            }
+        }));
+    }
+
+    /**
+     * Moment bị xóa hoặc ẩn: gỡ khỏi timeline của các follower khi transaction commit
+     */
+    public void onMomentWithdrawn(Long gamePlayerId, Long momentId) {
+        if (isCelebrity(gamePlayerId)) {
+            // Không fan-out nên có thể chỉ còn trong timeline nạp từ DB; khi đọc moment không còn ACTIVE bị bỏ qua
+            return;
+        }
+        List<Long> followerIds = playerFollowRepository.findFollowerIds(gamePlayerId);
+        AfterCommit.run(() -> followerIds.forEach(followerId -> {
+            Timeline timeline = peek(followerId);
+            if (timeline != null) {
+                timeline.remove(momentId);
+            }
+        }));
+    }
+
+    /**
+     * User vừa follow/unfollow: bỏ timeline hiện tại, lần đọc feed sau nạp lại theo danh sách theo dõi mới
+     */
+    public void onFollowChanged(Long userId) {
+        AfterCommit.run(() -> {
+            synchronized (timelines) {
+                timelines.remove(userId);
+            }
+        });
+    }
+
+    private Timeline peek(Long userId) {
+        synchronized (timelines) {
+            return timelines.get(userId);
+        }
+    }
+
+    private boolean isCelebrity(Long gamePlayerId) {
+        return leaderboard.followerCount(gamePlayerId) >= celebrityThreshold;
+    }
+
+    private static List<Ref> toRefs(List<Object[]> rows) {
+        List<Ref> refs = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            refs.add(new Ref((Long) row[0], (LocalDateTime) row[1]));
+        }
+        return refs;
+    }
+
+    private final class Timeline {
+        private final Ref[] refs = new Ref[capacity];
+        private int size;
+        // Đã có moment bị đẩy ra khỏi timeline vì đầy
+        private boolean truncated;
+        // null khi chưa nạp từ DB
+        private List<Long> followedPlayerIds;
+
+        // Moment được fan-out trong lúc chưa nạp vẫn được giữ, phần nạp từ DB trộn vào và bỏ trùng
+        synchronized void ensureLoaded(Long userId) {
+            if (followedPlayerIds != null) {
+                return;
+            }
+            List<Long> followed = playerFollowRepository.findFollowedGamePlayerIds(userId);
+            if (!followed.isEmpty()) {
+                List<Object[]> rows = momentRepository.findTimelineRefsBefore(followed, ACTIVE,
+                        MomentCursor.FIRST.createdAt(), MomentCursor.FIRST.id(), PageRequest.of(0, capacity + 1));
+                toRefs(rows).forEach(this::insert);
+            }
+            followedPlayerIds = List.copyOf(followed);
+        }
+
+        synchronized void insert(Ref ref) {
+            int found = Arrays.binarySearch(refs, 0, size, ref, NEWEST_FIRST);
+            if (found >= 0) {
+                return;
+            }
+            int position = -found - 1;
+            if (position >= capacity) {
+                truncated = true;
+                return;
+            }
+            if (size == capacity) {
+                truncated = true;
+                size--;
+            }
+            System.arraycopy(refs, position, refs, position + 1, size - position);
+            refs[position] = ref;
+            size++;
+        }
+
+        synchronized void remove(long momentId) {
+            for (int i = 0; i < size; i++) {
+                if (refs[i].id() == momentId) {
+                    System.arraycopy(refs, i + 1, refs, i, size - i - 1);
+                    refs[--size] = null;
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -1,10 +1,12 @@
 package com.example.backend.service;
 
+import com.example.backend.entity.FileReference;
 import com.example.backend.entity.PlayerImage;
 import com.example.backend.entity.GamePlayer;
 import com.example.backend.repository.PlayerImageRepository;
 import com.example.backend.repository.GamePlayerRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -13,26 +15,35 @@ import java.util.stream.Collectors;
 public class PlayerImageService {
     private final PlayerImageRepository playerImageRepository;
     private final GamePlayerRepository gamePlayerRepository;
+    private final FileStorageService fileStorageService;
 
-    public PlayerImageService(PlayerImageRepository playerImageRepository, GamePlayerRepository gamePlayerRepository) {
+    public PlayerImageService(PlayerImageRepository playerImageRepository, GamePlayerRepository gamePlayerRepository,
+                              FileStorageService fileStorageService) {
         this.playerImageRepository = playerImageRepository;
         this.gamePlayerRepository = gamePlayerRepository;
+        this.fileStorageService = fileStorageService;
     }
 
     public List<PlayerImage> getImagesByPlayerId(Long playerId) {
         return playerImageRepository.findByGamePlayerId(playerId);
     }
 
+    @Transactional
     public PlayerImage addImageToPlayer(Long playerId, String imageUrl) {
         GamePlayer gamePlayer = gamePlayerRepository.findById(playerId)
                 .orElseThrow(() -> new RuntimeException("Game player not found"));
         PlayerImage playerImage = new PlayerImage();
         playerImage.setGamePlayer(gamePlayer);
         playerImage.setImageUrl(imageUrl);
-        return playerImageRepository.save(playerImage);
+        PlayerImage saved = playerImageRepository.save(playerImage);
+        fileStorageService.addReference(imageUrl, FileReference.PLAYER_IMAGE, saved.getId());
+        return saved;
     }
 
+    @Transactional
     public void deleteImage(Long imageId) {
+        playerImageRepository.findById(imageId).ifPresent(image ->
+                fileStorageService.releaseReference(image.getImageUrl(), FileReference.PLAYER_IMAGE, imageId));
         playerImageRepository.deleteById(imageId);
     }
 
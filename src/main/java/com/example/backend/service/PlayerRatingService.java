@@ -0,0 +1,192 @@
+package com.example.backend.service;
+
+import com.example.backend.entity.PlayerReview;
+import com.example.backend.repository.GamePlayerRepository;
+import com.example.backend.repository.PlayerReviewRepository;
+import com.example.backend.repository.ReviewRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Giữ tổng hợp đánh giá trên từng GamePlayer (tổng điểm, số lượt, phân bố 1-5 sao và rating trung bình),
+ * gồm cả đánh giá theo đơn thuê (PlayerReview) và đánh giá chưa xóa (Review).
+ *
+ * Mỗi lần tạo, sửa, xóa đánh giá chỉ cộng dồn phần chênh lệch bằng một câu UPDATE trong cùng transaction
+ * với đánh giá, nên mọi nơi hiển thị hay sắp xếp theo rating đọc số đã tính sẵn thay vì AVG trên bảng đánh giá.
+ */
+@Service
+@Transactional
+public class PlayerRatingService {
+    private static final Logger logger = LoggerFactory.getLogger(PlayerRatingService.class);
+    private static final int BACKFILL_BATCH_SIZE = 500;
+
+    /**
+     * Tổng hợp đánh giá: rating trung bình, số lượt và số lượt theo từng mức sao (1-5)
+     */
+    public record RatingSummary(double averageRating, long totalReviews, Map<Integer, Long> distribution) {
+    }
+
+    private final GamePlayerRepository gamePlayerRepository;
+    private final PlayerReviewRepository playerReviewRepository;
+    private final ReviewRepository reviewRepository;
+    private final PopularPlayerLeaderboard leaderboard;
+
+    public PlayerRatingService(GamePlayerRepository gamePlayerRepository,
+                               PlayerReviewRepository playerReviewRepository,
+                               ReviewRepository reviewRepository,
+                               PopularPlayerLeaderboard leaderboard) {
+        this.gamePlayerRepository = gamePlayerRepository;
+        this.playerReviewRepository = playerReviewRepository;
+        this.reviewRepository = reviewRepository;
+        this.leaderboard = leaderboard;
+    }
+
+    public PlayerReview createPlayerReview(PlayerReview review) {
+        PlayerReview saved = playerReviewRepository.save(review);
+        addRating(saved.getGamePlayer().getId(), saved.getRating());
+        return saved;
+    }
+
+    public PlayerReview updatePlayerReview(PlayerReview review, Integer rating, String comment) {
+        Integer oldRating = review.getRating();
+        review.setRating(rating);
+        review.setComment(comment);
+        PlayerReview saved = playerReviewRepository.save(review);
+        changeRating(saved.getGamePlayer().getId(), oldRating, rating);
+        return saved;
+    }
+
+    public void deletePlayerReview(PlayerReview review) {
+        playerReviewRepository.delete(review);
+        removeRating(review.getGamePlayer().getId(), review.getRating());
+    }
+
+    /**
+     * Cộng một đánh giá mới vào tổng hợp của player; phải gọi trong transaction ghi đánh giá
+     */
+    public void addRating(Long gamePlayerId, Number rating) {
+        applyDelta(gamePlayerId, null, rating);
+    }
+
+    public void changeRating(Long gamePlayerId, Number oldRating, Number newRating) {
+        applyDelta(gamePlayerId, oldRating, newRating);
+    }
+
+    public void removeRating(Long gamePlayerId, Number rating) {
+        applyDelta(gamePlayerId, rating, null);
+    }
+
+    private void applyDelta(Long gamePlayerId, Number oldRating, Number newRating) {
+        long[] stars = new long[6];
+        double sumDelta = 0;
+        long countDelta = 0;
+        if (oldRating != null) {
+            sumDelta -= oldRating.doubleValue();
+            countDelta--;
+            stars[star(oldRating)]--;
+        }
+        if (newRating != null) {
+            sumDelta += newRating.doubleValue();
+            countDelta++;
+            stars[star(newRating)]++;
+        }
+        if (countDelta == 0 && sumDelta == 0 && star(oldRating) == star(newRating)) {
+            return;
+        }
+        gamePlayerRepository.addRatingDelta(gamePlayerId, sumDelta, countDelta,
+                stars[1], stars[2], stars[3], stars[4], stars[5]);
+        leaderboard.onReviewChanged(gamePlayerId);
+    }
+
+    @Transactional(readOnly = true)
+    public RatingSummary getGamePlayerSummary(Long gamePlayerId) {
+        List<Object[]> rows = gamePlayerRepository.findRatingAggregate(gamePlayerId);
+        return toSummary(rows.isEmpty() ? null : rows.get(0));
+    }
+
+    /**
+     * Tổng hợp đánh giá của mọi player thuộc một user
+     */
+    @Transactional(readOnly = true)
+    public RatingSummary getUserSummary(Long userId) {
+        List<Object[]> rows = gamePlayerRepository.findRatingAggregateByUserId(userId);
+        return toSummary(rows.isEmpty() ? null : rows.get(0));
+    }
+
+    /**
+     * Tính lại tổng hợp của các player từ bảng đánh giá (dùng để đồng bộ dữ liệu cũ hoặc sửa sai lệch)
+     */
+    public void recalculate(List<Long> gamePlayerIds) {
+        if (gamePlayerIds.isEmpty()) {
+            return;
+        }
+        Map<Long, double[]> aggregates = new HashMap<>();
+        for (Object[] row : playerReviewRepository.countRatingsByGamePlayerIds(gamePlayerIds)) {
+            accumulate(aggregates, (Long) row[0], (Number) row[1], ((Number) row[2]).longValue());
+        }
+        for (Object[] row : reviewRepository.countRatingsByGamePlayerIds(gamePlayerIds)) {
+            accumulate(aggregates, (Long) row[0], (Number) row[1], ((Number) row[2]).longValue());
+        }
+        for (Long gamePlayerId : gamePlayerIds) {
+            // [sum, count, 1 sao, ..., 5 sao]
+            double[] aggregate = aggregates.getOrDefault(gamePlayerId, new double[7]);
+            long count = (long) aggregate[1];
+            gamePlayerRepository.setRatingAggregate(gamePlayerId, count > 0 ? aggregate[0] / count : 0.0,
+                    aggregate[0], count, (long) aggregate[2], (long) aggregate[3], (long) aggregate[4],
+                    (long) aggregate[5], (long) aggregate[6]);
+            leaderboard.onReviewChanged(gamePlayerId);
+        }
+    }
+
+    /**
+     * Điền tổng hợp cho các player có từ trước khi thêm các cột tổng hợp
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillMissingAggregates() {
+        List<Long> missing = gamePlayerRepository.findIdsWithoutRatingAggregate();
+        for (int from = 0; from < missing.size(); from += BACKFILL_BATCH_SIZE) {
+            recalculate(missing.subList(from, Math.min(from + BACKFILL_BATCH_SIZE, missing.size())));
+        }
+        if (!missing.isEmpty()) {
+            logger.info("Đã tính tổng hợp đánh giá cho {} player", missing.size());
+        }
+    }
+
+    private static void accumulate(Map<Long, double[]> aggregates, Long gamePlayerId, Number rating, long count) {
+        double[] aggregate = aggregates.computeIfAbsent(gamePlayerId, key -> new double[7]);
+        aggregate[0] += rating.doubleValue() * count;
+        aggregate[1] += count;
+        aggregate[1 + star(rating)] += count;
+    }
+
+    private static RatingSummary toSummary(Object[] row) {
+        Map<Integer, Long> distribution = new LinkedHashMap<>();
+        for (int star = 1; star <= 5; star++) {
+            distribution.put(star, row != null ? asLong(row[1 + star]) : 0L);
+        }
+        long count = row != null ? asLong(row[1]) : 0L;
+        double sum = row != null && row[0] != null ? ((Number) row[0]).doubleValue() : 0.0;
+        return new RatingSummary(count > 0 ? sum / count : 0.0, count, distribution);
+    }
+
+    private static long asLong(Object value) {
+        return value != null ? ((Number) value).longValue() : 0L;
+    }
+
+    // Mức sao của một rating (Review cho phép số lẻ): làm tròn và giới hạn trong 1-5, 0 nếu không có
+    private static int star(Number rating) {
+        if (rating == null) {
+            return 0;
+        }
+        return (int) Math.max(1, Math.min(5, Math.round(rating.doubleValue())));
+    }
+}
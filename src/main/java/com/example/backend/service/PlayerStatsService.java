@@ -25,15 +25,18 @@ public class PlayerStatsService {
     private final PlayerReviewRepository playerReviewRepository;
     private final UserRepository userRepository;
     private final GamePlayerRepository gamePlayerRepository;
+    private final PlayerRatingService playerRatingService;
 
     public PlayerStatsService(PaymentRepository paymentRepository,
                             PlayerReviewRepository playerReviewRepository,
                             UserRepository userRepository,
-                            GamePlayerRepository gamePlayerRepository) {
+                            GamePlayerRepository gamePlayerRepository,
+                            PlayerRatingService playerRatingService) {
         this.paymentRepository = paymentRepository;
         this.playerReviewRepository = playerReviewRepository;
         this.userRepository = userRepository;
         this.gamePlayerRepository = gamePlayerRepository;
+        this.playerRatingService = playerRatingService;
     }
 
     @Transactional(readOnly = true)
@@ -70,8 +73,7 @@ public class PlayerStatsService {
         stats.setTotalEarnings(calculateTotalEarnings(hires));
 
         // Tính toán rating
-        Double averageRating = playerReviewRepository.getAverageRatingByPlayerId(playerId);
-        stats.setAverageRating(averageRating != null ? averageRating : 0.0);
+        stats.setAverageRating(playerRatingService.getUserSummary(playerId).averageRating());
         stats.setTotalReviews(reviews.size());
 
         // Lấy 5 đánh giá gần nhất
@@ -0,0 +1,298 @@
+package com.example.backend.service;
+
+import com.example.backend.entity.GamePlayer;
+import com.example.backend.entity.PlayerPopularitySnapshot;
+import com.example.backend.repository.GamePlayerRepository;
+import com.example.backend.repository.PlayerFollowRepository;
+import com.example.backend.repository.PlayerPopularitySnapshotRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Bảng xếp hạng player phổ biến giữ trong bộ nhớ: số người theo dõi và rating trung bình của từng player,
+ * sắp theo (followerCount giảm dần, rating trung bình giảm dần, id).
+ *
+ * Được cập nhật khi có follow/unfollow, đánh giá mới/sửa/xóa và khi trạng thái player đổi, nên
+ * "/popular" chỉ cần duyệt tập đã sắp xếp. Số liệu được chụp định kỳ xuống player_popularity_snapshots
+ * để khởi động nhanh, và đối soát lại với DB mỗi ngày để sửa sai lệch (ví dụ mất sự kiện khi tắt đột ngột).
+ */
+@Component
+public class PopularPlayerLeaderboard {
+    private static final Logger logger = LoggerFactory.getLogger(PopularPlayerLeaderboard.class);
+    private static final String ELIGIBLE_STATUS = "AVAILABLE";
+
+    public record Entry(Long gamePlayerId, String username, long followerCount, double averageRating) {
+    }
+
+    // Khóa sắp xếp bất biến: đổi số liệu = gỡ khóa cũ, thêm khóa mới
+    private record RankKey(long followerCount, double averageRating, long gamePlayerId) implements Comparable<RankKey> {
+        @Override
+        public int compareTo(RankKey other) {
+            int byFollowers = Long.compare(other.followerCount, followerCount);
+            if (byFollowers != 0) {
+                return byFollowers;
+            }
+            int byRating = Double.compare(other.averageRating, averageRating);
+            return byRating != 0 ? byRating : Long.compare(gamePlayerId, other.gamePlayerId);
+        }
+    }
+
+    private static class Stats {
+        private final Long gamePlayerId;
+        private String username;
+        private boolean eligible;
+        private long followerCount;
+        private double ratingSum;
+        private long ratingCount;
+        private volatile RankKey key;
+
+        Stats(Long gamePlayerId) {
+            this.gamePlayerId = gamePlayerId;
+        }
+
+        double averageRating() {
+            return ratingCount > 0 ? ratingSum / ratingCount : 0.0;
+        }
+    }
+
+    private final GamePlayerRepository gamePlayerRepository;
+    private final PlayerFollowRepository playerFollowRepository;
+    private final PlayerPopularitySnapshotRepository snapshotRepository;
+
+    private final Map<Long, Stats> stats = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<RankKey> ranking = new ConcurrentSkipListSet<>();
+    // Player có số liệu đổi từ lần chụp trước
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+
+    public PopularPlayerLeaderboard(GamePlayerRepository gamePlayerRepository,
+                                    PlayerFollowRepository playerFollowRepository,
+                                    PlayerPopularitySnapshotRepository snapshotRepository) {
+        this.gamePlayerRepository = gamePlayerRepository;
+        this.playerFollowRepository = playerFollowRepository;
+        this.snapshotRepository = snapshotRepository;
+    }
+
+    @PostConstruct
+    public void loadFromDatabase() {
+        List<Object[]> players = gamePlayerRepository.findLeaderboardRows();
+        List<PlayerPopularitySnapshot> snapshots = snapshotRepository.findAll();
+        synchronized (this) {
+            for (Object[] row : players) {
+                Stats entry = stats.computeIfAbsent((Long) row[0], Stats::new);
+                entry.username = (String) row[1];
+                entry.eligible = ELIGIBLE_STATUS.equals(row[2]);
+                setRating(entry, row[3], row[4]);
+            }
+            // Tổng hợp đánh giá đã nằm sẵn trên player, snapshot chỉ còn cần cho số người theo dõi
+            for (PlayerPopularitySnapshot snapshot : snapshots) {
+                Stats entry = stats.get(snapshot.getGamePlayerId());
+                if (entry != null) {
+                    entry.followerCount = snapshot.getFollowerCount();
+                }
+            }
+            stats.values().forEach(this::reposition);
+        }
+        if (snapshots.isEmpty()) {
+            reconcile();
+        }
+        logger.info("Đã nạp bảng xếp hạng phổ biến: {} player, {} từ snapshot", players.size(), snapshots.size());
+    }
+
+    /**
+     * Trang của bảng xếp hạng, chỉ gồm player đang AVAILABLE
+     */
+    public List<Entry> top(int limit, int offset) {
+        List<Entry> result = new ArrayList<>(Math.max(0, Math.min(limit, 100)));
+        Iterator<RankKey> iterator = ranking.iterator();
+        for (int skipped = 0; skipped < offset && iterator.hasNext(); skipped++) {
+            iterator.next();
+        }
+        while (result.size() < limit && iterator.hasNext()) {
+            RankKey key = iterator.next();
+            Stats entry = stats.get(key.gamePlayerId());
+            String username = entry != null ? entry.username : null;
+            result.add(new Entry(key.gamePlayerId(), username, key.followerCount(), key.averageRating()));
+        }
+        return result;
+    }
+
+    /**
+     * Số liệu hiện tại của một player, null nếu player không có trong bảng xếp hạng (không AVAILABLE)
+     */
+    public Entry find(Long gamePlayerId) {
+        Stats entry = stats.get(gamePlayerId);
+        if (entry == null) {
+            return null;
+        }
+        RankKey key = entry.key;
+        return key != null ? new Entry(gamePlayerId, entry.username, key.followerCount(), key.averageRating()) : null;
+    }
+
+    /**
+     * Số người theo dõi hiện tại của player, kể cả player không AVAILABLE
+     */
+    public long followerCount(Long gamePlayerId) {
+        Stats entry = stats.get(gamePlayerId);
+        return entry != null ? entry.followerCount : 0L;
+    }
+
+    public void onFollowAdded(Long gamePlayerId) {
+        AfterCommit.run(() -> adjustFollowers(gamePlayerId, 1));
+    }
+
+    public void onFollowRemoved(Long gamePlayerId) {
+        AfterCommit.run(() -> adjustFollowers(gamePlayerId, -1));
+    }
+
+    /**
+     * Tổng hợp đánh giá của player vừa đổi: đọc lại tổng/số lượng đánh giá đã tính sẵn trên player đó
+     */
+    public void onReviewChanged(Long gamePlayerId) {
+        AfterCommit.run(() -> {
+            List<Object[]> rows = gamePlayerRepository.findRatingAggregate(gamePlayerId);
+            if (rows.isEmpty()) {
+                return;
+            }
+            synchronized (this) {
+                Stats entry = stats.computeIfAbsent(gamePlayerId, Stats::new);
+                setRating(entry, rows.get(0)[0], rows.get(0)[1]);
+                reposition(entry);
+            }
+            dirty.add(gamePlayerId);
+        });
+    }
+
+    public void onPlayerSaved(GamePlayer gamePlayer) {
+        Long gamePlayerId = gamePlayer.getId();
+        String username = gamePlayer.getUsername();
+        boolean eligible = ELIGIBLE_STATUS.equals(gamePlayer.getStatus());
+        AfterCommit.run(() -> {
+            synchronized (this) {
+                Stats entry = stats.computeIfAbsent(gamePlayerId, Stats::new);
+                entry.username = username;
+                entry.eligible = eligible;
+                reposition(entry);
+            }
+        });
+    }
+
+    public void onPlayerRemoved(Long gamePlayerId) {
+        AfterCommit.run(() -> {
+            synchronized (this) {
+                Stats entry = stats.remove(gamePlayerId);
+                if (entry != null && entry.key != null) {
+                    ranking.remove(entry.key);
+                }
+            }
+            // Snapshot cũ của player đã xóa bị bỏ qua khi nạp lại
+            dirty.remove(gamePlayerId);
+        });
+    }
+
+    private void adjustFollowers(Long gamePlayerId, int delta) {
+        synchronized (this) {
+            Stats entry = stats.computeIfAbsent(gamePlayerId, Stats::new);
+            entry.followerCount = Math.max(0, entry.followerCount + delta);
+            reposition(entry);
+        }
+        dirty.add(gamePlayerId);
+    }
+
+    // Gọi khi đang giữ khóa this
+    private void reposition(Stats entry) {
+        if (entry.key != null) {
+            ranking.remove(entry.key);
+            entry.key = null;
+        }
+        if (entry.eligible) {
+            entry.key = new RankKey(entry.followerCount, entry.averageRating(), entry.gamePlayerId);
+            ranking.add(entry.key);
+        }
+    }
+
+    /**
+     * Ghi các player có số liệu thay đổi xuống bảng snapshot
+     */
+    @Scheduled(fixedDelayString = "${leaderboard.snapshot-interval-ms:60000}")
+    @PreDestroy
+    public void flushSnapshot() {
+        if (dirty.isEmpty()) {
+            return;
+        }
+        List<PlayerPopularitySnapshot> snapshots = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (Iterator<Long> iterator = dirty.iterator(); iterator.hasNext(); ) {
+            Long gamePlayerId = iterator.next();
+            iterator.remove();
+            Stats entry = stats.get(gamePlayerId);
+            if (entry == null) {
+                continue;
+            }
+            PlayerPopularitySnapshot snapshot = new PlayerPopularitySnapshot();
+            snapshot.setGamePlayerId(gamePlayerId);
+            synchronized (this) {
+                snapshot.setFollowerCount(entry.followerCount);
+                snapshot.setRatingSum(entry.ratingSum);
+                snapshot.setRatingCount(entry.ratingCount);
+            }
+            snapshot.setUpdatedAt(now);
+            snapshots.add(snapshot);
+        }
+        try {
+            snapshotRepository.saveAll(snapshots);
+        } catch (RuntimeException e) {
+            snapshots.forEach(snapshot -> dirty.add(snapshot.getGamePlayerId()));
+            logger.warn("Không lưu được snapshot bảng xếp hạng: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Đối soát toàn bộ số liệu với DB. Sự kiện xảy ra đúng lúc đang đối soát có thể lệch tạm thời
+     * cho tới lần đối soát sau.
+     */
+    @Scheduled(cron = "${leaderboard.reconcile-cron:0 0 4 * * *}")
+    public void reconcile() {
+        Map<Long, Long> followers = new HashMap<>();
+        for (Object[] row : playerFollowRepository.countFollowersGroupedByGamePlayer()) {
+            followers.put((Long) row[0], ((Number) row[1]).longValue());
+        }
+        Map<Long, Object[]> ratings = new HashMap<>();
+        for (Object[] row : gamePlayerRepository.findLeaderboardRows()) {
+            ratings.put((Long) row[0], row);
+        }
+        synchronized (this) {
+            for (Stats entry : stats.values()) {
+                Object[] rating = ratings.get(entry.gamePlayerId);
+                long followerCount = followers.getOrDefault(entry.gamePlayerId, 0L);
+                double ratingSum = rating != null && rating[3] != null ? ((Number) rating[3]).doubleValue() : 0.0;
+                long ratingCount = rating != null && rating[4] != null ? ((Number) rating[4]).longValue() : 0L;
+                if (followerCount != entry.followerCount || ratingSum != entry.ratingSum || ratingCount != entry.ratingCount) {
+                    entry.followerCount = followerCount;
+                    entry.ratingSum = ratingSum;
+                    entry.ratingCount = ratingCount;
+                    reposition(entry);
+                    dirty.add(entry.gamePlayerId);
+                }
+            }
+        }
+    }
+
+    private static void setRating(Stats entry, Object ratingSum, Object ratingCount) {
+        entry.ratingSum = ratingSum != null ? ((Number) ratingSum).doubleValue() : 0.0;
+        entry.ratingCount = ratingCount != null ? ((Number) ratingCount).longValue() : 0L;
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.backend.service;
+
+import com.example.backend.entity.PlayerFollow;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA entity listener của PlayerFollow: báo follow/unfollow cho PopularPlayerLeaderboard, CoFollowRecommender
+ * và MomentTimelineStore.
+ * Thay đổi đánh giá được PlayerRatingService báo cho bảng xếp hạng.
+ */
+@Component
+public class PopularityListener {
+    // Lấy lười: listener được Hibernate tạo trong lúc dựng EntityManagerFactory
+    private final ObjectProvider<PopularPlayerLeaderboard> leaderboard;
+    private final ObjectProvider<CoFollowRecommender> recommender;
+    private final ObjectProvider<MomentTimelineStore> timelines;
+
+    public PopularityListener(ObjectProvider<PopularPlayerLeaderboard> leaderboard,
+                              ObjectProvider<CoFollowRecommender> recommender,
+                              ObjectProvider<MomentTimelineStore> timelines) {
+        this.leaderboard = leaderboard;
+        this.recommender = recommender;
+        this.timelines = timelines;
+    }
+
+    @PostPersist
+    public void onPersisted(Object entity) {
+        if (entity instanceof PlayerFollow follow && follow.getGamePlayer() != null) {
+            Long gamePlayerId = follow.getGamePlayer().getId();
+            leaderboard.ifAvailable(board -> board.onFollowAdded(gamePlayerId));
+            if (follow.getFollower() != null) {
+                Long ownerId = follow.getGamePlayer().getUser() != null ? follow.getGamePlayer().getUser().getId() : null;
+                recommender.ifAvailable(graph -> graph.onFollowAdded(follow.getFollower().getId(), gamePlayerId, ownerId));
+                timelines.ifAvailable(store -> store.onFollowChanged(follow.getFollower().getId()));
+            }
+        }
+    }
+
+    @PostRemove
+    public void onRemoved(Object entity) {
+        if (entity instanceof PlayerFollow follow && follow.getGamePlayer() != null) {
+            Long gamePlayerId = follow.getGamePlayer().getId();
+            leaderboard.ifAvailable(board -> board.onFollowRemoved(gamePlayerId));
+            if (follow.getFollower() != null) {
+                recommender.ifAvailable(graph -> graph.onFollowRemoved(follow.getFollower().getId(), gamePlayerId));
+                timelines.ifAvailable(store -> store.onFollowChanged(follow.getFollower().getId()));
+            }
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.backend.service;
+
+import com.example.backend.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Theo dõi trạng thái online của user trong bộ nhớ.
+ *
+ * Mỗi request chỉ ghi heartbeat vào map; lastActiveAt được ghi xuống bảng users
+ * theo lô định kỳ, và isOnline được suy ra từ thời gian không hoạt động.
+ */
+@Service
+public class PresenceTracker {
+    private static final int FLUSH_BATCH_SIZE = 500;
+
+    private final UserRepository userRepository;
+
+    @Value("${presence.online-timeout:300000}")
+    private long onlineTimeout;
+
+    // userId -> lần hoạt động cuối (epoch millis)
+    private final Map<Long, Long> lastSeen = new ConcurrentHashMap<>();
+    // userId -> heartbeat chưa ghi xuống DB
+    private final Map<Long, Long> pendingFlush = new ConcurrentHashMap<>();
+
+    public PresenceTracker(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    public void heartbeat(Long userId) {
+        long now = System.currentTimeMillis();
+        lastSeen.put(userId, now);
+        pendingFlush.put(userId, now);
+    }
+
+    public void markOffline(Long userId) {
+        lastSeen.remove(userId);
+        pendingFlush.remove(userId);
+    }
+
+    /**
+     * Có dữ liệu trong bộ nhớ hay không (user đã hoạt động kể từ khi khởi động)
+     */
+    public boolean isTracked(Long userId) {
+        return lastSeen.containsKey(userId);
+    }
+
+    public boolean isOnline(Long userId) {
+        Long seen = lastSeen.get(userId);
+        return seen != null && System.currentTimeMillis() - seen < onlineTimeout;
+    }
+
+    public boolean isOnline(LocalDateTime lastActiveAt) {
+        return lastActiveAt != null
+            && lastActiveAt.isAfter(LocalDateTime.now().minusNanos(onlineTimeout * 1_000_000L));
+    }
+
+    public LocalDateTime getLastActiveAt(Long userId) {
+        Long seen = lastSeen.get(userId);
+        return seen != null ? LocalDateTime.ofInstant(Instant.ofEpochMilli(seen), ZoneId.systemDefault()) : null;
+    }
+
+    @Scheduled(fixedDelayString = "${presence.flush-interval:30000}")
+    @Transactional
+    public void flush() {
+        if (pendingFlush.isEmpty()) {
+            return;
+        }
+        // Gom user theo heartbeat của chính họ (làm tròn xuống giây) để mỗi user được ghi đúng thời điểm của mình
+        Map<Long, Long> flushing = new HashMap<>();
+        Map<Long, List<Long>> userIdsBySecond = new HashMap<>();
+        for (Map.Entry<Long, Long> entry : pendingFlush.entrySet()) {
+            // Chỉ xoá nếu chưa có heartbeat mới trong lúc flush
+            if (pendingFlush.remove(entry.getKey(), entry.getValue())) {
+                flushing.put(entry.getKey(), entry.getValue());
+                userIdsBySecond.computeIfAbsent(entry.getValue() / 1000, key -> new ArrayList<>()).add(entry.getKey());
+            }
+        }
+        // Ghi lỗi hoặc transaction rollback: trả các heartbeat về hàng chờ để lần flush sau ghi lại
+        boolean inTransaction = TransactionSynchronizationManager.isSynchronizationActive();
+        if (inTransaction) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        requeue(flushing);
+                    }
+                }
+            });
+        }
+        try {
+            for (Map.Entry<Long, List<Long>> bucket : userIdsBySecond.entrySet()) {
+                LocalDateTime activeAt = LocalDateTime.ofInstant(Instant.ofEpochSecond(bucket.getKey()), ZoneId.systemDefault());
+                List<Long> userIds = bucket.getValue();
+                for (int i = 0; i < userIds.size(); i += FLUSH_BATCH_SIZE) {
+                    userRepository.markActive(userIds.subList(i, Math.min(i + FLUSH_BATCH_SIZE, userIds.size())), activeAt);
+                }
+            }
+        } catch (RuntimeException e) {
+            if (!inTransaction) {
+                requeue(flushing);
+            }
+            throw e;
+        }
+    }
+
+    // Giữ heartbeat mới hơn nếu user đã hoạt động lại trong lúc flush
+    private void requeue(Map<Long, Long> heartbeats) {
+        heartbeats.forEach((userId, seen) -> pendingFlush.merge(userId, seen, Math::max));
+    }
+
+    /**
+     * Đánh dấu offline các user không còn hoạt động và dọn map
+     */
+    @Scheduled(fixedDelayString = "${presence.sweep-interval:60000}")
+    @Transactional
+    public void sweepInactive() {
+        long cutoff = System.currentTimeMillis() - onlineTimeout;
+        lastSeen.entrySet().removeIf(entry -> entry.getValue() < cutoff && !pendingFlush.containsKey(entry.getKey()));
+        userRepository.markInactiveBefore(LocalDateTime.now().minusNanos(onlineTimeout * 1_000_000L));
+    }
+}
@@ -5,33 +5,99 @@ import com.google.zxing.WriterException;
 import com.google.zxing.client.j2se.MatrixToImageWriter;
 import com.google.zxing.common.BitMatrix;
 import com.google.zxing.qrcode.QRCodeWriter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Base64;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 @Service
 public class QRCodeService {
-    
+    public static final int DEFAULT_SIZE = 300;
+    public static final int MIN_SIZE = 100;
+    public static final int MAX_SIZE = 1000;
+
+    /**
+     * Ảnh PNG của một mã QR, kèm ETag tính từ nội dung và kích thước (cùng đầu vào luôn ra cùng ảnh)
+     */
+    public record QRImage(byte[] png, String etag) {
+    }
+
+    private record CacheKey(String content, int width, int height) {
+    }
+
+    // LRU có giới hạn: LinkedHashMap theo thứ tự truy cập, bỏ phần tử cũ nhất khi vượt quá
+    private final Map<CacheKey, QRImage> cache;
+
+    public QRCodeService(@Value("${qr.cache.max-entries:256}") int maxEntries) {
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CacheKey, QRImage> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
     public String generateQRCode(String content, int width, int height) throws WriterException, IOException {
+        return "data:image/png;base64," + Base64.getEncoder().encodeToString(renderPng(content, width, height).png());
+    }
+
+    /**
+     * Ảnh PNG của mã QR, lấy từ cache nếu đã render với cùng nội dung và kích thước
+     */
+    public QRImage renderPng(String content, int width, int height) throws WriterException, IOException {
+        CacheKey key = new CacheKey(content, width, height);
+        QRImage cached;
+        synchronized (cache) {
+            cached = cache.get(key);
+        }
+        if (cached != null) {
+            return cached;
+        }
+        // Render ngoài khóa: hai request cùng nội dung có thể cùng render, kết quả giống nhau
         QRCodeWriter qrCodeWriter = new QRCodeWriter();
         BitMatrix bitMatrix = qrCodeWriter.encode(content, BarcodeFormat.QR_CODE, width, height);
-        
+
         ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
         MatrixToImageWriter.writeToStream(bitMatrix, "PNG", outputStream);
-        
-        return "data:image/png;base64," + Base64.getEncoder().encodeToString(outputStream.toByteArray());
+
+        QRImage image = new QRImage(outputStream.toByteArray(), etagFor(content, width, height));
+        synchronized (cache) {
+            cache.put(key, image);
+        }
+        return image;
+    }
+
+    /**
+     * ETag của mã QR, tính được mà không cần render (dùng để trả 304 ngay cả khi cache đã bị đẩy ra)
+     */
+    public static String etagFor(String content, int width, int height) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest((width + "x" + height + ":" + content).getBytes(StandardCharsets.UTF_8));
+            return "\"" + HexFormat.of().formatHex(hash, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
     }
 
     public String generatePaymentQRCode(String method, String amount, String userId, String transactionId) throws WriterException, IOException {
-        String content = switch (method.toUpperCase()) {
+        return generateQRCode(paymentContent(method, amount, userId, transactionId), DEFAULT_SIZE, DEFAULT_SIZE);
+    }
+
+    public String paymentContent(String method, String amount, String userId, String transactionId) {
+        return switch (method.toUpperCase()) {
             case "MOMO" -> String.format("momo://payment?amount=%s&userId=%s&transactionId=%s", amount, userId, transactionId);
             case "VNPAY" -> String.format("vnpay://payment?amount=%s&userId=%s&transactionId=%s", amount, userId, transactionId);
             case "ZALOPAY" -> String.format("zalopay://payment?amount=%s&userId=%s&transactionId=%s", amount, userId, transactionId);
             default -> throw new IllegalArgumentException("Unsupported payment method: " + method);
         };
-        
-        return generateQRCode(content, 300, 300);
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,374 @@
+package com.example.backend.service;
+
+import io.netty.channel.ChannelOption;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.resolver.AddressResolver;
+import io.netty.resolver.AddressResolverGroup;
+import io.netty.resolver.InetNameResolver;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.Promise;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.Inet4Address;
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tải ảnh từ URL bên ngoài (avatar-from-url, profile-image-from-url) trên executor riêng,
+ * có giới hạn thời gian kết nối/đọc, dung lượng tối đa và nhận diện định dạng theo nội dung.
+ * Địa chỉ IP được kiểm tra ngay trong resolver mà HTTP client dùng để kết nối, nên tên miền không thể
+ * trỏ sang địa chỉ nội bộ giữa lúc kiểm tra và lúc kết nối (DNS rebinding). Resolver phân giải (chặn) trên
+ * executor riêng, không chiếm event loop của Netty.
+ *
+ * Mỗi lần import là một job; client có thể chờ kết quả hoặc hỏi lại trạng thái theo jobId.
+ */
+@Service
+public class RemoteImageImportService {
+    private static final Logger logger = LoggerFactory.getLogger(RemoteImageImportService.class);
+    private static final int MAX_REDIRECTS = 3;
+
+    public enum JobStatus { PENDING, DONE, FAILED }
+
+    public static class ImportJob {
+        private final String id;
+        private final Long userId;
+        private final String mediaType;
+        private final Instant createdAt = Instant.now();
+        private final CompletableFuture<String> result = new CompletableFuture<>();
+
+        ImportJob(Long userId, String mediaType) {
+            this.id = UUID.randomUUID().toString();
+            this.userId = userId;
+            this.mediaType = mediaType;
+        }
+
+        public String getId() { return id; }
+        public Long getUserId() { return userId; }
+        public String getMediaType() { return mediaType; }
+        public CompletableFuture<String> getResult() { return result; }
+
+        public JobStatus getStatus() {
+            if (!result.isDone()) {
+                return JobStatus.PENDING;
+            }
+            return result.isCompletedExceptionally() ? JobStatus.FAILED : JobStatus.DONE;
+        }
+
+        /**
+         * Lý do thất bại, null nếu job chưa xong hoặc thành công
+         */
+        public String getError() {
+            if (!result.isCompletedExceptionally()) {
+                return null;
+            }
+            try {
+                result.join();
+                return null;
+            } catch (Exception e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                return cause.getMessage();
+            }
+        }
+    }
+
+    private final UserMediaService userMediaService;
+    private final HttpClient httpClient;
+    private final ThreadPoolExecutor executor;
+    private final ThreadPoolExecutor resolveExecutor;
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+    // Địa chỉ không được phép kết nối tới (test thay để dùng được máy chủ thử trên loopback)
+    private Predicate<InetAddress> blockedAddress = RemoteImageImportService::isBlockedAddress;
+
+    @Value("${remote-import.read-timeout-ms:10000}")
+    private long readTimeoutMs;
+
+    @Value("${remote-import.max-bytes:5242880}")
+    private long maxBytes;
+
+    @Value("${remote-import.job-ttl-ms:600000}")
+    private long jobTtlMs;
+
+    public RemoteImageImportService(UserMediaService userMediaService,
+                                    @Value("${remote-import.connect-timeout-ms:3000}") long connectTimeoutMs,
+                                    @Value("${remote-import.threads:4}") int threads,
+                                    @Value("${remote-import.queue-capacity:50}") int queueCapacity) {
+        this.userMediaService = userMediaService;
+        AtomicInteger resolveCounter = new AtomicInteger();
+        this.resolveExecutor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            runnable -> {
+                Thread thread = new Thread(runnable, "remote-image-resolve-" + resolveCounter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        // Không dùng pool: mỗi lần tải kết nối mới qua resolver kiểm tra địa chỉ
+        this.httpClient = HttpClient.create(ConnectionProvider.newConnection())
+                .resolver(new PublicAddressResolverGroup())
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeoutMs)
+                .followRedirect(false)
+                .headers(headers -> headers.set(HttpHeaderNames.ACCEPT, "image/*"));
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            runnable -> {
+                Thread thread = new Thread(runnable, "remote-image-import-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        resolveExecutor.shutdownNow();
+    }
+
+    /**
+     * Xếp hàng import ảnh cho user
+     * @param mediaType UserMedia.AVATAR hoặc UserMedia.PROFILE_IMAGE
+     * @throws RejectedExecutionException khi hàng đợi đã đầy
+     */
+    public ImportJob submit(Long userId, String mediaType, String url) {
+        URI uri = parseUrl(url);
+        ImportJob job = new ImportJob(userId, mediaType);
+        jobs.put(job.getId(), job);
+        try {
+            executor.execute(() -> runImport(job, uri, url));
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getId());
+            throw e;
+        }
+        return job;
+    }
+
+    private void runImport(ImportJob job, URI uri, String url) {
+        Long userId = job.getUserId();
+        try {
+            ImportedImage image = download(uri);
+            userMediaService.store(userId, job.getMediaType(), image.data(), image.contentType());
+            job.result.complete(image.contentType());
+        } catch (Exception e) {
+            logger.warn("Import ảnh {} cho user {} thất bại: {}", url, userId, e.getMessage());
+            job.result.completeExceptionally(e);
+        }
+    }
+
+    public ImportJob getJob(String jobId) {
+        return jobs.get(jobId);
+    }
+
+    @Scheduled(fixedDelayString = "${remote-import.job-ttl-ms:600000}")
+    public void evictFinishedJobs() {
+        Instant cutoff = Instant.now().minusMillis(jobTtlMs);
+        jobs.values().removeIf(job -> job.getResult().isDone() && job.createdAt.isBefore(cutoff));
+    }
+
+    private record ImportedImage(byte[] data, String contentType) {
+    }
+
+    // Kết quả một lượt request: location khác null khi server trả về redirect
+    private record Fetched(String location, byte[] data) {
+    }
+
+    private ImportedImage download(URI uri) throws IOException {
+        for (int redirects = 0; redirects <= MAX_REDIRECTS; redirects++) {
+            checkPublicHost(uri);
+            Fetched fetched = fetch(uri);
+            if (fetched.location() != null) {
+                uri = parseUrl(uri.resolve(fetched.location()).toString());
+                continue;
+            }
+            String contentType = sniffImageType(fetched.data());
+            if (contentType == null) {
+                throw new IOException("URL does not point to a supported image");
+            }
+            return new ImportedImage(fetched.data(), contentType);
+        }
+        throw new IOException("Too many redirects");
+    }
+
+    /**
+     * Một request GET, cả header lẫn thân response phải xong trong read-timeout-ms: hết hạn thì kết nối bị
+     * hủy từ bên ngoài, kể cả khi server đang nhỏ giọt từng byte
+     */
+    private Fetched fetch(URI uri) throws IOException {
+        AtomicLong total = new AtomicLong();
+        try {
+            return httpClient.get()
+                    .uri(uri)
+                    .response((response, body) -> {
+                        int status = response.status().code();
+                        if (status >= 300 && status < 400) {
+                            String location = response.responseHeaders().get(HttpHeaderNames.LOCATION);
+                            return location != null ? Mono.just(new Fetched(location, null))
+                                    : Mono.error(new IOException("Redirect without Location"));
+                        }
+                        if (status != 200) {
+                            return Mono.error(new IOException("Remote server returned " + status));
+                        }
+                        String declared = response.responseHeaders().get(HttpHeaderNames.CONTENT_LENGTH);
+                        if (declared != null && declared.matches("\\d{1,18}")
+                                && Long.parseLong(declared) > maxBytes) {
+                            return Mono.error(tooLarge());
+                        }
+                        return body.asByteArray()
+                                .concatMap(chunk -> total.addAndGet(chunk.length) > maxBytes
+                                        ? Mono.<byte[]>error(tooLarge()) : Mono.just(chunk))
+                                .collect(ByteArrayOutputStream::new, (out, chunk) -> out.write(chunk, 0, chunk.length))
+                                .map(out -> new Fetched(null, out.toByteArray()));
+                    })
+                    .next()
+                    .timeout(Duration.ofMillis(readTimeoutMs))
+                    .switchIfEmpty(Mono.error(new IOException("Empty response")))
+                    .block();
+        } catch (RuntimeException e) {
+            Throwable cause = Exceptions.unwrap(e);
+            if (cause instanceof TimeoutException) {
+                throw new IOException("Timed out downloading image");
+            }
+            if (cause instanceof IOException io) {
+                throw io;
+            }
+            throw e;
+        }
+    }
+
+    private IOException tooLarge() {
+        return new IOException("Image is larger than " + maxBytes + " bytes");
+    }
+
+    private static URI parseUrl(String url) {
+        URI uri;
+        try {
+            uri = URI.create(url == null ? "" : url.trim());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid image URL");
+        }
+        String scheme = uri.getScheme();
+        if (uri.getHost() == null || !("http".equalsIgnoreCase(scheme) || "https".equalsIgnoreCase(scheme))) {
+            throw new IllegalArgumentException("Only http and https image URLs are supported");
+        }
+        return uri;
+    }
+
+    // Không cho phép tải từ địa chỉ nội bộ của server (kiểm tra sớm; resolver kiểm tra lại lúc kết nối)
+    private void checkPublicHost(URI uri) throws IOException {
+        resolvePublic(uri.getHost());
+    }
+
+    /**
+     * Phân giải host và từ chối nếu bất kỳ địa chỉ nào không phải địa chỉ công khai
+     */
+    List<InetAddress> resolvePublic(String host) throws UnknownHostException {
+        InetAddress[] addresses = InetAddress.getAllByName(host);
+        for (InetAddress address : addresses) {
+            if (blockedAddress.test(address)) {
+                throw new UnknownHostException("Image host is not allowed");
+            }
+        }
+        return Arrays.asList(addresses);
+    }
+
+    static boolean isBlockedAddress(InetAddress address) {
+        if (address.isLoopbackAddress() || address.isSiteLocalAddress() || address.isLinkLocalAddress()
+                || address.isAnyLocalAddress() || address.isMulticastAddress()) {
+            return true;
+        }
+        byte[] bytes = address.getAddress();
+        if (address instanceof Inet4Address) {
+            // 0.0.0.0/8 và CGNAT 100.64.0.0/10
+            return bytes[0] == 0 || ((bytes[0] & 0xFF) == 100 && (bytes[1] & 0xC0) == 64);
+        }
+        // IPv6 unique local fc00::/7
+        return address instanceof Inet6Address && (bytes[0] & 0xFE) == 0xFC;
+    }
+
+    /**
+     * Resolver cho HTTP client: địa chỉ dùng để kết nối chính là địa chỉ vừa được kiểm tra. doResolve được gọi
+     * trên event loop, nên việc phân giải (InetAddress.getAllByName chặn) được chuyển sang resolveExecutor
+     */
+    private final class PublicAddressResolverGroup extends AddressResolverGroup<InetSocketAddress> {
+        @Override
+        protected AddressResolver<InetSocketAddress> newResolver(EventExecutor executor) {
+            return new InetNameResolver(executor) {
+                @Override
+                protected void doResolve(String host, Promise<InetAddress> promise) {
+                    resolveOffLoop(host, promise, addresses -> addresses.get(0));
+                }
+
+                @Override
+                protected void doResolveAll(String host, Promise<List<InetAddress>> promise) {
+                    resolveOffLoop(host, promise, addresses -> addresses);
+                }
+            }.asAddressResolver();
+        }
+
+        private <T> void resolveOffLoop(String host, Promise<T> promise, Function<List<InetAddress>, T> result) {
+            try {
+                resolveExecutor.execute(() -> {
+                    try {
+                        promise.trySuccess(result.apply(resolvePublic(host)));
+                    } catch (UnknownHostException | RuntimeException e) {
+                        promise.tryFailure(e);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                promise.tryFailure(new UnknownHostException("Too many pending image host lookups"));
+            }
+        }
+    }
+
+    /**
+     * Nhận diện định dạng ảnh theo magic bytes, không tin Content-Type của server
+     */
+    static String sniffImageType(byte[] data) {
+        if (data.length >= 3 && (data[0] & 0xFF) == 0xFF && (data[1] & 0xFF) == 0xD8 && (data[2] & 0xFF) == 0xFF) {
+            return "image/jpeg";
+        }
+        if (data.length >= 8 && (data[0] & 0xFF) == 0x89 && data[1] == 'P' && data[2] == 'N' && data[3] == 'G') {
+            return "image/png";
+        }
+        if (data.length >= 6 && data[0] == 'G' && data[1] == 'I' && data[2] == 'F' && data[3] == '8') {
+            return "image/gif";
+        }
+        if (data.length >= 12 && data[0] == 'R' && data[1] == 'I' && data[2] == 'F' && data[3] == 'F'
+                && data[8] == 'W' && data[9] == 'E' && data[10] == 'B' && data[11] == 'P') {
+            return "image/webp";
+        }
+        if (data.length >= 2 && data[0] == 'B' && data[1] == 'M') {
+            return "image/bmp";
+        }
+        return null;
+    }
+}
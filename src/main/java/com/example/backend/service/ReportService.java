@@ -1,5 +1,6 @@
 package com.example.backend.service;
 
+import com.example.backend.entity.FileReference;
 import com.example.backend.entity.Report;
 import com.example.backend.entity.GamePlayer;
 import com.example.backend.entity.User;
@@ -20,29 +21,34 @@ public class ReportService {
     private final ReportRepository reportRepository;
     private final GamePlayerRepository gamePlayerRepository;
     private final UserRepository userRepository;
+    private final FileStorageService fileStorageService;
 
     public ReportService(ReportRepository reportRepository,
                         GamePlayerRepository gamePlayerRepository,
-                        UserRepository userRepository) {
+                        UserRepository userRepository,
+                        FileStorageService fileStorageService) {
         this.reportRepository = reportRepository;
         this.gamePlayerRepository = gamePlayerRepository;
         this.userRepository = userRepository;
+        this.fileStorageService = fileStorageService;
     }
 
     public Report createReport(Long reportedPlayerId, Long reporterId, String reason, String description, String video) {
+        return createReport(reportedPlayerId, reporterId, reason, description, video, null);
+    }
+
+    /**
+     * Create a report whose uploaded video is still being validated in the background
+     * @param videoStatus one of Report.VIDEO_*, or null when the video is an external URL
+     */
+    public Report createReport(Long reportedPlayerId, Long reporterId, String reason, String description,
+                               String video, String videoStatus) {
         GamePlayer reportedPlayer = gamePlayerRepository.findById(reportedPlayerId)
                 .orElseThrow(() -> new ResourceNotFoundException("Reported player not found"));
         User reporter = userRepository.findById(reporterId)
                 .orElseThrow(() -> new ResourceNotFoundException("Reporter not found"));
 
-        // Check if reporter has already reported this player today
-        LocalDateTime today = LocalDateTime.now();
-        List<Report> existingReportsToday = reportRepository.findByReporterIdAndReportedPlayerIdAndDate(
-            reporterId, reportedPlayerId, today
-        );
-        if (!existingReportsToday.isEmpty()) {
-            throw new ReportException("User has already reported this player today");
-        }
+        checkCanReport(reporterId, reportedPlayerId);
 
         Report report = new Report();
         report.setReportedPlayer(reportedPlayer);
@@ -52,12 +58,47 @@ public class ReportService {
         report.setStatus("PENDING");
         report.setCreatedAt(LocalDateTime.now());
         report.setVideoUrl(video);
+        report.setVideoStatus(video != null ? videoStatus : null);
 
         report = reportRepository.save(report);
 
         return report;
     }
 
+    /**
+     * Check the one-report-per-day rule before accepting an upload
+     */
+    @Transactional(readOnly = true)
+    public void checkCanReport(Long reporterId, Long reportedPlayerId) {
+        // Check if reporter has already reported this player today
+        LocalDateTime today = LocalDateTime.now();
+        List<Report> existingReportsToday = reportRepository.findByReporterIdAndReportedPlayerIdAndDate(
+            reporterId, reportedPlayerId, today
+        );
+        if (!existingReportsToday.isEmpty()) {
+            throw new ReportException("User has already reported this player today");
+        }
+    }
+
+    /**
+     * Record the result of background video validation. A rejected video is detached
+     * from the report and its file released.
+     */
+    public void completeVideoValidation(Long reportId, boolean valid) {
+        Report report = reportRepository.findById(reportId).orElse(null);
+        if (report == null || !Report.VIDEO_PROCESSING.equals(report.getVideoStatus())) {
+            return;
+        }
+        if (valid) {
+            report.setVideoStatus(Report.VIDEO_READY);
+        } else {
+            fileStorageService.releaseReference(report.getVideoUrl(), FileReference.REPORT_VIDEO, reportId);
+            report.setVideoStatus(Report.VIDEO_REJECTED);
+            report.setVideoUrl(null);
+        }
+        reportRepository.save(report);
+    }
+
     public Report updateReportStatus(Long reportId, String status, String resolution) {
         Report report = reportRepository.findById(reportId)
                 .orElseThrow(() -> new ResourceNotFoundException("Report not found"));
@@ -20,13 +20,16 @@ public class ReviewService {
     private final ReviewRepository reviewRepository;
     private final GamePlayerRepository gamePlayerRepository;
     private final UserRepository userRepository;
+    private final PlayerRatingService playerRatingService;
 
     public ReviewService(ReviewRepository reviewRepository,
                         GamePlayerRepository gamePlayerRepository,
-                        UserRepository userRepository) {
+                        UserRepository userRepository,
+                        PlayerRatingService playerRatingService) {
         this.reviewRepository = reviewRepository;
         this.gamePlayerRepository = gamePlayerRepository;
         this.userRepository = userRepository;
+        this.playerRatingService = playerRatingService;
     }
 
     public Review createReview(Long gamePlayerId, Long userId, Double rating, String comment) {
@@ -51,7 +54,9 @@ public class ReviewService {
         review.setCreatedAt(LocalDateTime.now());
         review.setStatus("ACTIVE");
 
-        return reviewRepository.save(review);
+        Review saved = reviewRepository.save(review);
+        playerRatingService.addRating(gamePlayerId, rating);
+        return saved;
     }
 
     public Review updateReview(Long reviewId, Double rating, String comment) {
@@ -60,18 +65,28 @@ public class ReviewService {
 
         validateRating(rating);
 
+        Double oldRating = review.getRating();
         review.setRating(rating);
         review.setComment(comment);
         review.setUpdatedAt(LocalDateTime.now());
 
-        return reviewRepository.save(review);
+        Review saved = reviewRepository.save(review);
+        // Đánh giá đã xóa không nằm trong tổng hợp
+        if (!"DELETED".equals(review.getStatus())) {
+            playerRatingService.changeRating(review.getGamePlayer().getId(), oldRating, rating);
+        }
+        return saved;
     }
 
     public void deleteReview(Long reviewId) {
         Review review = reviewRepository.findById(reviewId)
                 .orElseThrow(() -> new ResourceNotFoundException("Review not found"));
+        if ("DELETED".equals(review.getStatus())) {
+            return;
+        }
         review.setStatus("DELETED");
         reviewRepository.save(review);
+        playerRatingService.removeRating(review.getGamePlayer().getId(), review.getRating());
     }
 
     public List<Review> getGamePlayerReviews(Long gamePlayerId) {
@@ -82,8 +97,9 @@ public class ReviewService {
         return reviewRepository.findByUserId(userId);
     }
 
+    @Transactional(readOnly = true)
     public Double getGamePlayerAverageRating(Long gamePlayerId) {
-        return reviewRepository.findAverageRatingByGamePlayerId(gamePlayerId);
+        return playerRatingService.getGamePlayerSummary(gamePlayerId).averageRating();
     }
 
     public List<Review> getReviewsByStatus(String status) {
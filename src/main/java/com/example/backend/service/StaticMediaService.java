@@ -0,0 +1,330 @@
+package com.example.backend.service;
+
+import com.example.backend.entity.FileMetadata;
+import com.example.backend.repository.FileMetadataRepository;
+import com.example.backend.storage.BlobStorage;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.support.ResourceRegion;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Phục vụ file đã upload từ backend lưu trữ: ETag theo hash nội dung, 304 cho request có điều kiện,
+ * Cache-Control dài hạn cho file đặt tên theo UUID và hỗ trợ HTTP Range (kể cả If-Range).
+ * File cũ chưa có hash được hash ở nền; trong lúc chờ, file được trả không kèm ETag (chỉ Last-Modified).
+ */
+@Service
+public class StaticMediaService {
+    private static final Logger logger = LoggerFactory.getLogger(StaticMediaService.class);
+    private static final String SENDFILE_SUPPORTED_ATTR = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_FILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_FILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+
+    // Tên file do FileStorageService.storeFile sinh ra (SHA-256 hoặc UUID cũ, và bản thu nhỏ): không bao giờ bị ghi đè
+    private static final Pattern UUID_FILENAME = Pattern.compile(
+        "^([0-9a-f]{64}|[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12})(_thumb|_medium|_full)?\\.[A-Za-z0-9]+$");
+
+    private static final CacheControl IMMUTABLE = CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable();
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePublic();
+    private static final int MAX_CACHED_METADATA = 10000;
+    private static final int MAX_PENDING_HASHES = 1000;
+
+    private final FileStorageService fileStorageService;
+    private final FileMetadataRepository fileMetadataRepository;
+    private final ImageDerivativeService imageDerivativeService;
+
+    // path -> metadata, kiểm tra lại bằng size + lastModified của file; LRU có giới hạn
+    private final Map<String, FileMetadata> metadataCache = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, FileMetadata> eldest) {
+                    return size() > MAX_CACHED_METADATA;
+                }
+            });
+    // File đang chờ/đang được hash ở nền, tránh xếp hàng một file nhiều lần
+    private final Set<String> hashing = ConcurrentHashMap.newKeySet();
+    private final ThreadPoolExecutor hasher = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(MAX_PENDING_HASHES), runnable -> {
+                Thread thread = new Thread(runnable, "media-hash");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    public StaticMediaService(FileStorageService fileStorageService, FileMetadataRepository fileMetadataRepository,
+                              ImageDerivativeService imageDerivativeService) {
+        this.fileStorageService = fileStorageService;
+        this.fileMetadataRepository = fileMetadataRepository;
+        this.imageDerivativeService = imageDerivativeService;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        hasher.shutdownNow();
+    }
+
+    /**
+     * Serve a stored file, choosing the cache policy from its file name
+     * @param filePath The relative path to the file (e.g., "avatars/filename.jpg")
+     */
+    public ResponseEntity<?> serve(String filePath, HttpServletRequest request) throws IOException {
+        String filename = filePath.substring(filePath.lastIndexOf('/') + 1);
+        return serve(filePath, request, UUID_FILENAME.matcher(filename).matches() ? IMMUTABLE : REVALIDATE);
+    }
+
+    /**
+     * Serve the requested size (thumb, medium, full) of a stored image. Until the derivative
+     * exists the original is served with a short cache policy and generation is queued; an
+     * original whose derivatives failed is served as is without queueing again.
+     * @param size size parameter from the request, null or unknown serves the original
+     */
+    public ResponseEntity<?> serve(String filePath, String size, HttpServletRequest request) throws IOException {
+        ImageDerivativeService.ImageSize imageSize = ImageDerivativeService.ImageSize.fromParam(size);
+        if (imageSize == null) {
+            return serve(filePath, request);
+        }
+        String derivative = ImageDerivativeService.derivativePath(filePath, imageSize);
+        if (fileStorageService.fileExists(derivative)) {
+            return serve(derivative, request);
+        }
+        if (imageDerivativeService.hasFailed(filePath)) {
+            return serve(filePath, request);
+        }
+        if (fileStorageService.fileExists(filePath)) {
+            imageDerivativeService.scheduleDerivatives(filePath);
+        }
+        return serve(filePath, request, REVALIDATE);
+    }
+
+    /**
+     * Serve a stored file with an explicit cache policy (for URLs whose target can change)
+     */
+    public ResponseEntity<?> serve(String filePath, HttpServletRequest request, CacheControl cacheControl) throws IOException {
+        // stat trả null cho key không hợp lệ (chống path traversal) hoặc file không tồn tại
+        BlobStorage.BlobInfo info = fileStorageService.stat(filePath);
+        if (info == null) {
+            metadataCache.remove(filePath);
+            return ResponseEntity.notFound().build();
+        }
+        FileMetadata metadata = describe(filePath, info);
+        String filename = filePath.substring(filePath.lastIndexOf('/') + 1);
+        String etag = metadata != null ? "\"" + metadata.getSha256() + "\"" : null;
+        long lastModified = info.lastModified();
+
+        HttpHeaders headers = new HttpHeaders();
+        if (etag != null) {
+            headers.setETag(etag);
+        }
+        headers.setLastModified(lastModified);
+        headers.setCacheControl(cacheControl);
+        headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        if (new ServletWebRequest(request).checkNotModified(etag, lastModified)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).headers(headers).build();
+        }
+
+        headers.setContentType(MediaType.parseMediaType(determineContentType(filename)));
+        headers.set(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + filename + "\"");
+        return serveWithRanges(filePath, info.size(), headers, request, etag, lastModified);
+    }
+
+    /**
+     * Metadata (ETag) của file: lấy từ bộ nhớ, rồi DB. Khi chưa có hoặc file đã đổi, hash được tính ở nền
+     * và trả null cho tới khi xong (request không phải chờ đọc hết file)
+     */
+    public FileMetadata describe(String filePath, BlobStorage.BlobInfo info) {
+        long size = info.size();
+        long lastModified = info.lastModified();
+        FileMetadata cached = metadataCache.get(filePath);
+        if (isCurrent(cached, size, lastModified)) {
+            return cached;
+        }
+        FileMetadata stored = fileMetadataRepository.findByPath(filePath).orElse(null);
+        if (!isCurrent(stored, size, lastModified)) {
+            scheduleHash(filePath);
+            return null;
+        }
+        metadataCache.put(filePath, stored);
+        return stored;
+    }
+
+    private void scheduleHash(String filePath) {
+        if (!hashing.add(filePath)) {
+            return;
+        }
+        try {
+            hasher.execute(() -> {
+                try {
+                    metadataCache.put(filePath, fileStorageService.computeMetadata(filePath));
+                } catch (IOException | RuntimeException e) {
+                    logger.warn("Không tính được hash của {}: {}", filePath, e.getMessage());
+                } finally {
+                    hashing.remove(filePath);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Hàng đợi đầy: request sau của file này sẽ xếp hàng lại
+            hashing.remove(filePath);
+        }
+    }
+
+    private static boolean isCurrent(FileMetadata metadata, long size, long lastModified) {
+        return metadata != null && metadata.getSize() == size && metadata.getLastModified() == lastModified;
+    }
+
+    private ResponseEntity<?> serveWithRanges(String filePath, long fileSize, HttpHeaders headers,
+                                              HttpServletRequest request, String etag, long lastModified)
+            throws IOException {
+        if (!ifRangeMatches(request, etag, lastModified)) {
+            // If-Range không khớp: client đang giữ bản cũ, gửi lại toàn bộ file thay vì ghép range vào bản cũ
+            return sendRegion(filePath, 0, fileSize, HttpStatus.OK, headers, request);
+        }
+        List<HttpRange> ranges;
+        try {
+            ranges = HttpRange.parseRanges(request.getHeader(HttpHeaders.RANGE));
+        } catch (IllegalArgumentException e) {
+            return rangeNotSatisfiable(fileSize);
+        }
+
+        if (ranges.isEmpty()) {
+            return sendRegion(filePath, 0, fileSize, HttpStatus.OK, headers, request);
+        }
+
+        if (ranges.size() == 1) {
+            HttpRange range = ranges.get(0);
+            long start;
+            long end;
+            try {
+                start = range.getRangeStart(fileSize);
+                end = range.getRangeEnd(fileSize);
+            } catch (IllegalArgumentException e) {
+                return rangeNotSatisfiable(fileSize);
+            }
+            if (start >= fileSize || end < start) {
+                return rangeNotSatisfiable(fileSize);
+            }
+            headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + fileSize);
+            return sendRegion(filePath, start, end - start + 1, HttpStatus.PARTIAL_CONTENT, headers, request);
+        }
+
+        // Nhiều range: ResourceRegionHttpMessageConverter ghi multipart/byteranges (chỉ với file cục bộ)
+        if (fileStorageService.localPath(filePath).isEmpty()) {
+            return sendRegion(filePath, 0, fileSize, HttpStatus.OK, headers, request);
+        }
+        List<ResourceRegion> regions;
+        try {
+            regions = HttpRange.toResourceRegions(ranges, fileStorageService.loadFileAsResource(filePath));
+        } catch (IllegalArgumentException e) {
+            return rangeNotSatisfiable(fileSize);
+        }
+        return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT).headers(headers).body(regions);
+    }
+
+    /**
+     * If-Range (RFC 9110 13.1.5): ETag phải khớp mạnh với ETag hiện tại (ETag yếu hoặc chưa có ETag thì không
+     * khớp), ngày phải bằng đúng Last-Modified. Không có If-Range thì coi như khớp
+     */
+    static boolean ifRangeMatches(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null || request.getHeader(HttpHeaders.RANGE) == null) {
+            return true;
+        }
+        ifRange = ifRange.trim();
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            return etag != null && ifRange.equals(etag);
+        }
+        long date;
+        try {
+            date = request.getDateHeader(HttpHeaders.IF_RANGE);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        // HTTP date chỉ chính xác tới giây
+        return date >= 0 && date / 1000 == lastModified / 1000;
+    }
+
+    private ResponseEntity<?> sendRegion(String filePath, long start, long length, HttpStatus status,
+                                         HttpHeaders headers, HttpServletRequest request) {
+        headers.setContentLength(length);
+        if ("HEAD".equals(request.getMethod())) {
+            return ResponseEntity.status(status).headers(headers).build();
+        }
+        // Tomcat NIO hỗ trợ sendfile: để container gửi file cục bộ trực tiếp từ kernel
+        Optional<Path> localPath = fileStorageService.localPath(filePath);
+        if (localPath.isPresent() && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED_ATTR))) {
+            request.setAttribute(SENDFILE_FILENAME_ATTR, localPath.get().toString());
+            request.setAttribute(SENDFILE_FILE_START_ATTR, start);
+            request.setAttribute(SENDFILE_FILE_END_ATTR, start + length);
+            return ResponseEntity.status(status).headers(headers).build();
+        }
+        StreamingResponseBody body = outputStream -> fileStorageService.transferRange(filePath, start, length, outputStream);
+        return ResponseEntity.status(status).headers(headers).body(body);
+    }
+
+    private ResponseEntity<?> rangeNotSatisfiable(long fileSize) {
+        return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                .header(HttpHeaders.CONTENT_RANGE, "bytes */" + fileSize)
+                .build();
+    }
+
+    /**
+     * Determine content type based on file extension
+     */
+    public static String determineContentType(String filename) {
+        String extension = filename.toLowerCase();
+        if (extension.endsWith(".mp4")) {
+            return "video/mp4";
+        } else if (extension.endsWith(".avi")) {
+            return "video/x-msvideo";
+        } else if (extension.endsWith(".mov")) {
+            return "video/quicktime";
+        } else if (extension.endsWith(".wmv")) {
+            return "video/x-ms-wmv";
+        } else if (extension.endsWith(".flv")) {
+            return "video/x-flv";
+        } else if (extension.endsWith(".webm")) {
+            return "video/webm";
+        } else if (extension.endsWith(".mkv")) {
+            return "video/x-matroska";
+        } else if (extension.endsWith(".3gp")) {
+            return "video/3gpp";
+        } else if (extension.endsWith(".jpg") || extension.endsWith(".jpeg")) {
+            return "image/jpeg";
+        } else if (extension.endsWith(".png")) {
+            return "image/png";
+        } else if (extension.endsWith(".gif")) {
+            return "image/gif";
+        } else if (extension.endsWith(".webp")) {
+            return "image/webp";
+        } else if (extension.endsWith(".bmp")) {
+            return "image/bmp";
+        } else {
+            return "application/octet-stream";
+        }
+    }
+}
@@ -0,0 +1,451 @@
+package com.example.backend.service;
+
+import com.example.backend.entity.Game;
+import com.example.backend.entity.GamePlayer;
+import com.example.backend.entity.User;
+import com.example.backend.repository.GamePlayerRepository;
+import com.example.backend.repository.GameRepository;
+import com.example.backend.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Chỉ mục tìm kiếm gợi ý (typeahead) theo tiền tố cho tên player, tên game và họ tên user.
+ *
+ * Nhãn được chuẩn hóa không dấu ("Đức Anh" -> "duc anh"), mỗi vị trí đầu từ của nhãn là một khóa trong
+ * ConcurrentSkipListMap, nên gõ "anh" cũng khớp "Đức Anh". Tìm theo tiền tố là quét subMap [q, q + '\uffff'),
+ * chi phí theo số kết quả khớp chứ không theo tổng số nhãn. Kết quả xếp theo: nhãn bắt đầu bằng q trước,
+ * rồi độ phổ biến (số người theo dõi của player, số player của game), rồi nhãn ngắn hơn.
+ *
+ * Tiền tố ngắn như "a", "ng" khớp quá max-scan khóa: với các tiền tố đó, một luồng nền quét toàn bộ khoảng
+ * để lấy top-K mỗi loại theo đúng thứ tự trên; trong lúc chờ, request chỉ xếp hạng max-scan khóa đầu. Top-K
+ * được giữ lại và vá ngay khi có nhãn khớp tiền tố thay đổi; quá top-k-ttl-ms (độ phổ biến đã đổi) thì bản
+ * cũ vẫn được dùng trong lúc luồng nền dựng lại.
+ */
+@Component
+public class TypeaheadIndex {
+    private static final Logger logger = LoggerFactory.getLogger(TypeaheadIndex.class);
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_ALNUM = Pattern.compile("[^a-z0-9]+");
+    private static final char KEY_SEPARATOR = '\u0000';
+    // Chỉ đánh chỉ mục vài từ đầu của nhãn dài, tránh phình số khóa
+    private static final int MAX_WORD_STARTS = 6;
+    // Số kết quả giữ cho mỗi loại của một tiền tố phổ biến, dư so với limit tối đa để bù các item bị ban
+    private static final int TOP_K = 50;
+    private static final int MAX_CACHED_PREFIXES = 1024;
+
+    public enum Type { PLAYER, GAME, USER }
+
+    /**
+     * Một kết quả gợi ý. ownerUserId: user sở hữu (PLAYER) hoặc chính user (USER), null với GAME
+     */
+    public record Item(Type type, Long id, String label, String subtitle, Long ownerUserId) {
+    }
+
+    // Giá trị trong index: item kèm nhãn đã chuẩn hóa, không chuẩn hóa lại mỗi lần khớp
+    private record Indexed(Item item, String normalizedLabel) {
+    }
+
+    private record Hit(Item item, boolean startsWith, long popularity) {
+    }
+
+    // Top-K mỗi loại của một tiền tố khớp quá nhiều khóa, đã xếp theo RANKING
+    private record TopK(long builtAt, Map<Type, List<Hit>> byType) {
+        List<Hit> hits() {
+            return byType.values().stream().flatMap(List::stream).toList();
+        }
+    }
+
+    // Các item có khóa trong một khoảng; truncated nếu khoảng có nhiều khóa hơn số khóa được quét
+    private record Scan(Collection<Hit> hits, boolean truncated) {
+    }
+
+    // Nhãn của một item vừa đổi: khóa cũ đã gỡ, khóa mới (và nhãn mới, null nếu item bị gỡ) vừa thêm
+    private record Change(String itemKey, List<String> oldKeys, List<String> newKeys, Indexed added) {
+        boolean affects(String prefix) {
+            return matches(oldKeys, prefix) || matches(newKeys, prefix);
+        }
+
+        static boolean matches(List<String> keys, String prefix) {
+            return keys.stream().anyMatch(key -> key.startsWith(prefix));
+        }
+    }
+
+    private static final Comparator<Hit> RANKING = Comparator.comparing(Hit::startsWith).reversed()
+            .thenComparing(Comparator.comparingLong(Hit::popularity).reversed())
+            .thenComparingInt(hit -> hit.item().label().length())
+            .thenComparing(hit -> hit.item().id());
+
+    private final GamePlayerRepository gamePlayerRepository;
+    private final GameRepository gameRepository;
+    private final UserRepository userRepository;
+    private final PopularPlayerLeaderboard leaderboard;
+    private final GamePlayerFacetIndex facetIndex;
+    private final BanStateCache banStateCache;
+
+    @Value("${typeahead.max-scan:5000}")
+    private int maxScan;
+
+    @Value("${typeahead.top-k-ttl-ms:60000}")
+    private long topKTtlMs;
+
+    private final ConcurrentSkipListMap<String, Indexed> index = new ConcurrentSkipListMap<>();
+    // "TYPE:id" -> các khóa của item trong index, để gỡ khi nhãn đổi hoặc item bị xóa
+    private final Map<String, List<String>> keysByItem = new ConcurrentHashMap<>();
+    // userId -> các player của user, để tính độ phổ biến của user
+    private final Map<Long, Set<Long>> playersByUser = new ConcurrentHashMap<>();
+    // Tiền tố khớp quá max-scan khóa -> top-K đã tính, LRU có giới hạn
+    private final Map<String, TopK> topKByPrefix = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, TopK> eldest) {
+            return size() > MAX_CACHED_PREFIXES;
+        }
+    };
+    // Tiền tố đang được dựng top-K ở nền -> thay đổi đến trong lúc quét, áp lại lên kết quả trước khi lưu.
+    // Cùng khóa với topKByPrefix
+    private final Map<String, List<Change>> buildsInFlight = new HashMap<>();
+    private final ThreadPoolExecutor topKBuilder = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(MAX_CACHED_PREFIXES), runnable -> {
+                Thread thread = new Thread(runnable, "typeahead-top-k");
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    public TypeaheadIndex(GamePlayerRepository gamePlayerRepository, GameRepository gameRepository,
+                          UserRepository userRepository, PopularPlayerLeaderboard leaderboard,
+                          GamePlayerFacetIndex facetIndex, BanStateCache banStateCache) {
+        this.gamePlayerRepository = gamePlayerRepository;
+        this.gameRepository = gameRepository;
+        this.userRepository = userRepository;
+        this.leaderboard = leaderboard;
+        this.facetIndex = facetIndex;
+        this.banStateCache = banStateCache;
+    }
+
+    @PostConstruct
+    public void loadFromDatabase() {
+        long startedAt = System.currentTimeMillis();
+        for (Object[] row : gameRepository.findTypeaheadRows()) {
+            put(new Item(Type.GAME, (Long) row[0], (String) row[1], (String) row[2], null));
+        }
+        for (Object[] row : userRepository.findTypeaheadRows()) {
+            put(new Item(Type.USER, (Long) row[0], (String) row[1], (String) row[2], (Long) row[0]));
+        }
+        for (Object[] row : gamePlayerRepository.findTypeaheadRows()) {
+            putPlayer((Long) row[0], (String) row[1], (Long) row[2], (String) row[3], (String) row[4]);
+        }
+        logger.info("Đã nạp {} nhãn ({} khóa) vào chỉ mục typeahead trong {} ms",
+                keysByItem.size(), index.size(), System.currentTimeMillis() - startedAt);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        topKBuilder.shutdownNow();
+    }
+
+    /**
+     * Tối đa limit gợi ý khớp tiền tố q (không phân biệt hoa thường, dấu tiếng Việt)
+     * @param types loại cần tìm, rỗng thì tìm tất cả
+     */
+    public List<Item> query(String q, int limit, Set<Type> types) {
+        String prefix = normalize(q);
+        if (prefix.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        TopK topK = cachedTopK(prefix);
+        Collection<Hit> hits;
+        if (topK != null) {
+            hits = topK.hits();
+        } else {
+            Scan scan = collect(range(prefix), prefix, maxScan);
+            hits = scan.hits();
+            if (scan.truncated()) {
+                // Tiền tố khớp quá nhiều khóa: tạm xếp hạng các khóa đã quét, top-K đầy đủ được dựng ở nền
+                scheduleTopK(prefix);
+            }
+        }
+        return hits.stream()
+                .filter(hit -> types.isEmpty() || types.contains(hit.item().type()))
+                .filter(hit -> hit.item().ownerUserId() == null || !banStateCache.isBanned(hit.item().ownerUserId()))
+                .sorted(RANKING)
+                .limit(limit)
+                .map(Hit::item)
+                .toList();
+    }
+
+    private ConcurrentNavigableMap<String, Indexed> range(String prefix) {
+        return index.subMap(prefix, true, prefix + '\uffff', false);
+    }
+
+    // Top-K của tiền tố, null nếu chưa có; bản đã quá hạn vẫn được trả trong lúc dựng lại ở nền
+    private TopK cachedTopK(String prefix) {
+        TopK topK;
+        synchronized (topKByPrefix) {
+            topK = topKByPrefix.get(prefix);
+        }
+        if (topK != null && System.currentTimeMillis() - topK.builtAt() > topKTtlMs) {
+            scheduleTopK(prefix);
+        }
+        return topK;
+    }
+
+    private void scheduleTopK(String prefix) {
+        synchronized (topKByPrefix) {
+            if (buildsInFlight.containsKey(prefix)) {
+                return;
+            }
+            buildsInFlight.put(prefix, new ArrayList<>());
+        }
+        try {
+            topKBuilder.execute(() -> buildTopK(prefix));
+        } catch (RejectedExecutionException e) {
+            // Hàng đợi đầy: request sau của tiền tố này sẽ thử lại
+            synchronized (topKByPrefix) {
+                buildsInFlight.remove(prefix);
+            }
+        }
+    }
+
+    // Chạy trên luồng nền: quét hết khoảng của tiền tố một lần, giữ top-K mỗi loại cho các lần sau
+    private void buildTopK(String prefix) {
+        try {
+            long startedAt = System.currentTimeMillis();
+            Map<Type, List<Hit>> byType = new EnumMap<>(Type.class);
+            for (Hit hit : collect(range(prefix), prefix, Integer.MAX_VALUE).hits()) {
+                if (hit.item().ownerUserId() == null || !banStateCache.isBanned(hit.item().ownerUserId())) {
+                    byType.computeIfAbsent(hit.item().type(), key -> new ArrayList<>()).add(hit);
+                }
+            }
+            byType.replaceAll((type, list) -> list.stream().sorted(RANKING).limit(TOP_K).toList());
+            TopK topK = new TopK(startedAt, byType);
+            synchronized (topKByPrefix) {
+                // Lần quét có thể chưa thấy các thay đổi đến trong lúc quét: áp lại chúng trước khi lưu
+                for (Change change : buildsInFlight.get(prefix)) {
+                    topK = patch(topK, prefix, change);
+                }
+                topKByPrefix.put(prefix, topK);
+            }
+        } catch (RuntimeException e) {
+            logger.error("Lỗi khi dựng top-K typeahead cho tiền tố {}", prefix, e);
+        } finally {
+            synchronized (topKByPrefix) {
+                buildsInFlight.remove(prefix);
+            }
+        }
+    }
+
+    /**
+     * Các item (mỗi item một lần) có khóa trong maxKeys khóa đầu của range
+     */
+    private Scan collect(ConcurrentNavigableMap<String, Indexed> range, String prefix, int maxKeys) {
+        Map<String, Hit> hits = new LinkedHashMap<>();
+        int scanned = 0;
+        for (Indexed indexed : range.values()) {
+            if (++scanned > maxKeys) {
+                return new Scan(hits.values(), true);
+            }
+            Item item = indexed.item();
+            String itemKey = itemKey(item.type(), item.id());
+            if (!hits.containsKey(itemKey)) {
+                hits.put(itemKey, hit(indexed, prefix));
+            }
+        }
+        return new Scan(hits.values(), false);
+    }
+
+    private Hit hit(Indexed indexed, String prefix) {
+        return new Hit(indexed.item(), indexed.normalizedLabel().startsWith(prefix), popularity(indexed.item()));
+    }
+
+    public void onPlayerSaved(GamePlayer gamePlayer) {
+        Long id = gamePlayer.getId();
+        String username = gamePlayer.getUsername();
+        Long userId = gamePlayer.getUser() != null ? gamePlayer.getUser().getId() : null;
+        String gameName = gamePlayer.getGame() != null ? gamePlayer.getGame().getName() : null;
+        String status = gamePlayer.getStatus();
+        AfterCommit.run(() -> putPlayer(id, username, userId, gameName, status));
+    }
+
+    public void onPlayerRemoved(Long gamePlayerId) {
+        AfterCommit.run(() -> removePlayer(gamePlayerId));
+    }
+
+    public void onGameSaved(Game game) {
+        Item item = new Item(Type.GAME, game.getId(), game.getName(), game.getCategory(), null);
+        if (!isIndexedAs(item)) {
+            AfterCommit.run(() -> put(item));
+        }
+    }
+
+    public void onUserSaved(User user) {
+        if (user.getFullName() == null) {
+            Long id = user.getId();
+            AfterCommit.run(() -> remove(itemKey(Type.USER, id)));
+            return;
+        }
+        Item item = new Item(Type.USER, user.getId(), user.getFullName(), user.getUsername(), user.getId());
+        if (!isIndexedAs(item)) {
+            AfterCommit.run(() -> put(item));
+        }
+    }
+
+    public void onRemoved(Type type, Long id) {
+        AfterCommit.run(() -> remove(itemKey(type, id)));
+    }
+
+    private void putPlayer(Long id, String username, Long userId, String gameName, String status) {
+        if (username == null || "BANNED".equals(status)) {
+            removePlayer(id);
+            return;
+        }
+        put(new Item(Type.PLAYER, id, username, gameName, userId));
+        if (userId != null) {
+            playersByUser.computeIfAbsent(userId, key -> ConcurrentHashMap.newKeySet()).add(id);
+        }
+    }
+
+    private void removePlayer(Long id) {
+        remove(itemKey(Type.PLAYER, id));
+        playersByUser.values().forEach(players -> players.remove(id));
+    }
+
+    private long popularity(Item item) {
+        return switch (item.type()) {
+            case PLAYER -> leaderboard.followerCount(item.id());
+            case GAME -> facetIndex.countByGame(item.id());
+            case USER -> playersByUser.getOrDefault(item.id(), Set.of()).stream()
+                    .mapToLong(leaderboard::followerCount)
+                    .max().orElse(0L);
+        };
+    }
+
+    private boolean isIndexedAs(Item item) {
+        List<String> keys = keysByItem.get(itemKey(item.type(), item.id()));
+        Indexed indexed = keys != null && !keys.isEmpty() ? index.get(keys.get(0)) : null;
+        return indexed != null && Objects.equals(indexed.item(), item);
+    }
+
+    private synchronized void put(Item item) {
+        String itemKey = itemKey(item.type(), item.id());
+        List<String> oldKeys = unindex(itemKey);
+        if (item.label() == null) {
+            patchTopK(new Change(itemKey, oldKeys, List.of(), null));
+            return;
+        }
+        Indexed indexed = new Indexed(item, normalize(item.label()));
+        List<String> keys = new ArrayList<>();
+        for (String suffix : wordStarts(indexed.normalizedLabel())) {
+            String key = suffix + KEY_SEPARATOR + itemKey;
+            index.put(key, indexed);
+            keys.add(key);
+        }
+        if (!keys.isEmpty()) {
+            keysByItem.put(itemKey, keys);
+        }
+        patchTopK(new Change(itemKey, oldKeys, keys, indexed));
+    }
+
+    private synchronized void remove(String itemKey) {
+        List<String> keys = unindex(itemKey);
+        if (!keys.isEmpty()) {
+            patchTopK(new Change(itemKey, keys, List.of(), null));
+        }
+    }
+
+    // Gỡ mọi khóa của item khỏi index, trả về các khóa đã gỡ
+    private List<String> unindex(String itemKey) {
+        List<String> keys = keysByItem.remove(itemKey);
+        if (keys == null) {
+            return List.of();
+        }
+        keys.forEach(index::remove);
+        return keys;
+    }
+
+    // Vá top-K đã giữ (và ghi lại cho các lần dựng đang chạy) của các tiền tố khớp khóa vừa gỡ/thêm
+    private void patchTopK(Change change) {
+        synchronized (topKByPrefix) {
+            topKByPrefix.replaceAll((prefix, topK) -> change.affects(prefix) ? patch(topK, prefix, change) : topK);
+            buildsInFlight.forEach((prefix, changes) -> {
+                if (change.affects(prefix)) {
+                    changes.add(change);
+                }
+            });
+        }
+    }
+
+    /**
+     * Bỏ item khỏi top-K, thêm lại với nhãn mới nếu nhãn mới còn khớp tiền tố. Item bị bỏ để trống một chỗ
+     * (TOP_K dư so với limit), lần dựng lại kế tiếp lấp lại
+     */
+    private TopK patch(TopK topK, String prefix, Change change) {
+        Map<Type, List<Hit>> byType = new EnumMap<>(Type.class);
+        topK.byType().forEach((type, hits) -> byType.put(type, hits.stream()
+                .filter(hit -> !itemKey(hit.item().type(), hit.item().id()).equals(change.itemKey()))
+                .toList()));
+        Indexed added = change.added();
+        if (added != null && Change.matches(change.newKeys(), prefix)) {
+            List<Hit> hits = new ArrayList<>(byType.getOrDefault(added.item().type(), List.of()));
+            hits.add(hit(added, prefix));
+            byType.put(added.item().type(), hits.stream().sorted(RANKING).limit(TOP_K).toList());
+        }
+        return new TopK(topK.builtAt(), byType);
+    }
+
+    private static Set<String> wordStarts(String normalized) {
+        Set<String> suffixes = new HashSet<>();
+        int start = 0;
+        while (start < normalized.length() && suffixes.size() < MAX_WORD_STARTS) {
+            suffixes.add(normalized.substring(start));
+            int space = normalized.indexOf(' ', start);
+            if (space < 0) {
+                break;
+            }
+            start = space + 1;
+        }
+        return suffixes;
+    }
+
+    private static String itemKey(Type type, Long id) {
+        return type.name() + ':' + id;
+    }
+
+    /**
+     * Bỏ dấu tiếng Việt (kể cả đ/Đ), chữ thường, ký tự khác chữ/số thành một khoảng trắng
+     */
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String stripped = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .replace('đ', 'd').replace('Đ', 'D')
+                .toLowerCase(Locale.ROOT);
+        return NON_ALNUM.matcher(stripped).replaceAll(" ").trim();
+    }
+}
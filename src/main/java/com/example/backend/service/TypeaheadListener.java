@@ -0,0 +1,42 @@
+package com.example.backend.service;
+
+import com.example.backend.entity.Game;
+import com.example.backend.entity.User;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * JPA entity listener của Game và User: báo tên game, họ tên user thay đổi cho TypeaheadIndex.
+ * Player được báo qua GamePlayerIndexListener.
+ */
+@Component
+public class TypeaheadListener {
+    // Lấy lười: listener được Hibernate tạo trong lúc dựng EntityManagerFactory
+    private final ObjectProvider<TypeaheadIndex> typeaheadIndex;
+
+    public TypeaheadListener(ObjectProvider<TypeaheadIndex> typeaheadIndex) {
+        this.typeaheadIndex = typeaheadIndex;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSaved(Object entity) {
+        if (entity instanceof Game game) {
+            typeaheadIndex.ifAvailable(index -> index.onGameSaved(game));
+        } else if (entity instanceof User user) {
+            typeaheadIndex.ifAvailable(index -> index.onUserSaved(user));
+        }
+    }
+
+    @PostRemove
+    public void onRemoved(Object entity) {
+        if (entity instanceof Game game) {
+            typeaheadIndex.ifAvailable(index -> index.onRemoved(TypeaheadIndex.Type.GAME, game.getId()));
+        } else if (entity instanceof User user) {
+            typeaheadIndex.ifAvailable(index -> index.onRemoved(TypeaheadIndex.Type.USER, user.getId()));
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.example.backend.service;
+
+import com.example.backend.repository.MomentImageRepository;
+import com.example.backend.repository.PlayerImageRepository;
+import com.example.backend.repository.ReportRepository;
+import com.example.backend.repository.UserRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Dọn file upload không còn được tham chiếu (mark-and-sweep).
+ *
+ * Mark: đọc một lượt mọi URL đang dùng (ảnh moment chưa xóa, ảnh player, avatar/ảnh hồ sơ/ảnh bìa,
+ * video report). Sweep: duyệt song song từng thư mục upload, file không được tham chiếu và
+ * cũ hơn thời gian ân hạn thì bị xóa. Trước khi xóa, tập tham chiếu được đọc lại một lần nữa
+ * để không xóa nhầm file vừa được gán trong lúc quét; file vừa được một upload trùng nội dung nhận
+ * (còn tham chiếu tạm PENDING_UPLOAD) cũng được giữ lại.
+ */
+@Service
+public class UploadGarbageCollector {
+    private static final Logger logger = LoggerFactory.getLogger(UploadGarbageCollector.class);
+
+    public record GcReport(Instant startedAt, long durationMs, boolean dryRun, long scanned, long referenced,
+                           long tooRecent, long orphaned, long deleted, long bytesReclaimed, long failed,
+                           List<String> sample) {
+    }
+
+    private record Candidate(String key, long size) {
+    }
+
+    private final FileStorageService fileStorageService;
+    private final MomentImageRepository momentImageRepository;
+    private final PlayerImageRepository playerImageRepository;
+    private final UserRepository userRepository;
+    private final ReportRepository reportRepository;
+
+    @Value("${upload-gc.directories:avatars,profile-images,cover-images,moment-images,player-images,report-videos}")
+    private List<String> directories;
+
+    @Value("${upload-gc.grace-period:PT24H}")
+    private Duration gracePeriod;
+
+    @Value("${upload-gc.dry-run:true}")
+    private boolean scheduledDryRun;
+
+    @Value("${upload-gc.threads:4}")
+    private int threads;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile GcReport lastReport;
+    // Số liệu cộng dồn từ lúc khởi động
+    private final AtomicLong totalRuns = new AtomicLong();
+    private final AtomicLong totalDeleted = new AtomicLong();
+    private final AtomicLong totalBytesReclaimed = new AtomicLong();
+
+    public UploadGarbageCollector(FileStorageService fileStorageService,
+                                  MomentImageRepository momentImageRepository,
+                                  PlayerImageRepository playerImageRepository,
+                                  UserRepository userRepository,
+                                  ReportRepository reportRepository) {
+        this.fileStorageService = fileStorageService;
+        this.momentImageRepository = momentImageRepository;
+        this.playerImageRepository = playerImageRepository;
+        this.userRepository = userRepository;
+        this.reportRepository = reportRepository;
+    }
+
+    @Scheduled(cron = "${upload-gc.cron:0 30 3 * * *}")
+    public void scheduledRun() {
+        run(scheduledDryRun);
+    }
+
+    /**
+     * Chạy một lượt dọn
+     * @param dryRun chỉ thống kê, không xóa file
+     * @return báo cáo, hoặc null nếu đang có lượt khác chạy
+     */
+    public GcReport run(boolean dryRun) {
+        if (!running.compareAndSet(false, true)) {
+            return null;
+        }
+        try {
+            GcReport report = collect(dryRun);
+            lastReport = report;
+            totalRuns.incrementAndGet();
+            totalDeleted.addAndGet(report.deleted());
+            totalBytesReclaimed.addAndGet(report.bytesReclaimed());
+            logger.info("Upload GC{}: scanned={}, orphaned={}, deleted={}, reclaimed={} bytes, failed={} ({} ms)",
+                    dryRun ? " (dry-run)" : "", report.scanned(), report.orphaned(), report.deleted(),
+                    report.bytesReclaimed(), report.failed(), report.durationMs());
+            return report;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    public GcReport getLastReport() {
+        return lastReport;
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    public long getTotalRuns() {
+        return totalRuns.get();
+    }
+
+    public long getTotalDeleted() {
+        return totalDeleted.get();
+    }
+
+    public long getTotalBytesReclaimed() {
+        return totalBytesReclaimed.get();
+    }
+
+    private GcReport collect(boolean dryRun) {
+        Instant startedAt = Instant.now();
+        long cutoff = startedAt.minus(gracePeriod).toEpochMilli();
+        if (!dryRun) {
+            fileStorageService.expirePendingReferences();
+        }
+        Set<String> referenced = loadReferencedPaths();
+
+        AtomicLong scanned = new AtomicLong();
+        AtomicLong live = new AtomicLong();
+        AtomicLong tooRecent = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        ConcurrentLinkedQueue<Candidate> candidates = new ConcurrentLinkedQueue<>();
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, directories.size())), runnable -> {
+            Thread thread = new Thread(runnable, "upload-gc");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<?>> scans = new ArrayList<>();
+            for (String directory : directories) {
+                scans.add(pool.submit(() -> {
+                    try {
+                        fileStorageService.listFiles(directory.trim(), entry -> {
+                            scanned.incrementAndGet();
+                            if (referenced.contains(entry.key())) {
+                                live.incrementAndGet();
+                            } else if (entry.lastModified() > cutoff) {
+                                tooRecent.incrementAndGet();
+                            } else {
+                                candidates.add(new Candidate(entry.key(), entry.size()));
+                            }
+                        });
+                    } catch (IOException e) {
+                        failed.incrementAndGet();
+                        logger.warn("Không duyệt được thư mục upload {}: {}", directory, e.getMessage());
+                    }
+                }));
+            }
+            for (Future<?> scan : scans) {
+                scan.get();
+            }
+        } catch (Exception e) {
+            logger.error("Upload GC bị gián đoạn khi quét", e);
+            failed.incrementAndGet();
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // Đọc lại tham chiếu: file có thể vừa được gán (upload trùng nội dung) trong lúc quét
+        Set<String> recheck = candidates.isEmpty() ? referenced : loadReferencedPaths();
+        long orphaned = 0;
+        long deleted = 0;
+        long bytes = 0;
+        List<String> sample = new ArrayList<>();
+        for (Candidate candidate : candidates) {
+            if (recheck.contains(candidate.key())) {
+                live.incrementAndGet();
+                continue;
+            }
+            orphaned++;
+            if (sample.size() < 20) {
+                sample.add(candidate.key());
+            }
+            if (dryRun) {
+                bytes += candidate.size();
+                continue;
+            }
+            try {
+                if (!fileStorageService.purgeIfNotPending(candidate.key())) {
+                    // Vừa có upload trùng nội dung nhận file này, chưa kịp gán vào entity
+                    orphaned--;
+                    live.incrementAndGet();
+                    continue;
+                }
+                deleted++;
+                bytes += candidate.size();
+            } catch (IOException | RuntimeException e) {
+                failed.incrementAndGet();
+                logger.warn("Không xóa được file {}: {}", candidate.key(), e.getMessage());
+            }
+        }
+
+        return new GcReport(startedAt, Duration.between(startedAt, Instant.now()).toMillis(), dryRun,
+                scanned.get(), live.get(), tooRecent.get(), orphaned, deleted, bytes, failed.get(), sample);
+    }
+
+    /**
+     * Tập đường dẫn (tương đối trong thư mục upload) đang được dùng, kèm các bản thu nhỏ của chúng
+     */
+    Set<String> loadReferencedPaths() {
+        Set<String> paths = new HashSet<>();
+        addAll(paths, momentImageRepository.findLiveImageUrls());
+        addAll(paths, playerImageRepository.findAllImageUrls());
+        addAll(paths, reportRepository.findAllVideoUrls());
+        for (Object[] row : userRepository.findMediaUrls()) {
+            for (Object url : row) {
+                add(paths, (String) url);
+            }
+        }
+        return paths;
+    }
+
+    private static void addAll(Set<String> paths, Collection<String> urls) {
+        for (String url : urls) {
+            add(paths, url);
+        }
+    }
+
+    private static void add(Set<String> paths, String url) {
+        String path = FileStorageService.toStoragePath(url);
+        if (path == null) {
+            return;
+        }
+        paths.add(path);
+        for (ImageDerivativeService.ImageSize size : ImageDerivativeService.ImageSize.values()) {
+            paths.add(ImageDerivativeService.derivativePath(path, size));
+        }
+    }
+}
@@ -5,6 +5,8 @@ import com.example.backend.entity.UserBan;
 import com.example.backend.repository.UserBanRepository;
 import com.example.backend.repository.UserRepository;
 import com.example.backend.exception.ResourceNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -15,6 +17,7 @@ import java.util.Optional;
 
 @Service
 public class UserBanService {
+    private static final Logger logger = LoggerFactory.getLogger(UserBanService.class);
 
     @Autowired
     private UserBanRepository userBanRepository;
@@ -25,6 +28,9 @@ public class UserBanService {
     @Autowired
     private EmailService emailService;
 
+    @Autowired
+    private BanStateCache banStateCache;
+
     /**
      * Ban user vĩnh viễn
      */
@@ -53,6 +59,7 @@ public class UserBanService {
 
         // Lưu ban record
         UserBan savedBan = userBanRepository.save(userBan);
+        banStateCache.onBanned(savedBan);
 
         // Disable user account
         user.setEnabled(false);
@@ -100,6 +107,7 @@ public class UserBanService {
 
         // Lưu ban record
         UserBan savedBan = userBanRepository.save(userBan);
+        banStateCache.onBanned(savedBan);
 
         // Disable user account
         user.setEnabled(false);
@@ -141,6 +149,7 @@ public class UserBanService {
 
         // Lưu ban record
         UserBan savedBan = userBanRepository.save(activeBan);
+        banStateCache.onLifted(userId);
 
         // Enable user account
         user.setEnabled(true);
@@ -160,16 +169,19 @@ public class UserBanService {
     }
 
     /**
-     * Kiểm tra user có bị ban không
+     * Kiểm tra user có bị ban không (đọc từ bộ nhớ)
      */
     public boolean isUserBanned(Long userId) {
-        return userBanRepository.isUserBanned(userId);
+        return banStateCache.isBanned(userId);
     }
 
     /**
      * Lấy thông tin ban hiện tại của user
      */
     public Optional<UserBan> getActiveBan(Long userId) {
+        if (!banStateCache.isBanned(userId)) {
+            return Optional.empty();
+        }
         return userBanRepository.findActiveBanByUserId(userId);
     }
 
@@ -209,22 +221,38 @@ public class UserBanService {
         List<UserBan> expiredBans = userBanRepository.findExpiredTemporaryBans(LocalDateTime.now());
         
         for (UserBan ban : expiredBans) {
-            // Cập nhật status thành EXPIRED
-            ban.setStatus("EXPIRED");
-            userBanRepository.save(ban);
+            liftExpiredBan(ban);
+        }
+    }
 
-            // Enable user account
-            User user = ban.getUser();
-            user.setEnabled(true);
-            user.setAccountNonLocked(true);
-            userRepository.save(user);
+    /**
+     * Gỡ một ban tạm thời đã đến hạn (gọi bởi BanExpiryScheduler)
+     */
+    @Transactional
+    public void expireBan(Long banId) {
+        userBanRepository.findById(banId)
+                .filter(ban -> "ACTIVE".equals(ban.getStatus()) && "TEMPORARY".equals(ban.getBanType()))
+                .filter(ban -> ban.getBanExpiresAt() != null && !ban.getBanExpiresAt().isAfter(LocalDateTime.now()))
+                .ifPresent(this::liftExpiredBan);
+    }
 
-            // Gửi email thông báo unban tự động
-            try {
-                emailService.sendUnbanNotification(user, "System", LocalDateTime.now());
-            } catch (Exception e) {
-                System.err.println("Lỗi gửi email thông báo unban tự động: " + e.getMessage());
-            }
+    private void liftExpiredBan(UserBan ban) {
+        // Cập nhật status thành EXPIRED
+        ban.setStatus("EXPIRED");
+        userBanRepository.save(ban);
+        banStateCache.onLifted(ban.getUser().getId());
+
+        // Enable user account
+        User user = ban.getUser();
+        user.setEnabled(true);
+        user.setAccountNonLocked(true);
+        userRepository.save(user);
+
+        // Gửi email thông báo unban tự động
+        try {
+            emailService.sendUnbanNotification(user, "System", LocalDateTime.now());
+        } catch (Exception e) {
+            logger.warn("Lỗi gửi email thông báo unban tự động cho user {}", user.getId(), e);
         }
     }
 
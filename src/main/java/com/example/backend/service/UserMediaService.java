@@ -0,0 +1,70 @@
+package com.example.backend.service;
+
+import com.example.backend.entity.UserMedia;
+import com.example.backend.repository.UserMediaRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+
+@Service
+public class UserMediaService {
+    private final UserMediaRepository userMediaRepository;
+
+    public UserMediaService(UserMediaRepository userMediaRepository) {
+        this.userMediaRepository = userMediaRepository;
+    }
+
+    @Transactional
+    public UserMedia store(Long userId, String mediaType, byte[] data, String contentType) {
+        UserMedia media = userMediaRepository.findByUserIdAndMediaType(userId, mediaType)
+                .orElseGet(UserMedia::new);
+        media.setUserId(userId);
+        media.setMediaType(mediaType);
+        media.setData(data);
+        media.setContentType(contentType);
+        media.setEtag(sha256(data));
+        return userMediaRepository.save(media);
+    }
+
+    @Transactional(readOnly = true)
+    public Optional<UserMedia> find(Long userId, String mediaType) {
+        return userMediaRepository.findByUserIdAndMediaType(userId, mediaType);
+    }
+
+    /**
+     * ETag của ảnh mà không tải dữ liệu ảnh; bản ghi cũ chưa có ETag thì tính và lưu lại
+     */
+    @Transactional
+    public Optional<String> findEtag(Long userId, String mediaType) {
+        Optional<String> etag = userMediaRepository.findEtag(userId, mediaType);
+        if (etag.isPresent()) {
+            return etag;
+        }
+        return userMediaRepository.findByUserIdAndMediaType(userId, mediaType).map(media -> {
+            media.setEtag(sha256(media.getData()));
+            return userMediaRepository.save(media).getEtag();
+        });
+    }
+
+    @Transactional
+    public void delete(Long userId, String mediaType) {
+        userMediaRepository.deleteByUserIdAndMediaType(userId, mediaType);
+    }
+
+    @Transactional
+    public void deleteAll(Long userId) {
+        userMediaRepository.deleteByUserId(userId);
+    }
+
+    private static String sha256(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
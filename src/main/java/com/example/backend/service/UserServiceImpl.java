@@ -1,6 +1,8 @@
 package com.example.backend.service;
 
+import com.example.backend.entity.FileReference;
 import com.example.backend.entity.User;
+import com.example.backend.entity.UserMedia;
 import com.example.backend.repository.UserRepository;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -27,18 +29,24 @@ public class UserServiceImpl implements UserService, UserDetailsService {
     private final FileStorageService fileStorageService;
     private final NotificationService notificationService;
     private final NotificationRepository notificationRepository;
+    private final PresenceTracker presenceTracker;
+    private final UserMediaService userMediaService;
 
     @Autowired
     public UserServiceImpl(UserRepository userRepository, 
                          PasswordEncoder passwordEncoder,
                          FileStorageService fileStorageService,
                          NotificationService notificationService,
-                         NotificationRepository notificationRepository) {
+                         NotificationRepository notificationRepository,
+                         PresenceTracker presenceTracker,
+                         UserMediaService userMediaService) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.fileStorageService = fileStorageService;
         this.notificationService = notificationService;
         this.notificationRepository = notificationRepository;
+        this.presenceTracker = presenceTracker;
+        this.userMediaService = userMediaService;
     }
 
     @Override
@@ -63,10 +71,8 @@ public class UserServiceImpl implements UserService, UserDetailsService {
     public User findByUsername(String username) {
         User user = userRepository.findByUsername(username)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with username: " + username));
-        // Cập nhật trạng thái online và lastActiveAt khi user hoạt động
-        user.setIsOnline(true);
-        user.setLastActiveAt(java.time.LocalDateTime.now());
-        userRepository.save(user);
+        // Ghi nhận hoạt động vào bộ nhớ, lastActiveAt được ghi xuống DB theo lô
+        presenceTracker.heartbeat(user.getId());
         return user;
     }
 
@@ -111,24 +117,20 @@ public class UserServiceImpl implements UserService, UserDetailsService {
     @Override
     public User updateAvatar(Long id, MultipartFile avatarFile) throws IOException {
         User user = findById(id);
-        if (user.getAvatarUrl() != null && !user.getAvatarUrl().isEmpty()) {
-            fileStorageService.deleteFile(user.getAvatarUrl());
-        }
         String avatarUrl = fileStorageService.storeFile(avatarFile, "avatars");
+        fileStorageService.replaceReference(user.getAvatarUrl(), avatarUrl, FileReference.AVATAR, id);
         user.setAvatarUrl(avatarUrl);
-        user.setAvatarData(avatarFile.getBytes());
+        userMediaService.store(id, UserMedia.AVATAR, avatarFile.getBytes(), avatarFile.getContentType());
         return userRepository.save(user);
     }
 
     @Override
     public User updateProfileImage(Long id, MultipartFile profileImageFile) throws IOException {
         User user = findById(id);
-        if (user.getProfileImageUrl() != null && !user.getProfileImageUrl().isEmpty()) {
-            fileStorageService.deleteFile(user.getProfileImageUrl());
-        }
         String profileImageUrl = fileStorageService.storeFile(profileImageFile, "profile-images");
+        fileStorageService.replaceReference(user.getProfileImageUrl(), profileImageUrl, FileReference.PROFILE_IMAGE, id);
         user.setProfileImageUrl(profileImageUrl);
-        user.setProfileImageData(profileImageFile.getBytes());
+        userMediaService.store(id, UserMedia.PROFILE_IMAGE, profileImageFile.getBytes(), profileImageFile.getContentType());
         return userRepository.save(user);
     }
 
@@ -136,9 +138,9 @@ public class UserServiceImpl implements UserService, UserDetailsService {
     public void deleteAvatar(Long id) throws IOException {
         User user = findById(id);
         if (user.getAvatarUrl() != null && !user.getAvatarUrl().isEmpty()) {
-            fileStorageService.deleteFile(user.getAvatarUrl());
+            fileStorageService.releaseReference(user.getAvatarUrl(), FileReference.AVATAR, id);
             user.setAvatarUrl(null);
-            user.setAvatarData(null);
+            userMediaService.delete(id, UserMedia.AVATAR);
             userRepository.save(user);
         }
     }
@@ -147,9 +149,9 @@ public class UserServiceImpl implements UserService, UserDetailsService {
     public void deleteProfileImage(Long id) throws IOException {
         User user = findById(id);
         if (user.getProfileImageUrl() != null && !user.getProfileImageUrl().isEmpty()) {
-            fileStorageService.deleteFile(user.getProfileImageUrl());
+            fileStorageService.releaseReference(user.getProfileImageUrl(), FileReference.PROFILE_IMAGE, id);
             user.setProfileImageUrl(null);
-            user.setProfileImageData(null);
+            userMediaService.delete(id, UserMedia.PROFILE_IMAGE);
             userRepository.save(user);
         }
     }
@@ -200,6 +202,7 @@ public class UserServiceImpl implements UserService, UserDetailsService {
     @Transactional
     public void deleteById(Long id) {
         notificationRepository.deleteByUserId(id);
+        userMediaService.deleteAll(id);
         userRepository.deleteById(id);
     }
 
@@ -211,11 +214,12 @@ public class UserServiceImpl implements UserService, UserDetailsService {
     }
 
     @Override
+    @Transactional
     public void setUserOffline(Long userId) {
-        User user = findById(userId);
-        user.setIsOnline(false);
-        user.setLastActiveAt(java.time.LocalDateTime.now());
-        userRepository.save(user);
+        presenceTracker.markOffline(userId);
+        if (userRepository.markOffline(userId, LocalDateTime.now()) == 0) {
+            throw new UsernameNotFoundException("User not found with id: " + userId);
+        }
     }
 
     @Override
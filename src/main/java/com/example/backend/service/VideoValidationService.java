@@ -0,0 +1,121 @@
+package com.example.backend.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Kiểm tra định dạng video bằng chứng của report ở nền, sau khi report đã được tạo
+ * với trạng thái video PROCESSING.
+ *
+ * Chỉ đọc vài byte đầu để nhận diện container (MP4/MOV/3GP, WebM/MKV, AVI, FLV, WMV).
+ */
+@Service
+public class VideoValidationService {
+    private static final Logger logger = LoggerFactory.getLogger(VideoValidationService.class);
+
+    public static final Set<String> VIDEO_EXTENSIONS = Set.of(
+        ".mp4", ".avi", ".mov", ".wmv", ".flv", ".webm", ".mkv", ".3gp");
+
+    private static final byte[] EBML = {0x1A, 0x45, (byte) 0xDF, (byte) 0xA3};
+    private static final byte[] ASF = {0x30, 0x26, (byte) 0xB2, 0x75, (byte) 0x8E, 0x66, (byte) 0xCF, 0x11};
+
+    private final FileStorageService fileStorageService;
+    private final ReportService reportService;
+    private final ThreadPoolExecutor executor;
+
+    public VideoValidationService(FileStorageService fileStorageService,
+                                  ReportService reportService,
+                                  @Value("${report.video.validation-threads:1}") int threads,
+                                  @Value("${report.video.validation-queue-capacity:100}") int queueCapacity) {
+        this.fileStorageService = fileStorageService;
+        this.reportService = reportService;
+        AtomicInteger counter = new AtomicInteger();
+        // Hàng đợi đầy thì chạy trên thread gọi: thà chậm request còn hơn bỏ sót video chưa kiểm tra
+        this.executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            runnable -> {
+                Thread thread = new Thread(runnable, "video-validation-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    public static boolean isVideoExtension(String extension) {
+        return extension != null && VIDEO_EXTENSIONS.contains(extension.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Xếp hàng kiểm tra video của report vừa tạo
+     * @param filePath relative path of the stored video
+     */
+    public void scheduleValidation(Long reportId, String filePath) {
+        executor.execute(() -> {
+            boolean valid;
+            try {
+                try (InputStream in = fileStorageService.openStream(filePath, 0, 12)) {
+                    valid = hasVideoSignature(in);
+                }
+            } catch (IOException e) {
+                logger.warn("Không đọc được video {} của report {}: {}", filePath, reportId, e.getMessage());
+                valid = false;
+            }
+            try {
+                reportService.completeVideoValidation(reportId, valid);
+            } catch (Exception e) {
+                logger.error("Không cập nhật được trạng thái video của report {}", reportId, e);
+            }
+        });
+    }
+
+    static boolean hasVideoSignature(InputStream in) throws IOException {
+        byte[] header = new byte[12];
+        int read = in.readNBytes(header, 0, header.length);
+        if (read < header.length) {
+            return false;
+        }
+        // ISO base media (MP4, MOV, 3GP): "ftyp" tại offset 4
+        if (header[4] == 'f' && header[5] == 't' && header[6] == 'y' && header[7] == 'p') {
+            return true;
+        }
+        // QuickTime cũ bắt đầu bằng atom moov/mdat/wide/free
+        String atom = new String(header, 4, 4, StandardCharsets.US_ASCII);
+        if (atom.equals("moov") || atom.equals("mdat") || atom.equals("wide") || atom.equals("free")) {
+            return true;
+        }
+        // Matroska / WebM
+        if (Arrays.equals(header, 0, 4, EBML, 0, 4)) {
+            return true;
+        }
+        // AVI: "RIFF" .... "AVI "
+        if (header[0] == 'R' && header[1] == 'I' && header[2] == 'F' && header[3] == 'F'
+                && header[8] == 'A' && header[9] == 'V' && header[10] == 'I') {
+            return true;
+        }
+        // FLV
+        if (header[0] == 'F' && header[1] == 'L' && header[2] == 'V') {
+            return true;
+        }
+        // WMV (ASF header GUID)
+        return Arrays.equals(header, 0, 8, ASF, 0, 8);
+    }
+}
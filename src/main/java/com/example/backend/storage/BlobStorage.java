@@ -0,0 +1,68 @@
+package com.example.backend.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Nơi lưu nội dung file upload. Key là đường dẫn logic lưu trong DB,
+ * ví dụ "moment-images/<sha256>.jpg"; mỗi backend tự quyết cách bố trí vật lý.
+ *
+ * Chọn backend bằng storage.backend=local|s3.
+ */
+public interface BlobStorage {
+
+    record BlobInfo(long size, long lastModified) {
+    }
+
+    record BlobEntry(String key, long size, long lastModified) {
+    }
+
+    /**
+     * Lưu file tạm vào key. File nguồn bị chuyển đi hoặc xóa sau khi lưu xong.
+     */
+    void put(String key, Path source, String contentType) throws IOException;
+
+    /**
+     * @return kích thước và thời gian sửa, hoặc null nếu không tồn tại
+     */
+    BlobInfo stat(String key) throws IOException;
+
+    default boolean exists(String key) {
+        try {
+            return stat(key) != null;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Đọc một đoạn của blob
+     * @param length số byte cần đọc, hoặc -1 để đọc tới hết
+     */
+    InputStream openRange(String key, long offset, long length) throws IOException;
+
+    void delete(String key) throws IOException;
+
+    /**
+     * Duyệt mọi blob có key bắt đầu bằng "prefix/" (bỏ qua file tạm)
+     */
+    void list(String prefix, Consumer<BlobEntry> consumer) throws IOException;
+
+    /**
+     * File trên đĩa cục bộ của blob (dùng cho sendfile), rỗng với backend từ xa
+     */
+    default Optional<Path> localPath(String key) {
+        return Optional.empty();
+    }
+
+    // Key do client gửi lên không được thoát ra ngoài vùng lưu trữ
+    static void checkKey(String key) {
+        if (key == null || key.isEmpty() || key.startsWith("/") || key.contains("\\")
+                || key.equals("..") || key.startsWith("../") || key.contains("/../") || key.endsWith("/..")) {
+            throw new IllegalArgumentException("Invalid storage key: " + key);
+        }
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.backend.storage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Lưu blob trên đĩa cục bộ, chia thư mục theo hash tên file để thư mục không phình to:
+ * "moment-images/abcd1234....jpg" -> "<upload-dir>/moment-images/ab/cd/abcd1234....jpg".
+ *
+ * File cũ nằm phẳng trong "<upload-dir>/<subDir>/" vẫn đọc được.
+ */
+@Component
+@ConditionalOnProperty(name = "storage.backend", havingValue = "local", matchIfMissing = true)
+public class LocalShardedBlobStorage implements BlobStorage {
+    private static final Pattern HEX_PREFIX = Pattern.compile("^[0-9a-f]{4}.*");
+
+    private final Path root;
+
+    public LocalShardedBlobStorage(@Value("${file.upload-dir}") String uploadDir) {
+        this.root = Paths.get(uploadDir).toAbsolutePath().normalize();
+    }
+
+    @Override
+    public void put(String key, Path source, String contentType) throws IOException {
+        Path target = shardedPath(key);
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            // Nguồn ở filesystem khác: chép vào cạnh đích trước rồi mới đổi tên
+            Path temp = Files.createTempFile(target.getParent(), ".put-", ".tmp");
+            try {
+                Files.copy(source, temp, StandardCopyOption.REPLACE_EXISTING);
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+                Files.deleteIfExists(source);
+            }
+        }
+    }
+
+    @Override
+    public BlobInfo stat(String key) throws IOException {
+        Path path = resolve(key);
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            if (!attributes.isRegularFile()) {
+                return null;
+            }
+            return new BlobInfo(attributes.size(), attributes.lastModifiedTime().toMillis());
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public InputStream openRange(String key, long offset, long length) throws IOException {
+        InputStream in = Files.newInputStream(resolve(key));
+        try {
+            in.skipNBytes(offset);
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+        return length < 0 ? in : new BoundedInputStream(in, length);
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(shardedPath(key));
+        Files.deleteIfExists(legacyPath(key));
+    }
+
+    @Override
+    public void list(String prefix, Consumer<BlobEntry> consumer) throws IOException {
+        Path dir = checked(root.resolve(prefix));
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        // Cả file đã chia thư mục (ab/cd/<name>) lẫn file phẳng cũ đều có key "<prefix>/<name>"
+        Files.walkFileTree(dir, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attributes) {
+                String name = file.getFileName().toString();
+                if (attributes.isRegularFile() && !name.startsWith(".")) {
+                    consumer.accept(new BlobEntry(prefix + "/" + name, attributes.size(),
+                            attributes.lastModifiedTime().toMillis()));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    @Override
+    public Optional<Path> localPath(String key) {
+        Path path = resolve(key);
+        return Files.isRegularFile(path) ? Optional.of(path) : Optional.empty();
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    // Ưu tiên vị trí đã chia thư mục, sau đó tới vị trí phẳng cũ
+    private Path resolve(String key) {
+        Path sharded = shardedPath(key);
+        if (Files.exists(sharded)) {
+            return sharded;
+        }
+        Path legacy = legacyPath(key);
+        return Files.exists(legacy) ? legacy : sharded;
+    }
+
+    Path shardedPath(String key) {
+        BlobStorage.checkKey(key);
+        int slash = key.lastIndexOf('/');
+        String dir = slash >= 0 ? key.substring(0, slash + 1) : "";
+        String name = key.substring(slash + 1);
+        String shard = shardOf(name);
+        return checked(root.resolve(dir + shard.substring(0, 2) + "/" + shard.substring(2, 4) + "/" + name));
+    }
+
+    private Path legacyPath(String key) {
+        BlobStorage.checkKey(key);
+        return checked(root.resolve(key));
+    }
+
+    private Path checked(Path path) {
+        Path normalized = path.normalize();
+        if (!normalized.startsWith(root)) {
+            throw new IllegalArgumentException("Invalid storage key: " + path);
+        }
+        return normalized;
+    }
+
+    // Tên theo hash nội dung đã phân bố đều: dùng luôn 4 ký tự đầu; tên khác thì băm tên
+    private static String shardOf(String name) {
+        if (HEX_PREFIX.matcher(name).matches()) {
+            return name.substring(0, 4);
+        }
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(name.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash, 0, 2);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
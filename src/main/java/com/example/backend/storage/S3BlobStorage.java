@@ -0,0 +1,297 @@
+package com.example.backend.storage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Lưu blob trên dịch vụ tương thích S3 (AWS S3, MinIO...) qua REST API, ký bằng AWS Signature V4.
+ * Dùng URL kiểu path-style: {endpoint}/{bucket}/{key}, nên chạy được với MinIO cục bộ.
+ *
+ * Không dùng SDK: chỉ cần PUT, HEAD, GET có Range, DELETE và ListObjectsV2.
+ */
+@Component
+@ConditionalOnProperty(name = "storage.backend", havingValue = "s3")
+public class S3BlobStorage implements BlobStorage {
+    private static final String UNSIGNED_PAYLOAD = "UNSIGNED-PAYLOAD";
+    private static final String EMPTY_SHA256 = "e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855";
+    private static final DateTimeFormatter AMZ_DATE = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss'Z'");
+    private static final DateTimeFormatter DATE_STAMP = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    private final HttpClient httpClient;
+    private final URI endpoint;
+    private final String bucket;
+    private final String region;
+    private final String accessKey;
+    private final String secretKey;
+
+    public S3BlobStorage(@Value("${storage.s3.endpoint}") String endpoint,
+                         @Value("${storage.s3.bucket}") String bucket,
+                         @Value("${storage.s3.region:us-east-1}") String region,
+                         @Value("${storage.s3.access-key}") String accessKey,
+                         @Value("${storage.s3.secret-key}") String secretKey) {
+        this.endpoint = URI.create(endpoint.endsWith("/") ? endpoint.substring(0, endpoint.length() - 1) : endpoint);
+        this.bucket = bucket;
+        this.region = region;
+        this.accessKey = accessKey;
+        this.secretKey = secretKey;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    @Override
+    public void put(String key, Path source, String contentType) throws IOException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(objectUri(key))
+                .PUT(HttpRequest.BodyPublishers.ofFile(source))
+                .header("Content-Type", contentType != null ? contentType : "application/octet-stream");
+        HttpResponse<String> response = send(sign(builder, "PUT", canonicalPath(key), "", UNSIGNED_PAYLOAD),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException("S3 PUT " + key + " failed: " + response.statusCode() + " " + response.body());
+        }
+        Files.deleteIfExists(source);
+    }
+
+    @Override
+    public BlobInfo stat(String key) throws IOException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(objectUri(key))
+                .method("HEAD", HttpRequest.BodyPublishers.noBody());
+        HttpResponse<Void> response = send(sign(builder, "HEAD", canonicalPath(key), "", EMPTY_SHA256),
+                HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() == 404) {
+            return null;
+        }
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException("S3 HEAD " + key + " failed: " + response.statusCode());
+        }
+        long size = response.headers().firstValueAsLong("Content-Length").orElse(0L);
+        long lastModified = response.headers().firstValue("Last-Modified")
+                .map(value -> ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli())
+                .orElse(0L);
+        return new BlobInfo(size, lastModified);
+    }
+
+    @Override
+    public InputStream openRange(String key, long offset, long length) throws IOException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(objectUri(key)).GET();
+        if (offset > 0 || length >= 0) {
+            String end = length >= 0 ? String.valueOf(offset + length - 1) : "";
+            builder.header("Range", "bytes=" + offset + "-" + end);
+        }
+        HttpResponse<InputStream> response = send(sign(builder, "GET", canonicalPath(key), "", EMPTY_SHA256),
+                HttpResponse.BodyHandlers.ofInputStream());
+        if (response.statusCode() == 200 || response.statusCode() == 206) {
+            return response.body();
+        }
+        response.body().close();
+        if (response.statusCode() == 404) {
+            throw new FileNotFoundException("File not found: " + key);
+        }
+        throw new IOException("S3 GET " + key + " failed: " + response.statusCode());
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(objectUri(key)).DELETE();
+        HttpResponse<String> response = send(sign(builder, "DELETE", canonicalPath(key), "", EMPTY_SHA256),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() / 100 != 2 && response.statusCode() != 404) {
+            throw new IOException("S3 DELETE " + key + " failed: " + response.statusCode());
+        }
+    }
+
+    @Override
+    public void list(String prefix, Consumer<BlobEntry> consumer) throws IOException {
+        String continuationToken = null;
+        do {
+            // Tham số query phải được sắp xếp theo tên khi ký
+            Map<String, String> params = new TreeMap<>();
+            if (continuationToken != null) {
+                params.put("continuation-token", continuationToken);
+            }
+            params.put("list-type", "2");
+            params.put("prefix", prefix + "/");
+            StringBuilder query = new StringBuilder();
+            params.forEach((name, value) -> {
+                if (query.length() > 0) {
+                    query.append('&');
+                }
+                query.append(uriEncode(name)).append('=').append(uriEncode(value));
+            });
+            String bucketPath = "/" + uriEncode(bucket);
+            HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(endpoint + bucketPath + "?" + query)).GET();
+            HttpResponse<InputStream> response = send(sign(builder, "GET", bucketPath, query.toString(), EMPTY_SHA256),
+                    HttpResponse.BodyHandlers.ofInputStream());
+            try (InputStream body = response.body()) {
+                if (response.statusCode() != 200) {
+                    throw new IOException("S3 LIST " + prefix + " failed: " + response.statusCode());
+                }
+                Document document = parseXml(body);
+                NodeList contents = document.getElementsByTagNameNS("*", "Contents");
+                for (int i = 0; i < contents.getLength(); i++) {
+                    Element item = (Element) contents.item(i);
+                    String key = childText(item, "Key");
+                    String name = key.substring(key.lastIndexOf('/') + 1);
+                    if (name.isEmpty() || name.startsWith(".")) {
+                        continue;
+                    }
+                    long size = Long.parseLong(childText(item, "Size"));
+                    long lastModified = Instant.parse(childText(item, "LastModified")).toEpochMilli();
+                    consumer.accept(new BlobEntry(key, size, lastModified));
+                }
+                continuationToken = "true".equals(childText(document.getDocumentElement(), "IsTruncated"))
+                        ? childText(document.getDocumentElement(), "NextContinuationToken")
+                        : null;
+            }
+        } while (continuationToken != null);
+    }
+
+    private static Document parseXml(InputStream body) throws IOException {
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setNamespaceAware(true);
+            factory.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+            return factory.newDocumentBuilder().parse(body);
+        } catch (ParserConfigurationException | SAXException e) {
+            throw new IOException("Invalid S3 list response", e);
+        }
+    }
+
+    private static String childText(Element parent, String name) {
+        NodeList nodes = parent.getElementsByTagNameNS("*", name);
+        return nodes.getLength() > 0 ? nodes.item(0).getTextContent() : null;
+    }
+
+    private <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> handler) throws IOException {
+        try {
+            return httpClient.send(request, handler);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while calling S3", e);
+        }
+    }
+
+    private URI objectUri(String key) {
+        return URI.create(endpoint + canonicalPath(key));
+    }
+
+    private String canonicalPath(String key) {
+        BlobStorage.checkKey(key);
+        StringBuilder path = new StringBuilder("/").append(uriEncode(bucket));
+        for (String segment : key.split("/")) {
+            path.append('/').append(uriEncode(segment));
+        }
+        return path.toString();
+    }
+
+    /**
+     * Ký request theo AWS Signature Version 4 (header Authorization)
+     */
+    private HttpRequest sign(HttpRequest.Builder builder, String method, String canonicalPath,
+                             String canonicalQuery, String payloadHash) {
+        ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+        String amzDate = AMZ_DATE.format(now);
+        String dateStamp = DATE_STAMP.format(now);
+        int port = endpoint.getPort();
+        boolean defaultPort = port < 0 || (port == 80 && "http".equals(endpoint.getScheme()))
+                || (port == 443 && "https".equals(endpoint.getScheme()));
+        String host = defaultPort ? endpoint.getHost() : endpoint.getHost() + ":" + port;
+
+        Map<String, String> headers = new TreeMap<>();
+        headers.put("host", host);
+        headers.put("x-amz-content-sha256", payloadHash);
+        headers.put("x-amz-date", amzDate);
+
+        StringBuilder canonicalHeaders = new StringBuilder();
+        headers.forEach((name, value) -> canonicalHeaders.append(name).append(':').append(value.trim()).append('\n'));
+        String signedHeaders = String.join(";", headers.keySet());
+
+        String canonicalRequest = method + "\n"
+                + canonicalPath + "\n"
+                + canonicalQuery + "\n"
+                + canonicalHeaders + "\n"
+                + signedHeaders + "\n"
+                + payloadHash;
+        String scope = dateStamp + "/" + region + "/s3/aws4_request";
+        String stringToSign = "AWS4-HMAC-SHA256\n" + amzDate + "\n" + scope + "\n" + sha256Hex(canonicalRequest);
+
+        byte[] signingKey = hmac(("AWS4" + secretKey).getBytes(StandardCharsets.UTF_8), dateStamp);
+        signingKey = hmac(signingKey, region);
+        signingKey = hmac(signingKey, "s3");
+        signingKey = hmac(signingKey, "aws4_request");
+        String signature = HexFormat.of().formatHex(hmac(signingKey, stringToSign));
+
+        return builder
+                .header("x-amz-content-sha256", payloadHash)
+                .header("x-amz-date", amzDate)
+                .header("Authorization", "AWS4-HMAC-SHA256 Credential=" + accessKey + "/" + scope
+                        + ", SignedHeaders=" + signedHeaders + ", Signature=" + signature)
+                .timeout(Duration.ofMinutes(5))
+                .build();
+    }
+
+    private static byte[] hmac(byte[] key, String data) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(key, "HmacSHA256"));
+            return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String sha256Hex(String data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // URI encode theo RFC 3986 như S3 yêu cầu (không encode - _ . ~)
+    private static String uriEncode(String value) {
+        StringBuilder encoded = new StringBuilder();
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            char c = (char) (b & 0xFF);
+            if ((c >= 'A' && c <= 'Z') || (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')
+                    || c == '-' || c == '_' || c == '.' || c == '~') {
+                encoded.append(c);
+            } else {
+                encoded.append('%').append(String.format("%02X", b & 0xFF));
+            }
+        }
+        return encoded.toString();
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.backend.service;
+
+import com.example.backend.repository.GamePlayerRepository;
+import com.example.backend.repository.PlayerFollowRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CoFollowRecommenderTest {
+    private static final double EPSILON = 1e-9;
+
+    @Test
+    void scoresCandidatesByCosineOfCommonFollowers() {
+        // Player 100 có 3 follower, 200 có 2, 300 có 1; 100 và 200 có 2 follower chung, 100 và 300 có 1
+        CoFollowRecommender recommender = rebuilt(List.<Object[]>of(
+                pair(1, 100), pair(1, 200),
+                pair(2, 100), pair(2, 200),
+                pair(3, 100), pair(3, 300)));
+
+        List<CoFollowRecommender.Suggestion> forUser3 = recommend(recommender, 3L);
+        assertEquals(1, forUser3.size());
+        assertEquals(200L, forUser3.get(0).gamePlayerId());
+        assertEquals(2.0 / Math.sqrt(3 * 2), forUser3.get(0).score(), EPSILON);
+        assertEquals(2, forUser3.get(0).commonFollowers());
+
+        List<CoFollowRecommender.Suggestion> forUser1 = recommend(recommender, 1L);
+        assertEquals(1, forUser1.size());
+        assertEquals(300L, forUser1.get(0).gamePlayerId());
+        assertEquals(1.0 / Math.sqrt(3 * 1), forUser1.get(0).score(), EPSILON);
+    }
+
+    @Test
+    void playersOwnedByTheUserAreNotSuggested() {
+        CoFollowRecommender recommender = recommender(List.<Object[]>of(pair(1, 100), pair(1, 200), pair(2, 100)),
+                List.<Object[]>of(new Object[]{200L, 2L}));
+        recommender.rebuild();
+
+        assertEquals(List.of(), recommend(recommender, 2L));
+    }
+
+    @Test
+    void incrementalFollowsMatchAFullRebuild() {
+        Random random = new Random(42);
+        List<Object[]> initial = new ArrayList<>();
+        Set<List<Long>> follows = new LinkedHashSet<>();
+        for (int i = 0; i < 300; i++) {
+            List<Long> follow = List.of((long) random.nextInt(40) + 1, (long) random.nextInt(25) + 100);
+            if (follows.add(follow)) {
+                initial.add(pair(follow.get(0), follow.get(1)));
+            }
+        }
+        CoFollowRecommender incremental = rebuilt(initial);
+        for (int i = 0; i < 400; i++) {
+            long userId = random.nextInt(40) + 1;
+            long gamePlayerId = random.nextInt(25) + 100;
+            if (follows.remove(List.of(userId, gamePlayerId))) {
+                incremental.onFollowRemoved(userId, gamePlayerId);
+            } else {
+                follows.add(List.of(userId, gamePlayerId));
+                incremental.onFollowAdded(userId, gamePlayerId, null);
+            }
+        }
+        incremental.refreshStaleUsers();
+
+        CoFollowRecommender full = rebuilt(follows.stream().map(follow -> pair(follow.get(0), follow.get(1))).toList());
+        for (long userId = 1; userId <= 40; userId++) {
+            // Điểm bằng nhau có thể ra thứ tự khác nhau: so theo từng player
+            Map<Long, CoFollowRecommender.Suggestion> expected = byPlayer(recommend(full, userId));
+            Map<Long, CoFollowRecommender.Suggestion> actual = byPlayer(recommend(incremental, userId));
+            assertEquals(expected.keySet(), actual.keySet(), "user " + userId);
+            for (Long gamePlayerId : expected.keySet()) {
+                assertEquals(expected.get(gamePlayerId).score(), actual.get(gamePlayerId).score(), EPSILON,
+                        "user " + userId + ", player " + gamePlayerId);
+                assertEquals(expected.get(gamePlayerId).commonFollowers(), actual.get(gamePlayerId).commonFollowers(),
+                        "user " + userId + ", player " + gamePlayerId);
+            }
+        }
+    }
+
+    @Test
+    void pairsWithoutCommonFollowersAreDropped() {
+        CoFollowRecommender.Graph graph = new CoFollowRecommender.Graph();
+        graph.addFollow(1, 100);
+        graph.addFollow(1, 200);
+        graph.addFollow(1, 300);
+        graph.addFollow(2, 100);
+        graph.addFollow(2, 200);
+
+        graph.removeFollow(1, 300);
+        assertEquals(2, graph.coFollows.size());
+        assertEquals(1, graph.coFollows.get(100).size());
+
+        graph.removeFollow(2, 200);
+        graph.removeFollow(1, 200);
+        assertEquals(0, graph.coFollows.size());
+    }
+
+    @Test
+    void otherUsersAreRefreshedOnlyBySchedule() {
+        // User 1 và 2 cùng theo dõi 100; user 3 theo dõi 100 và 200 nên 200 thành gợi ý của user 1 và 2
+        CoFollowRecommender recommender = rebuilt(List.<Object[]>of(pair(1, 100), pair(2, 100), pair(3, 100)));
+        recommender.onFollowAdded(3L, 200L, null);
+        assertEquals(List.of(), recommend(recommender, 1L));
+
+        recommender.refreshStaleUsers();
+        assertEquals(List.of(200L), recommend(recommender, 1L).stream()
+                .map(CoFollowRecommender.Suggestion::gamePlayerId).toList());
+
+        // Unfollow làm cặp (100, 200) về 0: user 1 vẫn phải được làm mới dù cặp đã bị xóa khỏi dòng co-follow
+        recommender.onFollowRemoved(3L, 200L);
+        recommender.refreshStaleUsers();
+        assertEquals(List.of(), recommend(recommender, 1L));
+    }
+
+    private static Map<Long, CoFollowRecommender.Suggestion> byPlayer(List<CoFollowRecommender.Suggestion> suggestions) {
+        return suggestions.stream().collect(Collectors.toMap(CoFollowRecommender.Suggestion::gamePlayerId,
+                Function.identity()));
+    }
+
+    private static List<CoFollowRecommender.Suggestion> recommend(CoFollowRecommender recommender, Long userId) {
+        return recommender.recommend(userId, 100, Set.of(), gamePlayerId -> true);
+    }
+
+    private static CoFollowRecommender rebuilt(List<Object[]> follows) {
+        CoFollowRecommender recommender = recommender(follows, List.of());
+        recommender.rebuild();
+        return recommender;
+    }
+
+    private static CoFollowRecommender recommender(List<Object[]> follows, List<Object[]> owners) {
+        PlayerFollowRepository playerFollowRepository = mock(PlayerFollowRepository.class);
+        GamePlayerRepository gamePlayerRepository = mock(GamePlayerRepository.class);
+        when(playerFollowRepository.findAllFollowPairs()).thenReturn(follows);
+        when(gamePlayerRepository.findOwnerRows()).thenReturn(owners);
+        CoFollowRecommender recommender = new CoFollowRecommender(playerFollowRepository, gamePlayerRepository);
+        ReflectionTestUtils.setField(recommender, "topN", 100);
+        return recommender;
+    }
+
+    private static Object[] pair(long userId, long gamePlayerId) {
+        return new Object[]{userId, gamePlayerId};
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.backend.service;
+
+import com.example.backend.entity.FileReference;
+import com.example.backend.repository.FileMetadataRepository;
+import com.example.backend.repository.FileReferenceRepository;
+import com.example.backend.storage.BlobStorage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FileStorageServiceTest {
+    private BlobStorage storage;
+    private FileReferenceRepository fileReferenceRepository;
+    private FileStorageService service;
+
+    @BeforeEach
+    void setUp() {
+        storage = mock(BlobStorage.class);
+        fileReferenceRepository = mock(FileReferenceRepository.class);
+        service = new FileStorageService(storage, mock(FileMetadataRepository.class), fileReferenceRepository,
+                mock(ImageDerivativeService.class), mock(PlatformTransactionManager.class));
+    }
+
+    @Test
+    void storagePathIsResolvedFromUploadAndServedUrls() {
+        assertEquals("player-images/a.jpg", FileStorageService.toStoragePath("http://host/uploads/player-images/a.jpg"));
+        assertEquals("avatars/a.jpg", FileStorageService.toStoragePath("/uploads/avatars/a.jpg"));
+        assertEquals("moment-images/a.jpg", FileStorageService.toStoragePath("moment-images/a.jpg"));
+        assertEquals("moment-images/a.jpg", FileStorageService.toStoragePath("/api/moments/moment-images/a.jpg"));
+        assertEquals("player-images/a.jpg", FileStorageService.toStoragePath("/api/files/images/a.jpg"));
+        assertEquals("report-videos/a.mp4", FileStorageService.toStoragePath("/api/files/videos/a.mp4"));
+    }
+
+    @Test
+    void pathsOutsideTheUploadDirectoriesAreNotStoragePaths() {
+        assertNull(FileStorageService.toStoragePath("https://cdn.example.com/avatars/a.jpg"));
+        assertNull(FileStorageService.toStoragePath("/api/other/a.jpg"));
+        assertNull(FileStorageService.toStoragePath("a.jpg"));
+        assertNull(FileStorageService.toStoragePath(".staging/.upload-1.tmp"));
+        assertNull(FileStorageService.toStoragePath(" "));
+    }
+
+    @Test
+    void untrackedPathIsIgnored() {
+        service.addReference("/api/other/a.jpg", FileReference.MOMENT_IMAGE, 1L);
+
+        verify(storage, never()).exists(any());
+        verify(fileReferenceRepository, never()).save(any());
+    }
+
+    @Test
+    void missingUploadIsRejected() {
+        when(storage.exists("moment-images/a.jpg")).thenReturn(false);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> service.addReference("/api/moments/moment-images/a.jpg", FileReference.MOMENT_IMAGE, 1L));
+    }
+
+    @Test
+    void ownerReferenceReplacesPendingUploadReference() {
+        FileReference pending = new FileReference();
+        when(storage.exists("moment-images/a.jpg")).thenReturn(true);
+        when(fileReferenceRepository.findFirstByPathAndOwnerTypeOrderByCreatedAtAsc(
+                "moment-images/a.jpg", FileReference.PENDING_UPLOAD)).thenReturn(Optional.of(pending));
+
+        service.addReference("/api/moments/moment-images/a.jpg", FileReference.MOMENT_IMAGE, 1L);
+
+        verify(fileReferenceRepository).save(any(FileReference.class));
+        verify(fileReferenceRepository).delete(pending);
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.backend.service;
+
+import com.example.backend.entity.Game;
+import com.example.backend.entity.GamePlayer;
+import com.example.backend.entity.User;
+import com.example.backend.repository.GamePlayerRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class GamePlayerFacetIndexTest {
+    private GamePlayerFacetIndex index;
+
+    @BeforeEach
+    void setUp() {
+        GamePlayerRepository repository = mock(GamePlayerRepository.class);
+        when(repository.findFacetRows()).thenReturn(List.of(
+                row(1L, 10L, 100L, "Gold", "Mid", "VN", "AVAILABLE", "15"),
+                row(2L, 11L, 100L, "Diamond", "Support", "VN", "AVAILABLE", "30"),
+                row(3L, 12L, 200L, "Gold", "Mid", "SEA", "AVAILABLE", "60"),
+                row(4L, 13L, 200L, "Diamond", "Mid", "VN", "BUSY", "25"),
+                row(5L, 14L, 100L, "Gold", "Mid", "VN", "BANNED", "10")));
+        index = new GamePlayerFacetIndex(repository, mock(BanStateCache.class),
+                List.of(new BigDecimal("0"), new BigDecimal("20"), new BigDecimal("50")));
+        index.rebuild();
+    }
+
+    @Test
+    void countsOfEachFacetIgnoreItsOwnSelection() {
+        GamePlayerFacetIndex.FacetResult result = index.query(Map.of(
+                GamePlayerFacetIndex.Facet.GAME, Set.of("100"),
+                GamePlayerFacetIndex.Facet.RANK, Set.of("Gold")), 10);
+
+        assertEquals(1, result.total());
+        assertEquals(List.of(1L), result.ids());
+        // GAME đếm trên bộ lọc RANK=Gold, RANK đếm trên bộ lọc GAME=100; player BANNED bị loại
+        assertEquals(Map.of("100", 1, "200", 1), result.counts().get(GamePlayerFacetIndex.Facet.GAME));
+        assertEquals(Map.of("Gold", 1, "Diamond", 1), result.counts().get(GamePlayerFacetIndex.Facet.RANK));
+        assertEquals(Map.of("Mid", 1), result.counts().get(GamePlayerFacetIndex.Facet.ROLE));
+    }
+
+    @Test
+    void valuesWithinAFacetAreOred() {
+        GamePlayerFacetIndex.FacetResult result = index.query(Map.of(
+                GamePlayerFacetIndex.Facet.PRICE, Set.of("0-20", "50+"),
+                GamePlayerFacetIndex.Facet.ROLE, Set.of("Mid")), 10);
+
+        assertEquals(List.of(1L, 3L), result.ids());
+        assertEquals(Map.of("0-20", 1, "20-50", 1, "50+", 1), result.counts().get(GamePlayerFacetIndex.Facet.PRICE));
+    }
+
+    @Test
+    void removedOrdinalIsReusedWithoutLeakingOldPostings() {
+        index.onRemoved(2L);
+        index.onSaved(player(6L, 15L, 200L, "Silver", "Support", "SEA", "AVAILABLE", "45"));
+
+        assertEquals(5, index.size());
+        GamePlayerFacetIndex.FacetResult all = index.query(Map.of(), 10);
+        // Player mới nhận lại ordinal 1 của player 2 nên đứng ở vị trí của nó
+        assertEquals(List.of(1L, 6L, 3L, 4L), all.ids());
+        assertEquals(Map.of("Gold", 2, "Diamond", 1, "Silver", 1), all.counts().get(GamePlayerFacetIndex.Facet.RANK));
+        assertEquals(Map.of("Mid", 3, "Support", 1), all.counts().get(GamePlayerFacetIndex.Facet.ROLE));
+        assertEquals(1, index.countByGame(100L));
+        assertEquals(3, index.countByGame(200L));
+    }
+
+    @Test
+    void updatingAPlayerMovesItBetweenPostings() {
+        index.onSaved(player(1L, 10L, 100L, "Diamond", "Mid", "VN", "AVAILABLE", "15"));
+
+        GamePlayerFacetIndex.FacetResult result = index.query(Map.of(
+                GamePlayerFacetIndex.Facet.RANK, Set.of("Gold")), 10);
+        assertEquals(List.of(3L), result.ids());
+        assertEquals(Map.of("Diamond", 3, "Gold", 1), result.counts().get(GamePlayerFacetIndex.Facet.RANK));
+    }
+
+    private static Object[] row(Long id, Long userId, Long gameId, String rank, String role, String server,
+                                String status, String price) {
+        return new Object[]{id, userId, gameId, rank, role, server, status, new BigDecimal(price)};
+    }
+
+    private static GamePlayer player(Long id, Long userId, Long gameId, String rank, String role, String server,
+                                     String status, String price) {
+        User user = new User();
+        user.setId(userId);
+        Game game = new Game();
+        game.setId(gameId);
+        GamePlayer gamePlayer = new GamePlayer();
+        gamePlayer.setId(id);
+        gamePlayer.setUser(user);
+        gamePlayer.setGame(game);
+        gamePlayer.setRank(rank);
+        gamePlayer.setRole(role);
+        gamePlayer.setServer(server);
+        gamePlayer.setStatus(status);
+        gamePlayer.setPricePerHour(new BigDecimal(price));
+        return gamePlayer;
+    }
+}
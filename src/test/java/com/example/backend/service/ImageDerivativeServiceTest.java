@@ -0,0 +1,85 @@
+package com.example.backend.service;
+
+import com.example.backend.storage.BlobStorage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ImageDerivativeServiceTest {
+    private final BlobStorage storage = mock(BlobStorage.class);
+    private ImageDerivativeService service;
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void generatesEverySizeForDecodableImage() throws IOException {
+        service = new ImageDerivativeService(storage, 1, 10, 10_000);
+        when(storage.openRange("moment-images/a.png", 0, -1)).thenReturn(new ByteArrayInputStream(png(80, 60)));
+
+        service.scheduleDerivatives("moment-images/a.png");
+
+        verify(storage, timeout(5000).times(3)).put(anyString(), any(), eq("image/jpeg"));
+        assertFalse(service.hasFailed("moment-images/a.png"));
+    }
+
+    @Test
+    void imageAbovePixelLimitIsRejectedBeforeDecodingAndNotQueuedAgain() throws IOException {
+        service = new ImageDerivativeService(storage, 1, 10, 1_000);
+        when(storage.openRange("moment-images/big.png", 0, -1)).thenReturn(new ByteArrayInputStream(png(80, 60)));
+
+        service.scheduleDerivatives("moment-images/big.png");
+        verify(storage, timeout(5000)).openRange("moment-images/big.png", 0, -1);
+        waitUntilFailed("moment-images/big.png");
+
+        service.scheduleDerivatives("moment-images/big.png");
+        verify(storage, after(200).times(1)).openRange("moment-images/big.png", 0, -1);
+        verify(storage, never()).put(anyString(), any(), anyString());
+    }
+
+    @Test
+    void undecodableImageIsRemembered() throws IOException {
+        service = new ImageDerivativeService(storage, 1, 10, 10_000);
+        when(storage.openRange("moment-images/broken.jpg", 0, -1))
+                .thenReturn(new ByteArrayInputStream(new byte[]{(byte) 0xFF, (byte) 0xD8, 1, 2, 3}));
+
+        service.scheduleDerivatives("moment-images/broken.jpg");
+
+        waitUntilFailed("moment-images/broken.jpg");
+        verify(storage, never()).put(anyString(), any(), anyString());
+    }
+
+    private void waitUntilFailed(String path) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!service.hasFailed(path) && System.currentTimeMillis() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertTrue(service.hasFailed(path));
+    }
+
+    private static byte[] png(int width, int height) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", out);
+        return out.toByteArray();
+    }
+}
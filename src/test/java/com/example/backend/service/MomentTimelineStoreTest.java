@@ -0,0 +1,131 @@
+package com.example.backend.service;
+
+import com.example.backend.dto.MomentCursor;
+import com.example.backend.repository.MomentRepository;
+import com.example.backend.repository.PlayerFollowRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MomentTimelineStoreTest {
+    private static final Long USER_ID = 1L;
+    private static final Long PLAYER_ID = 10L;
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private MomentRepository momentRepository;
+    private PlayerFollowRepository playerFollowRepository;
+    private PopularPlayerLeaderboard leaderboard;
+
+    @BeforeEach
+    void setUp() {
+        momentRepository = mock(MomentRepository.class);
+        playerFollowRepository = mock(PlayerFollowRepository.class);
+        leaderboard = mock(PopularPlayerLeaderboard.class);
+        when(playerFollowRepository.findFollowedGamePlayerIds(USER_ID)).thenReturn(List.of(PLAYER_ID));
+        when(playerFollowRepository.findFollowerIds(PLAYER_ID)).thenReturn(List.of(USER_ID));
+    }
+
+    @Test
+    void pagesThroughTimelineByCursor() {
+        storedMoments(1, 2, 3, 4);
+        MomentTimelineStore store = store(10);
+
+        MomentTimelineStore.FeedSlice first = store.page(USER_ID, MomentCursor.FIRST, 3);
+        assertEquals(List.of(4L, 3L, 2L), first.momentIds());
+        assertEquals(cursorOf(2), first.next());
+
+        MomentTimelineStore.FeedSlice second = store.page(USER_ID, first.next(), 3);
+        assertEquals(List.of(1L), second.momentIds());
+        assertNull(second.next());
+        assertFalse(second.hasMore());
+    }
+
+    @Test
+    void publishedMomentIsInsertedInOrder() {
+        storedMoments(1, 3);
+        MomentTimelineStore store = store(10);
+        store.page(USER_ID, MomentCursor.FIRST, 5);
+
+        store.onMomentPublished(PLAYER_ID, 5L, at(5));
+        // Moment đăng lại có thời điểm cũ hơn vẫn vào đúng chỗ, đăng trùng không nhân đôi
+        store.onMomentPublished(PLAYER_ID, 2L, at(2));
+        store.onMomentPublished(PLAYER_ID, 5L, at(5));
+
+        assertEquals(List.of(5L, 3L, 2L, 1L), store.page(USER_ID, MomentCursor.FIRST, 5).momentIds());
+
+        store.onMomentWithdrawn(PLAYER_ID, 3L);
+        assertEquals(List.of(5L, 2L, 1L), store.page(USER_ID, MomentCursor.FIRST, 5).momentIds());
+    }
+
+    @Test
+    void truncatedTimelineServesOnlyWhatItStillHolds() {
+        storedMoments(1, 2, 3, 4, 5, 6);
+        MomentTimelineStore store = store(4);
+
+        // Giữ 4 moment mới nhất (6, 5, 4, 3): trang đầu 2 moment đọc được từ timeline
+        MomentTimelineStore.FeedSlice first = store.page(USER_ID, MomentCursor.FIRST, 2);
+        assertEquals(List.of(6L, 5L), first.momentIds());
+        assertTrue(first.hasMore());
+
+        // Trang sau cần 3 moment (2 + 1 để biết còn nữa) nhưng chỉ còn 4, 3: phải đọc DB
+        assertNull(store.page(USER_ID, cursorOf(5), 2));
+        // Trang lớn hơn capacity không bao giờ đọc từ timeline
+        assertNull(store.page(USER_ID, MomentCursor.FIRST, 4));
+
+        // Moment mới đẩy moment cũ nhất ra ngoài
+        store.onMomentPublished(PLAYER_ID, 7L, at(7));
+        assertEquals(List.of(7L, 6L, 5L), store.page(USER_ID, MomentCursor.FIRST, 3).momentIds());
+        assertNull(store.page(USER_ID, cursorOf(5), 1));
+    }
+
+    @Test
+    void followChangeDropsTimeline() {
+        storedMoments(1, 2);
+        MomentTimelineStore store = store(10);
+        assertEquals(List.of(2L, 1L), store.page(USER_ID, MomentCursor.FIRST, 5).momentIds());
+
+        when(playerFollowRepository.findFollowedGamePlayerIds(USER_ID)).thenReturn(List.of());
+        store.onFollowChanged(USER_ID);
+
+        assertEquals(List.of(), store.page(USER_ID, MomentCursor.FIRST, 5).momentIds());
+    }
+
+    private MomentTimelineStore store(int capacity) {
+        return new MomentTimelineStore(momentRepository, playerFollowRepository, leaderboard, capacity, 100, 2000);
+    }
+
+    // Moment có id i được tạo lúc START + i phút; DB trả về mới nhất trước như truy vấn thật
+    private void storedMoments(int... ids) {
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = ids.length - 1; i >= 0; i--) {
+            rows.add(new Object[]{(long) ids[i], at(ids[i])});
+        }
+        when(momentRepository.findTimelineRefsBefore(eq(List.of(PLAYER_ID)), eq("ACTIVE"), any(), anyLong(), any()))
+                .thenAnswer(invocation -> {
+                    int size = invocation.<Pageable>getArgument(4).getPageSize();
+                    return rows.subList(0, Math.min(size, rows.size()));
+                });
+    }
+
+    private static MomentCursor cursorOf(long id) {
+        return new MomentCursor(at(id), id);
+    }
+
+    private static LocalDateTime at(long id) {
+        return START.plusMinutes(id);
+    }
+}
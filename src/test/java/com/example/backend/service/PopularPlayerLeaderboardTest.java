@@ -0,0 +1,86 @@
+package com.example.backend.service;
+
+import com.example.backend.entity.PlayerPopularitySnapshot;
+import com.example.backend.repository.GamePlayerRepository;
+import com.example.backend.repository.PlayerFollowRepository;
+import com.example.backend.repository.PlayerPopularitySnapshotRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PopularPlayerLeaderboardTest {
+    private GamePlayerRepository gamePlayerRepository;
+    private PopularPlayerLeaderboard leaderboard;
+
+    @BeforeEach
+    void setUp() {
+        gamePlayerRepository = mock(GamePlayerRepository.class);
+        PlayerPopularitySnapshotRepository snapshotRepository = mock(PlayerPopularitySnapshotRepository.class);
+        when(gamePlayerRepository.findLeaderboardRows()).thenReturn(List.of(
+                new Object[]{1L, "alpha", "AVAILABLE", 45.0, 10L},
+                new Object[]{2L, "bravo", "AVAILABLE", 40.0, 10L},
+                new Object[]{3L, "charlie", "AVAILABLE", 30.0, 10L},
+                new Object[]{4L, "delta", "BUSY", 50.0, 10L}));
+        when(snapshotRepository.findAll()).thenReturn(List.of(
+                snapshot(1L, 5), snapshot(2L, 5), snapshot(3L, 2), snapshot(4L, 9)));
+        leaderboard = new PopularPlayerLeaderboard(gamePlayerRepository, mock(PlayerFollowRepository.class),
+                snapshotRepository);
+        leaderboard.loadFromDatabase();
+    }
+
+    @Test
+    void ranksByFollowersThenAverageRatingAndSkipsIneligiblePlayers() {
+        assertEquals(List.of(1L, 2L, 3L), topIds());
+        assertNull(leaderboard.find(4L));
+        assertEquals(9, leaderboard.followerCount(4L));
+    }
+
+    @Test
+    void followAndUnfollowRepositionPlayer() {
+        leaderboard.onFollowAdded(3L);
+        leaderboard.onFollowAdded(3L);
+        leaderboard.onFollowAdded(3L);
+        leaderboard.onFollowAdded(3L);
+        assertEquals(List.of(3L, 1L, 2L), topIds());
+        assertEquals(6, leaderboard.find(3L).followerCount());
+
+        leaderboard.onFollowRemoved(1L);
+        leaderboard.onFollowRemoved(3L);
+        assertEquals(List.of(2L, 3L, 1L), topIds());
+    }
+
+    @Test
+    void reviewChangeReordersPlayersWithEqualFollowers() {
+        when(gamePlayerRepository.findRatingAggregate(2L)).thenReturn(List.<Object[]>of(
+                new Object[]{55.0, 11L, 0L, 0L, 0L, 0L, 11L}));
+        leaderboard.onReviewChanged(2L);
+
+        assertEquals(List.of(2L, 1L, 3L), topIds());
+        assertEquals(5.0, leaderboard.find(2L).averageRating(), 1e-9);
+    }
+
+    @Test
+    void unfollowNeverGoesBelowZero() {
+        leaderboard.onFollowRemoved(3L);
+        leaderboard.onFollowRemoved(3L);
+        leaderboard.onFollowRemoved(3L);
+        assertEquals(0, leaderboard.find(3L).followerCount());
+    }
+
+    private List<Long> topIds() {
+        return leaderboard.top(10, 0).stream().map(PopularPlayerLeaderboard.Entry::gamePlayerId).toList();
+    }
+
+    private static PlayerPopularitySnapshot snapshot(Long gamePlayerId, long followerCount) {
+        PlayerPopularitySnapshot snapshot = new PlayerPopularitySnapshot();
+        snapshot.setGamePlayerId(gamePlayerId);
+        snapshot.setFollowerCount(followerCount);
+        return snapshot;
+    }
+}
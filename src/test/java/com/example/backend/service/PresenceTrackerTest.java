@@ -0,0 +1,34 @@
+package com.example.backend.service;
+
+import com.example.backend.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PresenceTrackerTest {
+
+    @Test
+    void failedFlushIsRetriedOnNextFlush() {
+        UserRepository userRepository = mock(UserRepository.class);
+        when(userRepository.markActive(any(), any()))
+                .thenThrow(new IllegalStateException("database unavailable"))
+                .thenReturn(1);
+        PresenceTracker tracker = new PresenceTracker(userRepository);
+        tracker.heartbeat(7L);
+
+        assertThrows(IllegalStateException.class, tracker::flush);
+        tracker.flush();
+        tracker.flush();
+
+        verify(userRepository, times(2)).markActive(eq(List.of(7L)), any(LocalDateTime.class));
+    }
+}
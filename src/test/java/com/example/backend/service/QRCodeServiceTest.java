@@ -0,0 +1,55 @@
+package com.example.backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class QRCodeServiceTest {
+
+    @Test
+    void sameContentAndSizeIsServedFromCache() throws Exception {
+        QRCodeService service = new QRCodeService(4);
+
+        QRCodeService.QRImage first = service.renderPng("momo://payment?amount=1", 200, 200);
+
+        assertSame(first, service.renderPng("momo://payment?amount=1", 200, 200));
+        assertNotSame(first, service.renderPng("momo://payment?amount=1", 300, 300));
+    }
+
+    @Test
+    void leastRecentlyUsedEntryIsEvictedAtMaxEntries() throws Exception {
+        QRCodeService service = new QRCodeService(2);
+
+        QRCodeService.QRImage a = service.renderPng("a", 120, 120);
+        QRCodeService.QRImage b = service.renderPng("b", 120, 120);
+        assertSame(a, service.renderPng("a", 120, 120));
+        service.renderPng("c", 120, 120);
+
+        // "b" ít được dùng gần đây nhất nên bị đẩy ra, "a" vừa được truy cập nên còn trong cache
+        assertSame(a, service.renderPng("a", 120, 120));
+        assertNotSame(b, service.renderPng("b", 120, 120));
+    }
+
+    @Test
+    void etagForMatchesRenderedImage() throws Exception {
+        QRCodeService service = new QRCodeService(4);
+
+        QRCodeService.QRImage image = service.renderPng("zalopay://payment?amount=5", 250, 250);
+
+        assertEquals(QRCodeService.etagFor("zalopay://payment?amount=5", 250, 250), image.etag());
+        assertNotEquals(QRCodeService.etagFor("zalopay://payment?amount=5", 250, 251), image.etag());
+        assertEquals(250, decode(image.png()).getWidth());
+    }
+
+    private static BufferedImage decode(byte[] png) throws IOException {
+        return ImageIO.read(new ByteArrayInputStream(png));
+    }
+}
@@ -0,0 +1,164 @@
+package com.example.backend.service;
+
+import com.example.backend.entity.UserMedia;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class RemoteImageImportServiceTest {
+    private static final int MAX_BYTES = 1024;
+    private static final byte[] PNG_HEADER = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private UserMediaService userMediaService;
+    private RemoteImageImportService service;
+    private HttpServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/small.png", exchange -> {
+            requests.incrementAndGet();
+            exchange.sendResponseHeaders(200, PNG_HEADER.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(PNG_HEADER);
+            }
+        });
+        server.createContext("/declared-large.png", exchange -> {
+            requests.incrementAndGet();
+            exchange.sendResponseHeaders(200, MAX_BYTES * 4L);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(PNG_HEADER);
+                out.write(new byte[MAX_BYTES * 4 - PNG_HEADER.length]);
+            } catch (IOException e) {
+                // Client đã cắt kết nối
+            }
+        });
+        server.createContext("/chunked-large.png", exchange -> {
+            requests.incrementAndGet();
+            // Không khai báo Content-Length: chỉ bộ đếm byte khi đọc mới chặn được
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(PNG_HEADER);
+                for (int i = 0; i < 64; i++) {
+                    out.write(new byte[MAX_BYTES]);
+                    out.flush();
+                }
+            } catch (IOException e) {
+                // Client đã cắt kết nối
+            }
+        });
+        server.start();
+
+        userMediaService = mock(UserMediaService.class);
+        service = new RemoteImageImportService(userMediaService, 3000, 2, 10);
+        ReflectionTestUtils.setField(service, "readTimeoutMs", 5000L);
+        ReflectionTestUtils.setField(service, "maxBytes", (long) MAX_BYTES);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+        server.stop(0);
+    }
+
+    @Test
+    void loopbackAndPrivateAddressesAreBlocked() throws IOException {
+        for (String address : List.of("127.0.0.1", "::1", "10.1.2.3", "172.16.0.1", "192.168.1.1", "169.254.169.254",
+                "100.64.0.1", "0.0.0.0", "fc00::1", "fe80::1", "224.0.0.1")) {
+            assertTrue(RemoteImageImportService.isBlockedAddress(InetAddress.getByName(address)), address);
+        }
+        for (String address : List.of("93.184.216.34", "8.8.8.8", "2606:4700::1111")) {
+            assertFalse(RemoteImageImportService.isBlockedAddress(InetAddress.getByName(address)), address);
+        }
+    }
+
+    @Test
+    void loopbackUrlIsRejectedWithoutConnecting() {
+        for (String host : List.of("127.0.0.1", "localhost", "[::1]")) {
+            String message = failure(service.submit(1L, UserMedia.AVATAR, url(host, "/small.png")));
+            assertEquals("Image host is not allowed", message, host);
+        }
+        assertEquals(0, requests.get());
+        verify(userMediaService, never()).store(anyLong(), anyString(), any(), anyString());
+    }
+
+    @Test
+    void importStoresImageFromAllowedHost() throws Exception {
+        allowLoopback();
+
+        RemoteImageImportService.ImportJob job = service.submit(1L, UserMedia.AVATAR, url("127.0.0.1", "/small.png"));
+
+        assertEquals("image/png", job.getResult().get(5, TimeUnit.SECONDS));
+        verify(userMediaService).store(eq(1L), eq(UserMedia.AVATAR), any(), eq("image/png"));
+    }
+
+    @Test
+    void hostIsResolvedOffTheEventLoop() throws Exception {
+        Set<String> resolvingThreads = ConcurrentHashMap.newKeySet();
+        ReflectionTestUtils.setField(service, "blockedAddress", (Predicate<InetAddress>) address -> {
+            resolvingThreads.add(Thread.currentThread().getName());
+            return false;
+        });
+
+        RemoteImageImportService.ImportJob job = service.submit(1L, UserMedia.AVATAR, url("localhost", "/small.png"));
+
+        assertEquals("image/png", job.getResult().get(5, TimeUnit.SECONDS));
+        // Lần kiểm tra sớm chạy trên luồng import, lần kiểm tra lúc kết nối chạy trên luồng resolve riêng
+        assertTrue(resolvingThreads.stream().anyMatch(name -> name.startsWith("remote-image-resolve-")),
+                resolvingThreads.toString());
+        assertTrue(resolvingThreads.stream().allMatch(name -> name.startsWith("remote-image-")),
+                resolvingThreads.toString());
+    }
+
+    @Test
+    void oversizedBodyIsCutOff() {
+        allowLoopback();
+
+        for (String path : List.of("/declared-large.png", "/chunked-large.png")) {
+            String message = failure(service.submit(1L, UserMedia.AVATAR, url("127.0.0.1", path)));
+            assertEquals("Image is larger than " + MAX_BYTES + " bytes", message, path);
+        }
+        verify(userMediaService, never()).store(anyLong(), anyString(), any(), anyString());
+    }
+
+    // Máy chủ thử nghiệm chạy trên loopback: cho phép riêng trong test để kiểm tra giới hạn dung lượng
+    private void allowLoopback() {
+        ReflectionTestUtils.setField(service, "blockedAddress", (Predicate<InetAddress>) address -> false);
+    }
+
+    private String url(String host, String path) {
+        return "http://" + host + ":" + server.getAddress().getPort() + path;
+    }
+
+    private static String failure(RemoteImageImportService.ImportJob job) {
+        ExecutionException e = assertThrows(ExecutionException.class, () -> job.getResult().get(10, TimeUnit.SECONDS));
+        return e.getCause().getMessage();
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.backend.service;
+
+import com.example.backend.entity.FileMetadata;
+import com.example.backend.repository.FileMetadataRepository;
+import com.example.backend.storage.BlobStorage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StaticMediaServiceTest {
+    private static final String PATH = "moment-images/0123abcd-0123-0123-0123-0123456789ab.jpg";
+    private static final long LAST_MODIFIED = 1_700_000_000_000L;
+    private static final String SHA256 = "ab".repeat(32);
+
+    private FileStorageService fileStorageService;
+    private FileMetadataRepository fileMetadataRepository;
+    private StaticMediaService service;
+
+    @BeforeEach
+    void setUp() {
+        fileStorageService = mock(FileStorageService.class);
+        fileMetadataRepository = mock(FileMetadataRepository.class);
+        service = new StaticMediaService(fileStorageService, fileMetadataRepository, mock(ImageDerivativeService.class));
+        when(fileStorageService.stat(PATH)).thenReturn(new BlobStorage.BlobInfo(100, LAST_MODIFIED));
+        when(fileStorageService.localPath(PATH)).thenReturn(Optional.empty());
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void fileWithoutHashIsServedWithoutETagWhileHashingInBackground() throws Exception {
+        when(fileMetadataRepository.findByPath(PATH)).thenReturn(Optional.empty());
+        when(fileStorageService.computeMetadata(PATH)).thenReturn(metadata());
+
+        ResponseEntity<?> first = service.serve(PATH, request());
+        assertEquals(HttpStatus.OK, first.getStatusCode());
+        assertNull(first.getHeaders().getETag());
+        assertEquals(LAST_MODIFIED, first.getHeaders().getLastModified());
+
+        verify(fileStorageService, timeout(5000)).computeMetadata(PATH);
+        long deadline = System.currentTimeMillis() + 5000;
+        String etag = null;
+        while (etag == null && System.currentTimeMillis() < deadline) {
+            etag = service.serve(PATH, request()).getHeaders().getETag();
+        }
+        assertEquals("\"" + SHA256 + "\"", etag);
+    }
+
+    @Test
+    void rangeIsHonouredOnlyWhenIfRangeMatches() throws Exception {
+        when(fileMetadataRepository.findByPath(PATH)).thenReturn(Optional.of(metadata()));
+
+        MockHttpServletRequest matching = request();
+        matching.addHeader(HttpHeaders.RANGE, "bytes=0-9");
+        matching.addHeader(HttpHeaders.IF_RANGE, "\"" + SHA256 + "\"");
+        ResponseEntity<?> partial = service.serve(PATH, matching);
+        assertEquals(HttpStatus.PARTIAL_CONTENT, partial.getStatusCode());
+        assertEquals("bytes 0-9/100", partial.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+
+        MockHttpServletRequest stale = request();
+        stale.addHeader(HttpHeaders.RANGE, "bytes=0-9");
+        stale.addHeader(HttpHeaders.IF_RANGE, "\"0000\"");
+        ResponseEntity<?> full = service.serve(PATH, stale);
+        assertEquals(HttpStatus.OK, full.getStatusCode());
+        assertEquals(100, full.getHeaders().getContentLength());
+        assertNull(full.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+    }
+
+    @Test
+    void ifRangeDateMustEqualLastModified() {
+        MockHttpServletRequest request = request();
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-9");
+        request.addHeader(HttpHeaders.IF_RANGE, httpDate(LAST_MODIFIED));
+        assertTrue(StaticMediaService.ifRangeMatches(request, null, LAST_MODIFIED));
+        assertFalse(StaticMediaService.ifRangeMatches(request, null, LAST_MODIFIED + 60_000));
+
+        MockHttpServletRequest weak = request();
+        weak.addHeader(HttpHeaders.RANGE, "bytes=0-9");
+        weak.addHeader(HttpHeaders.IF_RANGE, "W/\"" + SHA256 + "\"");
+        assertFalse(StaticMediaService.ifRangeMatches(weak, "\"" + SHA256 + "\"", LAST_MODIFIED));
+    }
+
+    private static MockHttpServletRequest request() {
+        return new MockHttpServletRequest("GET", "/uploads/" + PATH);
+    }
+
+    private static FileMetadata metadata() {
+        FileMetadata metadata = new FileMetadata();
+        metadata.setPath(PATH);
+        metadata.setSha256(SHA256);
+        metadata.setSize(100L);
+        metadata.setLastModified(LAST_MODIFIED);
+        return metadata;
+    }
+
+    private static String httpDate(long epochMillis) {
+        return DateTimeFormatter.RFC_1123_DATE_TIME.format(Instant.ofEpochMilli(epochMillis).atZone(ZoneOffset.UTC));
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.backend.service;
+
+import com.example.backend.entity.User;
+import com.example.backend.repository.GamePlayerRepository;
+import com.example.backend.repository.GameRepository;
+import com.example.backend.repository.UserRepository;
+import com.example.backend.entity.Game;
+import com.example.backend.entity.GamePlayer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TypeaheadIndexTest {
+    private GamePlayerRepository gamePlayerRepository;
+    private GameRepository gameRepository;
+    private PopularPlayerLeaderboard leaderboard;
+    private TypeaheadIndex index;
+
+    @BeforeEach
+    void setUp() {
+        gamePlayerRepository = mock(GamePlayerRepository.class);
+        UserRepository userRepository = mock(UserRepository.class);
+        gameRepository = mock(GameRepository.class);
+        leaderboard = mock(PopularPlayerLeaderboard.class);
+        when(gameRepository.findTypeaheadRows()).thenReturn(List.<Object[]>of(
+                new Object[]{1L, "Liên Quân Mobile", "MOBA"}));
+        when(userRepository.findTypeaheadRows()).thenReturn(List.of(
+                new Object[]{10L, "Nguyễn Đức Anh", "ducanh"},
+                new Object[]{11L, "Trần Thị Ánh", "anhtt"}));
+        index = new TypeaheadIndex(gamePlayerRepository, gameRepository, userRepository, leaderboard,
+                mock(GamePlayerFacetIndex.class), mock(BanStateCache.class));
+        ReflectionTestUtils.setField(index, "maxScan", 5000);
+        ReflectionTestUtils.setField(index, "topKTtlMs", 60000L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        index.shutdown();
+    }
+
+    @Test
+    void normalizeStripsVietnameseDiacritics() {
+        assertEquals("nguyen duc anh", TypeaheadIndex.normalize("Nguyễn  Đức-Anh!"));
+        assertEquals("lien quan mobile", TypeaheadIndex.normalize("LIÊN QUÂN Mobile"));
+    }
+
+    @Test
+    void matchesPrefixOfAnyWordIgnoringDiacritics() {
+        index.loadFromDatabase();
+
+        assertEquals(List.of(10L), ids(index.query("Đức", 10, Set.of())));
+        assertEquals(List.of(10L), ids(index.query("duc a", 10, Set.of())));
+        assertEquals(List.of(1L), ids(index.query("quân", 10, Set.of())));
+        // Cả "Anh" và "Ánh" đều khớp "anh"; nhãn bắt đầu bằng tiền tố không có ở đây nên xếp theo độ dài nhãn
+        assertEquals(List.of(11L, 10L), ids(index.query("ANH", 10, Set.of())));
+        assertEquals(List.of(), ids(index.query("anh", 10, Set.of(TypeaheadIndex.Type.GAME))));
+    }
+
+    @Test
+    void labelStartingWithPrefixRanksBeforeMorePopularLabels() {
+        when(gameRepository.findTypeaheadRows()).thenReturn(List.<Object[]>of(
+                new Object[]{2L, "Anh Hùng Xạ Điêu", "MMO"}));
+        // User 10 sở hữu player có nhiều người theo dõi nên phổ biến hơn, nhưng nhãn không bắt đầu bằng "anh"
+        when(gamePlayerRepository.findTypeaheadRows()).thenReturn(List.<Object[]>of(
+                new Object[]{100L, "zed", 10L, "Anh Hùng Xạ Điêu", "AVAILABLE"}));
+        when(leaderboard.followerCount(100L)).thenReturn(100L);
+        index.loadFromDatabase();
+
+        List<TypeaheadIndex.Item> items = index.query("anh", 10, Set.of());
+        assertEquals(List.of(TypeaheadIndex.Type.GAME, TypeaheadIndex.Type.USER, TypeaheadIndex.Type.USER),
+                items.stream().map(TypeaheadIndex.Item::type).toList());
+        assertEquals(List.of(2L, 10L, 11L), ids(items));
+    }
+
+    @Test
+    void prefixMatchingMoreThanMaxScanKeysStillFindsMostPopular() {
+        List<Object[]> players = new ArrayList<>();
+        for (long id = 100; id < 130; id++) {
+            players.add(new Object[]{id, "ace" + id, id, "Liên Quân Mobile", "AVAILABLE"});
+        }
+        when(gamePlayerRepository.findTypeaheadRows()).thenReturn(players);
+        // Player xếp cuối theo thứ tự chữ cái là player phổ biến nhất
+        when(leaderboard.followerCount(129L)).thenReturn(1000L);
+        when(leaderboard.followerCount(128L)).thenReturn(500L);
+        ReflectionTestUtils.setField(index, "maxScan", 5);
+        index.loadFromDatabase();
+
+        // Lần đầu chỉ xếp hạng max-scan khóa đầu, top-K đầy đủ được dựng ở nền
+        assertEquals(2, index.query("a", 2, Set.of(TypeaheadIndex.Type.PLAYER)).size());
+        waitForQuery("a", List.of(129L, 128L));
+    }
+
+    @Test
+    void cachedTopKIsPatchedOnWriteInsteadOfDropped() {
+        List<Object[]> players = new ArrayList<>();
+        for (long id = 100; id < 130; id++) {
+            players.add(new Object[]{id, "ace" + id, id, "Liên Quân Mobile", "AVAILABLE"});
+        }
+        when(gamePlayerRepository.findTypeaheadRows()).thenReturn(players);
+        when(leaderboard.followerCount(129L)).thenReturn(1000L);
+        when(leaderboard.followerCount(128L)).thenReturn(500L);
+        ReflectionTestUtils.setField(index, "maxScan", 5);
+        index.loadFromDatabase();
+        index.query("a", 2, Set.of(TypeaheadIndex.Type.PLAYER));
+        waitForQuery("a", List.of(129L, 128L));
+        // Không cho dựng lại: mọi thay đổi sau đây phải thấy ngay qua bản vá
+        index.shutdown();
+
+        index.onPlayerRemoved(129L);
+        assertEquals(List.of(128L), ids(index.query("a", 1, Set.of(TypeaheadIndex.Type.PLAYER))));
+
+        when(leaderboard.followerCount(200L)).thenReturn(2000L);
+        index.onPlayerSaved(player(200L, "ace200"));
+        assertEquals(List.of(200L, 128L), ids(index.query("a", 2, Set.of(TypeaheadIndex.Type.PLAYER))));
+
+        // Đổi tên không còn khớp tiền tố: player rời top-K
+        index.onPlayerSaved(player(200L, "zed200"));
+        assertEquals(List.of(128L), ids(index.query("a", 1, Set.of(TypeaheadIndex.Type.PLAYER))));
+    }
+
+    @Test
+    void clearingFullNameRemovesUserLabel() {
+        index.loadFromDatabase();
+        User user = new User();
+        user.setId(10L);
+        user.setUsername("ducanh");
+
+        index.onUserSaved(user);
+
+        assertEquals(List.of(), ids(index.query("duc", 10, Set.of())));
+    }
+
+    private void waitForQuery(String q, List<Long> expected) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!ids(index.query(q, expected.size(), Set.of(TypeaheadIndex.Type.PLAYER))).equals(expected)
+                && System.currentTimeMillis() < deadline) {
+            Thread.onSpinWait();
+        }
+        assertEquals(expected, ids(index.query(q, expected.size(), Set.of(TypeaheadIndex.Type.PLAYER))));
+    }
+
+    private static GamePlayer player(Long id, String username) {
+        Game game = new Game();
+        game.setName("Liên Quân Mobile");
+        User owner = new User();
+        owner.setId(id);
+        GamePlayer gamePlayer = new GamePlayer();
+        gamePlayer.setId(id);
+        gamePlayer.setUsername(username);
+        gamePlayer.setGame(game);
+        gamePlayer.setUser(owner);
+        gamePlayer.setStatus("AVAILABLE");
+        return gamePlayer;
+    }
+
+    private static List<Long> ids(List<TypeaheadIndex.Item> items) {
+        return items.stream().map(TypeaheadIndex.Item::id).toList();
+    }
+}
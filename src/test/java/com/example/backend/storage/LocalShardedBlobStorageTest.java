@@ -0,0 +1,120 @@
+package com.example.backend.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LocalShardedBlobStorageTest {
+    private static final String HASHED_KEY = "moment-images/abcd1234.jpg";
+
+    @TempDir
+    Path root;
+
+    @TempDir
+    Path incoming;
+
+    private LocalShardedBlobStorage storage;
+
+    @BeforeEach
+    void setUp() {
+        storage = new LocalShardedBlobStorage(root.toString());
+    }
+
+    @Test
+    void putMovesFileIntoShardedDirectory() throws IOException {
+        Path source = write(incoming.resolve("upload.tmp"), "0123456789");
+
+        storage.put(HASHED_KEY, source, "image/jpeg");
+
+        Path stored = root.resolve("moment-images/ab/cd/abcd1234.jpg");
+        assertFalse(Files.exists(source));
+        assertTrue(Files.isRegularFile(stored));
+        assertEquals(Optional.of(stored), storage.localPath(HASHED_KEY));
+        assertEquals(10, storage.stat(HASHED_KEY).size());
+        assertEquals("234", read(storage.openRange(HASHED_KEY, 2, 3)));
+        assertEquals("789", read(storage.openRange(HASHED_KEY, 7, -1)));
+    }
+
+    @Test
+    void nonHashNamesAreShardedByHashOfTheName() throws IOException {
+        storage.put("avatars/avatar.png", write(incoming.resolve("upload.tmp"), "png"), "image/png");
+
+        Path stored = storage.localPath("avatars/avatar.png").orElseThrow();
+        assertEquals(root.resolve("avatars"), stored.getParent().getParent().getParent());
+        assertEquals(2, stored.getParent().getFileName().toString().length());
+    }
+
+    @Test
+    void legacyFlatFileIsReadListedAndDeleted() throws IOException {
+        Files.createDirectories(root.resolve("moment-images"));
+        write(root.resolve("moment-images/old-photo.jpg"), "legacy");
+        storage.put(HASHED_KEY, write(incoming.resolve("upload.tmp"), "new"), "image/jpeg");
+
+        assertEquals(6, storage.stat("moment-images/old-photo.jpg").size());
+        assertEquals("legacy", read(storage.openRange("moment-images/old-photo.jpg", 0, -1)));
+        assertEquals(Optional.of(root.resolve("moment-images/old-photo.jpg")),
+                storage.localPath("moment-images/old-photo.jpg"));
+
+        storage.delete("moment-images/old-photo.jpg");
+        assertNull(storage.stat("moment-images/old-photo.jpg"));
+        assertTrue(storage.exists(HASHED_KEY));
+    }
+
+    @Test
+    void listReturnsShardedAndLegacyFilesUnderTheirKeysAndSkipsTempFiles() throws IOException {
+        Files.createDirectories(root.resolve("moment-images/ab/cd"));
+        write(root.resolve("moment-images/old-photo.jpg"), "legacy");
+        write(root.resolve("moment-images/ab/cd/.put-123.tmp"), "partial");
+        storage.put(HASHED_KEY, write(incoming.resolve("upload.tmp"), "new"), "image/jpeg");
+        Files.createDirectories(root.resolve("avatars"));
+        write(root.resolve("avatars/other.png"), "other");
+
+        List<String> keys = new ArrayList<>();
+        storage.list("moment-images", entry -> keys.add(entry.key()));
+
+        assertEquals(List.of(HASHED_KEY, "moment-images/old-photo.jpg"), keys.stream().sorted().toList());
+        keys.clear();
+        storage.list("missing", entry -> keys.add(entry.key()));
+        assertEquals(List.of(), keys);
+    }
+
+    @Test
+    void keysEscapingTheUploadDirectoryAreRejected() throws IOException {
+        Path source = write(incoming.resolve("upload.tmp"), "x");
+
+        for (String key : List.of("../secret.txt", "moment-images/../../secret.txt", "/etc/passwd",
+                "moment-images\\..\\x.jpg", "..", "moment-images/..")) {
+            assertThrows(IllegalArgumentException.class, () -> storage.put(key, source, "image/jpeg"), key);
+            assertThrows(IllegalArgumentException.class, () -> storage.stat(key), key);
+            assertThrows(IllegalArgumentException.class, () -> storage.openRange(key, 0, -1), key);
+            assertThrows(IllegalArgumentException.class, () -> storage.delete(key), key);
+        }
+        assertThrows(IllegalArgumentException.class, () -> storage.list("..", entry -> { }));
+        assertTrue(Files.exists(source));
+    }
+
+    private static Path write(Path path, String content) throws IOException {
+        return Files.writeString(path, content, StandardCharsets.UTF_8);
+    }
+
+    private static String read(InputStream in) throws IOException {
+        try (in) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package com.example.backend.storage;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class S3BlobStorageTest {
+    private static final String BUCKET = "media";
+    private static final String REGION = "ap-southeast-1";
+    private static final String ACCESS_KEY = "test-access";
+    private static final String SECRET_KEY = "test-secret";
+    private static final Pattern AUTHORIZATION = Pattern.compile(
+            "AWS4-HMAC-SHA256 Credential=([^/]+)/(\\d{8})/([^/]+)/s3/aws4_request, "
+                    + "SignedHeaders=([^,]+), Signature=([0-9a-f]{64})");
+    private static final long LAST_MODIFIED = Instant.parse("2024-05-01T10:15:30Z").toEpochMilli();
+
+    // Stub S3 trong tiến trình: giữ object theo đường dẫn thô (đã encode) và ghi lại các request đã nhận
+    private final Map<String, byte[]> objects = new ConcurrentSkipListMap<>();
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+    private final List<String> ranges = new CopyOnWriteArrayList<>();
+    private final List<String> continuationTokens = new CopyOnWriteArrayList<>();
+    private HttpServer server;
+    private String endpoint;
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            try (exchange) {
+                handle(exchange);
+            }
+        });
+        server.start();
+        endpoint = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    void objectRequestsAreSignedAndRangeIsForwarded() throws IOException {
+        S3BlobStorage storage = storage(SECRET_KEY);
+        Path source = Files.write(tempDir.resolve("upload.tmp"), "0123456789".getBytes(StandardCharsets.US_ASCII));
+
+        storage.put("moment-images/a b.jpg", source, "image/jpeg");
+
+        assertFalse(Files.exists(source));
+        assertArrayEquals("0123456789".getBytes(StandardCharsets.US_ASCII), objects.get("/media/moment-images/a%20b.jpg"));
+
+        BlobStorage.BlobInfo info = storage.stat("moment-images/a b.jpg");
+        assertEquals(10, info.size());
+        assertEquals(LAST_MODIFIED, info.lastModified());
+
+        try (InputStream in = storage.openRange("moment-images/a b.jpg", 2, 3)) {
+            assertEquals("234", new String(in.readAllBytes(), StandardCharsets.US_ASCII));
+        }
+        try (InputStream in = storage.openRange("moment-images/a b.jpg", 7, -1)) {
+            assertEquals("789", new String(in.readAllBytes(), StandardCharsets.US_ASCII));
+        }
+        try (InputStream in = storage.openRange("moment-images/a b.jpg", 0, -1)) {
+            assertEquals("0123456789", new String(in.readAllBytes(), StandardCharsets.US_ASCII));
+        }
+        // Đọc cả file không gửi Range
+        assertEquals(List.of("bytes=2-4", "bytes=7-"), ranges);
+
+        storage.delete("moment-images/a b.jpg");
+        assertNull(storage.stat("moment-images/a b.jpg"));
+        assertThrows(IOException.class, () -> storage.openRange("moment-images/a b.jpg", 0, -1));
+
+        assertEquals(List.of("PUT", "HEAD", "GET", "GET", "GET", "DELETE", "HEAD", "GET"), requests);
+    }
+
+    @Test
+    void requestSignedWithWrongSecretIsRejected() throws IOException {
+        S3BlobStorage storage = storage("wrong-secret");
+        Path source = Files.write(tempDir.resolve("upload.tmp"), new byte[]{1, 2, 3});
+
+        assertThrows(IOException.class, () -> storage.put("moment-images/x.jpg", source, "image/jpeg"));
+        assertTrue(objects.isEmpty());
+    }
+
+    @Test
+    void listFollowsContinuationTokensAndSkipsTempFiles() throws IOException {
+        for (String key : List.of("aaaa.jpg", "bbbb.jpg", ".put-1.tmp", "cccc.png", "dddd.mp4")) {
+            objects.put("/media/moment-images/" + key, new byte[key.length()]);
+        }
+        objects.put("/media/avatars/eeee.jpg", new byte[1]);
+
+        List<BlobStorage.BlobEntry> entries = new ArrayList<>();
+        storage(SECRET_KEY).list("moment-images", entries::add);
+
+        assertEquals(List.of("moment-images/aaaa.jpg", "moment-images/bbbb.jpg", "moment-images/cccc.png",
+                "moment-images/dddd.mp4"), entries.stream().map(BlobStorage.BlobEntry::key).toList());
+        assertEquals(8, entries.get(0).size());
+        assertEquals(LAST_MODIFIED, entries.get(0).lastModified());
+        // Mỗi trang 2 object; token chứa "/" nên phải được encode đúng trong query đã ký
+        assertEquals(Arrays.asList(null, "moment-images/aaaa.jpg", "moment-images/cccc.png"), continuationTokens);
+    }
+
+    private S3BlobStorage storage(String secretKey) {
+        return new S3BlobStorage(endpoint + "/", BUCKET, REGION, ACCESS_KEY, secretKey);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String method = exchange.getRequestMethod();
+        requests.add(method);
+        if (!validSignature(exchange)) {
+            respond(exchange, 403, "<Error><Code>SignatureDoesNotMatch</Code></Error>".getBytes(StandardCharsets.UTF_8));
+            return;
+        }
+        String path = exchange.getRequestURI().getRawPath();
+        if (path.equals("/" + BUCKET)) {
+            listObjects(exchange);
+            return;
+        }
+        byte[] body = objects.get(path);
+        switch (method) {
+            case "PUT" -> {
+                objects.put(path, exchange.getRequestBody().readAllBytes());
+                respond(exchange, 200, new byte[0]);
+            }
+            case "HEAD" -> {
+                if (body == null) {
+                    exchange.sendResponseHeaders(404, -1);
+                    return;
+                }
+                exchange.getResponseHeaders().set("Content-Length", String.valueOf(body.length));
+                exchange.getResponseHeaders().set("Last-Modified",
+                        DateTimeFormatter.RFC_1123_DATE_TIME.format(Instant.ofEpochMilli(LAST_MODIFIED).atZone(ZoneOffset.UTC)));
+                exchange.sendResponseHeaders(200, -1);
+            }
+            case "GET" -> {
+                if (body == null) {
+                    respond(exchange, 404, new byte[0]);
+                    return;
+                }
+                String range = exchange.getRequestHeaders().getFirst("Range");
+                if (range == null) {
+                    respond(exchange, 200, body);
+                    return;
+                }
+                ranges.add(range);
+                String[] bounds = range.substring("bytes=".length()).split("-", -1);
+                int start = Integer.parseInt(bounds[0]);
+                int end = bounds[1].isEmpty() ? body.length - 1 : Integer.parseInt(bounds[1]);
+                respond(exchange, 206, Arrays.copyOfRange(body, start, end + 1));
+            }
+            case "DELETE" -> {
+                objects.remove(path);
+                exchange.sendResponseHeaders(204, -1);
+            }
+            default -> respond(exchange, 405, new byte[0]);
+        }
+    }
+
+    // ListObjectsV2 chia trang 2 object một lần, token là key cuối của trang trước
+    private void listObjects(HttpExchange exchange) throws IOException {
+        Map<String, String> params = new LinkedHashMap<>();
+        for (String pair : exchange.getRequestURI().getRawQuery().split("&")) {
+            String[] parts = pair.split("=", 2);
+            params.put(URLDecoder.decode(parts[0], StandardCharsets.UTF_8), URLDecoder.decode(parts[1], StandardCharsets.UTF_8));
+        }
+        String token = params.get("continuation-token");
+        continuationTokens.add(token);
+        String prefix = "/" + BUCKET + "/" + params.get("prefix");
+        List<String> keys = objects.keySet().stream()
+                .filter(path -> path.startsWith(prefix))
+                .map(path -> path.substring(BUCKET.length() + 2))
+                .filter(key -> token == null || key.compareTo(token) > 0)
+                .toList();
+        List<String> page = keys.subList(0, Math.min(2, keys.size()));
+        StringBuilder xml = new StringBuilder("<?xml version=\"1.0\" encoding=\"UTF-8\"?>")
+                .append("<ListBucketResult xmlns=\"http://s3.amazonaws.com/doc/2006-03-01/\">");
+        for (String key : page) {
+            xml.append("<Contents><Key>").append(key).append("</Key><LastModified>")
+                    .append(Instant.ofEpochMilli(LAST_MODIFIED)).append("</LastModified><Size>")
+                    .append(objects.get("/" + BUCKET + "/" + key).length).append("</Size></Contents>");
+        }
+        boolean truncated = keys.size() > page.size();
+        xml.append("<IsTruncated>").append(truncated).append("</IsTruncated>");
+        if (truncated) {
+            xml.append("<NextContinuationToken>").append(page.get(page.size() - 1)).append("</NextContinuationToken>");
+        }
+        xml.append("</ListBucketResult>");
+        respond(exchange, 200, xml.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.sendResponseHeaders(status, body.length > 0 ? body.length : -1);
+        if (body.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    // Tự tính lại chữ ký SigV4 từ request thực nhận được (đường dẫn và query thô trên đường truyền)
+    private static boolean validSignature(HttpExchange exchange) {
+        String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+        Matcher matcher = authorization != null ? AUTHORIZATION.matcher(authorization) : null;
+        if (matcher == null || !matcher.matches() || !ACCESS_KEY.equals(matcher.group(1))
+                || !REGION.equals(matcher.group(3))
+                || !"host;x-amz-content-sha256;x-amz-date".equals(matcher.group(4))) {
+            return false;
+        }
+        String amzDate = exchange.getRequestHeaders().getFirst("x-amz-date");
+        String payloadHash = exchange.getRequestHeaders().getFirst("x-amz-content-sha256");
+        String dateStamp = matcher.group(2);
+        if (amzDate == null || !amzDate.startsWith(dateStamp) || payloadHash == null) {
+            return false;
+        }
+        StringBuilder canonicalHeaders = new StringBuilder();
+        for (String name : matcher.group(4).split(";")) {
+            canonicalHeaders.append(name).append(':').append(exchange.getRequestHeaders().getFirst(name).trim()).append('\n');
+        }
+        String rawQuery = exchange.getRequestURI().getRawQuery();
+        String canonicalRequest = exchange.getRequestMethod() + "\n"
+                + exchange.getRequestURI().getRawPath() + "\n"
+                + (rawQuery != null ? rawQuery : "") + "\n"
+                + canonicalHeaders + "\n"
+                + matcher.group(4) + "\n"
+                + payloadHash;
+        String scope = dateStamp + "/" + REGION + "/s3/aws4_request";
+        String stringToSign = "AWS4-HMAC-SHA256\n" + amzDate + "\n" + scope + "\n" + sha256Hex(canonicalRequest);
+        byte[] key = hmac(("AWS4" + SECRET_KEY).getBytes(StandardCharsets.UTF_8), dateStamp);
+        key = hmac(key, REGION);
+        key = hmac(key, "s3");
+        key = hmac(key, "aws4_request");
+        return HexFormat.of().formatHex(hmac(key, stringToSign)).equals(matcher.group(5));
+    }
+
+    private static byte[] hmac(byte[] key, String data) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(key, "HmacSHA256"));
+            return mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String sha256Hex(String data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data.getBytes(StandardCharsets.UTF_8)));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}